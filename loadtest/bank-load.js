@@ -0,0 +1,63 @@
+// k6 load script: every virtual user is one concurrent client doing a deposit, a transfer
+// and an account read in a loop. VUS and DURATION come from the environment.
+import http from 'k6/http';
+import { check, fail } from 'k6';
+import exec from 'k6/execution';
+
+const BASE = __ENV.BASE_URL || 'http://localhost:8585/api/accounts';
+const ACCOUNTS = parseInt(__ENV.ACCOUNTS || '1000');
+const JSON_HEADERS = { 'Content-Type': 'application/json' };
+
+export const options = {
+    scenarios: {
+        clients: {
+            executor: 'constant-vus',
+            vus: parseInt(__ENV.VUS || '1000'),
+            duration: __ENV.DURATION || '2m',
+            gracefulStop: '10s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(99)', 'max'],
+    setupTimeout: '10m',
+};
+
+export function setup() {
+    const accounts = [];
+    for (let i = 0; i < ACCOUNTS; i++) {
+        const res = http.post(`${BASE}/create`, JSON.stringify({ holderName: `Load${i}` }), { headers: JSON_HEADERS });
+        const created = check(res, {
+            'account created': (r) => r.status === 200 && !!r.json('data.accountNumber'),
+        });
+        if (!created) {
+            // a broken setup would only show up as a run full of 404s
+            fail(`setup: account ${i} not created, status ${res.status}: ${res.body}`);
+        }
+        const number = res.json('data.accountNumber');
+        const funded = http.put(`${BASE}/${number}/deposit`, JSON.stringify({ amount: 1000000 }), { headers: JSON_HEADERS });
+        if (!check(funded, { 'account funded': (r) => r.status === 200 })) {
+            fail(`setup: deposit to ${number} failed, status ${funded.status}: ${funded.body}`);
+        }
+        accounts.push(number);
+    }
+    return { accounts };
+}
+
+export default function (data) {
+    const accounts = data.accounts;
+    const from = accounts[Math.floor(Math.random() * accounts.length)];
+    const to = accounts[Math.floor(Math.random() * accounts.length)];
+    const key = `${exec.vu.idInTest}-${exec.vu.iterationInScenario}`;
+
+    const deposit = http.put(`${BASE}/${from}/deposit`, JSON.stringify({ amount: 1 }),
+        { headers: Object.assign({ 'Idempotency-Key': `d-${key}` }, JSON_HEADERS), tags: { op: 'deposit' } });
+    check(deposit, { 'deposit ok': (r) => r.status === 200 });
+
+    if (from !== to) {
+        const transfer = http.post(`${BASE}/transfer`, JSON.stringify({ fromAccount: from, toAccount: to, amount: 1 }),
+            { headers: Object.assign({ 'Idempotency-Key': `t-${key}` }, JSON_HEADERS), tags: { op: 'transfer' } });
+        check(transfer, { 'transfer ok': (r) => r.status === 200 });
+    }
+
+    const read = http.get(`${BASE}/${to}`, { tags: { op: 'read' } });
+    check(read, { 'read ok': (r) => r.status === 200 });
+}
@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# Runs bank-load.js against the app in platform and virtual thread mode at 1k, 10k and 50k
+# concurrent clients and collects throughput and p99 latency in results.csv.
+# Needs: Java 21+ (virtual threads), k6, a MongoDB reachable at MONGO_URI, the app jar built
+# with ./mvnw -DskipTests package. Drop the database between runs for comparable numbers.
+set -euo pipefail
+
+JAR=${JAR:-target/BankApplication-0.0.1-SNAPSHOT.jar}
+MONGO_URI=${MONGO_URI:-mongodb://localhost:27017/bankapplication}
+DURATION=${DURATION:-2m}
+CLIENTS=${CLIENTS:-"1000 10000 50000"}
+POOL_SIZE=${POOL_SIZE:-200}
+OUT=${OUT:-loadtest/results.csv}
+
+echo "mode,clients,requests_per_second,p99_ms,failed_rate" > "$OUT"
+
+for mode in platform virtual; do
+  virtual=false
+  [ "$mode" = virtual ] && virtual=true
+  for clients in $CLIENTS; do
+    java -jar "$JAR" \
+      --spring.data.mongodb.uri="$MONGO_URI" \
+      --spring.threads.virtual.enabled=$virtual \
+      --bank.mongo.pool.max-size="$POOL_SIZE" \
+      --server.tomcat.max-connections=$((clients + 1000)) \
+      --server.tomcat.accept-count=10000 \
+      > "loadtest/app-$mode-$clients.log" 2>&1 &
+    app=$!
+    trap 'kill $app 2>/dev/null || true' EXIT
+    until curl -sf http://localhost:8585/actuator/health > /dev/null; do
+      kill -0 $app 2>/dev/null || { echo "app did not start, see loadtest/app-$mode-$clients.log" >&2; exit 1; }
+      sleep 1
+    done
+
+    k6 run --quiet -e VUS="$clients" -e DURATION="$DURATION" \
+      --summary-export "loadtest/summary-$mode-$clients.json" loadtest/bank-load.js
+
+    # requests per second, p99 in ms and share of failed requests from the k6 summary
+    python3 - "$mode" "$clients" "loadtest/summary-$mode-$clients.json" >> "$OUT" <<'PY'
+import json, sys
+mode, clients, path = sys.argv[1:]
+m = json.load(open(path))["metrics"]
+print(f'{mode},{clients},{m["http_reqs"]["rate"]:.0f},{m["http_req_duration"]["p(99)"]:.1f},{m["http_req_failed"]["value"]:.4f}')
+PY
+
+    kill $app
+    wait $app 2>/dev/null || true
+  done
+done
+
+cat "$OUT"
@@ -0,0 +1,67 @@
+package com.repository;
+
+import com.enums.AccountStatus;
+import com.model.Account;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+Account reads and balance changes of the in-memory repositories on a large account table, per call.
+Accounts are picked at random so most reads miss the CPU caches like they would with real traffic, and the
+account number is a new String each call like one parsed from a request (no cached hash, not the stored instance).
+Run with -prof gc to see what is still allocated per call (the Account handed back)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AccountTableBenchmark {
+    @Param({"1000000"})
+    int accounts;
+
+    InMemoryAccountRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        repository = new InMemoryAccountRepository();
+        repository.expectedAccounts = accounts;
+        repository.presize();
+        List<Account> seed = new ArrayList<>(accounts);
+        for(int i = 0; i < accounts; i++){
+            Account acc = new Account();
+            acc.setAccountNumber("BENC" + (1000 + i));
+            acc.setHolderName("Bench");
+            acc.setStatus(AccountStatus.ACTIVE);
+            acc.setCreatedAt(LocalDateTime.now());
+            seed.add(acc);
+        }
+        repository.insertAllUnordered(seed);
+    }
+
+    private String anyAccount(){
+        return "BENC" + (1000 + ThreadLocalRandom.current().nextInt(accounts));
+    }
+
+    @Benchmark
+    public boolean existsByAccountNumber(){
+        return repository.existsByAccountNumber(anyAccount());
+    }
+
+    @Benchmark
+    public Optional<Account> findByAccountNumber(){
+        return repository.findByAccountNumber(anyAccount());
+    }
+
+    @Benchmark
+    public Optional<Account> creditBalance(){
+        return repository.creditBalance(anyAccount(), 1);
+    }
+}
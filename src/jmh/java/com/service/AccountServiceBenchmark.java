@@ -0,0 +1,111 @@
+package com.service;
+
+import com.dto.DepositRequestDTO;
+import com.dto.TransactionResponseDTO;
+import com.dto.TransferRequestDTO;
+import com.dto.WithdrawRequestDTO;
+import com.enums.TransactionType;
+import com.model.Account;
+import com.repository.InMemoryAccountRepository;
+import com.repository.InMemoryTransactionRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Service hot paths on in-memory repositories, so the numbers are the service's own cost
+(validation, money conversion, id generation, mapping) without the database round trip.
+Lanes, deposit coalescing and the account cache are off, their defaults.
+Repositories are rebuilt every iteration so the stored transactions don't pile up across the run
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AccountServiceBenchmark {
+    static final int ACCOUNTS = 1000;
+    static final String HISTORY_ACCOUNT = "HIST1000";
+
+    @Param({"100"})
+    int historySize;
+
+    AccountService accountService;
+
+    DepositRequestDTO[] deposits;
+    WithdrawRequestDTO[] withdrawals;
+    TransferRequestDTO[] transfers;
+    int next;
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        accountService = new AccountService();
+        accountService.accountRepository = new InMemoryAccountRepository();
+        accountService.transactionRepository = new InMemoryTransactionRepository();
+        accountService.executionLanes = new AccountExecutionLanes();
+        accountService.depositCoalescer = new DepositCoalescer();
+        accountService.accountCache = new AccountCache();
+        accountService.accountFilter = new AccountExistenceFilter();
+        accountService.transactionWriter = new TransactionWriter();
+        accountService.stripedAccounts = new StripedAccounts();
+        accountService.dailyRollups = new DailyRollups();
+
+        BigDecimal amount = new BigDecimal("12.50");
+        deposits = new DepositRequestDTO[ACCOUNTS];
+        withdrawals = new WithdrawRequestDTO[ACCOUNTS];
+        transfers = new TransferRequestDTO[ACCOUNTS];
+        for(int i = 0; i < ACCOUNTS; i++){
+            // enough money that no withdrawal or transfer of the run fails
+            String accountNumber = "BENC" + (1000 + i);
+            Account acc = AccountService.newAccount("Bench", accountNumber);
+            acc.setBalance(Long.MAX_VALUE / 4);
+            accountService.accountRepository.insert(acc);
+
+            deposits[i] = new DepositRequestDTO();
+            deposits[i].setAccountNumber(accountNumber);
+            deposits[i].setAmount(amount);
+            withdrawals[i] = new WithdrawRequestDTO();
+            withdrawals[i].setAccountNumber(accountNumber);
+            withdrawals[i].setAmount(amount);
+            transfers[i] = new TransferRequestDTO();
+            transfers[i].setFromAccount(accountNumber);
+            transfers[i].setToAccount("BENC" + (1000 + (i + 1) % ACCOUNTS));
+            transfers[i].setAmount(amount);
+        }
+
+        accountService.accountRepository.insert(AccountService.newAccount("History", HISTORY_ACCOUNT));
+        for(int i = 0; i < historySize; i++){
+            accountService.transactionRepository.insert(
+                    AccountService.buildTransaction(TransactionType.DEPOSIT, 100 + i, null, HISTORY_ACCOUNT));
+        }
+    }
+
+    private int nextIndex(){
+        int i = next;
+        next = i + 1 == ACCOUNTS ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    public TransactionResponseDTO deposit(){
+        return accountService.deposit(deposits[nextIndex()]);
+    }
+
+    @Benchmark
+    public TransactionResponseDTO withdraw(){
+        return accountService.withdraw(withdrawals[nextIndex()]);
+    }
+
+    @Benchmark
+    public TransactionResponseDTO transfer(){
+        return accountService.transfer(transfers[nextIndex()]);
+    }
+
+    @Benchmark
+    public List<TransactionResponseDTO> getTransactionsByAccount(){
+        return accountService.getTransactionsByAccount(HISTORY_ACCOUNT);
+    }
+}
@@ -0,0 +1,55 @@
+package com.service;
+
+import com.repository.InMemoryCounterRepository;
+import com.utils.AccountNumberGenerator;
+import com.utils.TransactionIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Account number and transaction id generation. The allocator leases its blocks from an in-memory
+counter, so allocateAccountNumber is the in-memory path plus one lease every blockSize numbers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGenerationBenchmark {
+    @Param({"100"})
+    int blockSize;
+
+    AccountNumberAllocator allocator;
+    long sequence;
+
+    @Setup
+    public void setUp(){
+        allocator = new AccountNumberAllocator();
+        allocator.counterRepository = new InMemoryCounterRepository();
+        allocator.blockSize = blockSize;
+    }
+
+    @Benchmark
+    public String allocateAccountNumber(){
+        return allocator.next("Benchmark Holder");
+    }
+
+    @Benchmark
+    public String formatAccountNumber(){
+        return AccountNumberGenerator.format(AccountNumberGenerator.prefixOf("Benchmark Holder"), sequence++);
+    }
+
+    @Benchmark
+    public String transactionId(){
+        return TransactionIdGenerator.generateTransactionId();
+    }
+
+    // contended case, ids from every benchmark thread go through the same AtomicLong
+    @Benchmark
+    @Threads(4)
+    public String transactionIdContended(){
+        return TransactionIdGenerator.generateTransactionId();
+    }
+}
@@ -0,0 +1,112 @@
+package com.service;
+
+import com.dto.DepositRequestDTO;
+import com.dto.TransactionResponseDTO;
+import com.dto.TransferRequestDTO;
+import com.model.Account;
+import com.repository.JournalAccountRepository;
+import com.repository.JournalRecovery;
+import com.repository.JournalTransactionRepository;
+import com.repository.LedgerJournal;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Durable mutations on the journal profile: every operation returns only after its records are fsynced.
+Many threads are what makes the group fsync pay off, run with -t to see how throughput follows the writers.
+The journal lives in a temp directory, put it on the disk to be measured with -Djava.io.tmpdir
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(32)
+public class JournalBenchmark {
+    static final int ACCOUNTS = 10000;
+
+    Path dir;
+    LedgerJournal journal;
+    AccountService accountService;
+    DepositRequestDTO[] deposits;
+    TransferRequestDTO[] transfers;
+    final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("ledger-bench");
+        journal = new LedgerJournal();
+        ReflectionTestUtils.setField(journal, "dir", dir.toString());
+        JournalAccountRepository accounts = new JournalAccountRepository();
+        ReflectionTestUtils.setField(accounts, "journal", journal);
+        JournalTransactionRepository transactions = new JournalTransactionRepository();
+        ReflectionTestUtils.setField(transactions, "journal", journal);
+        JournalRecovery recovery = new JournalRecovery();
+        ReflectionTestUtils.setField(recovery, "journal", journal);
+        ReflectionTestUtils.setField(recovery, "accountRepository", accounts);
+        ReflectionTestUtils.setField(recovery, "transactionRepository", transactions);
+        ReflectionTestUtils.invokeMethod(recovery, "recover");
+
+        accountService = new AccountService();
+        accountService.accountRepository = accounts;
+        accountService.transactionRepository = transactions;
+        accountService.executionLanes = new AccountExecutionLanes();
+        accountService.depositCoalescer = new DepositCoalescer();
+        accountService.accountCache = new AccountCache();
+        accountService.accountFilter = new AccountExistenceFilter();
+        accountService.transactionWriter = new TransactionWriter();
+        accountService.stripedAccounts = new StripedAccounts();
+        accountService.dailyRollups = new DailyRollups();
+
+        // seeded with one bulk insert, one fsync instead of one per account
+        List<Account> seed = new ArrayList<>(ACCOUNTS);
+        BigDecimal amount = new BigDecimal("12.50");
+        deposits = new DepositRequestDTO[ACCOUNTS];
+        transfers = new TransferRequestDTO[ACCOUNTS];
+        for(int i = 0; i < ACCOUNTS; i++){
+            String accountNumber = "BENC" + (1000 + i);
+            Account acc = AccountService.newAccount("Bench", accountNumber);
+            acc.setBalance(Long.MAX_VALUE / 4);
+            seed.add(acc);
+            deposits[i] = new DepositRequestDTO();
+            deposits[i].setAccountNumber(accountNumber);
+            deposits[i].setAmount(amount);
+            transfers[i] = new TransferRequestDTO();
+            transfers[i].setFromAccount(accountNumber);
+            transfers[i].setToAccount("BENC" + (1000 + (i + 1) % ACCOUNTS));
+            transfers[i].setAmount(amount);
+        }
+        accounts.insertAllUnordered(seed);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        journal.close();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    private int nextIndex(){
+        return Math.floorMod(next.getAndIncrement(), ACCOUNTS);
+    }
+
+    @Benchmark
+    public TransactionResponseDTO deposit(){
+        return accountService.deposit(deposits[nextIndex()]);
+    }
+
+    @Benchmark
+    public TransactionResponseDTO transfer(){
+        return accountService.transfer(transfers[nextIndex()]);
+    }
+}
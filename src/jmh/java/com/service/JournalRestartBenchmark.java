@@ -0,0 +1,121 @@
+package com.service;
+
+import com.enums.TransactionType;
+import com.model.Account;
+import com.model.Transactions;
+import com.repository.JournalAccountRepository;
+import com.repository.JournalCounterRepository;
+import com.repository.JournalRecovery;
+import com.repository.JournalTransactionRepository;
+import com.repository.LedgerJournal;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Restart time of the journal profile against the number of accounts: every account gets DEPOSITS deposits,
+then TAIL more deposits come after the last snapshot. "snapshot" restarts from a snapshot taken before
+the tail, "journal" replays every record from the start. One restart per invocation.
+Larger sizes need the disk space (~256 bytes per record) and heap, e.g. -p accounts=1000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class JournalRestartBenchmark {
+    static final int DEPOSITS = 4;
+    static final int TAIL = 10000;
+
+    @Param({"10000", "100000", "1000000"})
+    int accounts;
+
+    @Param({"snapshot", "journal"})
+    String restartFrom;
+
+    Path dir;
+    JournalRecovery started;
+
+    // what the journal profile wires up, recovered from dir
+    private JournalRecovery open(){
+        LedgerJournal journal = new LedgerJournal();
+        ReflectionTestUtils.setField(journal, "dir", dir.toString());
+        ReflectionTestUtils.setField(journal, "segmentRecords", 1 << 16);
+        ReflectionTestUtils.setField(journal, "snapshotEverySegments", 0);
+        JournalAccountRepository accountRepository = new JournalAccountRepository();
+        ReflectionTestUtils.setField(accountRepository, "journal", journal);
+        JournalTransactionRepository transactionRepository = new JournalTransactionRepository();
+        ReflectionTestUtils.setField(transactionRepository, "journal", journal);
+        JournalCounterRepository counterRepository = new JournalCounterRepository();
+        ReflectionTestUtils.setField(counterRepository, "journal", journal);
+        JournalRecovery recovery = new JournalRecovery();
+        ReflectionTestUtils.setField(recovery, "journal", journal);
+        ReflectionTestUtils.setField(recovery, "accountRepository", accountRepository);
+        ReflectionTestUtils.setField(recovery, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(recovery, "counterRepository", counterRepository);
+        ReflectionTestUtils.invokeMethod(recovery, "recover");
+        return recovery;
+    }
+
+    // balance change and transaction of a deposit, transactions go in one batch (one fsync)
+    private static void deposits(JournalRecovery recovery, int from, int to){
+        JournalAccountRepository accountRepository = (JournalAccountRepository) ReflectionTestUtils.getField(recovery, "accountRepository");
+        JournalTransactionRepository transactionRepository = (JournalTransactionRepository) ReflectionTestUtils.getField(recovery, "transactionRepository");
+        List<Transactions> batch = new ArrayList<>();
+        for(int i = from; i < to; i++){
+            String accountNumber = "BENC" + (1000 + i);
+            accountRepository.creditBalance(accountNumber, 1250);
+            batch.add(AccountService.buildTransaction(TransactionType.DEPOSIT, 1250, null, accountNumber));
+            if(batch.size() == 10000){
+                transactionRepository.insert(batch);
+                batch.clear();
+            }
+        }
+        transactionRepository.insert(batch);
+    }
+
+    @Setup(Level.Trial)
+    public void seed() throws IOException {
+        dir = Files.createTempDirectory("ledger-restart-bench");
+        JournalRecovery recovery = open();
+        JournalAccountRepository accountRepository = (JournalAccountRepository) ReflectionTestUtils.getField(recovery, "accountRepository");
+        List<Account> seed = new ArrayList<>(accounts);
+        for(int i = 0; i < accounts; i++){
+            seed.add(AccountService.newAccount("Bench", "BENC" + (1000 + i)));
+        }
+        accountRepository.insertAllUnordered(seed);
+        for(int round = 0; round < DEPOSITS; round++){
+            deposits(recovery, 0, accounts);
+        }
+        LedgerJournal journal = (LedgerJournal) ReflectionTestUtils.getField(recovery, "journal");
+        if(restartFrom.equals("snapshot")){
+            journal.compact();
+        }
+        deposits(recovery, 0, Math.min(TAIL, accounts));
+        journal.close();
+    }
+
+    @Benchmark
+    public long restart(){
+        started = open();
+        return ((JournalAccountRepository) ReflectionTestUtils.getField(started, "accountRepository")).count();
+    }
+
+    @TearDown(Level.Invocation)
+    public void close(){
+        ((LedgerJournal) ReflectionTestUtils.getField(started, "journal")).close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(dir);
+    }
+}
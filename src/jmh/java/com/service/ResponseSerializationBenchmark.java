@@ -0,0 +1,87 @@
+package com.service;
+
+import com.dto.AccountResponseDTO;
+import com.dto.ApiResponse;
+import com.dto.TransactionResponseDTO;
+import com.enums.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.model.Account;
+import com.model.Transactions;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Response side of a request: model -> DTO mapping and the ApiResponse envelope written as json.
+The ObjectMapper is built the way Boot builds the one used by the controllers (java.time module, no timestamps)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+    @Param({"50"})
+    int historySize;
+
+    ObjectMapper objectMapper;
+    Account account;
+    Transactions transaction;
+    List<Transactions> history;
+    ApiResponse<TransactionResponseDTO> transactionResponse;
+    ApiResponse<List<TransactionResponseDTO>> historyResponse;
+
+    @Setup
+    public void setUp(){
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        account = AccountService.newAccount("Benchmark Holder", "BENC1000");
+        account.setId("65f000000000000000000001");
+        account.setBalance(1234567);
+        transaction = AccountService.buildTransaction(TransactionType.TRANSFER, 1250, "BENC1000", "BENC1001");
+
+        history = new ArrayList<>(historySize);
+        List<TransactionResponseDTO> dtos = new ArrayList<>(historySize);
+        for(int i = 0; i < historySize; i++){
+            Transactions t = AccountService.buildTransaction(TransactionType.DEPOSIT, 100 + i, null, "BENC1000");
+            history.add(t);
+            dtos.add(AccountService.mapToTxnResponse(t));
+        }
+        transactionResponse = ApiResponse.success("Transfer successful", AccountService.mapToTxnResponse(transaction));
+        historyResponse = ApiResponse.success("Transactions fetched", dtos);
+    }
+
+    @Benchmark
+    public AccountResponseDTO mapAccount(){
+        return AccountService.mapToAccountResponse(account);
+    }
+
+    @Benchmark
+    public TransactionResponseDTO mapTransaction(){
+        return AccountService.mapToTxnResponse(transaction);
+    }
+
+    @Benchmark
+    public byte[] serializeTransaction() throws Exception {
+        return objectMapper.writeValueAsBytes(transactionResponse);
+    }
+
+    // mapping plus serialization of a whole history response, what getTransactionsByAccount hands to the converter
+    @Benchmark
+    public byte[] mapAndSerializeHistory() throws Exception {
+        List<TransactionResponseDTO> list = new ArrayList<>(history.size());
+        for(Transactions t : history){
+            list.add(AccountService.mapToTxnResponse(t));
+        }
+        return objectMapper.writeValueAsBytes(ApiResponse.success("Transactions fetched", list));
+    }
+
+    @Benchmark
+    public byte[] serializeHistory() throws Exception {
+        return objectMapper.writeValueAsBytes(historyResponse);
+    }
+}
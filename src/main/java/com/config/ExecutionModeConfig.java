@@ -0,0 +1,60 @@
+package com.config;
+
+import com.utils.WorkerThreads;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Request execution mode and the Mongo connection pool that goes with it.
+spring.threads.virtual.enabled=true runs Tomcat requests, async exports, lanes and the deposit
+flusher on virtual threads. That needs JDK 21+, on an older JDK the app refuses to start instead
+of quietly running on platform threads. Blocked requests then cost almost nothing and the
+connection pool becomes the real limit on concurrent db calls, so size it with the mode.
+ */
+@Configuration
+public class ExecutionModeConfig {
+    @Value("${spring.threads.virtual.enabled:false}")
+    boolean virtualThreads;
+
+    @Value("${bank.mongo.pool.max-size:100}")
+    int poolMaxSize = 100;
+
+    @Value("${bank.mongo.pool.min-size:0}")
+    int poolMinSize;
+
+    // how long a request may wait for a free connection before it fails with 503
+    @Value("${bank.mongo.pool.max-wait-ms:2000}")
+    long poolMaxWaitMs = 2000;
+
+    // connections opened at the same time, keeps a cold start from flooding the server
+    @Value("${bank.mongo.pool.max-connecting:2}")
+    int poolMaxConnecting = 2;
+
+    Logger logger = LoggerFactory.getLogger(ExecutionModeConfig.class);
+
+    @PostConstruct
+    void init(){
+        if(virtualThreads && !WorkerThreads.virtualThreadsAvailable()){
+            throw new IllegalStateException("spring.threads.virtual.enabled is set but Java "
+                    + System.getProperty("java.version") + " has no virtual threads, run on Java 21+ or turn it off");
+        }
+        logger.info("Requests run on {} threads", virtualThreads ? "virtual" : "platform");
+        logger.info("Mongo connection pool: {} to {} connections, max wait {} ms", poolMinSize, poolMaxSize, poolMaxWaitMs);
+    }
+
+    @Bean
+    MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(){
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(poolMaxSize)
+                .minSize(poolMinSize)
+                .maxWaitTime(poolMaxWaitMs, TimeUnit.MILLISECONDS)
+                .maxConnecting(poolMaxConnecting));
+    }
+}
@@ -0,0 +1,17 @@
+package com.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+/*
+Mongo backed repositories, everywhere except the inmemory and journal profiles which bring their own
+implementations (com.repository.InMemory*, com.repository.Journal*) and run without a mongod
+ */
+@Configuration
+@Profile("!inmemory & !journal")
+@EnableMongoRepositories(basePackages = "com.repository")
+@EnableReactiveMongoRepositories(basePackages = "com.repository")
+public class MongoConfig {
+}
@@ -0,0 +1,25 @@
+package com.config;
+
+import com.utils.TransactionIdGenerator;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/*
+Identity of this app instance, every instance behind the load balancer needs its own bank.node-id (0-1023)
+ */
+@Configuration
+public class NodeConfig {
+    @Value("${bank.node-id:0}")
+    long nodeId;
+
+    Logger logger = LoggerFactory.getLogger(NodeConfig.class);
+
+    @PostConstruct
+    void init(){
+        TransactionIdGenerator.setNodeId(nodeId);
+        logger.info("Transaction ids are generated with node id {}", nodeId);
+    }
+}
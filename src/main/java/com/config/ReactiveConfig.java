@@ -0,0 +1,19 @@
+package com.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/*
+Reactive profile runs on Netty. Tomcat is on the classpath for the servlet stack and
+would otherwise be picked for WebFlux too, Netty keeps the work on a few event-loop threads.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory(){
+        return new NettyReactiveWebServerFactory();
+    }
+}
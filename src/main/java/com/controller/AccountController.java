@@ -1,23 +1,61 @@
 package com.controller;
 
 import com.dto.*;
+import com.enums.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.service.AccountImportService;
 import com.service.AccountService;
+import com.service.BatchTransferService;
+import com.service.IdempotencyService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("api/accounts")
+@Profile("!reactive")
 public class AccountController {
     @Autowired
     AccountService accountService;
 
+    @Autowired
+    BatchTransferService batchTransferService;
+
+    @Autowired
+    AccountImportService accountImportService;
+
+    @Autowired
+    IdempotencyService idempotencyService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    static final int STREAM_FLUSH_EVERY = 500;
+
+    // retried mutations with the same key run only once
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     Logger logger = LoggerFactory.getLogger(AccountController.class);
 
     // create new account
@@ -31,33 +69,81 @@ public class AccountController {
 
     // deposit money
     @PutMapping(value = "{accountNumber}/deposit",consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ApiResponse<?>> deposit(@PathVariable("accountNumber") String accountNumber,@Valid @RequestBody DepositRequestDTO dto){
+    public ResponseEntity<ApiResponse<?>> deposit(@PathVariable("accountNumber") String accountNumber,@Valid @RequestBody DepositRequestDTO dto,
+                                                  @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey){
         dto.setAccountNumber(accountNumber);
         logger.info("Deposit request received for account {}: amount {}", accountNumber, dto.getAmount());
-        TransactionResponseDTO transactionResponseDTO = accountService.deposit(dto);
+        TransactionResponseDTO transactionResponseDTO = idempotencyService.execute(idempotencyKey,
+                IdempotencyService.fingerprint("DEPOSIT", accountNumber, dto.getAmount()), () -> accountService.deposit(dto));
         logger.info("Deposit successful for account {}: transactionId {}", accountNumber, transactionResponseDTO.getTransactionId());
         return ResponseEntity.ok().body(ApiResponse.success("Deposit successfully",transactionResponseDTO));
     }
 
     // withdraw money
     @PutMapping(value = "{accountNumber}/withdraw",consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ApiResponse<?>> withdraw(@PathVariable("accountNumber") String accountNumber,@Valid @RequestBody WithdrawRequestDTO dto){
+    public ResponseEntity<ApiResponse<?>> withdraw(@PathVariable("accountNumber") String accountNumber,@Valid @RequestBody WithdrawRequestDTO dto,
+                                                   @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey){
         dto.setAccountNumber(accountNumber);
         logger.info("Withdrawal request received for account {}: amount {}", accountNumber, dto.getAmount());
-        TransactionResponseDTO transactionResponseDTO = accountService.withdraw(dto);
+        TransactionResponseDTO transactionResponseDTO = idempotencyService.execute(idempotencyKey,
+                IdempotencyService.fingerprint("WITHDRAW", accountNumber, dto.getAmount()), () -> accountService.withdraw(dto));
         logger.info("Withdrawal successful for account {}: transactionId {}", accountNumber, transactionResponseDTO.getTransactionId());
         return ResponseEntity.ok().body(ApiResponse.success("Withdrawal successfully",transactionResponseDTO));
     }
 
     // transfer money
     @PostMapping(value = "transfer", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ApiResponse<?>> transfer(@Valid @RequestBody TransferRequestDTO dto){
+    public ResponseEntity<ApiResponse<?>> transfer(@Valid @RequestBody TransferRequestDTO dto,
+                                                   @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey){
         logger.info("Transfer request from {} to {}: amount {}", dto.getFromAccount(), dto.getToAccount(), dto.getAmount());
-        TransactionResponseDTO transactionResponseDTO = accountService.transfer(dto);
+        TransactionResponseDTO transactionResponseDTO = idempotencyService.execute(idempotencyKey,
+                IdempotencyService.fingerprint("TRANSFER", dto.getFromAccount(), dto.getToAccount(), dto.getAmount()), () -> accountService.transfer(dto));
         logger.info("Transfer successful: transactionId {}", transactionResponseDTO.getTransactionId());
         return ResponseEntity.ok().body(ApiResponse.success("Amount Transferred Successfully",transactionResponseDTO));
     }
 
+    // many transfers in one call, every item gets its own result
+    @PostMapping(value = "transfers/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<?>> transferBatch(@Valid @RequestBody List<TransferRequestDTO> dtos){
+        logger.info("Batch transfer request with {} transfers", dtos.size());
+        List<TransferResultDTO> results = batchTransferService.transferBatch(dtos);
+        logger.info("Batch transfer done: {} transfers", results.size());
+        return ResponseEntity.ok().body(ApiResponse.success("Batch processed",results));
+    }
+
+    // onboard many holders from a CSV or NDJSON upload, progress and failed rows come back as NDJSON
+    @PostMapping(value = "import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE}, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importAccounts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                InputStream upload){
+        AccountImportService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? AccountImportService.Format.NDJSON : AccountImportService.Format.CSV;
+        logger.info("Request to import accounts from {}", format);
+        ObjectWriter writer = objectMapper.writerFor(AccountImportEventDTO.class);
+        StreamingResponseBody body = out -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(upload, StandardCharsets.UTF_8));
+            try {
+                accountImportService.importAccounts(reader, format, event -> {
+                    try {
+                        out.write(writer.writeValueAsBytes(event));
+                        out.write('\n');
+                        if (!AccountImportEventDTO.ERROR.equals(event.getType())) {
+                            out.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // the response is already streaming, so the failure is reported as the last line
+                logger.error("Account import aborted: {}", e.getMessage());
+                out.write(writer.writeValueAsBytes(AccountImportEventDTO.error(-1, "Import aborted: " + e.getMessage())));
+                out.write('\n');
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     // retrieve account details
     @GetMapping(value = "{accountNumber}")
     public ResponseEntity<ApiResponse<?>> getAccountDetails(@PathVariable("accountNumber") String accountNumber){
@@ -67,13 +153,64 @@ public class AccountController {
         return ResponseEntity.ok().body(ApiResponse.success("Successfully fetched account details",accountResponseDTO));
     }
 
-    // get all transactions by account number
+    // get transactions by account number, one page at a time
     @GetMapping(value = "{accountNumber}/transactions",produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ApiResponse<?>> getAllTransactionsByAccount(@PathVariable("accountNumber") String accountNumber){
-        logger.info("Request to fetch all transactions for account: {}", accountNumber);
-        List<TransactionResponseDTO> listOfTransaction = accountService.getTransactionsByAccount(accountNumber);
-        logger.info("Fetched {} transactions for account {}", listOfTransaction.size(), accountNumber);
-        return ResponseEntity.ok().body(ApiResponse.success("Successfully fetched transactions",listOfTransaction));
+    public ResponseEntity<ApiResponse<?>> getAllTransactionsByAccount(@PathVariable("accountNumber") String accountNumber,
+                                                                      @RequestParam(value = "limit", required = false) Integer limit,
+                                                                      @RequestParam(value = "before", required = false) String before,
+                                                                      @RequestParam(value = "after", required = false) String after,
+                                                                      @RequestParam(value = "type", required = false) TransactionType type,
+                                                                      @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to){
+        logger.info("Request to fetch transactions for account: {}", accountNumber);
+        TransactionHistoryRequestDTO dto = new TransactionHistoryRequestDTO();
+        dto.setAccountNumber(accountNumber);
+        dto.setLimit(limit);
+        dto.setBefore(before);
+        dto.setAfter(after);
+        dto.setType(type);
+        dto.setFrom(from);
+        dto.setTo(to);
+        TransactionPageResponseDTO page = accountService.getTransactionsPage(dto);
+        logger.info("Fetched {} transactions for account {}", page.getTransactions().size(), accountNumber);
+        return ResponseEntity.ok().body(ApiResponse.success("Successfully fetched transactions",page));
+    }
+
+    // statement of an account from one day to another (both included, at most 31 days), out of the daily rollups
+    @GetMapping(value = "{accountNumber}/statement",produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<?>> getStatement(@PathVariable("accountNumber") String accountNumber,
+                                                       @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                       @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+        logger.info("Request to fetch statement for account {} from {} to {}", accountNumber, from, to);
+        StatementResponseDTO statement = accountService.getStatement(accountNumber, from, to);
+        logger.info("Fetched statement for account {}", accountNumber);
+        return ResponseEntity.ok().body(ApiResponse.success("Successfully fetched statement",statement));
+    }
+
+    // export all transactions by account number as NDJSON, one transaction per line
+    @GetMapping(value = "{accountNumber}/transactions/stream",produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTransactionsByAccount(@PathVariable("accountNumber") String accountNumber){
+        logger.info("Request to stream all transactions for account: {}", accountNumber);
+        Stream<TransactionResponseDTO> transactions = accountService.streamTransactionsByAccount(accountNumber);
+        ObjectWriter writer = objectMapper.writerFor(TransactionResponseDTO.class);
+        StreamingResponseBody body = out -> {
+            long count = 0;
+            // closing the stream closes the db cursor, also when the client goes away
+            try (transactions) {
+                Iterator<TransactionResponseDTO> it = transactions.iterator();
+                while (it.hasNext()) {
+                    out.write(writer.writeValueAsBytes(it.next()));
+                    out.write('\n');
+                    // first line goes out right away, after that flush once per batch
+                    if (++count % STREAM_FLUSH_EVERY == 1) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+            }
+            logger.info("Streamed {} transactions for account {}", count, accountNumber);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
 }
@@ -0,0 +1,104 @@
+package com.controller;
+
+import com.dto.*;
+import com.enums.TransactionType;
+import com.service.ReactiveAccountService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/*
+Same API as AccountController on WebFlux, active with the reactive profile.
+Not available here yet: Idempotency-Key, batch transfers and the import endpoint.
+ */
+@RestController
+@RequestMapping("api/accounts")
+@Profile("reactive")
+public class ReactiveAccountController {
+    @Autowired
+    ReactiveAccountService accountService;
+
+    Logger logger = LoggerFactory.getLogger(ReactiveAccountController.class);
+
+    // create new account
+    @PostMapping(value = "create", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ApiResponse<?>>> createAccount(@Valid @RequestBody AccountRequestDTO dto){
+        logger.info("Request to create account {}",dto.getHolderName());
+        return accountService.createAccount(dto)
+                .map(acc -> ResponseEntity.ok().body(ApiResponse.success("Accounted created successfully",acc)));
+    }
+
+    // deposit money
+    @PutMapping(value = "{accountNumber}/deposit",consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ApiResponse<?>>> deposit(@PathVariable("accountNumber") String accountNumber,@Valid @RequestBody DepositRequestDTO dto){
+        dto.setAccountNumber(accountNumber);
+        logger.info("Deposit request received for account {}: amount {}", accountNumber, dto.getAmount());
+        return accountService.deposit(dto)
+                .map(txn -> ResponseEntity.ok().body(ApiResponse.success("Deposit successfully",txn)));
+    }
+
+    // withdraw money
+    @PutMapping(value = "{accountNumber}/withdraw",consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ApiResponse<?>>> withdraw(@PathVariable("accountNumber") String accountNumber,@Valid @RequestBody WithdrawRequestDTO dto){
+        dto.setAccountNumber(accountNumber);
+        logger.info("Withdrawal request received for account {}: amount {}", accountNumber, dto.getAmount());
+        return accountService.withdraw(dto)
+                .map(txn -> ResponseEntity.ok().body(ApiResponse.success("Withdrawal successfully",txn)));
+    }
+
+    // transfer money
+    @PostMapping(value = "transfer", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ApiResponse<?>>> transfer(@Valid @RequestBody TransferRequestDTO dto){
+        logger.info("Transfer request from {} to {}: amount {}", dto.getFromAccount(), dto.getToAccount(), dto.getAmount());
+        return accountService.transfer(dto)
+                .map(txn -> ResponseEntity.ok().body(ApiResponse.success("Amount Transferred Successfully",txn)));
+    }
+
+    // retrieve account details
+    @GetMapping(value = "{accountNumber}")
+    public Mono<ResponseEntity<ApiResponse<?>>> getAccountDetails(@PathVariable("accountNumber") String accountNumber){
+        logger.info("Request to fetch account details: {}", accountNumber);
+        return accountService.getAccountDetails(accountNumber)
+                .map(acc -> ResponseEntity.ok().body(ApiResponse.success("Successfully fetched account details",acc)));
+    }
+
+    // get transactions by account number, one page at a time
+    @GetMapping(value = "{accountNumber}/transactions",produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ApiResponse<?>>> getAllTransactionsByAccount(@PathVariable("accountNumber") String accountNumber,
+                                                                            @RequestParam(value = "limit", required = false) Integer limit,
+                                                                            @RequestParam(value = "before", required = false) String before,
+                                                                            @RequestParam(value = "after", required = false) String after,
+                                                                            @RequestParam(value = "type", required = false) TransactionType type,
+                                                                            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to){
+        logger.info("Request to fetch transactions for account: {}", accountNumber);
+        TransactionHistoryRequestDTO dto = new TransactionHistoryRequestDTO();
+        dto.setAccountNumber(accountNumber);
+        dto.setLimit(limit);
+        dto.setBefore(before);
+        dto.setAfter(after);
+        dto.setType(type);
+        dto.setFrom(from);
+        dto.setTo(to);
+        return accountService.getTransactionsPage(dto)
+                .map(page -> ResponseEntity.ok().body(ApiResponse.success("Successfully fetched transactions",page)));
+    }
+
+    // export all transactions as NDJSON, written as the client reads it (backpressure down to the db cursor)
+    @GetMapping(value = "{accountNumber}/transactions/stream",produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<TransactionResponseDTO>>> streamTransactionsByAccount(@PathVariable("accountNumber") String accountNumber){
+        logger.info("Request to stream all transactions for account: {}", accountNumber);
+        return accountService.streamTransactionsByAccount(accountNumber)
+                .map(transactions -> ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(transactions));
+    }
+}
@@ -0,0 +1,101 @@
+package com.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/*
+This DTO is used to report on a running account import, one per NDJSON line:
+a row that could not be imported, progress after each batch, and the final summary
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AccountImportEventDTO {
+    public static final String ERROR = "error";
+    public static final String PROGRESS = "progress";
+    public static final String DONE = "done";
+
+    private String type;
+    private Long line;
+    private String message;
+    private Long processed;
+    private Long imported;
+    private Long failed;
+
+    public AccountImportEventDTO() {
+    }
+
+    public static AccountImportEventDTO error(long line, String message){
+        AccountImportEventDTO event = new AccountImportEventDTO();
+        event.type = ERROR;
+        event.line = line;
+        event.message = message;
+        return event;
+    }
+
+    public static AccountImportEventDTO counts(String type, long processed, long imported, long failed){
+        AccountImportEventDTO event = new AccountImportEventDTO();
+        event.type = type;
+        event.processed = processed;
+        event.imported = imported;
+        event.failed = failed;
+        return event;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getLine() {
+        return line;
+    }
+
+    public void setLine(Long line) {
+        this.line = line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(Long processed) {
+        this.processed = processed;
+    }
+
+    public Long getImported() {
+        return imported;
+    }
+
+    public void setImported(Long imported) {
+        this.imported = imported;
+    }
+
+    public Long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(Long failed) {
+        this.failed = failed;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountImportEventDTO{" +
+                "type='" + type + '\'' +
+                ", line=" + line +
+                ", message='" + message + '\'' +
+                ", processed=" + processed +
+                ", imported=" + imported +
+                ", failed=" + failed +
+                '}';
+    }
+}
@@ -2,6 +2,7 @@ package com.dto;
 
 import com.enums.AccountStatus;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /*
@@ -12,7 +13,7 @@ public class AccountResponseDTO {
     private String id;
     private String accountNumber;
     private String holderName;
-    private Double balance;
+    private BigDecimal balance;
     private AccountStatus status;
     private LocalDateTime createdAt;
 
@@ -40,11 +41,11 @@ public class AccountResponseDTO {
         this.holderName = holderName;
     }
 
-    public Double getBalance() {
+    public BigDecimal getBalance() {
         return balance;
     }
 
-    public void setBalance(Double balance) {
+    public void setBalance(BigDecimal balance) {
         this.balance = balance;
     }
 
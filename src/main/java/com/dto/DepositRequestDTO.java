@@ -3,6 +3,8 @@ package com.dto;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 
+import java.math.BigDecimal;
+
 /*
 This DTO is used to take accNumber and amount from user for deposit
  */
@@ -10,7 +12,7 @@ public class DepositRequestDTO {
     private String accountNumber;
 
     @Min(value = 1,message = "Deposit amount must be greater than 0")
-    private Double amount;
+    private BigDecimal amount;
 
     public String getAccountNumber() {
         return accountNumber;
@@ -20,11 +22,11 @@ public class DepositRequestDTO {
         this.accountNumber = accountNumber;
     }
 
-    public Double getAmount() {
+    public BigDecimal getAmount() {
         return amount;
     }
 
-    public void setAmount(Double amount) {
+    public void setAmount(BigDecimal amount) {
         this.amount = amount;
     }
 }
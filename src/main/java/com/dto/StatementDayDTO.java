@@ -0,0 +1,88 @@
+package com.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/*
+This DTO is used to send one day of an account statement.
+Balances are null when the day's rollup has none (striped accounts).
+incomplete: a change of the day is missing from the totals, check the transaction history
+ */
+public class StatementDayDTO {
+    private LocalDate date;
+    private BigDecimal openingBalance;
+    private BigDecimal closingBalance;
+    private BigDecimal credits;
+    private BigDecimal debits;
+    private long transactionCount;
+    private boolean incomplete;
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public BigDecimal getOpeningBalance() {
+        return openingBalance;
+    }
+
+    public void setOpeningBalance(BigDecimal openingBalance) {
+        this.openingBalance = openingBalance;
+    }
+
+    public BigDecimal getClosingBalance() {
+        return closingBalance;
+    }
+
+    public void setClosingBalance(BigDecimal closingBalance) {
+        this.closingBalance = closingBalance;
+    }
+
+    public BigDecimal getCredits() {
+        return credits;
+    }
+
+    public void setCredits(BigDecimal credits) {
+        this.credits = credits;
+    }
+
+    public BigDecimal getDebits() {
+        return debits;
+    }
+
+    public void setDebits(BigDecimal debits) {
+        this.debits = debits;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public void setTransactionCount(long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    public boolean isIncomplete() {
+        return incomplete;
+    }
+
+    public void setIncomplete(boolean incomplete) {
+        this.incomplete = incomplete;
+    }
+
+    @Override
+    public String toString() {
+        return "StatementDayDTO{" +
+                "date=" + date +
+                ", openingBalance=" + openingBalance +
+                ", closingBalance=" + closingBalance +
+                ", credits=" + credits +
+                ", debits=" + debits +
+                ", transactionCount=" + transactionCount +
+                ", incomplete=" + incomplete +
+                '}';
+    }
+}
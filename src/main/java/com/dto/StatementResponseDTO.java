@@ -0,0 +1,120 @@
+package com.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/*
+This DTO is used to send an account statement from one day to another, both included.
+days only lists the days with activity, oldest first. Balances are null when they are not known:
+no activity recorded up to the end of the period, or a striped account.
+incomplete: a day the statement is built from is missing a change, totals or the opening balance may be off
+ */
+public class StatementResponseDTO {
+    private String accountNumber;
+    private LocalDate from;
+    private LocalDate to;
+    private BigDecimal openingBalance;
+    private BigDecimal closingBalance;
+    private BigDecimal totalCredits;
+    private BigDecimal totalDebits;
+    private long transactionCount;
+    private List<StatementDayDTO> days;
+    private boolean incomplete;
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public BigDecimal getOpeningBalance() {
+        return openingBalance;
+    }
+
+    public void setOpeningBalance(BigDecimal openingBalance) {
+        this.openingBalance = openingBalance;
+    }
+
+    public BigDecimal getClosingBalance() {
+        return closingBalance;
+    }
+
+    public void setClosingBalance(BigDecimal closingBalance) {
+        this.closingBalance = closingBalance;
+    }
+
+    public BigDecimal getTotalCredits() {
+        return totalCredits;
+    }
+
+    public void setTotalCredits(BigDecimal totalCredits) {
+        this.totalCredits = totalCredits;
+    }
+
+    public BigDecimal getTotalDebits() {
+        return totalDebits;
+    }
+
+    public void setTotalDebits(BigDecimal totalDebits) {
+        this.totalDebits = totalDebits;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public void setTransactionCount(long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    public List<StatementDayDTO> getDays() {
+        return days;
+    }
+
+    public void setDays(List<StatementDayDTO> days) {
+        this.days = days;
+    }
+
+    public boolean isIncomplete() {
+        return incomplete;
+    }
+
+    public void setIncomplete(boolean incomplete) {
+        this.incomplete = incomplete;
+    }
+
+    @Override
+    public String toString() {
+        return "StatementResponseDTO{" +
+                "accountNumber='" + accountNumber + '\'' +
+                ", from=" + from +
+                ", to=" + to +
+                ", openingBalance=" + openingBalance +
+                ", closingBalance=" + closingBalance +
+                ", totalCredits=" + totalCredits +
+                ", totalDebits=" + totalDebits +
+                ", transactionCount=" + transactionCount +
+                ", days=" + days +
+                ", incomplete=" + incomplete +
+                '}';
+    }
+}
@@ -0,0 +1,46 @@
+package com.dto;
+
+import java.util.List;
+
+/*
+This DTO is used to send one page of transaction history, newest first.
+nextCursor goes to older entries (pass as before), prevCursor to newer ones (pass as after)
+ */
+public class TransactionPageResponseDTO {
+    private List<TransactionResponseDTO> transactions;
+    private String nextCursor;
+    private String prevCursor;
+
+    public List<TransactionResponseDTO> getTransactions() {
+        return transactions;
+    }
+
+    public void setTransactions(List<TransactionResponseDTO> transactions) {
+        this.transactions = transactions;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public String getPrevCursor() {
+        return prevCursor;
+    }
+
+    public void setPrevCursor(String prevCursor) {
+        this.prevCursor = prevCursor;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionPageResponseDTO{" +
+                "transactions=" + transactions +
+                ", nextCursor='" + nextCursor + '\'' +
+                ", prevCursor='" + prevCursor + '\'' +
+                '}';
+    }
+}
@@ -3,6 +3,7 @@ package com.dto;
 import com.enums.TransactionStatus;
 import com.enums.TransactionType;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /*
@@ -11,7 +12,7 @@ This DTO is used send transaction details to user, after transaction done
 public class TransactionResponseDTO {
     private String transactionId;
     private TransactionType type;
-    private Double amount;
+    private BigDecimal amount;
     private TransactionStatus status;
     private String sourceAccount;
     private String destinationAccount;
@@ -41,11 +42,11 @@ public class TransactionResponseDTO {
         this.type = type;
     }
 
-    public Double getAmount() {
+    public BigDecimal getAmount() {
         return amount;
     }
 
-    public void setAmount(Double amount) {
+    public void setAmount(BigDecimal amount) {
         this.amount = amount;
     }
 
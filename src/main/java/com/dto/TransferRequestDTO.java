@@ -3,6 +3,8 @@ package com.dto;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 
+import java.math.BigDecimal;
+
 /*
 This DTO is used take source and destination accountNumber and amount
  */
@@ -14,7 +16,7 @@ public class TransferRequestDTO {
     private String toAccount;
 
     @Min(value = 1, message = "Transfer amount must be greater than 0")
-    private Double amount;
+    private BigDecimal amount;
 
     public String getFromAccount() {
         return fromAccount;
@@ -32,11 +34,11 @@ public class TransferRequestDTO {
         this.toAccount = toAccount;
     }
 
-    public Double getAmount() {
+    public BigDecimal getAmount() {
         return amount;
     }
 
-    public void setAmount(Double amount) {
+    public void setAmount(BigDecimal amount) {
         this.amount = amount;
     }
 }
@@ -0,0 +1,63 @@
+package com.dto;
+
+/*
+This DTO is used to send the outcome of one transfer of a batch
+ */
+public class TransferResultDTO {
+    private int index;
+    private boolean success;
+    private String message;
+    private TransactionResponseDTO transaction;
+
+    public TransferResultDTO() {
+    }
+
+    public TransferResultDTO(int index, boolean success, String message, TransactionResponseDTO transaction) {
+        this.index = index;
+        this.success = success;
+        this.message = message;
+        this.transaction = transaction;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public TransactionResponseDTO getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(TransactionResponseDTO transaction) {
+        this.transaction = transaction;
+    }
+
+    @Override
+    public String toString() {
+        return "TransferResultDTO{" +
+                "index=" + index +
+                ", success=" + success +
+                ", message='" + message + '\'' +
+                ", transaction=" + transaction +
+                '}';
+    }
+}
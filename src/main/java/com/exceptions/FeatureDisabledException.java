@@ -0,0 +1,7 @@
+package com.exceptions;
+
+public class FeatureDisabledException extends RuntimeException {
+    public FeatureDisabledException(String message) {
+        super(message);
+    }
+}
@@ -1,12 +1,21 @@
 package com.exceptions;
 
 import com.dto.ApiResponse;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.core.MethodParameter;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.validation.method.ParameterErrors;
+import org.springframework.validation.method.ParameterValidationResult;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.server.ServerWebInputException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
@@ -35,6 +44,39 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(ex.getMessage(),null));
     }
 
+    // refunded: nothing changed, the client may retry. otherwise the source is short until reconciled
+    @ExceptionHandler(TransferAbortedException.class)
+    public ResponseEntity<ApiResponse<?>> handleTransferAborted(TransferAbortedException ex){
+        return ResponseEntity.status(ex.isRefunded() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error(ex.getMessage(),null));
+    }
+
+    // switched off in this deployment, retrying will not help
+    @ExceptionHandler(FeatureDisabledException.class)
+    public ResponseEntity<ApiResponse<?>> handleDisabled(FeatureDisabledException ex){
+        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED)
+                .body(ApiResponse.error(ex.getMessage(),null));
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiResponse<?>> handleBusy(ServiceBusyException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error(ex.getMessage(),null));
+    }
+
+    // db unreachable or no free connection within bank.mongo.pool.max-wait-ms
+    @ExceptionHandler(DataAccessResourceFailureException.class)
+    public ResponseEntity<ApiResponse<?>> handleDbBusy(DataAccessResourceFailureException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error("Service busy, try again",null));
+    }
+
+    @ExceptionHandler(RequestInProgressException.class)
+    public ResponseEntity<ApiResponse<?>> handleInProgress(RequestInProgressException ex){
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(ex.getMessage(),null));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<?>> handleValidationExceptions(MethodArgumentNotValidException ex){
         StringBuilder errors = new StringBuilder();
@@ -44,6 +86,48 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(ApiResponse.error(errors.toString(),null));
     }
 
+    // @Valid failures of list bodies (batch transfer), one result per invalid item
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ApiResponse<?>> handleMethodValidation(HandlerMethodValidationException ex){
+        StringBuilder errors = new StringBuilder();
+        for (ParameterValidationResult result : ex.getParameterValidationResults()) {
+            String item = result.getContainerIndex() == null ? "" : "[" + result.getContainerIndex() + "] ";
+            if (result instanceof ParameterErrors parameterErrors) {
+                for (FieldError error : parameterErrors.getFieldErrors()) {
+                    errors.append(item).append(error.getField()).append(": ").append(error.getDefaultMessage()).append("; ");
+                }
+            } else {
+                result.getResolvableErrors().forEach(error -> errors.append(item).append(error.getDefaultMessage()).append("; "));
+            }
+        }
+        return ResponseEntity.badRequest().body(ApiResponse.error(errors.toString(),null));
+    }
+
+    // @Valid failures on the reactive stack
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ApiResponse<?>> handleReactiveValidation(WebExchangeBindException ex){
+        StringBuilder errors = new StringBuilder();
+        for (FieldError error : ex.getBindingResult().getFieldErrors()) {
+            errors.append(error.getField()).append(": ").append(error.getDefaultMessage()).append("; ");
+        }
+        return ResponseEntity.badRequest().body(ApiResponse.error(errors.toString(),null));
+    }
+
+    // unreadable body or parameter on the reactive stack
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ApiResponse<?>> handleReactiveInput(ServerWebInputException ex){
+        MethodParameter parameter = ex.getMethodParameter();
+        String message = parameter == null || parameter.hasParameterAnnotation(RequestBody.class)
+                ? "Invalid request body" : "Invalid value for " + parameter.getParameterName();
+        return ResponseEntity.badRequest().body(ApiResponse.error(message,null));
+    }
+
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ApiResponse<?>> handleTypeMismatch(MethodArgumentTypeMismatchException ex){
+        return ResponseEntity.badRequest()
+                .body(ApiResponse.error("Invalid value for " + ex.getName(),null));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponse<?>> handleGeneral(Exception ex){
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
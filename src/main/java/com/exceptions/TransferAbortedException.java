@@ -0,0 +1,15 @@
+package com.exceptions;
+
+// a transfer stopped after its debit; refunded tells whether the source got the amount back
+public class TransferAbortedException extends RuntimeException {
+    private final boolean refunded;
+
+    public TransferAbortedException(String message, boolean refunded) {
+        super(message);
+        this.refunded = refunded;
+    }
+
+    public boolean isRefunded() {
+        return refunded;
+    }
+}
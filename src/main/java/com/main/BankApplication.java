@@ -3,10 +3,8 @@ package com.main;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
-import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
 @SpringBootApplication(scanBasePackages = "com")
-@EnableMongoRepositories(basePackages = "com.repository")
 public class BankApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,48 @@
+package com.migration;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+One time migration that moves account history out of the accounts collection.
+Step 1 tags every transaction with the accounts it belongs to (accountNumbers),
+step 2 removes the old transactions DBRef array from every account.
+Both steps are idempotent, so it is safe to leave enabled for a deploy or two.
+ */
+@Component
+@ConditionalOnProperty(name = "bank.migration.drain-account-transactions", havingValue = "true")
+public class DrainAccountTransactionsMigration implements ApplicationRunner {
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    Logger logger = LoggerFactory.getLogger(DrainAccountTransactionsMigration.class);
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // accountNumbers = [sourceAccount, destinationAccount] without the missing side
+        Document accountNumbers = new Document("$filter", new Document("input", Arrays.asList("$sourceAccount", "$destinationAccount"))
+                .append("cond", new Document("$ne", Arrays.asList("$$this", null))));
+        UpdateResult tagged = mongoTemplate.getCollection("transactions").updateMany(
+                Filters.exists("accountNumbers", false),
+                List.of(new Document("$set", new Document("accountNumbers", accountNumbers))));
+        logger.info("Tagged {} transactions with their account numbers", tagged.getModifiedCount());
+
+        UpdateResult drained = mongoTemplate.getCollection("accounts").updateMany(
+                Filters.exists("transactions"),
+                Updates.unset("transactions"));
+        logger.info("Removed embedded transaction references from {} accounts", drained.getModifiedCount());
+    }
+}
@@ -0,0 +1,47 @@
+package com.migration;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+One time migration from double amounts to long minor units (cents).
+accounts.balance and transactions.amount that are still stored as double are multiplied by 100,
+rounded and stored as long, done inside the db with one pipeline update per collection.
+Only double values are touched, so running it again does nothing.
+A double balance would be read as whole cents by the new code, so it runs once all beans are created
+and before the web server starts taking requests. If it fails, the app does not start.
+ */
+@Component
+@ConditionalOnProperty(name = "bank.migration.money-minor-units", havingValue = "true")
+public class MoneyMinorUnitsMigration implements SmartInitializingSingleton {
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    Logger logger = LoggerFactory.getLogger(MoneyMinorUnitsMigration.class);
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        convert("accounts", "balance");
+        convert("transactions", "amount");
+    }
+
+    private void convert(String collection, String field){
+        Document toMinor = new Document("$toLong", new Document("$round",
+                List.of(new Document("$multiply", List.of("$" + field, 100)), 0)));
+        UpdateResult result = mongoTemplate.getCollection(collection).updateMany(
+                Filters.type(field, BsonType.DOUBLE),
+                List.of(new Document("$set", new Document(field, toMinor))));
+        logger.info("Converted {} {}.{} values to minor units", result.getModifiedCount(), collection, field);
+    }
+}
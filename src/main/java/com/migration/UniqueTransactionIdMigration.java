@@ -0,0 +1,62 @@
+package com.migration;
+
+import com.model.Transactions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+One time migration for the unique transactionId index.
+Old random ids ("TXN-yyyyMMdd-n") collide, so every duplicate except the oldest one
+gets its _id appended, then the unique index is built.
+Run it once with spring.data.mongodb.auto-index-creation=false, index creation would fail on the duplicates.
+ */
+@Component
+@ConditionalOnProperty(name = "bank.migration.unique-transaction-ids", havingValue = "true")
+public class UniqueTransactionIdMigration implements ApplicationRunner {
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    Logger logger = LoggerFactory.getLogger(UniqueTransactionIdMigration.class);
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void run(ApplicationArguments args) {
+        List<Document> pipeline = List.of(
+                new Document("$sort", new Document("_id", 1)),
+                new Document("$group", new Document("_id", "$transactionId")
+                        .append("ids", new Document("$push", "$_id"))
+                        .append("count", new Document("$sum", 1))),
+                new Document("$match", new Document("count", new Document("$gt", 1))));
+
+        long renamed = 0;
+        for (Document group : mongoTemplate.getCollection("transactions").aggregate(pipeline).allowDiskUse(true)) {
+            String transactionId = group.getString("_id");
+            List<ObjectId> ids = (List<ObjectId>) group.get("ids");
+            // the oldest one keeps its id
+            for (ObjectId id : ids.subList(1, ids.size())) {
+                mongoTemplate.getCollection("transactions").updateOne(Filters.eq("_id", id),
+                        Updates.set("transactionId", transactionId + "-" + id.toHexString()));
+                renamed++;
+            }
+        }
+        logger.info("Renamed {} duplicate transaction ids", renamed);
+
+        mongoTemplate.indexOps(Transactions.class)
+                .ensureIndex(new Index().on("transactionId", Sort.Direction.ASC).unique().named("transactionId"));
+        logger.info("Unique transactionId index is in place");
+    }
+}
@@ -3,12 +3,9 @@ package com.model;
 import com.enums.AccountStatus;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 @Document(collection = "accounts")
 public class Account {
@@ -19,12 +16,13 @@ public class Account {
     private String accountNumber;
 
     private String holderName;
-    private Double balance;
+    // in minor units (cents)
+    private long balance;
     private AccountStatus status;
     private LocalDateTime createdAt;
 
-    @DBRef(lazy = true)
-    private List<Transactions> transactions = new ArrayList<>();
+    // bumped by every balance change, tells a newer copy of the account from an older one
+    private Long revision;
 
     public Account() {
     }
@@ -53,11 +51,11 @@ public class Account {
         this.holderName = holderName;
     }
 
-    public Double getBalance() {
+    public long getBalance() {
         return balance;
     }
 
-    public void setBalance(Double balance) {
+    public void setBalance(long balance) {
         this.balance = balance;
     }
 
@@ -77,11 +75,11 @@ public class Account {
         this.createdAt = createdAt;
     }
 
-    public List<Transactions> getTransactions() {
-        return transactions;
+    public Long getRevision() {
+        return revision;
     }
 
-    public void setTransactions(List<Transactions> transactions) {
-        this.transactions = transactions;
+    public void setRevision(Long revision) {
+        this.revision = revision;
     }
 }
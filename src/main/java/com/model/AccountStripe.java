@@ -0,0 +1,71 @@
+package com.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/*
+Part of the balance of a striped account. The account document itself is stripe 0, stripes 1..n-1 live here
+and are created by their first deposit. The account's balance is the sum over all of them
+ */
+@Document(collection = "account_stripes")
+public class AccountStripe {
+    // accountNumber#stripe
+    @Id
+    private String id;
+
+    @Indexed
+    private String accountNumber;
+
+    private int stripe;
+    // in minor units (cents)
+    private long balance;
+    private Long revision;
+
+    public AccountStripe() {
+    }
+
+    public static String idOf(String accountNumber, int stripe){
+        return accountNumber + "#" + stripe;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public int getStripe() {
+        return stripe;
+    }
+
+    public void setStripe(int stripe) {
+        this.stripe = stripe;
+    }
+
+    public long getBalance() {
+        return balance;
+    }
+
+    public void setBalance(long balance) {
+        this.balance = balance;
+    }
+
+    public Long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+}
@@ -0,0 +1,141 @@
+package com.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/*
+Balance movements of one account on one day, kept up to date by every mutation of the account.
+credits, debits and transactions add up over the day. last is the account state after the newest change
+of the day (the highest revision), its balance is the closing balance and the opening balance follows
+from it: closing - credits + debits. Striped accounts have no single state to keep, last stays empty.
+incomplete is set when a change of the day could not be added, its totals are then short.
+Amounts are minor units (cents)
+ */
+@Document(collection = "daily_rollups")
+@CompoundIndex(name = "account_day", def = "{'accountNumber': 1, 'day': -1}")
+public class DailyRollup {
+    // accountNumber#yyyy-MM-dd
+    @Id
+    private String id;
+
+    private String accountNumber;
+    // yyyy-MM-dd, sorts like the dates
+    private String day;
+    private long credits;
+    private long debits;
+    private long transactions;
+    private State last;
+    private boolean incomplete;
+
+    public DailyRollup() {
+    }
+
+    public static String idOf(String accountNumber, String day){
+        return accountNumber + "#" + day;
+    }
+
+    // closing balance of the day, null when not known
+    public Long closingBalance(){
+        return last == null ? null : last.getBalance();
+    }
+
+    // opening balance of the day, null when not known
+    public Long openingBalance(){
+        return last == null ? null : last.getBalance() - credits + debits;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public String getDay() {
+        return day;
+    }
+
+    public void setDay(String day) {
+        this.day = day;
+    }
+
+    public long getCredits() {
+        return credits;
+    }
+
+    public void setCredits(long credits) {
+        this.credits = credits;
+    }
+
+    public long getDebits() {
+        return debits;
+    }
+
+    public void setDebits(long debits) {
+        this.debits = debits;
+    }
+
+    public long getTransactions() {
+        return transactions;
+    }
+
+    public void setTransactions(long transactions) {
+        this.transactions = transactions;
+    }
+
+    public State getLast() {
+        return last;
+    }
+
+    public void setLast(State last) {
+        this.last = last;
+    }
+
+    public boolean isIncomplete() {
+        return incomplete;
+    }
+
+    public void setIncomplete(boolean incomplete) {
+        this.incomplete = incomplete;
+    }
+
+    // account balance at one revision
+    public static class State {
+        private Long revision;
+        private long balance;
+
+        public State() {
+        }
+
+        public State(Long revision, long balance) {
+            this.revision = revision;
+            this.balance = balance;
+        }
+
+        public Long getRevision() {
+            return revision;
+        }
+
+        public void setRevision(Long revision) {
+            this.revision = revision;
+        }
+
+        public long getBalance() {
+            return balance;
+        }
+
+        public void setBalance(long balance) {
+            this.balance = balance;
+        }
+    }
+}
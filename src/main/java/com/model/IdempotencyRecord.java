@@ -0,0 +1,81 @@
+package com.model;
+
+import com.dto.TransactionResponseDTO;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/*
+Outcome of a mutation sent with an Idempotency-Key header, so a retry gets the first result back.
+The key is claimed IN_PROGRESS before the mutation runs and COMPLETED with the response after,
+or FAILED when the mutation failed after it may have written. Mongo drops records a day after they were created.
+ */
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    private String key;
+
+    // operation and its arguments, a key may only be reused for the very same request
+    private String fingerprint;
+    private String status;
+    private TransactionResponseDTO response;
+
+    @Indexed(name = "idempotency_ttl", expireAfter = "24h")
+    private Instant createdAt;
+
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String key, String fingerprint) {
+        this.key = key;
+        this.fingerprint = fingerprint;
+        this.status = IN_PROGRESS;
+        this.createdAt = Instant.now();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public TransactionResponseDTO getResponse() {
+        return response;
+    }
+
+    public void setResponse(TransactionResponseDTO response) {
+        this.response = response;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,33 @@
+package com.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/*
+Named counter, value is the next free number. Apps lease blocks of numbers from it
+ */
+@Document(collection = "counters")
+public class SequenceCounter {
+    @Id
+    private String id;
+    private long value;
+
+    public SequenceCounter() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public void setValue(long value) {
+        this.value = value;
+    }
+}
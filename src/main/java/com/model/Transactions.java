@@ -3,22 +3,36 @@ package com.model;
 import com.enums.TransactionStatus;
 import com.enums.TransactionType;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Document
+// history pages are range scans on this index, newest first
+@CompoundIndex(name = "account_history", def = "{'accountNumbers': 1, 'timestamp': -1, '_id': -1}")
 public class Transactions {
     @Id
     private String id;
+    @Indexed(unique = true)
     private String transactionId;
     private TransactionType type; // enum
-    private Double amount;
+    // in minor units (cents)
+    private long amount;
     private TransactionStatus status; //enum
     private String sourceAccount;
     private String destinationAccount;
     private LocalDateTime timestamp;
 
+    // every account this transaction belongs to, history is looked up by this field
+    private List<String> accountNumbers;
+
+    // batch transfer this transaction came with, null for single mutations
+    @Indexed(sparse = true)
+    private String batchId;
+
     public Transactions() {
     }
 
@@ -46,11 +60,11 @@ public class Transactions {
         this.type = type;
     }
 
-    public Double getAmount() {
+    public long getAmount() {
         return amount;
     }
 
-    public void setAmount(Double amount) {
+    public void setAmount(long amount) {
         this.amount = amount;
     }
 
@@ -85,4 +99,20 @@ public class Transactions {
     public void setDestinationAccount(String destinationAccount) {
         this.destinationAccount = destinationAccount;
     }
+
+    public List<String> getAccountNumbers() {
+        return accountNumbers;
+    }
+
+    public void setAccountNumbers(List<String> accountNumbers) {
+        this.accountNumbers = accountNumbers;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
 }
@@ -0,0 +1,70 @@
+package com.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+/*
+Commit record of a batch transfer: written before its balances move, deleted once its transactions are in
+and its account markers are cleared. A record still there long after it was created belongs to a batch that
+stopped halfway (a crash). With every transaction in, the batch only needs finishing, otherwise it is taken
+back by its markers. Amounts are minor units (cents)
+ */
+@Document(collection = "transfer_batches")
+public class TransferBatch {
+    @Id
+    private String id;
+
+    // net balance change per account
+    private Map<String, Long> changes;
+    // transactions the batch inserts once its balances moved
+    private int transactions;
+
+    @Indexed
+    private Instant createdAt;
+
+    public TransferBatch() {
+    }
+
+    public TransferBatch(String id, Map<String, Long> changes, int transactions) {
+        this.id = id;
+        this.changes = changes;
+        this.transactions = transactions;
+        this.createdAt = Instant.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Map<String, Long> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(Map<String, Long> changes) {
+        this.changes = changes;
+    }
+
+    public int getTransactions() {
+        return transactions;
+    }
+
+    public void setTransactions(int transactions) {
+        this.transactions = transactions;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,37 @@
+package com.repository;
+
+import com.model.Account;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/*
+Atomic balance mutations, each one is a single findAndModify round trip.
+Amounts are minor units (cents)
+ */
+public interface AccountRepositoryCustom {
+    // add amount to balance, returns the updated account
+    Optional<Account> creditBalance(String accountNumber, long amount);
+
+    // subtract amount only if balance >= amount, empty when account missing or balance too low
+    Optional<Account> debitBalanceIfSufficient(String accountNumber, long amount);
+
+    // apply net balance changes of a batch: accounts going down first, in one unordered bulk write guarded
+    // by balance >= -change, and only when all of them went through the accounts going up in a second one.
+    // returns how many accounts were actually changed
+    long applyNetChanges(String batchId, Map<String, Long> netChanges);
+
+    // take back whatever part of the batch was applied. a credit is only taken back while the balance still
+    // covers it; returns the accounts that keep theirs because the money was spent in the meantime
+    Set<String> revertNetChanges(String batchId, Map<String, Long> netChanges);
+
+    // forget the batch marker once the batch is complete
+    void clearBatchMarker(String batchId, Collection<String> accountNumbers);
+
+    // insert new accounts in one unordered insertMany, returns the positions rejected
+    // because the account number was already taken, the rest are stored
+    Set<Integer> insertAllUnordered(List<Account> accounts);
+}
@@ -0,0 +1,140 @@
+package com.repository;
+
+import com.model.Account;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public class AccountRepositoryCustomImpl implements AccountRepositoryCustom {
+    // ids of bulk transfer batches applied to an account but not yet completed,
+    // and of stripe moves credited to it (AccountStripeRepositoryCustomImpl)
+    static final String PENDING_BATCHES = "pendingBatches";
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Account> creditBalance(String accountNumber, long amount) {
+        Query query = new Query(Criteria.where("accountNumber").is(accountNumber));
+        return Optional.ofNullable(applyBalanceChange(query, amount));
+    }
+
+    @Override
+    public Optional<Account> debitBalanceIfSufficient(String accountNumber, long amount) {
+        // guard in the filter, so check and update happen in one atomic step
+        Query query = new Query(Criteria.where("accountNumber").is(accountNumber).and("balance").gte(amount));
+        return Optional.ofNullable(applyBalanceChange(query, -amount));
+    }
+
+    @Override
+    public long applyNetChanges(String batchId, Map<String, Long> netChanges) {
+        if(netChanges.isEmpty()){
+            return 0;
+        }
+        // credits go in only once every debit did, so a revert never has to take back money that was spent
+        long debits = netChanges.values().stream().filter(delta -> delta < 0).count();
+        long modified = applyChanges(batchId, netChanges, true);
+        if(modified < debits){
+            return modified;
+        }
+        return modified + applyChanges(batchId, netChanges, false);
+    }
+
+    // one bulk write of the batch's debits or of its credits, returns how many went through
+    private long applyChanges(String batchId, Map<String, Long> netChanges, boolean debits){
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class);
+        int count = 0;
+        for(Map.Entry<String, Long> change : netChanges.entrySet()){
+            long delta = change.getValue();
+            if(delta < 0 != debits){
+                continue;
+            }
+            Criteria criteria = Criteria.where("accountNumber").is(change.getKey());
+            if(delta < 0){
+                criteria = criteria.and("balance").gte(-delta);
+            }
+            // the marker tells which accounts took part if the batch has to be reverted
+            ops.updateOne(new Query(criteria), new Update().inc("balance", delta).inc("revision", 1)
+                    .addToSet(PENDING_BATCHES, batchId));
+            count++;
+        }
+        return count == 0 ? 0 : ops.execute().getModifiedCount();
+    }
+
+    @Override
+    public Set<String> revertNetChanges(String batchId, Map<String, Long> netChanges) {
+        Set<String> kept = new HashSet<>();
+        if(netChanges.isEmpty()){
+            return kept;
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class);
+        List<String> credited = new ArrayList<>();
+        netChanges.forEach((accountNumber, delta) -> {
+            Criteria criteria = Criteria.where("accountNumber").is(accountNumber).and(PENDING_BATCHES).is(batchId);
+            if(delta > 0){
+                // never below zero: a credit already withdrawn stays
+                criteria = criteria.and("balance").gte(delta);
+                credited.add(accountNumber);
+            }
+            ops.updateOne(new Query(criteria), new Update().inc("balance", -delta).inc("revision", 1).pull(PENDING_BATCHES, batchId));
+        });
+        ops.execute();
+        if(!credited.isEmpty()){
+            // credits whose guard missed still carry the marker
+            Query query = new Query(Criteria.where("accountNumber").in(credited).and(PENDING_BATCHES).is(batchId));
+            query.fields().include("accountNumber");
+            for(Account acc : mongoTemplate.find(query, Account.class)){
+                kept.add(acc.getAccountNumber());
+            }
+            if(!kept.isEmpty()){
+                clearBatchMarker(batchId, kept);
+            }
+        }
+        return kept;
+    }
+
+    @Override
+    public void clearBatchMarker(String batchId, Collection<String> accountNumbers) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("accountNumber").in(accountNumbers).and(PENDING_BATCHES).is(batchId)),
+                new Update().pull(PENDING_BATCHES, batchId), Account.class);
+    }
+
+    @Override
+    public Set<Integer> insertAllUnordered(List<Account> accounts) {
+        Set<Integer> duplicates = new HashSet<>();
+        if(accounts.isEmpty()){
+            return duplicates;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class).insert(accounts).execute();
+        } catch (BulkOperationException e){
+            for(BulkWriteError error : e.getErrors()){
+                if(ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY){
+                    throw e;
+                }
+                duplicates.add(error.getIndex());
+            }
+        }
+        return duplicates;
+    }
+
+    private Account applyBalanceChange(Query query, long delta){
+        Update update = new Update().inc("balance", delta).inc("revision", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Account.class);
+    }
+}
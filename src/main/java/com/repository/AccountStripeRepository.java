@@ -0,0 +1,12 @@
+package com.repository;
+
+import com.model.AccountStripe;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AccountStripeRepository extends MongoRepository<AccountStripe,String>, AccountStripeRepositoryCustom {
+    List<AccountStripe> findByAccountNumber(String accountNumber);
+}
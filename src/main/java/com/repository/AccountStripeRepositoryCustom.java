@@ -0,0 +1,38 @@
+package com.repository;
+
+import com.model.Account;
+import com.model.AccountStripe;
+
+import java.util.List;
+import java.util.Optional;
+
+/*
+Balance changes of account stripes, each one is a single atomic update of one stripe document.
+Moving money from a stripe back into the account document touches two documents. The stripe keeps the
+move, claimed by whoever works on it, until the account is credited; a move cut short by a crash is taken
+over by one later caller once its claim is stale. The account keeps a marker of the move for a while
+after, so a stalled first owner cannot credit it again. Amounts are minor units (cents)
+ */
+public interface AccountStripeRepositoryCustom {
+    // add amount to the stripe, the stripe document is created by its first deposit
+    void credit(String accountNumber, int stripe, long amount);
+
+    // subtract amount only if the stripe holds at least that much
+    boolean debitIfSufficient(String accountNumber, int stripe, long amount);
+
+    // the account with the balance of all its stripes added, account and stripes read by one aggregation.
+    // money of a move that has left its stripe but not reached the account yet is counted once
+    Optional<Account> findWithStripeBalances(String accountNumber);
+
+    // move amount from the stripe into the account document, false if the stripe does not hold that much
+    boolean moveToAccount(String accountNumber, int stripe, long amount);
+
+    // finish moves that were cut short (claimed a while ago and still there), returns how many this call took over
+    int completePendingMoves();
+
+    // drop the account's markers of moves older than any owner could still be working on them
+    void pruneMoveMarkers(String accountNumber);
+
+    // stripes with money in them, of accounts other than these or at stripe >= stripes
+    List<AccountStripe> findStrayStripes(List<String> accountNumbers, int stripes);
+}
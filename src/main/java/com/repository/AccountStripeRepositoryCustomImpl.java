@@ -0,0 +1,145 @@
+package com.repository;
+
+import com.model.Account;
+import com.model.AccountStripe;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+public class AccountStripeRepositoryCustomImpl implements AccountStripeRepositoryCustom {
+    // moves out of a stripe that are not complete yet, {id, amount, claim}
+    static final String PENDING_MOVES = "pendingMoves";
+    // a claim younger than this may still be worked on by its owner, older ones can be taken over
+    static final long STALE_MOVE_SECONDS = 60;
+    // the account keeps a move's marker this long after the credit, so an owner that stalled after its
+    // claim was taken over still finds it and does not credit a second time
+    static final long MOVE_MARKER_KEEP_SECONDS = 600;
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Override
+    public void credit(String accountNumber, int stripe, long amount) {
+        Update update = new Update().inc("balance", amount).inc("revision", 1)
+                .setOnInsert("accountNumber", accountNumber).setOnInsert("stripe", stripe);
+        mongoTemplate.upsert(byId(accountNumber, stripe), update, AccountStripe.class);
+    }
+
+    @Override
+    public boolean debitIfSufficient(String accountNumber, int stripe, long amount) {
+        Query query = new Query(Criteria.where("_id").is(AccountStripe.idOf(accountNumber, stripe)).and("balance").gte(amount));
+        return mongoTemplate.updateFirst(query, new Update().inc("balance", -amount).inc("revision", 1), AccountStripe.class)
+                .getModifiedCount() == 1;
+    }
+
+    @Override
+    public Optional<Account> findWithStripeBalances(String accountNumber) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("accountNumber").is(accountNumber)),
+                Aggregation.lookup("account_stripes", "accountNumber", "accountNumber", "stripes"));
+        Document doc = mongoTemplate.aggregate(aggregation, "accounts", Document.class).getUniqueMappedResult();
+        if(doc == null){
+            return Optional.empty();
+        }
+        List<Document> stripes = doc.getList("stripes", Document.class, List.of());
+        List<String> credited = doc.getList(AccountRepositoryCustomImpl.PENDING_BATCHES, String.class, List.of());
+        doc.remove("stripes");
+        Account acc = mongoTemplate.getConverter().read(Account.class, doc);
+        long balance = acc.getBalance();
+        for(Document stripe : stripes){
+            balance += stripe.get("balance", Number.class).longValue();
+            // out of the stripe already; until the account carries its marker, not in the account either
+            for(Document move : stripe.getList(PENDING_MOVES, Document.class, List.of())){
+                if(!credited.contains(move.getString("id"))){
+                    balance += move.getLong("amount");
+                }
+            }
+        }
+        acc.setBalance(balance);
+        return Optional.of(acc);
+    }
+
+    @Override
+    public boolean moveToAccount(String accountNumber, int stripe, long amount) {
+        String moveId = new ObjectId().toHexString();
+        String claim = new ObjectId().toHexString();
+        // out of the stripe, which remembers where it went until the move is complete; claimed by this caller
+        Query query = new Query(Criteria.where("_id").is(AccountStripe.idOf(accountNumber, stripe)).and("balance").gte(amount));
+        Update update = new Update().inc("balance", -amount).inc("revision", 1)
+                .push(PENDING_MOVES, new Document("id", moveId).append("amount", amount).append("claim", claim));
+        if(mongoTemplate.updateFirst(query, update, AccountStripe.class).getModifiedCount() == 0){
+            return false;
+        }
+        completeMove(accountNumber, AccountStripe.idOf(accountNumber, stripe), moveId, amount, claim);
+        return true;
+    }
+
+    @Override
+    public int completePendingMoves() {
+        Query query = new Query(Criteria.where(PENDING_MOVES + ".0").exists(true));
+        long staleBefore = System.currentTimeMillis() - STALE_MOVE_SECONDS * 1000;
+        int completed = 0;
+        for(Document stripe : mongoTemplate.find(query, Document.class, "account_stripes")){
+            for(Document move : stripe.getList(PENDING_MOVES, Document.class)){
+                String claim = move.getString("claim");
+                // moves from before claims were kept count from their own start
+                if(new ObjectId(claim != null ? claim : move.getString("id")).getDate().getTime() >= staleBefore){
+                    continue;
+                }
+                // take the move over, only one of several callers that saw it stale gets it
+                String ownClaim = new ObjectId().toHexString();
+                Query claimQuery = new Query(Criteria.where("_id").is(stripe.getString("_id"))
+                        .and(PENDING_MOVES).elemMatch(Criteria.where("id").is(move.getString("id")).and("claim").is(claim)));
+                if(mongoTemplate.updateFirst(claimQuery, new Update().set(PENDING_MOVES + ".$.claim", ownClaim), AccountStripe.class)
+                        .getModifiedCount() == 0){
+                    continue;
+                }
+                completeMove(stripe.getString("accountNumber"), stripe.getString("_id"), move.getString("id"), move.getLong("amount"), ownClaim);
+                completed++;
+            }
+        }
+        return completed;
+    }
+
+    @Override
+    public List<AccountStripe> findStrayStripes(List<String> accountNumbers, int stripes) {
+        Query query = new Query(Criteria.where("balance").ne(0L).orOperator(
+                Criteria.where("accountNumber").nin(accountNumbers), Criteria.where("stripe").gte(stripes)));
+        return mongoTemplate.find(query, AccountStripe.class);
+    }
+
+    @Override
+    public void pruneMoveMarkers(String accountNumber) {
+        // ids are ObjectIds in hex, they sort by creation time. batch markers that old are leftovers of a
+        // crashed batch, nothing reads them any more
+        String keepFrom = ObjectId.getSmallestWithDate(new Date(System.currentTimeMillis() - MOVE_MARKER_KEEP_SECONDS * 1000)).toHexString();
+        mongoTemplate.updateFirst(new Query(Criteria.where("accountNumber").is(accountNumber)
+                        .and(AccountRepositoryCustomImpl.PENDING_BATCHES).lt(keepFrom)),
+                new Update().pull(AccountRepositoryCustomImpl.PENDING_BATCHES, new Document("$lt", keepFrom)), Account.class);
+    }
+
+    // only the holder of the move's claim gets here. the account is credited only while it doesn't carry the
+    // move's marker, and the marker stays there after the stripe's entry is gone (see pruneMoveMarkers), so
+    // an owner whose claim was taken over while it stalled finds the marker and does not credit again
+    private void completeMove(String accountNumber, String stripeId, String moveId, long amount, String claim){
+        mongoTemplate.updateFirst(new Query(Criteria.where("accountNumber").is(accountNumber)
+                        .and(AccountRepositoryCustomImpl.PENDING_BATCHES).ne(moveId)),
+                new Update().inc("balance", amount).inc("revision", 1).addToSet(AccountRepositoryCustomImpl.PENDING_BATCHES, moveId),
+                Account.class);
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(stripeId)),
+                new Update().pull(PENDING_MOVES, new Document("id", moveId).append("claim", claim)), AccountStripe.class);
+    }
+
+    private static Query byId(String accountNumber, int stripe){
+        return new Query(Criteria.where("_id").is(AccountStripe.idOf(accountNumber, stripe)));
+    }
+}
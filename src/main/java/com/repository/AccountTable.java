@@ -0,0 +1,305 @@
+package com.repository;
+
+import com.model.Account;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/*
+Open addressing table from a long account key to its balance, revision and status, kept off-heap in
+direct buffers (SLOT_SIZE bytes a slot), so reads and balance changes hash no strings and allocate nothing.
+The fixed details of an account (id, number, holder, createdAt) sit in an on-heap array next to the slots.
+
+Keys belong to one of STRIPES locks; changing an account happens under the write lock of its key. read() is an
+optimistic read of the stripe, so reads write no shared memory and only wait for a writer of the same stripe.
+Inserts under different locks can meet at the same free slot, so a slot's key is claimed with a CAS.
+Linear probing, a delete leaves a tombstone. An insert only goes ahead below 3/4 full (hasRoom); past that
+the table is rebuilt with every stripe locked, without tombstones and sized so the live keys take 3/8 at most.
+At most one insert per stripe runs past the 3/4 check, a quarter of the slots (>= STRIPES) absorbs them,
+so there is always an empty slot to end a probe.
+Footprint per slot: SLOT_SIZE bytes off-heap and one reference on-heap, between 3/8 and 3/4 of the slots in use.
+ */
+final class AccountTable {
+    static final int SLOT_SIZE = 32;
+    static final int KEY = 0, BALANCE = 8, REVISION = 16, STATUS = 24;
+
+    static final long EMPTY = 0;
+    static final long DELETED = Long.MIN_VALUE;
+
+    static final int STRIPES = 1024;
+    // slots per buffer, 32 MB buffers stay far below the 2 GB one buffer can address
+    static final int CHUNK_BITS = 20;
+    static final int MIN_CAPACITY = 4 * STRIPES;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final StampedLock[] stripes = new StampedLock[STRIPES];
+    private volatile Slots slots;
+    private final AtomicInteger used = new AtomicInteger();  // live keys and tombstones
+    private final AtomicInteger size = new AtomicInteger();  // live keys
+
+    AccountTable(int capacity) {
+        for(int i = 0; i < STRIPES; i++){
+            stripes[i] = new StampedLock();
+        }
+        slots = new Slots(capacityFor(capacity));
+    }
+
+    // table size that holds accounts below the 3/4 mark
+    static int capacityFor(long accounts){
+        long capacity = MIN_CAPACITY;
+        while (capacity - capacity / 4 <= accounts){
+            capacity <<= 1;
+        }
+        if(capacity > 1 << 30){
+            throw new IllegalArgumentException("Account table can't hold " + accounts + " accounts");
+        }
+        return (int) capacity;
+    }
+
+    // murmur3 finalizer, spreads the structured bits of packed account numbers
+    private static long mix(long key){
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        return key ^ key >>> 33;
+    }
+
+    private StampedLock stripe(long key){
+        return stripes[(int) (mix(key) >>> 54) & (STRIPES - 1)];
+    }
+
+    // not reentrant
+    void lock(long key){
+        stripe(key).writeLock();
+    }
+
+    void unlock(long key){
+        stripe(key).tryUnlockWrite();
+    }
+
+    interface SlotReader<R> {
+        R read(Account details, long balance, long revision, int status);
+    }
+
+    // consistent view of the key's slot handed to reader, null when the key is not in the table.
+    // the values are read without the lock and used only if no writer got in between, else read again under it
+    <R> R read(long key, SlotReader<R> reader){
+        StampedLock lock = stripe(key);
+        long stamp = lock.tryOptimisticRead();
+        if(stamp != 0){
+            Slots s = slots;
+            int slot = find(s, key);
+            Account details = slot < 0 ? null : s.details(slot);
+            long balance = slot < 0 ? 0 : s.buffer(slot).getLong(s.offset(slot) + BALANCE);
+            long revision = slot < 0 ? 0 : s.buffer(slot).getLong(s.offset(slot) + REVISION);
+            int status = slot < 0 ? 0 : s.buffer(slot).getInt(s.offset(slot) + STATUS);
+            if(lock.validate(stamp)){
+                return slot < 0 ? null : reader.read(details, balance, revision, status);
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            int slot = find(key);
+            return slot < 0 ? null : reader.read(details(slot), balance(slot), revision(slot), status(slot));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // the methods below need the lock of the key / of the slot's key
+
+    // slot of the key, -1 when it is not in the table
+    int find(long key){
+        return find(slots, key);
+    }
+
+    // a table replaced by a rebuild no longer changes, probing it still ends at an empty slot
+    private static int find(Slots s, long key){
+        int slot = (int) mix(key) & s.mask;
+        while (true){
+            long k = s.key(slot);
+            if(k == key){
+                return slot;
+            }
+            if(k == EMPTY){
+                return -1;
+            }
+            slot = (slot + 1) & s.mask;
+        }
+    }
+
+    // false when the table has to grow before the next insert: unlock, grow() and try again
+    boolean hasRoom(){
+        return used.get() < slots.threshold;
+    }
+
+    // slot for a key that is not in the table yet, only after hasRoom
+    int insert(long key, Account details){
+        Slots s = slots;
+        int slot = (int) mix(key) & s.mask;
+        while (true){
+            long k = s.key(slot);
+            if((k == EMPTY || k == DELETED) && s.claim(slot, k, key)){
+                if(k == EMPTY){
+                    used.incrementAndGet();
+                }
+                size.incrementAndGet();
+                s.details(slot, details);
+                return slot;
+            }
+            slot = (slot + 1) & s.mask;
+        }
+    }
+
+    void delete(int slot){
+        Slots s = slots;
+        s.details(slot, null);
+        LONGS.setVolatile(s.buffer(slot), s.offset(slot) + KEY, DELETED);
+        size.decrementAndGet();
+    }
+
+    Account details(int slot){
+        return slots.details(slot);
+    }
+
+    long balance(int slot){
+        Slots s = slots;
+        return s.buffer(slot).getLong(s.offset(slot) + BALANCE);
+    }
+
+    long revision(int slot){
+        Slots s = slots;
+        return s.buffer(slot).getLong(s.offset(slot) + REVISION);
+    }
+
+    int status(int slot){
+        Slots s = slots;
+        return s.buffer(slot).getInt(s.offset(slot) + STATUS);
+    }
+
+    void set(int slot, long balance, long revision){
+        Slots s = slots;
+        ByteBuffer buffer = s.buffer(slot);
+        int offset = s.offset(slot);
+        buffer.putLong(offset + BALANCE, balance);
+        buffer.putLong(offset + REVISION, revision);
+    }
+
+    void status(int slot, int status){
+        Slots s = slots;
+        s.buffer(slot).putInt(s.offset(slot) + STATUS, status);
+    }
+
+    // no lock needed for these
+
+    int size(){
+        return size.get();
+    }
+
+    int capacity(){
+        return slots.capacity;
+    }
+
+    // make room for more keys, must not be called with a stripe lock held
+    void grow(){
+        rebuild(0);
+    }
+
+    // size the table for this many accounts up front, so it does not grow while they come in
+    void reserve(long accounts){
+        if(capacityFor(accounts) > slots.capacity){
+            rebuild(accounts);
+        }
+    }
+
+    // at least room for needed accounts, and the live keys at no more than 3/8 so the next rebuild is far off
+    private void rebuild(long needed){
+        for(StampedLock lock : stripes){
+            lock.writeLock();
+        }
+        try {
+            Slots old = slots;
+            if(capacityFor(needed) <= old.capacity && used.get() < old.threshold){
+                return;  // someone else made room meanwhile
+            }
+            // tombstones are left behind
+            Slots fresh = new Slots(Math.max(capacityFor(needed), capacityFor(2L * size.get() + 2)));
+            for(int slot = 0; slot < old.capacity; slot++){
+                long key = old.key(slot);
+                if(key == EMPTY || key == DELETED){
+                    continue;
+                }
+                int to = (int) mix(key) & fresh.mask;
+                while (fresh.key(to) != EMPTY){
+                    to = (to + 1) & fresh.mask;
+                }
+                ByteBuffer from = old.buffer(slot);
+                ByteBuffer into = fresh.buffer(to);
+                into.put(fresh.offset(to), from, old.offset(slot), SLOT_SIZE);
+                fresh.details(to, old.details(slot));
+            }
+            used.set(size.get());
+            slots = fresh;
+        } finally {
+            for(StampedLock lock : stripes){
+                lock.tryUnlockWrite();
+            }
+        }
+    }
+
+    // slot storage of one table size: buffers of 2^CHUNK_BITS slots (one smaller buffer for small tables)
+    private static final class Slots {
+        final int capacity;
+        final int mask;
+        final int threshold;
+        final ByteBuffer[] buffers;
+        final Account[][] details;
+
+        Slots(int capacity) {
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.threshold = capacity - capacity / 4;
+            int chunk = Math.min(capacity, 1 << CHUNK_BITS);
+            int chunks = capacity / chunk;
+            buffers = new ByteBuffer[chunks];
+            details = new Account[chunks][];
+            for(int i = 0; i < chunks; i++){
+                buffers[i] = ByteBuffer.allocateDirect(chunk * SLOT_SIZE).order(ByteOrder.nativeOrder());
+                if(buffers[i].alignmentOffset(0, Long.BYTES) != 0){
+                    throw new IllegalStateException("Direct buffer is not 8 byte aligned");
+                }
+                details[i] = new Account[chunk];
+            }
+        }
+
+        ByteBuffer buffer(int slot){
+            return buffers[slot >>> CHUNK_BITS];
+        }
+
+        int offset(int slot){
+            return (slot & ((1 << CHUNK_BITS) - 1)) * SLOT_SIZE;
+        }
+
+        long key(int slot){
+            return (long) LONGS.getVolatile(buffer(slot), offset(slot) + KEY);
+        }
+
+        boolean claim(int slot, long expected, long key){
+            return LONGS.compareAndSet(buffer(slot), offset(slot) + KEY, expected, key);
+        }
+
+        Account details(int slot){
+            return details[slot >>> CHUNK_BITS][slot & ((1 << CHUNK_BITS) - 1)];
+        }
+
+        void details(int slot, Account account){
+            details[slot >>> CHUNK_BITS][slot & ((1 << CHUNK_BITS) - 1)] = account;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.repository;
+
+import com.model.SequenceCounter;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CounterRepository extends MongoRepository<SequenceCounter,String>, CounterRepositoryCustom {
+}
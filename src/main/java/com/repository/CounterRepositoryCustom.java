@@ -0,0 +1,6 @@
+package com.repository;
+
+public interface CounterRepositoryCustom {
+    // atomically reserve size numbers from the named counter, returns the first one of the block
+    long reserveBlock(String name, int size);
+}
@@ -0,0 +1,25 @@
+package com.repository;
+
+import com.model.SequenceCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class CounterRepositoryCustomImpl implements CounterRepositoryCustom {
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Override
+    public long reserveBlock(String name, int size) {
+        // upsert creates the counter on first use, so the first block starts at 0
+        SequenceCounter counter = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(name)),
+                new Update().inc("value", size),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                SequenceCounter.class);
+        return counter.getValue() - size;
+    }
+}
@@ -0,0 +1,13 @@
+package com.repository;
+
+import com.model.DailyRollup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface DailyRollupRepository extends MongoRepository<DailyRollup,String>, DailyRollupRepositoryCustom {
+    // newest day before the given one, where a statement's balance carries over from
+    Optional<DailyRollup> findFirstByAccountNumberAndDayLessThanOrderByDayDesc(String accountNumber, String day);
+}
@@ -0,0 +1,21 @@
+package com.repository;
+
+import com.model.DailyRollup;
+
+import java.util.List;
+
+/*
+Daily rollups are only ever added to: each change is one upsert of $inc on the totals and
+$max on the last state, so changes of the same account and day can land in any order
+ */
+public interface DailyRollupRepositoryCustom {
+    // add the changes (credits, debits, transactions, state after) to their accounts' rollups of the day,
+    // in one round trip
+    void record(String day, List<DailyRollup> changes);
+
+    // flag the accounts' rollups of the day as missing a change, in one round trip
+    void markIncomplete(String day, List<String> accountNumbers);
+
+    // rollups of the account from first to last day, both included, oldest first
+    List<DailyRollup> findDays(String accountNumber, String first, String last);
+}
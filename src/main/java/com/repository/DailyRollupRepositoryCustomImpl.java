@@ -0,0 +1,59 @@
+package com.repository;
+
+import com.model.DailyRollup;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+public class DailyRollupRepositoryCustomImpl implements DailyRollupRepositoryCustom {
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Override
+    public void record(String day, List<DailyRollup> changes) {
+        if(changes.isEmpty()){
+            return;
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DailyRollup.class);
+        for(DailyRollup change : changes){
+            Update update = new Update().inc("credits", change.getCredits()).inc("debits", change.getDebits())
+                    .inc("transactions", change.getTransactions())
+                    .setOnInsert("accountNumber", change.getAccountNumber()).setOnInsert("day", day);
+            DailyRollup.State state = change.getLast();
+            if(state != null && state.getRevision() != null){
+                // documents compare field by field, revision first, so the newest state stays
+                update.max("last", new Document("revision", state.getRevision()).append("balance", state.getBalance()));
+            }
+            ops.upsert(new Query(Criteria.where("_id").is(DailyRollup.idOf(change.getAccountNumber(), day))), update);
+        }
+        ops.execute();
+    }
+
+    @Override
+    public void markIncomplete(String day, List<String> accountNumbers) {
+        if(accountNumbers.isEmpty()){
+            return;
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DailyRollup.class);
+        for(String accountNumber : accountNumbers){
+            Update update = new Update().set("incomplete", true)
+                    .setOnInsert("accountNumber", accountNumber).setOnInsert("day", day);
+            ops.upsert(new Query(Criteria.where("_id").is(DailyRollup.idOf(accountNumber, day))), update);
+        }
+        ops.execute();
+    }
+
+    @Override
+    public List<DailyRollup> findDays(String accountNumber, String first, String last) {
+        Query query = new Query(Criteria.where("accountNumber").is(accountNumber).and("day").gte(first).lte(last))
+                .with(Sort.by(Sort.Direction.ASC, "day"));
+        return mongoTemplate.find(query, DailyRollup.class);
+    }
+}
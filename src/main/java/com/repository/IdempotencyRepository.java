@@ -0,0 +1,9 @@
+package com.repository;
+
+import com.model.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyRepository extends MongoRepository<IdempotencyRecord,String> {
+}
@@ -0,0 +1,288 @@
+package com.repository;
+
+import com.enums.AccountStatus;
+import com.model.Account;
+import com.utils.AccountNumberGenerator;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/*
+Accounts for the inmemory profile. Balance, revision and status live off-heap in an AccountTable keyed by
+the account number packed into a long (AccountNumberGenerator.pack), numbers that don't pack get a key
+from a side map. The rest of an account is stored once and never copied, a balance change only writes the
+table. Every change runs under the lock of the account's key, so it is atomic per account like the
+findAndModify it stands in for. Reads don't lock, they hand out copies.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryAccountRepository extends InMemoryMongoRepository<Account> implements AccountRepository {
+    static final long NO_REVISION = -1;
+
+    final AccountTable table = new AccountTable(0);
+
+    // keys for account numbers that don't pack, negative so they never meet a packed one
+    private final Map<String, Long> otherKeys = new ConcurrentHashMap<>();
+    private final AtomicLong nextOtherKey = new AtomicLong(Long.MIN_VALUE);
+
+    // bulk transfer batches applied to an account but not completed yet, only touched under its lock
+    private final Map<String, Set<String>> pendingBatches = new ConcurrentHashMap<>();
+
+    @Value("${bank.account-table.expected-accounts:0}")
+    long expectedAccounts;
+
+    @PostConstruct
+    void presize(){
+        table.reserve(expectedAccounts);
+    }
+
+    @Override
+    protected String idOf(Account account) {
+        return account.getId();
+    }
+
+    @Override
+    protected void setId(Account account, String id) {
+        account.setId(id);
+    }
+
+    @Override
+    protected Account stored(Account account) {
+        return copy(account);
+    }
+
+    // the stored account with its current balance, revision and status
+    @Override
+    protected Account read(Account account) {
+        long key = keyOf(account.getAccountNumber(), false);
+        Account current = key == 0 ? null : table.read(key, (details, balance, revision, status) ->
+                details.getId().equals(account.getId()) ? account(details, balance, revision, status) : null);
+        return current != null ? current : copy(account);
+    }
+
+    @Override
+    protected void indexed(Account account) {
+        long key = keyOf(account.getAccountNumber(), true);
+        while (true){
+            table.lock(key);
+            try {
+                if(table.find(key) >= 0){
+                    throw new DuplicateKeyException("Duplicate accountNumber " + account.getAccountNumber());
+                }
+                if(table.hasRoom()){
+                    accountStored(account);
+                    int slot = table.insert(key, account);
+                    table.set(slot, account.getBalance(), account.getRevision() == null ? NO_REVISION : account.getRevision());
+                    table.status(slot, account.getStatus() == null ? 0 : account.getStatus().ordinal() + 1);
+                    return;
+                }
+            } finally {
+                table.unlock(key);
+            }
+            table.grow();
+        }
+    }
+
+    // called under the lock of the account, so nothing else can change it in between.
+    // no-ops here, the journal profile records them
+    protected void accountStored(Account account){
+    }
+
+    protected void balanceChanged(String accountNumber, long delta){
+    }
+
+    @Override
+    protected void removed(Account account) {
+        // the table may already hold a newer copy of the same account
+        withAccount(account.getAccountNumber(), slot -> {
+            if(slot >= 0 && table.details(slot).getId().equals(account.getId())){
+                table.delete(slot);
+                pendingBatches.remove(account.getAccountNumber());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Account> findByAccountNumber(String accountNumber) {
+        long key = keyOf(accountNumber, false);
+        return key == 0 ? Optional.empty() : Optional.ofNullable(table.read(key, InMemoryAccountRepository::account));
+    }
+
+    @Override
+    public boolean existsByAccountNumber(String accountNumber) {
+        long key = keyOf(accountNumber, false);
+        return key != 0 && table.read(key, (details, balance, revision, status) -> Boolean.TRUE) != null;
+    }
+
+    @Override
+    public List<Account> findByAccountNumberIn(Collection<String> accountNumbers) {
+        List<Account> found = new ArrayList<>();
+        for(String accountNumber : new HashSet<>(accountNumbers)){
+            findByAccountNumber(accountNumber).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public Optional<Account> creditBalance(String accountNumber, long amount) {
+        return Optional.ofNullable(withAccount(accountNumber, slot -> slot < 0 ? null : changed(slot, amount)));
+    }
+
+    @Override
+    public Optional<Account> debitBalanceIfSufficient(String accountNumber, long amount) {
+        return Optional.ofNullable(withAccount(accountNumber,
+                slot -> slot < 0 || table.balance(slot) < amount ? null : changed(slot, -amount)));
+    }
+
+    @Override
+    public long applyNetChanges(String batchId, Map<String, Long> netChanges) {
+        // debits first, credits only once every debit went through
+        long debits = netChanges.values().stream().filter(delta -> delta < 0).count();
+        long modified = applyChanges(batchId, netChanges, true);
+        if(modified < debits){
+            return modified;
+        }
+        return modified + applyChanges(batchId, netChanges, false);
+    }
+
+    private long applyChanges(String batchId, Map<String, Long> netChanges, boolean debits){
+        long modified = 0;
+        for(Map.Entry<String, Long> change : netChanges.entrySet()){
+            long delta = change.getValue();
+            if(delta < 0 != debits){
+                continue;
+            }
+            boolean applied = withAccount(change.getKey(), slot -> {
+                if(slot < 0 || (delta < 0 && table.balance(slot) < -delta)){
+                    return false;
+                }
+                pendingBatches.computeIfAbsent(change.getKey(), n -> new HashSet<>()).add(batchId);
+                changed(slot, delta);
+                return true;
+            });
+            if(applied) modified++;
+        }
+        return modified;
+    }
+
+    @Override
+    public Set<String> revertNetChanges(String batchId, Map<String, Long> netChanges) {
+        Set<String> kept = new HashSet<>();
+        netChanges.forEach((accountNumber, delta) -> withAccount(accountNumber, slot -> {
+            if(slot >= 0 && unmark(accountNumber, batchId)){
+                // a credit already withdrawn stays
+                if(delta > 0 && table.balance(slot) < delta){
+                    kept.add(accountNumber);
+                } else {
+                    changed(slot, -delta);
+                }
+            }
+            return null;
+        }));
+        return kept;
+    }
+
+    @Override
+    public void clearBatchMarker(String batchId, Collection<String> accountNumbers) {
+        for(String accountNumber : accountNumbers){
+            withAccount(accountNumber, slot -> slot >= 0 && unmark(accountNumber, batchId));
+        }
+    }
+
+    @Override
+    public Set<Integer> insertAllUnordered(List<Account> accounts) {
+        Set<Integer> duplicates = new HashSet<>();
+        for(int i = 0; i < accounts.size(); i++){
+            try {
+                store(accounts.get(i));
+            } catch (DuplicateKeyException e){
+                duplicates.add(i);
+            }
+        }
+        return duplicates;
+    }
+
+    // table key of an account number, 0 when it has none and create is false
+    private long keyOf(String accountNumber, boolean create){
+        long key = AccountNumberGenerator.pack(accountNumber);
+        if(key != 0){
+            return key;
+        }
+        if(create){
+            return otherKeys.computeIfAbsent(accountNumber, n -> nextOtherKey.incrementAndGet());
+        }
+        return otherKeys.getOrDefault(accountNumber, 0L);
+    }
+
+    // runs action under the lock of the account with its slot, -1 when there is no such account
+    private <R> R withAccount(String accountNumber, IntFunction<R> action){
+        long key = keyOf(accountNumber, false);
+        if(key == 0){
+            return action.apply(-1);
+        }
+        table.lock(key);
+        try {
+            return action.apply(table.find(key));
+        } finally {
+            table.unlock(key);
+        }
+    }
+
+    // true if the batch was applied to the account, only called under its lock
+    private boolean unmark(String accountNumber, String batchId){
+        Set<String> batches = pendingBatches.get(accountNumber);
+        if(batches == null || !batches.remove(batchId)){
+            return false;
+        }
+        if(batches.isEmpty()){
+            pendingBatches.remove(accountNumber);
+        }
+        return true;
+    }
+
+    // move the balance by delta and bump the revision, only called under the account's lock
+    private Account changed(int slot, long delta){
+        long revision = table.revision(slot);
+        balanceChanged(table.details(slot).getAccountNumber(), delta);
+        table.set(slot, table.balance(slot) + delta, revision == NO_REVISION ? 1 : revision + 1);
+        return current(slot);
+    }
+
+    private Account current(int slot){
+        return account(table.details(slot), table.balance(slot), table.revision(slot), table.status(slot));
+    }
+
+    private static Account account(Account details, long balance, long revision, int status){
+        Account acc = copy(details);
+        acc.setBalance(balance);
+        acc.setRevision(revision == NO_REVISION ? null : revision);
+        acc.setStatus(status == 0 ? null : AccountStatus.values()[status - 1]);
+        return acc;
+    }
+
+    private static Account copy(Account account){
+        Account copy = new Account();
+        copy.setId(account.getId());
+        copy.setAccountNumber(account.getAccountNumber());
+        copy.setHolderName(account.getHolderName());
+        copy.setBalance(account.getBalance());
+        copy.setStatus(account.getStatus());
+        copy.setCreatedAt(account.getCreatedAt());
+        copy.setRevision(account.getRevision());
+        return copy;
+    }
+}
@@ -0,0 +1,39 @@
+package com.repository;
+
+import com.model.SequenceCounter;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/*
+Named counters for the inmemory profile, a block reservation is one atomic map update
+like the upserting findAndModify
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryCounterRepository extends InMemoryMongoRepository<SequenceCounter> implements CounterRepository {
+    @Override
+    protected String idOf(SequenceCounter counter) {
+        return counter.getId();
+    }
+
+    @Override
+    protected void setId(SequenceCounter counter, String id) {
+        counter.setId(id);
+    }
+
+    // called inside the compute of the counter, a no-op here, the journal profile records it
+    protected void reserved(SequenceCounter counter){
+    }
+
+    @Override
+    public long reserveBlock(String name, int size) {
+        SequenceCounter counter = documents.compute(name, (k, current) -> {
+            SequenceCounter next = new SequenceCounter();
+            next.setId(name);
+            next.setValue((current == null ? 0 : current.getValue()) + size);
+            reserved(next);
+            return next;
+        });
+        return counter.getValue() - size;
+    }
+}
@@ -0,0 +1,56 @@
+package com.repository;
+
+import com.model.IdempotencyRecord;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Idempotency records for the inmemory and journal profiles, the journal does not record them so keys are
+forgotten on a restart. Stands in for the 24h TTL index too: an expired record
+is invisible to reads, can be claimed again, and is dropped by a sweep every SWEEP_EVERY inserts
+ */
+@Repository
+@Profile({"inmemory", "journal"})
+public class InMemoryIdempotencyRepository extends InMemoryMongoRepository<IdempotencyRecord> implements IdempotencyRepository {
+    static final Duration TTL = Duration.ofHours(24);
+    static final int SWEEP_EVERY = 10000;
+
+    private final AtomicLong inserts = new AtomicLong();
+
+    @Override
+    protected String idOf(IdempotencyRecord record) {
+        return record.getKey();
+    }
+
+    @Override
+    protected void setId(IdempotencyRecord record, String id) {
+        record.setKey(id);
+    }
+
+    @Override
+    public <S extends IdempotencyRecord> S insert(S entity) {
+        if(inserts.incrementAndGet() % SWEEP_EVERY == 0){
+            Instant cutoff = Instant.now().minus(TTL);
+            documents.values().removeIf(r -> expired(r, cutoff));
+        }
+        IdempotencyRecord existing = documents.get(entity.getKey());
+        if(existing != null && expired(existing, Instant.now().minus(TTL))){
+            documents.remove(entity.getKey(), existing);
+        }
+        return super.insert(entity);
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> findById(String id) {
+        return super.findById(id).filter(r -> !expired(r, Instant.now().minus(TTL)));
+    }
+
+    private static boolean expired(IdempotencyRecord record, Instant cutoff){
+        return record.getCreatedAt() != null && record.getCreatedAt().isBefore(cutoff);
+    }
+}
@@ -0,0 +1,216 @@
+package com.repository;
+
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/*
+ConcurrentHashMap backed MongoRepository for the inmemory profile, documents by _id.
+Ids are ObjectId hex strings like the ones mongo assigns, insert rejects a taken id with DuplicateKeyException.
+Subclasses keep their secondary indexes in step through indexed / removed, an indexed that throws
+(DuplicateKeyException for a unique index) undoes the insert.
+Sorting, paging and query by example are not supported
+ */
+public abstract class InMemoryMongoRepository<T> implements MongoRepository<T, String> {
+    protected final ConcurrentHashMap<String, T> documents = new ConcurrentHashMap<>();
+
+    protected abstract String idOf(T document);
+
+    protected abstract void setId(T document, String id);
+
+    // copy kept in the map, mutable documents are copied so callers can't change stored state
+    protected T stored(T document){
+        return document;
+    }
+
+    // copy handed out by reads
+    protected T read(T document){
+        return document;
+    }
+
+    protected void indexed(T document){
+    }
+
+    protected void removed(T document){
+    }
+
+    @Override
+    public <S extends T> S insert(S entity) {
+        return store(entity);
+    }
+
+    // the insert itself, bulk writes use it too so subclasses can add work once per call instead of per document
+    protected <S extends T> S store(S entity) {
+        if(idOf(entity) == null){
+            setId(entity, new ObjectId().toHexString());
+        }
+        T document = stored(entity);
+        if(documents.putIfAbsent(idOf(document), document) != null){
+            throw new DuplicateKeyException("Duplicate _id " + idOf(document));
+        }
+        try {
+            indexed(document);
+        } catch (RuntimeException e){
+            documents.remove(idOf(document), document);
+            throw e;
+        }
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = new ArrayList<>();
+        for(S entity : entities){
+            inserted.add(store(entity));
+        }
+        return inserted;
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        if(idOf(entity) == null){
+            return store(entity);
+        }
+        T document = stored(entity);
+        T previous = documents.put(idOf(document), document);
+        if(previous != null){
+            removed(previous);
+        }
+        indexed(document);
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for(S entity : entities){
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
+    @Override
+    public Optional<T> findById(String id) {
+        T document = documents.get(id);
+        return document == null ? Optional.empty() : Optional.of(read(document));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return documents.containsKey(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        List<T> all = new ArrayList<>(documents.size());
+        for(T document : documents.values()){
+            all.add(read(document));
+        }
+        return all;
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<String> ids) {
+        List<T> found = new ArrayList<>();
+        for(String id : ids){
+            T document = documents.get(id);
+            if(document != null) found.add(read(document));
+        }
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return documents.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        T document = documents.remove(id);
+        if(document != null){
+            removed(document);
+        }
+    }
+
+    @Override
+    public void delete(T entity) {
+        deleteById(idOf(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        for(String id : ids){
+            deleteById(id);
+        }
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        for(T entity : entities){
+            delete(entity);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        for(String id : new ArrayList<>(documents.keySet())){
+            deleteById(id);
+        }
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        throw new UnsupportedOperationException("Sorting is not supported by the in-memory repository");
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        throw new UnsupportedOperationException("Paging is not supported by the in-memory repository");
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+}
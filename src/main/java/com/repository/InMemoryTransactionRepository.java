@@ -0,0 +1,123 @@
+package com.repository;
+
+import com.enums.TransactionType;
+import com.model.Transactions;
+import com.utils.TransactionCursor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/*
+Transactions for the inmemory profile. The (accountNumbers, timestamp, _id) history index is a sorted map
+per account, so history reads and pages are range scans like on mongo instead of filtering every transaction.
+Transactions are never changed after the insert, they are stored and handed out as they are.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryTransactionRepository extends InMemoryMongoRepository<Transactions> implements TransactionRepository {
+    // (timestamp, _id) order, ObjectId hex strings sort like the ObjectIds themselves
+    private static final Comparator<TransactionCursor> HISTORY_ORDER =
+            Comparator.comparing(TransactionCursor::getTimestamp).thenComparing(TransactionCursor::getId);
+
+    private final Map<String, ConcurrentSkipListMap<TransactionCursor, Transactions>> history = new ConcurrentHashMap<>();
+
+    // unique transactionId index
+    private final Map<String, String> byTransactionId = new ConcurrentHashMap<>();
+
+    @Override
+    protected String idOf(Transactions txn) {
+        return txn.getId();
+    }
+
+    @Override
+    protected void setId(Transactions txn, String id) {
+        txn.setId(id);
+    }
+
+    @Override
+    protected void indexed(Transactions txn) {
+        if(txn.getTransactionId() != null && byTransactionId.putIfAbsent(txn.getTransactionId(), txn.getId()) != null){
+            throw new DuplicateKeyException("Duplicate transactionId " + txn.getTransactionId());
+        }
+        if(txn.getAccountNumbers() == null){
+            return;
+        }
+        TransactionCursor position = TransactionCursor.of(txn);
+        for(String accountNumber : txn.getAccountNumbers()){
+            history.computeIfAbsent(accountNumber, k -> new ConcurrentSkipListMap<>(HISTORY_ORDER)).put(position, txn);
+        }
+    }
+
+    @Override
+    protected void removed(Transactions txn) {
+        if(txn.getTransactionId() != null){
+            byTransactionId.remove(txn.getTransactionId(), txn.getId());
+        }
+        if(txn.getAccountNumbers() == null){
+            return;
+        }
+        TransactionCursor position = TransactionCursor.of(txn);
+        for(String accountNumber : txn.getAccountNumbers()){
+            NavigableMap<TransactionCursor, Transactions> index = history.get(accountNumber);
+            if(index != null){
+                index.remove(position);
+            }
+        }
+    }
+
+    @Override
+    public List<Transactions> findAllByAccount(String accountNumber) {
+        return new ArrayList<>(historyOf(accountNumber).values());
+    }
+
+    @Override
+    public Stream<Transactions> streamAllByAccount(String accountNumber) {
+        // weakly consistent walk over the index, like a cursor it sees what was there when it got there
+        return historyOf(accountNumber).values().stream();
+    }
+
+    @Override
+    public List<Transactions> findHistoryPage(String accountNumber, TransactionType type, LocalDateTime from, LocalDateTime to,
+                                              TransactionCursor cursor, boolean newer, int limit) {
+        NavigableMap<TransactionCursor, Transactions> range = historyOf(accountNumber);
+        // "" sorts before every id, so these bounds cover the whole millisecond
+        if(from != null){
+            range = range.tailMap(new TransactionCursor(from, ""), true);
+        }
+        if(to != null){
+            range = range.headMap(new TransactionCursor(to, ""), false);
+        }
+        if(cursor != null){
+            range = newer ? range.tailMap(cursor, false) : range.headMap(cursor, false);
+        }
+
+        Collection<Transactions> ordered = newer ? range.values() : range.descendingMap().values();
+        List<Transactions> page = new ArrayList<>(Math.min(limit, 64));
+        for(Transactions t : ordered){
+            if(type != null && t.getType() != type){
+                continue;
+            }
+            page.add(t);
+            if(page.size() == limit){
+                break;
+            }
+        }
+        return page;
+    }
+
+    private NavigableMap<TransactionCursor, Transactions> historyOf(String accountNumber){
+        NavigableMap<TransactionCursor, Transactions> index = history.get(accountNumber);
+        return index != null ? index : new ConcurrentSkipListMap<>(HISTORY_ORDER);
+    }
+}
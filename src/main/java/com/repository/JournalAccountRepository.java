@@ -0,0 +1,78 @@
+package com.repository;
+
+import com.model.Account;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Set;
+
+/*
+In-memory accounts whose every change is recorded in the ledger journal, journal profile.
+Records are appended inside the compute of the account, so the journal has the changes of one account
+in the order they were made. Inserts and saves return once the journal has them on disk; balance changes
+are followed by the insert of their transaction, which waits for both
+ */
+@Repository
+@Profile("journal")
+public class JournalAccountRepository extends InMemoryAccountRepository {
+    @Autowired
+    LedgerJournal journal;
+
+    @Override
+    protected void accountStored(Account account) {
+        if(!journal.isRecovering()){
+            journal.append(JournalRecord.account(account));
+        }
+    }
+
+    @Override
+    protected void balanceChanged(String accountNumber, long delta) {
+        if(!journal.isRecovering()){
+            journal.append(JournalRecord.balance(accountNumber, delta));
+        }
+    }
+
+    @Override
+    public <S extends Account> S insert(S entity) {
+        S inserted = super.insert(entity);
+        journal.sync();
+        return inserted;
+    }
+
+    @Override
+    public <S extends Account> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = super.insert(entities);
+        journal.sync();
+        return inserted;
+    }
+
+    @Override
+    public <S extends Account> S save(S entity) {
+        S saved = super.save(entity);
+        journal.sync();
+        return saved;
+    }
+
+    @Override
+    public Set<Integer> insertAllUnordered(List<Account> accounts) {
+        Set<Integer> duplicates = super.insertAllUnordered(accounts);
+        journal.sync();
+        return duplicates;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        throw new UnsupportedOperationException("The ledger journal is append only");
+    }
+
+    // rebuild from a replayed record
+    void replay(JournalRecord record){
+        if(record.getType() == JournalRecord.ACCOUNT){
+            super.save(record.toAccount());
+        } else {
+            creditBalance(record.getAccountNumber(), record.getAmount());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.repository;
+
+import com.model.SequenceCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/*
+Sequence counters recorded in the ledger journal, journal profile. A reservation does not wait for the disk:
+numbers only matter once an account uses them, and that account's record comes after the counter's
+ */
+@Repository
+@Profile("journal")
+public class JournalCounterRepository extends InMemoryCounterRepository {
+    @Autowired
+    LedgerJournal journal;
+
+    @Override
+    protected void reserved(SequenceCounter counter) {
+        if(!journal.isRecovering()){
+            journal.append(JournalRecord.counter(counter));
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        throw new UnsupportedOperationException("The ledger journal is append only");
+    }
+
+    void replay(JournalRecord record){
+        documents.put(record.getAccountNumber(), record.toCounter());
+    }
+}
@@ -0,0 +1,273 @@
+package com.repository;
+
+import com.enums.AccountStatus;
+import com.enums.TransactionStatus;
+import com.enums.TransactionType;
+import com.exceptions.InvalidInputException;
+import com.model.Account;
+import com.model.SequenceCounter;
+import com.model.Transactions;
+import com.utils.TransactionIdGenerator;
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/*
+One fixed size entry of the ledger journal, RECORD_SIZE bytes, little endian:
+
+  0  int    crc32c of bytes 4..255
+  4  byte   record type
+  5  byte   transaction type / account status
+  6  byte   transaction status
+  8  long   sequence, one per record, without gaps across segments
+ 16  long   amount in cents (balance delta, transaction amount, counter value)
+ 24  long   epoch seconds (UTC) of the timestamp / createdAt
+ 32  int    nanos of the timestamp
+ 36  12     ObjectId of the document
+ 48  long   transaction id (numeric part) / account revision
+ 56  48     text a: account number, source account, counter name
+104  48     text b: destination account
+152  104    text c: holder name
+
+Texts are a short byte length (-1 = null) followed by the UTF-8 bytes.
+A slot that is all zero has never been written.
+ */
+public class JournalRecord {
+    public static final int RECORD_SIZE = 256;
+
+    public static final byte ACCOUNT = 1;      // account document as stored
+    public static final byte BALANCE = 2;      // balance change of an account
+    public static final byte TRANSACTION = 3;  // transaction document
+    public static final byte COUNTER = 4;      // new value of a sequence counter
+
+    static final int CRC = 0, TYPE = 4, KIND = 5, STATUS = 6, SEQUENCE = 8, AMOUNT = 16, SECONDS = 24, NANOS = 32,
+            OBJECT_ID = 36, NUMBER = 48, TEXT_A = 56, TEXT_B = 104, TEXT_C = 152;
+    static final int SHORT_TEXT = 48, LONG_TEXT = 104;
+
+    private final byte type;
+    private byte kind;
+    private byte status;
+    private long sequence;
+    private long amount;
+    private long seconds;
+    private int nanos;
+    private String objectId;
+    private long number;
+    private String a;
+    private String b;
+    private String c;
+
+    private JournalRecord(byte type) {
+        this.type = type;
+    }
+
+    public static JournalRecord account(Account acc){
+        JournalRecord r = new JournalRecord(ACCOUNT);
+        r.kind = ordinal(acc.getStatus());
+        r.amount = acc.getBalance();
+        r.time(acc.getCreatedAt());
+        r.objectId = acc.getId();
+        r.number = acc.getRevision() == null ? -1 : acc.getRevision();
+        r.a = acc.getAccountNumber();
+        r.c = acc.getHolderName();
+        return r;
+    }
+
+    public static JournalRecord balance(String accountNumber, long delta){
+        JournalRecord r = new JournalRecord(BALANCE);
+        r.amount = delta;
+        r.a = accountNumber;
+        return r;
+    }
+
+    public static JournalRecord transaction(Transactions t){
+        JournalRecord r = new JournalRecord(TRANSACTION);
+        r.kind = ordinal(t.getType());
+        r.status = ordinal(t.getStatus());
+        r.amount = t.getAmount();
+        r.time(t.getTimestamp());
+        r.objectId = t.getId();
+        r.number = TransactionIdGenerator.parse(t.getTransactionId());
+        r.a = t.getSourceAccount();
+        r.b = t.getDestinationAccount();
+        return r;
+    }
+
+    public static JournalRecord counter(SequenceCounter counter){
+        JournalRecord r = new JournalRecord(COUNTER);
+        r.amount = counter.getValue();
+        r.a = counter.getId();
+        return r;
+    }
+
+    public Account toAccount(){
+        Account acc = new Account();
+        acc.setId(objectId);
+        acc.setAccountNumber(a);
+        acc.setHolderName(c);
+        acc.setBalance(amount);
+        acc.setStatus(kind == 0 ? null : AccountStatus.values()[kind - 1]);
+        acc.setCreatedAt(time());
+        acc.setRevision(number < 0 ? null : number);
+        return acc;
+    }
+
+    public Transactions toTransaction(){
+        Transactions t = new Transactions();
+        t.setId(objectId);
+        t.setTransactionId(TransactionIdGenerator.format(number));
+        t.setType(kind == 0 ? null : TransactionType.values()[kind - 1]);
+        t.setStatus(status == 0 ? null : TransactionStatus.values()[status - 1]);
+        t.setAmount(amount);
+        t.setTimestamp(time());
+        t.setSourceAccount(a);
+        t.setDestinationAccount(b);
+        // same linking as AccountService.buildTransaction
+        List<String> accountNumbers = new ArrayList<>(2);
+        if(a != null) accountNumbers.add(a);
+        if(b != null) accountNumbers.add(b);
+        t.setAccountNumbers(accountNumbers);
+        return t;
+    }
+
+    public SequenceCounter toCounter(){
+        SequenceCounter counter = new SequenceCounter();
+        counter.setId(a);
+        counter.setValue(amount);
+        return counter;
+    }
+
+    // everything but sequence and checksum, those are set by seal once the record has its place
+    byte[] encode(){
+        byte[] bytes = new byte[RECORD_SIZE];
+        ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buf.put(TYPE, type);
+        buf.put(KIND, kind);
+        buf.put(STATUS, status);
+        buf.putLong(AMOUNT, amount);
+        buf.putLong(SECONDS, seconds);
+        buf.putInt(NANOS, nanos);
+        if(objectId != null){
+            buf.put(OBJECT_ID, new ObjectId(objectId).toByteArray());
+        }
+        buf.putLong(NUMBER, number);
+        putText(buf, TEXT_A, SHORT_TEXT, a);
+        putText(buf, TEXT_B, SHORT_TEXT, b);
+        putText(buf, TEXT_C, LONG_TEXT, c);
+        return bytes;
+    }
+
+    static void seal(byte[] bytes, long sequence){
+        ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putLong(SEQUENCE, sequence);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, TYPE, RECORD_SIZE - TYPE);
+        buf.putInt(CRC, (int) crc.getValue());
+    }
+
+    // slot never written
+    static boolean isEmpty(ByteBuffer buf, int offset){
+        for(int i = 0; i < RECORD_SIZE; i += Long.BYTES){
+            if(buf.getLong(offset + i) != 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // record at offset, null when the checksum does not match (torn or damaged write)
+    static JournalRecord read(ByteBuffer buf, int offset){
+        ByteBuffer slot = buf.slice(offset, RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32C crc = new CRC32C();
+        crc.update(slot.slice(TYPE, RECORD_SIZE - TYPE));
+        if((int) crc.getValue() != slot.getInt(CRC)){
+            return null;
+        }
+        JournalRecord r = new JournalRecord(slot.get(TYPE));
+        r.kind = slot.get(KIND);
+        r.status = slot.get(STATUS);
+        r.sequence = slot.getLong(SEQUENCE);
+        r.amount = slot.getLong(AMOUNT);
+        r.seconds = slot.getLong(SECONDS);
+        r.nanos = slot.getInt(NANOS);
+        byte[] id = new byte[12];
+        slot.get(OBJECT_ID, id);
+        r.objectId = isZero(id) ? null : new ObjectId(id).toHexString();
+        r.number = slot.getLong(NUMBER);
+        r.a = getText(slot, TEXT_A);
+        r.b = getText(slot, TEXT_B);
+        r.c = getText(slot, TEXT_C);
+        return r;
+    }
+
+    private void time(LocalDateTime time){
+        if(time == null){
+            seconds = Long.MIN_VALUE;
+            return;
+        }
+        seconds = time.toEpochSecond(ZoneOffset.UTC);
+        nanos = time.getNano();
+    }
+
+    private LocalDateTime time(){
+        return seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    // enums are stored as ordinal + 1, 0 = null
+    private static byte ordinal(Enum<?> value){
+        return value == null ? 0 : (byte) (value.ordinal() + 1);
+    }
+
+    private static void putText(ByteBuffer buf, int offset, int size, String text){
+        if(text == null){
+            buf.putShort(offset, (short) -1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if(bytes.length > size - Short.BYTES){
+            throw new InvalidInputException("Value too long to be stored: " + text);
+        }
+        buf.putShort(offset, (short) bytes.length);
+        buf.put(offset + Short.BYTES, bytes);
+    }
+
+    private static String getText(ByteBuffer buf, int offset){
+        short length = buf.getShort(offset);
+        if(length < 0){
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buf.get(offset + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isZero(byte[] bytes){
+        for(byte b : bytes){
+            if(b != 0) return false;
+        }
+        return true;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public String getAccountNumber() {
+        return a;
+    }
+}
@@ -0,0 +1,48 @@
+package com.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/*
+Rebuilds accounts, balances, transaction history and counters from the ledger journal at startup,
+before the web server takes requests, and opens the journal for appends
+ */
+@Component
+@Profile("journal")
+public class JournalRecovery {
+    @Autowired
+    LedgerJournal journal;
+
+    @Autowired
+    JournalAccountRepository accountRepository;
+
+    @Autowired
+    JournalTransactionRepository transactionRepository;
+
+    @Autowired
+    JournalCounterRepository counterRepository;
+
+    Logger logger = LoggerFactory.getLogger(JournalRecovery.class);
+
+    @PostConstruct
+    void recover(){
+        long start = System.nanoTime();
+        long replayed = journal.recover(this::apply);
+        logger.info("Rebuilt {} accounts and {} transactions from {} journal records in {} ms",
+                accountRepository.count(), transactionRepository.count(), replayed, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    void apply(JournalRecord record){
+        switch (record.getType()){
+            case JournalRecord.ACCOUNT, JournalRecord.BALANCE -> accountRepository.replay(record);
+            case JournalRecord.TRANSACTION -> transactionRepository.replay(record);
+            case JournalRecord.COUNTER -> counterRepository.replay(record);
+            default -> throw new IllegalStateException("Unknown journal record type " + record.getType()
+                    + " at sequence " + record.getSequence());
+        }
+    }
+}
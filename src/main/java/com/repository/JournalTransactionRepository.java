@@ -0,0 +1,63 @@
+package com.repository;
+
+import com.model.Transactions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/*
+In-memory transactions recorded in the ledger journal, journal profile.
+An insert returns once the journal has it, and everything appended before it, on disk
+ */
+@Repository
+@Profile("journal")
+public class JournalTransactionRepository extends InMemoryTransactionRepository {
+    @Autowired
+    LedgerJournal journal;
+
+    @Override
+    protected void indexed(Transactions txn) {
+        super.indexed(txn);
+        if(!journal.isRecovering()){
+            try {
+                journal.append(JournalRecord.transaction(txn));
+            } catch (RuntimeException e){
+                super.removed(txn);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public <S extends Transactions> S insert(S entity) {
+        S inserted = super.insert(entity);
+        journal.sync();
+        return inserted;
+    }
+
+    @Override
+    public <S extends Transactions> List<S> insert(Iterable<S> entities) {
+        // one wait for the whole batch
+        List<S> inserted = super.insert(entities);
+        journal.sync();
+        return inserted;
+    }
+
+    @Override
+    public <S extends Transactions> S save(S entity) {
+        S saved = super.save(entity);
+        journal.sync();
+        return saved;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        throw new UnsupportedOperationException("The ledger journal is append only");
+    }
+
+    void replay(JournalRecord record){
+        store(record.toTransaction());
+    }
+}
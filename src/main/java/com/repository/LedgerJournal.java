@@ -0,0 +1,489 @@
+package com.repository;
+
+import com.utils.WorkerThreads;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/*
+Append-only journal of fixed size records (JournalRecord) in memory-mapped segment files, journal profile only.
+Appending is a copy into the mapped segment under a short lock. One flusher thread forces whatever was
+appended since its last round to disk (group fsync), sync() waits until everything appended so far is durable.
+While one force runs the next group builds up, so one fsync covers many writers under load.
+A full segment is forced and a new file started, records never span two files.
+Segments are named after the sequence of their first record.
+
+Every snapshotEverySegments closed segments a background thread folds them, with the previous snapshot,
+into a new snapshot (LedgerSnapshot) and deletes or archives them. A restart loads the newest snapshot
+and replays only the segments after it.
+ */
+@Component
+@Profile("journal")
+public class LedgerJournal {
+    static final String PREFIX = "ledger-";
+    static final String SUFFIX = ".journal";
+
+    @Value("${bank.journal.dir:data/journal}")
+    String dir = "data/journal";
+
+    @Value("${bank.journal.segment-size-mb:64}")
+    int segmentSizeMb = 64;
+
+    // records per segment, from segmentSizeMb unless set directly
+    int segmentRecords;
+
+    // 0 = only when compact() is called
+    @Value("${bank.journal.snapshot-every-segments:8}")
+    int snapshotEverySegments = 8;
+
+    // compacted segments are moved here, deleted when empty
+    @Value("${bank.journal.archive-dir:}")
+    String archiveDir = "";
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // flusher waits for new records
+    private final Condition appended = lock.newCondition();
+    // writers wait for their fsync
+    private final Condition forced = lock.newCondition();
+
+    private Segment current;
+    private long written;   // sequence of the next record
+    private long durable;   // every record below this is on disk
+    private RuntimeException failure;
+    private volatile boolean recovering;
+    private boolean running;
+    private Thread flusher;
+
+    // one compaction at a time, the journal lock is only taken to read where it stands
+    private final ReentrantLock compaction = new ReentrantLock();
+    private ExecutorService compactor;
+    private boolean compacting;
+    private long snapshotSequence;  // every record below this is in the latest snapshot
+    private int closedSegments;     // segments closed since the latest snapshot
+
+    Logger logger = LoggerFactory.getLogger(LedgerJournal.class);
+
+    // load the latest snapshot and replay every valid record after it in order, then open the journal for
+    // appends. a torn record at the end of the last segment ends the replay and is overwritten, damage
+    // anywhere else stops the start. returns the number of records replayed, snapshot included
+    public long recover(Consumer<JournalRecord> handler){
+        lock.lock();
+        try {
+            if(current != null){
+                throw new IllegalStateException("Journal is already open");
+            }
+            if(segmentRecords == 0){
+                segmentRecords = (int) ((long) segmentSizeMb * 1024 * 1024 / JournalRecord.RECORD_SIZE);
+            }
+            recovering = true;
+            Path directory = Paths.get(dir);
+            Files.createDirectories(directory);
+            long expected = 0;
+            long replayed = 0;
+            Path snapshot = LedgerSnapshot.latest(directory);
+            if(snapshot != null){
+                replayed = LedgerSnapshot.load(snapshot, handler);
+                expected = LedgerSnapshot.sequenceOf(snapshot);
+            }
+            snapshotSequence = expected;
+            // segments left over from a compaction that stopped before deleting them are in the snapshot
+            long covered = expected;
+            List<Path> files = new ArrayList<>(segmentFiles(directory).stream()
+                    .filter(file -> firstSequenceOf(file) >= covered).toList());
+            closedSegments = Math.max(0, files.size() - 1);
+            for(int i = 0; i < files.size(); i++){
+                Path file = files.get(i);
+                boolean last = i == files.size() - 1;
+                Segment segment = Segment.open(file, firstSequenceOf(file), segmentRecords);
+                if(segment.first != expected){
+                    throw new IllegalStateException("Journal segment " + file + " starts at " + segment.first + ", expected " + expected);
+                }
+                int slot = 0;
+                while (slot < segment.capacity){
+                    int offset = slot * JournalRecord.RECORD_SIZE;
+                    if(JournalRecord.isEmpty(segment.buffer, offset)){
+                        break;
+                    }
+                    JournalRecord record = JournalRecord.read(segment.buffer, offset);
+                    if(record == null || record.getSequence() != expected){
+                        if(!last){
+                            throw new IllegalStateException("Journal segment " + file + " is damaged at record " + slot);
+                        }
+                        logger.warn("Journal ends with a torn record at {} of {}, dropping it and anything after it", slot, file);
+                        break;
+                    }
+                    handler.accept(record);
+                    expected++;
+                    replayed++;
+                    slot++;
+                }
+                if(last){
+                    // wipe the torn tail, stale records after it must never be replayed behind new ones
+                    segment.clearFrom(slot);
+                    segment.used = slot;
+                    current = segment;
+                } else {
+                    segment.close();
+                }
+            }
+            if(current == null){
+                current = Segment.create(directory, expected, segmentRecords);
+            }
+            written = expected;
+            durable = expected;
+            recovering = false;
+
+            running = true;
+            flusher = WorkerThreads.factory("journal-flush", false).newThread(this::flushLoop);
+            flusher.start();
+            compactor = Executors.newSingleThreadExecutor(WorkerThreads.factory("journal-compact", false));
+            logger.info("Journal {} open, {} records replayed from snapshot {} on, next sequence {}", dir, replayed, snapshotSequence, written);
+            return replayed;
+        } catch (IOException e){
+            throw new UncheckedIOException("Could not open journal " + dir, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // true while recover replays, repositories must not record what they are rebuilt from
+    public boolean isRecovering(){
+        return recovering;
+    }
+
+    // place the record at the end of the journal, returns its sequence. durable only after sync()
+    public long append(JournalRecord record){
+        byte[] bytes = record.encode();
+        lock.lock();
+        try {
+            checkOpen();
+            if(current.used == current.capacity){
+                roll();
+            }
+            long sequence = written;
+            JournalRecord.seal(bytes, sequence);
+            current.buffer.put(current.used * JournalRecord.RECORD_SIZE, bytes);
+            current.used++;
+            written = sequence + 1;
+            appended.signal();
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // wait until every record appended so far, by any thread, is on disk
+    public void sync(){
+        lock.lock();
+        try {
+            long target = written;
+            while (durable < target){
+                checkOpen();
+                forced.await();
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long writtenSequence(){
+        lock.lock();
+        try {
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkOpen(){
+        if(failure != null){
+            throw new IllegalStateException("Journal is unusable after a failed write", failure);
+        }
+        if(current == null || !running){
+            throw new IllegalStateException("Journal is not open");
+        }
+    }
+
+    // called with the lock held and the current segment full
+    private void roll(){
+        try {
+            current.buffer.force();
+            durable = written;
+            forced.signalAll();
+            current.close();
+            current = Segment.create(Paths.get(dir), written, segmentRecords);
+        } catch (IOException | UncheckedIOException e){
+            failure = new IllegalStateException("Could not start a new journal segment", e);
+            forced.signalAll();
+            throw failure;
+        }
+        closedSegments++;
+        if(snapshotEverySegments > 0 && closedSegments >= snapshotEverySegments && !compacting){
+            compacting = true;
+            compactor.execute(this::compactInBackground);
+        }
+    }
+
+    private void compactInBackground(){
+        try {
+            compact();
+        } catch (RuntimeException e){
+            logger.error("Journal compaction failed, segments are kept", e);
+        } finally {
+            lock.lock();
+            try {
+                compacting = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // snapshot everything up to the current segment, then delete (or archive) the segments and snapshots
+    // it replaces. appends carry on meanwhile. returns the sequence the snapshot covers
+    public long compact(){
+        compaction.lock();
+        try {
+            long from;
+            long upTo;
+            lock.lock();
+            try {
+                checkOpen();
+                from = snapshotSequence;
+                upTo = current.first;
+            } finally {
+                lock.unlock();
+            }
+            if(upTo == from){
+                return from;
+            }
+            long start = System.nanoTime();
+            Path directory = Paths.get(dir);
+            List<Path> segments = new ArrayList<>(segmentFiles(directory).stream()
+                    .filter(file -> firstSequenceOf(file) >= from && firstSequenceOf(file) < upTo).toList());
+            Path previous = LedgerSnapshot.path(directory, from);
+            long records = LedgerSnapshot.write(directory, Files.exists(previous) ? previous : null, segments, from, upTo);
+
+            lock.lock();
+            try {
+                snapshotSequence = upTo;
+                closedSegments = Math.max(0, closedSegments - segments.size());
+            } finally {
+                lock.unlock();
+            }
+            // the old files only go once the new snapshot is durable
+            for(Path file : segmentFiles(directory)){
+                if(firstSequenceOf(file) < upTo){
+                    retire(file);
+                }
+            }
+            for(Path file : LedgerSnapshot.olderThan(directory, upTo)){
+                Files.delete(file);
+            }
+            logger.info("Journal snapshot at {} written with {} records, {} segments compacted in {} ms",
+                    upTo, records, segments.size(), (System.nanoTime() - start) / 1_000_000);
+            return upTo;
+        } catch (IOException e){
+            throw new UncheckedIOException("Could not compact journal " + dir, e);
+        } finally {
+            compaction.unlock();
+        }
+    }
+
+    private void retire(Path segment) throws IOException {
+        if(archiveDir == null || archiveDir.isBlank()){
+            Files.delete(segment);
+            return;
+        }
+        Path archive = Paths.get(archiveDir);
+        Files.createDirectories(archive);
+        Files.move(segment, archive.resolve(segment.getFileName()));
+    }
+
+    long snapshotSequence(){
+        lock.lock();
+        try {
+            return snapshotSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop(){
+        while (true){
+            Segment segment;
+            long target;
+            int from;
+            int to;
+            lock.lock();
+            try {
+                while (running && written == durable){
+                    appended.awaitUninterruptibly();
+                }
+                if(written == durable){
+                    return;
+                }
+                target = written;
+                segment = current;
+                from = (int) (Math.max(durable, segment.first) - segment.first);
+                to = (int) (target - segment.first);
+            } finally {
+                lock.unlock();
+            }
+
+            RuntimeException error = null;
+            try {
+                segment.buffer.force(from * JournalRecord.RECORD_SIZE, (to - from) * JournalRecord.RECORD_SIZE);
+            } catch (RuntimeException e){
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                if(error != null){
+                    logger.error("Journal fsync failed, refusing further writes", error);
+                    failure = error;
+                } else {
+                    durable = Math.max(durable, target);
+                }
+                forced.signalAll();
+                if(error != null){
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // flush what is left and stop, appends fail from here on. a compaction under way is finished first
+    @PreDestroy
+    public void close(){
+        if(compactor != null){
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            if(!running){
+                return;
+            }
+            running = false;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            current.close();
+            forced.signalAll();
+        } catch (IOException e){
+            logger.warn("Could not close journal segment", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static List<Path> segmentFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)){
+            List<Path> segments = new ArrayList<>(files
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIX) && p.getFileName().toString().endsWith(SUFFIX))
+                    .toList());
+            segments.sort((x, y) -> Long.compare(firstSequenceOf(x), firstSequenceOf(y)));
+            return segments;
+        }
+    }
+
+    static long firstSequenceOf(Path file){
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    static Path segmentPath(Path directory, long firstSequence){
+        return directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+    }
+
+    private static final class Segment {
+        final long first;
+        final int capacity;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int used;
+
+        private Segment(long first, int capacity, FileChannel channel, MappedByteBuffer buffer) {
+            this.first = first;
+            this.capacity = capacity;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path file, long first, int capacity) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // a segment written with a different size keeps its own size
+            int records = (int) Math.max(capacity, channel.size() / JournalRecord.RECORD_SIZE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) records * JournalRecord.RECORD_SIZE);
+            return new Segment(first, records, channel, buffer);
+        }
+
+        static Segment create(Path directory, long first, int capacity) throws IOException {
+            Path file = segmentPath(directory, first);
+            Segment segment = open(Files.createFile(file), first, capacity);
+            // the new file name must survive a crash too
+            try (FileChannel dirChannel = FileChannel.open(directory, StandardOpenOption.READ)){
+                dirChannel.force(true);
+            } catch (IOException e){
+                // not every platform lets a directory be opened, the segment itself is forced anyway
+            }
+            return segment;
+        }
+
+        void clearFrom(int slot){
+            byte[] zeros = new byte[JournalRecord.RECORD_SIZE];
+            for(int i = slot; i < capacity; i++){
+                int offset = i * JournalRecord.RECORD_SIZE;
+                if(!JournalRecord.isEmpty(buffer, offset)){
+                    buffer.put(offset, zeros);
+                }
+            }
+            buffer.force();
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.repository;
+
+import com.model.Account;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/*
+Snapshot of the ledger journal: the state every record before a segment boundary adds up to, written as
+journal records. One account record per account with its final balance, status and revision, the latest
+value of every counter, and the transactions as they were journaled; balance changes and superseded
+versions are folded away.
+
+The file is a header slot (crc32c, magic, journal sequence covered, record count) followed by the records,
+numbered from 0. It is written next to the journal under a temporary name, forced and renamed, so a
+snapshot file either is complete or does not exist. Loading maps it read-only in chunks.
+ */
+final class LedgerSnapshot {
+    static final String PREFIX = "snapshot-";
+    static final String SUFFIX = ".snapshot";
+    static final String TEMP_SUFFIX = ".tmp";
+
+    static final int MAGIC = 0x4C534E50;
+    static final int HEADER_CRC = 0, HEADER_MAGIC = 4, HEADER_SEQUENCE = 8, HEADER_COUNT = 16;
+
+    // records mapped at a time, keeps each mapping well below the 2 GB a buffer can address
+    static final int CHUNK_RECORDS = 1 << 20;
+
+    private LedgerSnapshot() {
+    }
+
+    // fold the previous snapshot (null for none) and the segments after it into a snapshot covering
+    // every record below upTo. returns the number of records written
+    static long write(Path directory, Path previous, List<Path> segments, long from, long upTo) throws IOException {
+        Path temp = directory.resolve(path(directory, upTo).getFileName() + TEMP_SUFFIX);
+        Map<String, Account> accounts = new LinkedHashMap<>();
+        Map<String, JournalRecord> counters = new LinkedHashMap<>();
+        long[] written = new long[1];
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 20)){
+            out.write(new byte[JournalRecord.RECORD_SIZE]);
+            Consumer<JournalRecord> fold = record -> {
+                switch (record.getType()){
+                    case JournalRecord.ACCOUNT -> {
+                        Account acc = record.toAccount();
+                        accounts.put(acc.getAccountNumber(), acc);
+                    }
+                    case JournalRecord.BALANCE -> {
+                        Account acc = accounts.get(record.getAccountNumber());
+                        if(acc == null){
+                            throw new IllegalStateException("Balance change of unknown account " + record.getAccountNumber()
+                                    + " at sequence " + record.getSequence());
+                        }
+                        // same as a replayed creditBalance
+                        acc.setBalance(acc.getBalance() + record.getAmount());
+                        acc.setRevision(acc.getRevision() == null ? 1 : acc.getRevision() + 1);
+                    }
+                    // history is part of the state, it goes through as it is
+                    case JournalRecord.TRANSACTION -> put(out, record, written);
+                    case JournalRecord.COUNTER -> counters.put(record.getAccountNumber(), record);
+                    default -> throw new IllegalStateException("Unknown journal record type " + record.getType()
+                            + " at sequence " + record.getSequence());
+                }
+            };
+            if(previous != null){
+                load(previous, fold);
+            }
+            long expected = from;
+            for(Path segment : segments){
+                expected = readSegment(segment, expected, fold);
+            }
+            if(expected != upTo){
+                throw new IllegalStateException("Journal segments end at " + expected + ", expected " + upTo);
+            }
+            for(Account acc : accounts.values()){
+                put(out, JournalRecord.account(acc), written);
+            }
+            for(JournalRecord counter : counters.values()){
+                put(out, counter, written);
+            }
+        } catch (RuntimeException | IOException e){
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)){
+            channel.write(header(upTo, written[0]), 0);
+            channel.force(true);
+        }
+        Path target = path(directory, upTo);
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(directory);
+        return written[0];
+    }
+
+    // hand every record of the snapshot to handler in order, returns how many there were
+    static long load(Path file, Consumer<JournalRecord> handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            ByteBuffer header = ByteBuffer.allocate(JournalRecord.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            long count = checkHeader(file, header);
+            if(channel.size() < (count + 1) * JournalRecord.RECORD_SIZE){
+                throw new IllegalStateException("Journal snapshot " + file + " is truncated");
+            }
+            for(long first = 0; first < count; first += CHUNK_RECORDS){
+                int records = (int) Math.min(CHUNK_RECORDS, count - first);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                        (first + 1) * JournalRecord.RECORD_SIZE, (long) records * JournalRecord.RECORD_SIZE);
+                for(int i = 0; i < records; i++){
+                    JournalRecord record = JournalRecord.read(chunk, i * JournalRecord.RECORD_SIZE);
+                    if(record == null || record.getSequence() != first + i){
+                        throw new IllegalStateException("Journal snapshot " + file + " is damaged at record " + (first + i));
+                    }
+                    handler.accept(record);
+                }
+            }
+            return count;
+        }
+    }
+
+    // newest snapshot in the directory or null, leftovers of an interrupted write are removed
+    static Path latest(Path directory) throws IOException {
+        Path latest = null;
+        try (Stream<Path> files = Files.list(directory)){
+            for(Path file : files.toList()){
+                String name = file.getFileName().toString();
+                if(!name.startsWith(PREFIX)){
+                    continue;
+                }
+                if(name.endsWith(SUFFIX + TEMP_SUFFIX)){
+                    Files.deleteIfExists(file);
+                } else if(name.endsWith(SUFFIX) && (latest == null || sequenceOf(file) > sequenceOf(latest))){
+                    latest = file;
+                }
+            }
+        }
+        return latest;
+    }
+
+    // snapshots older than the one covering sequence
+    static List<Path> olderThan(Path directory, long sequence) throws IOException {
+        try (Stream<Path> files = Files.list(directory)){
+            List<Path> older = new ArrayList<>();
+            for(Path file : files.toList()){
+                String name = file.getFileName().toString();
+                if(name.startsWith(PREFIX) && name.endsWith(SUFFIX) && sequenceOf(file) < sequence){
+                    older.add(file);
+                }
+            }
+            return older;
+        }
+    }
+
+    // journal sequence the snapshot covers, every record below it is in the snapshot
+    static long sequenceOf(Path file){
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    static Path path(Path directory, long sequence){
+        return directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+    }
+
+    static void forceDirectory(Path directory){
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)){
+            channel.force(true);
+        } catch (IOException e){
+            // not every platform lets a directory be opened
+        }
+    }
+
+    // replay a closed segment starting at sequence expected, returns the sequence after its last record
+    private static long readSegment(Path segment, long expected, Consumer<JournalRecord> handler) throws IOException {
+        if(LedgerJournal.firstSequenceOf(segment) != expected){
+            throw new IllegalStateException("Journal segment " + segment + " starts at "
+                    + LedgerJournal.firstSequenceOf(segment) + ", expected " + expected);
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)){
+            int records = (int) (channel.size() / JournalRecord.RECORD_SIZE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) records * JournalRecord.RECORD_SIZE);
+            for(int slot = 0; slot < records; slot++){
+                int offset = slot * JournalRecord.RECORD_SIZE;
+                if(JournalRecord.isEmpty(buffer, offset)){
+                    break;
+                }
+                JournalRecord record = JournalRecord.read(buffer, offset);
+                if(record == null || record.getSequence() != expected){
+                    throw new IllegalStateException("Journal segment " + segment + " is damaged at record " + slot);
+                }
+                handler.accept(record);
+                expected++;
+            }
+        }
+        return expected;
+    }
+
+    private static void put(OutputStream out, JournalRecord record, long[] written){
+        byte[] bytes = record.encode();
+        JournalRecord.seal(bytes, written[0]++);
+        try {
+            out.write(bytes);
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer header(long sequence, long count){
+        ByteBuffer header = ByteBuffer.allocate(JournalRecord.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(HEADER_MAGIC, MAGIC);
+        header.putLong(HEADER_SEQUENCE, sequence);
+        header.putLong(HEADER_COUNT, count);
+        CRC32C crc = new CRC32C();
+        crc.update(header.array(), HEADER_MAGIC, JournalRecord.RECORD_SIZE - HEADER_MAGIC);
+        header.putInt(HEADER_CRC, (int) crc.getValue());
+        return header;
+    }
+
+    // record count from a valid header
+    private static long checkHeader(Path file, ByteBuffer header){
+        CRC32C crc = new CRC32C();
+        crc.update(header.array(), HEADER_MAGIC, JournalRecord.RECORD_SIZE - HEADER_MAGIC);
+        if(header.getInt(HEADER_MAGIC) != MAGIC || header.getInt(HEADER_CRC) != (int) crc.getValue()
+                || header.getLong(HEADER_SEQUENCE) != sequenceOf(file)){
+            throw new IllegalStateException("Journal snapshot " + file + " has a damaged header");
+        }
+        return header.getLong(HEADER_COUNT);
+    }
+}
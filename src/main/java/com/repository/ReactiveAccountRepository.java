@@ -0,0 +1,12 @@
+package com.repository;
+
+import com.model.Account;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveAccountRepository extends ReactiveMongoRepository<Account,String>, ReactiveAccountRepositoryCustom {
+    Mono<Account> findByAccountNumber(String accountNumber);
+    Mono<Boolean> existsByAccountNumber(String accountNumber);
+}
@@ -0,0 +1,16 @@
+package com.repository;
+
+import com.model.Account;
+import reactor.core.publisher.Mono;
+
+/*
+Non-blocking versions of the atomic balance mutations in AccountRepositoryCustom.
+Amounts are minor units (cents)
+ */
+public interface ReactiveAccountRepositoryCustom {
+    // add amount to balance, emits the updated account, empty when the account is missing
+    Mono<Account> creditBalance(String accountNumber, long amount);
+
+    // subtract amount only if balance >= amount, empty when account missing or balance too low
+    Mono<Account> debitBalanceIfSufficient(String accountNumber, long amount);
+}
@@ -0,0 +1,33 @@
+package com.repository;
+
+import com.model.Account;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+public class ReactiveAccountRepositoryCustomImpl implements ReactiveAccountRepositoryCustom {
+    @Autowired
+    ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Account> creditBalance(String accountNumber, long amount) {
+        Query query = new Query(Criteria.where("accountNumber").is(accountNumber));
+        return applyBalanceChange(query, amount);
+    }
+
+    @Override
+    public Mono<Account> debitBalanceIfSufficient(String accountNumber, long amount) {
+        // guard in the filter, so check and update happen in one atomic step
+        Query query = new Query(Criteria.where("accountNumber").is(accountNumber).and("balance").gte(amount));
+        return applyBalanceChange(query, -amount);
+    }
+
+    private Mono<Account> applyBalanceChange(Query query, long delta){
+        Update update = new Update().inc("balance", delta).inc("revision", 1);
+        return reactiveMongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Account.class);
+    }
+}
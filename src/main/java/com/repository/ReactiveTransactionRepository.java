@@ -0,0 +1,9 @@
+package com.repository;
+
+import com.model.Transactions;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveTransactionRepository extends ReactiveMongoRepository<Transactions,String>, ReactiveTransactionRepositoryCustom {
+}
@@ -0,0 +1,21 @@
+package com.repository;
+
+import com.enums.TransactionType;
+import com.model.Transactions;
+import com.utils.TransactionCursor;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+/*
+Non-blocking history reads, same queries and index as TransactionRepositoryCustom.
+Documents are pulled from the cursor as the subscriber asks for them
+ */
+public interface ReactiveTransactionRepositoryCustom {
+    // whole history of an account, oldest first
+    Flux<Transactions> streamAllByAccount(String accountNumber);
+
+    // see TransactionRepositoryCustom.findHistoryPage
+    Flux<Transactions> findHistoryPage(String accountNumber, TransactionType type, LocalDateTime from, LocalDateTime to,
+                                       TransactionCursor cursor, boolean newer, int limit);
+}
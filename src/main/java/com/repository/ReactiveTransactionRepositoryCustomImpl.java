@@ -0,0 +1,32 @@
+package com.repository;
+
+import com.enums.TransactionType;
+import com.model.Transactions;
+import com.utils.TransactionCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+public class ReactiveTransactionRepositoryCustomImpl implements ReactiveTransactionRepositoryCustom {
+    @Autowired
+    ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Value("${bank.history.batch-size:1000}")
+    int batchSize;
+
+    @Override
+    public Flux<Transactions> streamAllByAccount(String accountNumber) {
+        return reactiveMongoTemplate.find(TransactionRepositoryCustomImpl.historyQuery(accountNumber, batchSize), Transactions.class);
+    }
+
+    @Override
+    public Flux<Transactions> findHistoryPage(String accountNumber, TransactionType type, LocalDateTime from, LocalDateTime to,
+                                              TransactionCursor cursor, boolean newer, int limit) {
+        return reactiveMongoTemplate.find(
+                TransactionRepositoryCustomImpl.historyPageQuery(accountNumber, type, from, to, cursor, newer, limit),
+                Transactions.class);
+    }
+}
@@ -5,5 +5,5 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface TransactionRepository extends MongoRepository<Transactions,String> {
+public interface TransactionRepository extends MongoRepository<Transactions,String>, TransactionRepositoryCustom {
 }
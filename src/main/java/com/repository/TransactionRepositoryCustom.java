@@ -0,0 +1,27 @@
+package com.repository;
+
+import com.enums.TransactionType;
+import com.model.Transactions;
+import com.utils.TransactionCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+History reads, served by the (accountNumbers, timestamp, _id) index.
+Every read is a single query, documents come back in cursor batches of bank.history.batch-size
+ */
+public interface TransactionRepositoryCustom {
+    // whole history of an account, oldest first
+    List<Transactions> findAllByAccount(String accountNumber);
+
+    // same as findAllByAccount but backed by an open cursor, the caller must close the stream
+    Stream<Transactions> streamAllByAccount(String accountNumber);
+
+    // up to limit transactions strictly older (newer = false, newest first) or strictly newer
+    // (newer = true, oldest first) than the cursor; null cursor starts from the newest.
+    // type, from (inclusive) and to (exclusive) are optional filters
+    List<Transactions> findHistoryPage(String accountNumber, TransactionType type, LocalDateTime from, LocalDateTime to,
+                                       TransactionCursor cursor, boolean newer, int limit);
+}
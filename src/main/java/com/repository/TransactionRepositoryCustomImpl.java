@@ -0,0 +1,79 @@
+package com.repository;
+
+import com.enums.TransactionType;
+import com.model.Transactions;
+import com.utils.TransactionCursor;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class TransactionRepositoryCustomImpl implements TransactionRepositoryCustom {
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    // how many documents the driver pulls per round trip on long reads
+    @Value("${bank.history.batch-size:1000}")
+    int batchSize;
+
+    @Override
+    public List<Transactions> findAllByAccount(String accountNumber) {
+        return mongoTemplate.find(historyQuery(accountNumber, batchSize), Transactions.class);
+    }
+
+    @Override
+    public Stream<Transactions> streamAllByAccount(String accountNumber) {
+        // next batch is only fetched once the consumer has taken the previous one
+        return mongoTemplate.stream(historyQuery(accountNumber, batchSize), Transactions.class);
+    }
+
+    // shared with the reactive repository
+    static Query historyQuery(String accountNumber, int batchSize){
+        return new Query(Criteria.where("accountNumbers").is(accountNumber))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp", "_id"))
+                .cursorBatchSize(batchSize);
+    }
+
+    @Override
+    public List<Transactions> findHistoryPage(String accountNumber, TransactionType type, LocalDateTime from, LocalDateTime to,
+                                              TransactionCursor cursor, boolean newer, int limit) {
+        return mongoTemplate.find(historyPageQuery(accountNumber, type, from, to, cursor, newer, limit), Transactions.class);
+    }
+
+    static Query historyPageQuery(String accountNumber, TransactionType type, LocalDateTime from, LocalDateTime to,
+                                  TransactionCursor cursor, boolean newer, int limit) {
+        List<Criteria> criteria = new ArrayList<>();
+        criteria.add(Criteria.where("accountNumbers").is(accountNumber));
+        if(type != null){
+            criteria.add(Criteria.where("type").is(type));
+        }
+        if(from != null){
+            criteria.add(Criteria.where("timestamp").gte(from));
+        }
+        if(to != null){
+            criteria.add(Criteria.where("timestamp").lt(to));
+        }
+        if(cursor != null){
+            // (timestamp, _id) strictly after / before the cursor position
+            ObjectId id = new ObjectId(cursor.getId());
+            criteria.add(newer
+                    ? new Criteria().orOperator(Criteria.where("timestamp").gt(cursor.getTimestamp()),
+                        Criteria.where("timestamp").is(cursor.getTimestamp()).and("_id").gt(id))
+                    : new Criteria().orOperator(Criteria.where("timestamp").lt(cursor.getTimestamp()),
+                        Criteria.where("timestamp").is(cursor.getTimestamp()).and("_id").lt(id)));
+        }
+
+        Sort.Direction direction = newer ? Sort.Direction.ASC : Sort.Direction.DESC;
+        return new Query(new Criteria().andOperator(criteria))
+                .with(Sort.by(direction, "timestamp", "_id"))
+                .limit(limit);
+    }
+}
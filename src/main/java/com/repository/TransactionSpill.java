@@ -0,0 +1,184 @@
+package com.repository;
+
+import com.model.Transactions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+Local spill log of transactions that are acknowledged but not in the db yet (write-behind).
+Records are JournalRecords, numbered without gaps from 0, appended to segment files named after their
+first record. sync() forces everything appended so far (group fsync, one force covers whoever waits
+meanwhile). written() moves the truncation point: segments whose records are all in the db are deleted.
+On open the records left from the last run are handed back once, to be inserted before new ones.
+ */
+public final class TransactionSpill implements Closeable {
+    static final String PREFIX = "spill-";
+    static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentRecords;
+
+    private FileChannel channel;
+    private long appended;       // records appended, next record's number
+    private long segmentFirst;   // first record of the open segment
+    private final Deque<long[]> closed = new ArrayDeque<>();  // first, end of closed segments
+    private volatile long synced;
+    private long written;        // records below this are in the db
+    private final Object syncLock = new Object();
+
+    private TransactionSpill(Path directory, long segmentRecords) {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+    }
+
+    // open the spill in directory, records left from the previous run are added to recovered.
+    // their segments stay until written() passes them, new records are numbered after them
+    public static TransactionSpill open(Path directory, long segmentBytes, List<Transactions> recovered) throws IOException {
+        Files.createDirectories(directory);
+        TransactionSpill spill = new TransactionSpill(directory, Math.max(1, segmentBytes / JournalRecord.RECORD_SIZE));
+        long end = 0;
+        for(Path segment : segments(directory)){
+            if(Files.size(segment) < JournalRecord.RECORD_SIZE){
+                Files.delete(segment);
+                continue;
+            }
+            read(segment, recovered);
+            long first = firstOf(segment);
+            end = first + Files.size(segment) / JournalRecord.RECORD_SIZE;
+            spill.closed.add(new long[]{first, end});
+        }
+        spill.appended = end;
+        spill.synced = end;
+        spill.segmentFirst = end;
+        spill.channel = openSegment(directory, end);
+        return spill;
+    }
+
+    // claim the next record for t, the caller holds on to the number until the db has it
+    public synchronized long append(Transactions t){
+        byte[] bytes = JournalRecord.transaction(t).encode();
+        JournalRecord.seal(bytes, appended);
+        try {
+            if(appended - segmentFirst >= segmentRecords){
+                rotate();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+        } catch (IOException e){
+            throw new UncheckedIOException("Could not spill transaction " + t.getTransactionId(), e);
+        }
+        return appended++;
+    }
+
+    // returns once the record numbered upTo - 1 and everything before it is on disk
+    public void sync(long upTo){
+        while (synced < upTo){
+            synchronized (syncLock){
+                if(synced >= upTo){
+                    return;
+                }
+                long end;
+                FileChannel current;
+                synchronized (this){
+                    end = appended;
+                    current = channel;
+                }
+                try {
+                    current.force(false);
+                    synced = end;
+                } catch (ClosedChannelException e){
+                    // rotated meanwhile, rotate() forced the old segment, try the new one
+                } catch (IOException e){
+                    throw new UncheckedIOException("Could not sync the transaction spill", e);
+                }
+            }
+        }
+    }
+
+    // every record below upTo is in the db, segments that hold nothing else are deleted
+    public synchronized void written(long upTo){
+        written = Math.max(written, upTo);
+        while (!closed.isEmpty() && closed.peekFirst()[1] <= upTo){
+            long[] segment = closed.pollFirst();
+            try {
+                Files.deleteIfExists(segmentPath(directory, segment[0]));
+            } catch (IOException e){
+                throw new UncheckedIOException("Could not delete spill segment " + segment[0], e);
+            }
+        }
+    }
+
+    public synchronized long appended(){
+        return appended;
+    }
+
+    // a spill that was written out completely leaves no file behind
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+        if(closed.isEmpty() && written >= appended){
+            Files.deleteIfExists(segmentPath(directory, segmentFirst));
+        }
+    }
+
+    private void rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        closed.add(new long[]{segmentFirst, appended});
+        segmentFirst = appended;
+        channel = openSegment(directory, appended);
+    }
+
+    private static FileChannel openSegment(Path directory, long first) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(directory, first),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        LedgerSnapshot.forceDirectory(directory);
+        return channel;
+    }
+
+    // transactions of a segment up to the first torn or damaged record
+    private static void read(Path segment, List<Transactions> into) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        for(int offset = 0; offset + JournalRecord.RECORD_SIZE <= buffer.capacity(); offset += JournalRecord.RECORD_SIZE){
+            JournalRecord record = JournalRecord.read(buffer, offset);
+            if(record == null || record.getType() != JournalRecord.TRANSACTION){
+                break;
+            }
+            into.add(record.toTransaction());
+        }
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)){
+            List<Path> segments = new ArrayList<>(files
+                    .filter(file -> file.getFileName().toString().startsWith(PREFIX) && file.getFileName().toString().endsWith(SUFFIX))
+                    .toList());
+            segments.sort((x, y) -> Long.compare(firstOf(x), firstOf(y)));
+            return segments;
+        }
+    }
+
+    static long firstOf(Path file){
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    static Path segmentPath(Path directory, long first){
+        return directory.resolve(String.format("%s%020d%s", PREFIX, first, SUFFIX));
+    }
+}
@@ -0,0 +1,14 @@
+package com.repository;
+
+import com.model.TransferBatch;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TransferBatchRepository extends MongoRepository<TransferBatch,String>, TransferBatchRepositoryCustom {
+    // batches that should have finished long ago
+    List<TransferBatch> findByCreatedAtBefore(Instant createdAt);
+}
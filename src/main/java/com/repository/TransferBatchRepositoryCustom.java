@@ -0,0 +1,12 @@
+package com.repository;
+
+/*
+The transactions of one batch transfer, found by their batchId
+ */
+public interface TransferBatchRepositoryCustom {
+    // how many of the batch's transactions are in
+    long countTransactions(String batchId);
+
+    // remove whatever part of the batch's transactions got in
+    void deleteTransactions(String batchId);
+}
@@ -0,0 +1,26 @@
+package com.repository;
+
+import com.model.Transactions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+public class TransferBatchRepositoryCustomImpl implements TransferBatchRepositoryCustom {
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Override
+    public long countTransactions(String batchId) {
+        return mongoTemplate.count(batchQuery(batchId), Transactions.class);
+    }
+
+    @Override
+    public void deleteTransactions(String batchId) {
+        mongoTemplate.remove(batchQuery(batchId), Transactions.class);
+    }
+
+    private static Query batchQuery(String batchId){
+        return new Query(Criteria.where("batchId").is(batchId));
+    }
+}
@@ -0,0 +1,98 @@
+package com.service;
+
+import com.dto.AccountResponseDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.model.Account;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/*
+Size bounded, TTL evicting read-through cache of account details.
+Mutations put the account returned by their update into the cache right away.
+Entries carry the account revision and an older copy never replaces a newer one,
+so a read on this node never shows a balance older than a local write.
+max-size 0 turns the cache off.
+ */
+@Component
+public class AccountCache {
+    @Value("${bank.account-cache.max-size:0}")
+    long maxSize;
+
+    @Value("${bank.account-cache.ttl-seconds:60}")
+    long ttlSeconds = 60;
+
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
+    private Cache<String, Entry> cache;
+
+    Logger logger = LoggerFactory.getLogger(AccountCache.class);
+
+    @PostConstruct
+    void init(){
+        if(maxSize <= 0){
+            return;
+        }
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        if(meterRegistry != null){
+            // cache.gets{result=hit|miss}, cache.evictions, cache.size
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "accounts");
+        }
+        logger.info("Account cache on, max {} entries, ttl {} s", maxSize, ttlSeconds);
+    }
+
+    // cached details, or load them once; loader exceptions are passed through and nothing is cached
+    public AccountResponseDTO get(String accountNumber, Supplier<Account> loader){
+        if(cache == null){
+            return AccountService.mapToAccountResponse(loader.get());
+        }
+        return cache.get(accountNumber, k -> entryOf(loader.get())).dto;
+    }
+
+    // cached details or null, for callers that cannot block on a loader
+    public AccountResponseDTO getIfPresent(String accountNumber){
+        if(cache == null){
+            return null;
+        }
+        Entry entry = cache.getIfPresent(accountNumber);
+        return entry == null ? null : entry.dto;
+    }
+
+    // store the state returned by a write, unless a newer revision is cached already
+    public void refresh(Account acc){
+        if(cache == null || acc == null){
+            return;
+        }
+        Entry fresh = entryOf(acc);
+        cache.asMap().merge(acc.getAccountNumber(), fresh,
+                (cached, updated) -> updated.revision >= cached.revision ? updated : cached);
+    }
+
+    public void invalidate(String accountNumber){
+        if(cache != null){
+            cache.invalidate(accountNumber);
+        }
+    }
+
+    private static Entry entryOf(Account acc){
+        long revision = acc.getRevision() == null ? 0 : acc.getRevision();
+        return new Entry(revision, AccountService.mapToAccountResponse(acc));
+    }
+
+    private record Entry(long revision, AccountResponseDTO dto) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.service;
+
+import com.exceptions.ServiceBusyException;
+import com.utils.WorkerThreads;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/*
+Single writer lanes for account mutations. Every account number hashes to one lane,
+a lane is one thread working through its queue in order, so mutations of the same
+account never overlap while different accounts run in parallel on other lanes.
+Work never waits for another lane while holding its own, a transfer runs its debit
+on the source lane and then its credit on the destination lane, so lanes cannot deadlock.
+bank.lanes.count=0 turns lanes off and runs everything on the calling thread.
+A full lane turns work away before it runs (ServiceBusyException). Work that was queued always runs,
+so the caller waits for its outcome even when interrupted; a caller never gives up on work that may
+still change a balance after it returned.
+ */
+@Component
+public class AccountExecutionLanes {
+    @Value("${bank.lanes.count:0}")
+    int laneCount;
+
+    @Value("${bank.lanes.queue-capacity:10000}")
+    int queueCapacity = 10000;
+
+    // lane threads mostly wait on the db, virtual ones are cheap enough for many more lanes
+    @Value("${spring.threads.virtual.enabled:false}")
+    boolean virtualThreads;
+
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor[] lanes = new ThreadPoolExecutor[0];
+    private Timer waitTimer;
+
+    // lane index of the current thread, -1 for threads that are not lanes
+    private static final ThreadLocal<Integer> currentLane = ThreadLocal.withInitial(() -> -1);
+
+    Logger logger = LoggerFactory.getLogger(AccountExecutionLanes.class);
+
+    @PostConstruct
+    void start(){
+        lanes = new ThreadPoolExecutor[laneCount];
+        for(int i = 0; i < laneCount; i++){
+            int lane = i;
+            ThreadFactory threads = WorkerThreads.factory("account-lane-" + lane, virtualThreads);
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    r -> threads.newThread(() -> {
+                        currentLane.set(lane);
+                        r.run();
+                    }));
+            if(meterRegistry != null){
+                Gauge.builder("bank.lanes.queue.depth", lanes[i], e -> e.getQueue().size())
+                        .tag("lane", String.valueOf(lane))
+                        .description("Mutations waiting in the lane")
+                        .register(meterRegistry);
+            }
+        }
+        if(meterRegistry != null){
+            waitTimer = Timer.builder("bank.lanes.wait")
+                    .description("Time a mutation waits in its lane before it starts")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+        if(laneCount > 0){
+            logger.info("Started {} account execution lanes", laneCount);
+        }
+    }
+
+    @PreDestroy
+    void stop(){
+        for(ExecutorService lane : lanes){
+            lane.shutdown();
+        }
+    }
+
+    // run work on the lane of the account and wait for its result, exceptions are rethrown as is
+    public <T> T execute(String accountNumber, Supplier<T> work){
+        return run(accountNumber, work, false);
+    }
+
+    // for work that has to happen, like giving back a debit: a full lane runs it on the calling thread.
+    // a refund is one $inc, running it beside the lane's queue is safe
+    public <T> T executeAlways(String accountNumber, Supplier<T> work){
+        return run(accountNumber, work, true);
+    }
+
+    private <T> T run(String accountNumber, Supplier<T> work, boolean inlineWhenFull){
+        if(lanes.length == 0){
+            return work.get();
+        }
+        int lane = laneOf(accountNumber);
+        if(currentLane.get() == lane){
+            // already on this lane, queueing would wait for ourselves
+            return work.get();
+        }
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = lanes[lane].submit(() -> {
+                if(waitTimer != null){
+                    waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                }
+                return work.get();
+            });
+        } catch (RejectedExecutionException e){
+            if(inlineWhenFull){
+                logger.warn("Lane {} is full, running work for account {} on the calling thread", lane, accountNumber);
+                return work.get();
+            }
+            logger.warn("Lane {} is full, rejecting mutation for account {}", lane, accountNumber);
+            throw new ServiceBusyException("Too many pending operations, try again later");
+        }
+        boolean interrupted = false;
+        try {
+            while (true){
+                try {
+                    return future.get();
+                } catch (InterruptedException e){
+                    // the work runs anyway, its outcome is still ours to report
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e){
+            if(e.getCause() instanceof RuntimeException re){
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if(interrupted){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    int laneOf(String accountNumber){
+        // spread the hash bits, account numbers share long prefixes
+        int h = accountNumber.hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h * 0x9E3779B9, lanes.length);
+    }
+}
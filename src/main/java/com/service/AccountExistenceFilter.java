@@ -0,0 +1,201 @@
+package com.service;
+
+import com.model.Account;
+import com.utils.ScalableBloomFilter;
+import com.utils.WorkerThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/*
+Bloom filter of every account number in the accounts collection, so requests for numbers that don't exist
+(typos, enumeration scans) are turned away before they reach the db. Filled at startup by streaming the
+account numbers in the background, and by createAccount and imports on this node. Until the load is done
+every number passes.
+
+Other instances create accounts this node never sees. With confirm-misses on, a miss is only final after
+a catch-up query for the accounts created since the last one (by _id time, minus catch-up-slack-seconds
+for clock skew between nodes); misses that arrive while a catch-up runs share the next one. Turn it off
+only when a single instance writes the accounts collection, then a miss costs no db call at all.
+enabled=false lets every number through.
+ */
+@Component
+public class AccountExistenceFilter {
+    @Value("${bank.account-filter.enabled:false}")
+    boolean enabled;
+
+    @Value("${bank.account-filter.expected-accounts:1000000}")
+    long expectedAccounts = 1000000;
+
+    @Value("${bank.account-filter.false-positive-rate:0.001}")
+    double falsePositiveRate = 0.001;
+
+    @Value("${bank.account-filter.confirm-misses:true}")
+    boolean confirmMisses = true;
+
+    @Value("${bank.account-filter.catch-up-slack-seconds:30}")
+    long catchUpSlackSeconds = 30;
+
+    @Value("${bank.history.batch-size:1000}")
+    int batchSize = 1000;
+
+    @Autowired(required = false)
+    MongoTemplate mongoTemplate;
+
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
+    private volatile ScalableBloomFilter filter;
+    private volatile boolean ready;
+
+    // creation time of the newest account seen in the db, catch-ups start a little before it
+    private volatile Instant seenUpTo = Instant.EPOCH;
+    private final ReentrantLock catchUpLock = new ReentrantLock();
+    private final AtomicLong catchUpsStarted = new AtomicLong();
+    // outcome of the latest catch-up, only read and written under catchUpLock
+    private boolean lastCatchUpDone = true;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private Counter rejections;
+
+    Logger logger = LoggerFactory.getLogger(AccountExistenceFilter.class);
+
+    @PostConstruct
+    void init(){
+        if(!enabled){
+            return;
+        }
+        if(mongoTemplate == null){
+            logger.info("Account filter needs the accounts collection, off in this profile");
+            return;
+        }
+        filter = new ScalableBloomFilter(expectedAccounts, falsePositiveRate);
+        if(meterRegistry != null){
+            Gauge.builder("accounts.filter.false.positive.rate", this, f -> f.filter.expectedFalsePositiveRate())
+                    .description("Chance an unknown account number still goes to the db")
+                    .register(meterRegistry);
+            Gauge.builder("accounts.filter.size", this, f -> f.filter.size()).register(meterRegistry);
+            rejections = Counter.builder("accounts.filter.rejections")
+                    .description("Requests for unknown account numbers answered without a db call")
+                    .register(meterRegistry);
+        }
+        WorkerThreads.factory("account-filter", false).newThread(this::load).start();
+    }
+
+    // false only for account numbers that are not in the db
+    public boolean mightExist(String accountNumber){
+        ScalableBloomFilter f = filter;
+        if(f == null || !ready || accountNumber == null || f.mightContain(accountNumber)){
+            return true;
+        }
+        // a catch-up that could not ask the db lets the number through, the db answers it
+        if(confirmMisses && (!catchUp() || f.mightContain(accountNumber))){
+            return true;
+        }
+        rejected.incrementAndGet();
+        if(rejections != null){
+            rejections.increment();
+        }
+        return false;
+    }
+
+    // an account about to be stored, call before the insert so it is never turned away once it exists
+    public void add(String accountNumber){
+        ScalableBloomFilter f = filter;
+        if(f != null){
+            f.add(accountNumber);
+        }
+    }
+
+    public long rejectedCount(){
+        return rejected.get();
+    }
+
+    public boolean isReady(){
+        return ready;
+    }
+
+    // for tests and single instance setups, the filter holds exactly these numbers
+    void open(Stream<String> accountNumbers){
+        filter = new ScalableBloomFilter(expectedAccounts, falsePositiveRate);
+        accountNumbers.forEach(filter::add);
+        ready = true;
+    }
+
+    private void load(){
+        long start = System.nanoTime();
+        try {
+            Instant loadedFrom = Instant.now();
+            addAccountsSince(null);
+            // accounts stored while the stream ran may sit behind its cursor
+            addAccountsSince(loadedFrom.minusSeconds(catchUpSlackSeconds));
+            if(seenUpTo.isBefore(loadedFrom)){
+                seenUpTo = loadedFrom;
+            }
+            ready = true;
+            logger.info("Account filter loaded {} account numbers in {} ms, expected false positive rate {}",
+                    filter.size(), (System.nanoTime() - start) / 1_000_000, filter.expectedFalsePositiveRate());
+        } catch (RuntimeException e){
+            // stays open, every number goes to the db as before
+            logger.error("Account filter could not be loaded, unknown account numbers are not filtered", e);
+        }
+    }
+
+    // true when a catch-up that started after this call has read the new accounts, false when it failed
+    private boolean catchUp(){
+        long started = catchUpsStarted.get();
+        catchUpLock.lock();
+        try {
+            if(catchUpsStarted.get() > started){
+                return lastCatchUpDone;  // someone else queried the db after our miss
+            }
+            catchUpsStarted.incrementAndGet();
+            try {
+                addAccountsSince(seenUpTo.minusSeconds(catchUpSlackSeconds));
+                lastCatchUpDone = true;
+            } catch (RuntimeException e){
+                logger.warn("Account filter catch-up failed: {}", e.getMessage());
+                lastCatchUpDone = false;
+            }
+            return lastCatchUpDone;
+        } finally {
+            catchUpLock.unlock();
+        }
+    }
+
+    // adds the account numbers created since from (all of them for null), only the number and id are read
+    private void addAccountsSince(Instant from){
+        Query query = from == null ? new Query() : new Query(Criteria.where("_id").gte(new ObjectId(Date.from(from))));
+        query.fields().include("accountNumber");
+        query.cursorBatchSize(batchSize);
+        Instant newest = seenUpTo;
+        try (Stream<Account> accounts = mongoTemplate.stream(query, Account.class)){
+            for(Account acc : (Iterable<Account>) accounts::iterator){
+                filter.add(acc.getAccountNumber());
+                if(ObjectId.isValid(acc.getId())){
+                    Instant created = new ObjectId(acc.getId()).getDate().toInstant();
+                    if(created.isAfter(newest)){
+                        newest = created;
+                    }
+                }
+            }
+        }
+        seenUpTo = newest;
+    }
+}
@@ -0,0 +1,174 @@
+package com.service;
+
+import com.dto.AccountImportEventDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.model.Account;
+import com.repository.AccountRepository;
+import com.utils.AccountNumberGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/*
+Bulk onboarding of account holders. The upload is read line by line and only one batch
+is held in memory, each batch is a single unordered insertMany. Account numbers come
+from the allocator in leased blocks, so there is no probing per account. A prefix leases
+as many numbers as the batch still has rows for it (at most number-block-size), so a
+prefix seen a few times does not burn a whole block.
+ */
+@Service
+public class AccountImportService {
+    public enum Format { CSV, NDJSON }
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    AccountNumberAllocator accountNumberAllocator;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    AccountExistenceFilter accountFilter;
+
+    @Value("${bank.import.batch-size:1000}")
+    int batchSize = 1000;
+
+    @Value("${bank.import.number-block-size:10000}")
+    int numberBlockSize = 10000;
+
+    Logger logger = LoggerFactory.getLogger(AccountImportService.class);
+
+    // reads the whole upload, reports errors and progress to events as it goes and returns the summary
+    public AccountImportEventDTO importAccounts(BufferedReader reader, Format format, Consumer<AccountImportEventDTO> events) throws IOException {
+        List<String> batch = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        long processed = 0;
+        long imported = 0;
+        long failed = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null){
+            lineNumber++;
+            if(line.isBlank()){
+                continue;
+            }
+            String holderName;
+            try {
+                holderName = format == Format.CSV ? firstCsvField(line) : holderNameOf(line);
+            } catch (JsonProcessingException e){
+                processed++;
+                failed++;
+                events.accept(AccountImportEventDTO.error(lineNumber, "Malformed JSON"));
+                continue;
+            }
+            // optional header row
+            if(lineNumber == 1 && format == Format.CSV && "holderName".equalsIgnoreCase(holderName)){
+                continue;
+            }
+            processed++;
+            if(holderName == null || holderName.trim().isEmpty()){
+                failed++;
+                events.accept(AccountImportEventDTO.error(lineNumber, "Account holder name is required"));
+                continue;
+            }
+            batch.add(holderName.trim());
+            if(batch.size() == batchSize){
+                int stored = insertBatch(batch);
+                imported += stored;
+                failed += batch.size() - stored;
+                batch.clear();
+                events.accept(AccountImportEventDTO.counts(AccountImportEventDTO.PROGRESS, processed, imported, failed));
+            }
+        }
+        if(!batch.isEmpty()){
+            int stored = insertBatch(batch);
+            imported += stored;
+            failed += batch.size() - stored;
+        }
+
+        AccountImportEventDTO summary = AccountImportEventDTO.counts(AccountImportEventDTO.DONE, processed, imported, failed);
+        events.accept(summary);
+        logger.info("Account import finished: {} rows, {} imported, {} failed", processed, imported, failed);
+        return summary;
+    }
+
+    // returns how many accounts of the batch were stored
+    private int insertBatch(List<String> batch){
+        List<Account> pending = newAccounts(batch);
+        int stored = 0;
+        // a taken number gets the row the next one. the allocator never hands out a number twice and
+        // starts past the old random range, so rows of a crowded prefix get through instead of failing
+        while (!pending.isEmpty()){
+            // known before they are stored, taken numbers were in the filter already
+            pending.forEach(acc -> accountFilter.add(acc.getAccountNumber()));
+            Set<Integer> duplicates = accountRepository.insertAllUnordered(pending);
+            stored += pending.size() - duplicates.size();
+            List<String> retry = new ArrayList<>(duplicates.size());
+            for(int index : duplicates){
+                Account acc = pending.get(index);
+                logger.warn("Account number {} already taken, allocating another one", acc.getAccountNumber());
+                retry.add(acc.getHolderName());
+            }
+            pending = newAccounts(retry);
+        }
+        return stored;
+    }
+
+    // a lease taken for a row covers the rows of the same prefix after it in the batch, and no more
+    private List<Account> newAccounts(List<String> holderNames){
+        Map<String, Integer> remaining = new HashMap<>();
+        for(String holderName : holderNames){
+            remaining.merge(AccountNumberGenerator.prefixOf(holderName), 1, Integer::sum);
+        }
+        List<Account> accounts = new ArrayList<>(holderNames.size());
+        for(String holderName : holderNames){
+            int rows = remaining.merge(AccountNumberGenerator.prefixOf(holderName), -1, Integer::sum) + 1;
+            String accountNumber = accountNumberAllocator.next(holderName, Math.min(rows, numberBlockSize));
+            accounts.add(AccountService.newAccount(holderName, accountNumber));
+        }
+        return accounts;
+    }
+
+    private String holderNameOf(String line) throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(line).get("holderName");
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    // holder name is the first column, may be quoted with "" as an escaped quote
+    static String firstCsvField(String line){
+        if(!line.startsWith("\"")){
+            int comma = line.indexOf(',');
+            return comma < 0 ? line : line.substring(0, comma);
+        }
+        StringBuilder field = new StringBuilder();
+        for(int i = 1; i < line.length(); i++){
+            char c = line.charAt(i);
+            if(c == '"'){
+                if(i + 1 < line.length() && line.charAt(i + 1) == '"'){
+                    field.append('"');
+                    i++;
+                } else {
+                    break;
+                }
+            } else {
+                field.append(c);
+            }
+        }
+        return field.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package com.service;
+
+import com.repository.CounterRepository;
+import com.utils.AccountNumberGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+Hands out unique account numbers without probing the accounts collection (hi/lo).
+Each prefix has a counter document, this node leases a block of sequences from it
+and then serves numbers from memory until the block is used up.
+ */
+@Component
+public class AccountNumberAllocator {
+    @Autowired
+    CounterRepository counterRepository;
+
+    @Value("${bank.account-number.block-size:100}")
+    int blockSize = 100;
+
+    private final ConcurrentHashMap<String, Block> blocks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ReentrantLock> leaseLocks = new ConcurrentHashMap<>();
+
+    Logger logger = LoggerFactory.getLogger(AccountNumberAllocator.class);
+
+    public String next(String holderName){
+        return next(holderName, blockSize);
+    }
+
+    // bulk callers lease bigger blocks so a large import costs few counter round trips
+    public String next(String holderName, int leaseSize){
+        String prefix = AccountNumberGenerator.prefixOf(holderName);
+        while (true){
+            Block block = blocks.get(prefix);
+            if(block != null){
+                long sequence = block.next.getAndIncrement();
+                if(sequence < block.end){
+                    return AccountNumberGenerator.format(prefix, sequence);
+                }
+            }
+            // block missing or used up, only one thread per prefix leases the next one.
+            // a lock instead of synchronized, a virtual thread would pin its carrier during the db call
+            ReentrantLock lock = leaseLocks.computeIfAbsent(prefix, k -> new ReentrantLock());
+            lock.lock();
+            try {
+                if(blocks.get(prefix) == block){
+                    long start = counterRepository.reserveBlock("account:" + prefix, leaseSize);
+                    blocks.put(prefix, new Block(start, start + leaseSize));
+                    logger.info("Leased account numbers {} to {} for prefix {}", start, start + leaseSize - 1, prefix);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -8,29 +8,65 @@ import com.exceptions.AccountNotFoundException;
 import com.exceptions.InsufficientBalanceException;
 import com.exceptions.InvalidAmountException;
 import com.exceptions.InvalidInputException;
+import com.exceptions.TransferAbortedException;
 import com.model.Account;
 import com.model.Transactions;
 import com.repository.AccountRepository;
 import com.repository.TransactionRepository;
-import com.utils.AccountNumberGenerator;
+import com.utils.Money;
+import com.utils.TransactionCursor;
 import com.utils.TransactionIdGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class AccountService {
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_STATEMENT_DAYS = 31;
+
     @Autowired
     AccountRepository accountRepository;
 
     @Autowired
     TransactionRepository transactionRepository;
 
+    @Autowired
+    AccountNumberAllocator accountNumberAllocator;
+
+    @Autowired
+    AccountExecutionLanes executionLanes;
+
+    @Autowired
+    DepositCoalescer depositCoalescer;
+
+    @Autowired
+    AccountCache accountCache;
+
+    @Autowired
+    AccountExistenceFilter accountFilter;
+
+    @Autowired
+    TransactionWriter transactionWriter;
+
+    @Autowired
+    StripedAccounts stripedAccounts;
+
+    @Autowired
+    DailyRollups dailyRollups;
+
     Logger logger = LoggerFactory.getLogger(AccountService.class);
 
     // create account
@@ -40,22 +76,26 @@ public class AccountService {
             throw new InvalidInputException(" Account holder name is required");
         }
 
-        // calling generate account number in loop so that no two user get same account number
-        String accountNumber = AccountNumberGenerator.generateAccountNum(dto.getHolderName());
-        while (accountRepository.existsByAccountNumber(accountNumber)){
-            accountNumber = AccountNumberGenerator.generateAccountNum(dto.getHolderName());
-        }
-
         // add DTO info to actual account class
-        Account acc = new Account();
-        acc.setHolderName(dto.getHolderName());
-        acc.setAccountNumber(accountNumber);
-        acc.setBalance(0.0);
-        acc.setStatus(AccountStatus.ACTIVE);
-        acc.setCreatedAt(LocalDateTime.now());
-        // save account to db
-        accountRepository.save(acc);
+        Account acc = newAccount(dto.getHolderName(), null);
+
+        // allocator hands out numbers nobody else got, past the range of the old random ones,
+        // so this is a single insert. the unique index still guards against anything else
+        String accountNumber;
+        while (true){
+            accountNumber = accountNumberAllocator.next(dto.getHolderName());
+            acc.setAccountNumber(accountNumber);
+            accountFilter.add(accountNumber);
+            try {
+                accountRepository.insert(acc);
+                break;
+            } catch (DuplicateKeyException e){
+                logger.warn("Account number {} already taken, allocating another one", accountNumber);
+                acc.setId(null);
+            }
+        }
 
+        accountCache.refresh(acc);
         logger.info("Account created successfully: {}", accountNumber);
         return mapToAccountResponse(acc);
     }
@@ -66,36 +106,46 @@ public class AccountService {
             logger.warn("Deposit attempt with empty account number");
             throw new InvalidInputException("Account number is required");
         }
-        if(dto.getAmount() == null || dto.getAmount()<=0){
+        if(dto.getAmount() == null || dto.getAmount().signum()<=0){
             logger.warn("Deposit attempt with invalid amount: {}", dto.getAmount());
             throw new InvalidAmountException("Amount must be greater than 0");
         }
-        Account accFromDb = accountRepository.findByAccountNumber(dto.getAccountNumber())
-                        .orElseThrow(()-> {
-                            logger.error("Deposit failed: Account not found {}", dto.getAccountNumber());
-                            return new AccountNotFoundException("Account not found");
-                        });
-
-        // update balance
-        accFromDb.setBalance(accFromDb.getBalance() + dto.getAmount());
-        accountRepository.save(accFromDb);
-
-        // fill transaction details to db
-        Transactions t = new Transactions();
-        t.setTransactionId(TransactionIdGenerator.generateTransactionId());
-        t.setType(TransactionType.DEPOSIT);
-        t.setAmount(dto.getAmount());
-        t.setTimestamp(LocalDateTime.now());
-        t.setStatus(TransactionStatus.SUCCESS);
-        t.setSourceAccount(null);
-        t.setDestinationAccount(accFromDb.getAccountNumber());
-
-        // save transaction
-        transactionRepository.save(t);
+        long amount = Money.toMinor(dto.getAmount());
+        requireKnown("Deposit", dto.getAccountNumber());
+        if(stripedAccounts.isStriped(dto.getAccountNumber())){
+            // spread over the account's stripes, neither lanes nor coalescing would let them run side by side
+            Transactions t = buildTransaction(TransactionType.DEPOSIT, amount, null, dto.getAccountNumber());
+            if(!credit(dto.getAccountNumber(), amount, false, dayOf(t))){
+                logger.error("Deposit failed: Account not found {}", dto.getAccountNumber());
+                throw new AccountNotFoundException("Account not found");
+            }
+            saveTransaction(t);
+            logger.info("Deposit successful for account {}: amount {}", dto.getAccountNumber(), dto.getAmount());
+            return mapToTxnResponse(t);
+        }
+        if(depositCoalescer.isEnabled()){
+            // applied together with other deposits to the same account
+            Transactions t = depositCoalescer.submit(buildTransaction(TransactionType.DEPOSIT, amount, null, dto.getAccountNumber()));
+            logger.info("Deposit successful for account {}: amount {}", dto.getAccountNumber(), dto.getAmount());
+            return mapToTxnResponse(t);
+        }
 
-        // add transaction to account
-        accFromDb.getTransactions().add(t);
-        accountRepository.save(accFromDb);
+        // mutations of one account run one after another on its lane
+        Transactions t = executionLanes.execute(dto.getAccountNumber(), () -> {
+            Transactions txn = buildTransaction(TransactionType.DEPOSIT, amount, null, dto.getAccountNumber());
+            // update balance in one atomic call
+            Account updated = accountRepository.creditBalance(dto.getAccountNumber(), amount)
+                            .orElseThrow(()-> {
+                                logger.error("Deposit failed: Account not found {}", dto.getAccountNumber());
+                                return new AccountNotFoundException("Account not found");
+                            });
+            accountCache.refresh(updated);
+            dailyRollups.record(dayOf(txn), dto.getAccountNumber(), amount, 0, 1, updated);
+
+            // save transaction details to db
+            saveTransaction(txn);
+            return txn;
+        });
 
         logger.info("Deposit successful for account {}: amount {}", dto.getAccountNumber(), dto.getAmount());
         return mapToTxnResponse(t);
@@ -107,41 +157,23 @@ public class AccountService {
             logger.warn("Withdrawal attempt with empty account number");
             throw new InvalidInputException("Account number is required");
         }
-        if(dto.getAmount() == null || dto.getAmount()<=0){
+        if(dto.getAmount() == null || dto.getAmount().signum()<=0){
             logger.warn("Withdrawal attempt with invalid amount: {}", dto.getAmount());
             throw new InvalidAmountException("Amount must be greater than 0");
         }
-        Account accFromDb = accountRepository.findByAccountNumber(dto.getAccountNumber())
-                .orElseThrow(() -> {
-                    logger.error("Withdrawal failed: Account not found {}", dto.getAccountNumber());
-                    return new AccountNotFoundException("Account not found");
-                });
-
-        // validate withdraw balance
-        if(accFromDb.getBalance() < dto.getAmount()){
-            logger.warn("Withdrawal failed: Insufficient balance for account {}. Requested: {}, Available: {}",
-                    dto.getAccountNumber(), dto.getAmount(), accFromDb.getBalance());
-            throw new InsufficientBalanceException("Insufficient balance");
-        }
-        // update balance
-        accFromDb.setBalance(accFromDb.getBalance() - dto.getAmount());
-        accountRepository.save(accFromDb);
-
-        // fill transaction details
-        Transactions t = new Transactions();
-        t.setTransactionId(TransactionIdGenerator.generateTransactionId());
-        t.setType(TransactionType.WITHDRAW);
-        t.setAmount(dto.getAmount());
-        t.setTimestamp(LocalDateTime.now());
-        t.setStatus(TransactionStatus.SUCCESS);
-        t.setSourceAccount(accFromDb.getAccountNumber());
-        t.setDestinationAccount(null);
-
-        transactionRepository.save(t);
-
-        // add transaction to account
-        accFromDb.getTransactions().add(t);
-        accountRepository.save(accFromDb);
+        long amount = Money.toMinor(dto.getAmount());
+        requireKnown("Withdrawal", dto.getAccountNumber());
+        Transactions t = executionLanes.execute(dto.getAccountNumber(), () -> {
+            Transactions txn = buildTransaction(TransactionType.WITHDRAW, amount, dto.getAccountNumber(), null);
+            // validate and update balance in one atomic call, balance >= amount is checked by the db
+            if(!debit(dto.getAccountNumber(), amount, dayOf(txn))){
+                throw debitFailure("Withdrawal", dto.getAccountNumber(), amount);
+            }
+
+            // save transaction details
+            saveTransaction(txn);
+            return txn;
+        });
 
         logger.info("Withdrawal successful for account {}: amount {}", dto.getAccountNumber(), dto.getAmount());
         return mapToTxnResponse(t);
@@ -149,59 +181,55 @@ public class AccountService {
 
     // transfer
     public TransactionResponseDTO transfer(TransferRequestDTO dto){
-        if(dto.getAmount() == null || dto.getAmount()<=0){
+        if(dto.getAmount() == null || dto.getAmount().signum()<=0){
             logger.warn("Transfer attempt with invalid amount: {}", dto.getAmount());
             throw new InvalidAmountException("Amount must be greater than 0");
         }
+        long amount = Money.toMinor(dto.getAmount());
         // check if source and destination same
         if(dto.getFromAccount().equals(dto.getToAccount())){
             logger.warn("Transfer attempt from and to same account: {}", dto.getFromAccount());
             throw new InvalidInputException("Source and destination cannot be same");
         }
 
-        // get accounts and validate
-        Account sourceAcc = accountRepository.findByAccountNumber(dto.getFromAccount())
-                .orElseThrow(() -> {
-                    logger.error("Transfer failed: Source account not found {}", dto.getFromAccount());
-                    return new AccountNotFoundException("Account not found");
-                });
-        Account destinationAcc = accountRepository.findByAccountNumber(dto.getToAccount())
-                .orElseThrow(() -> {
-                    logger.error("Transfer failed: Destination account not found {}", dto.getToAccount());
-                    return new AccountNotFoundException("Account not found");
-                });
-
-        // validate source has amount
-        if(sourceAcc.getBalance() < dto.getAmount()){
-            logger.warn("Transfer failed: Insufficient balance in source account {}. Requested: {}, Available: {}",
-                    dto.getFromAccount(), dto.getAmount(), sourceAcc.getBalance());
-            throw new InsufficientBalanceException("Insufficient balance");
+        requireKnown("Transfer", dto.getFromAccount());
+        // validate destination before touching the source balance
+        if(!accountFilter.mightExist(dto.getToAccount()) || !accountRepository.existsByAccountNumber(dto.getToAccount())){
+            logger.error("Transfer failed: Destination account not found {}", dto.getToAccount());
+            throw new AccountNotFoundException("Account not found");
         }
 
-        // update source and destination
-        sourceAcc.setBalance(sourceAcc.getBalance() - dto.getAmount());
-        destinationAcc.setBalance(destinationAcc.getBalance() + dto.getAmount());
-
-        // fill transaction details
-        Transactions t = new Transactions();
-        t.setTransactionId(TransactionIdGenerator.generateTransactionId());
-        t.setType(TransactionType.TRANSFER);
-        t.setAmount(dto.getAmount());
-        t.setTimestamp(LocalDateTime.now());
-        t.setStatus(TransactionStatus.SUCCESS);
-        t.setSourceAccount(sourceAcc.getAccountNumber());
-        t.setDestinationAccount(destinationAcc.getAccountNumber());
+        // one document serves both accounts, its timestamp also dates both rollups
+        Transactions t = buildTransaction(TransactionType.TRANSFER, amount, dto.getFromAccount(), dto.getToAccount());
+        LocalDate day = dayOf(t);
 
-        // save transaction
-        transactionRepository.save(t);
+        // debit source only if it has the amount, on the source lane
+        if(!executionLanes.execute(dto.getFromAccount(), () -> debit(dto.getFromAccount(), amount, day))){
+            throw debitFailure("Transfer", dto.getFromAccount(), amount);
+        }
 
-        // add transaction to both accounts
-        sourceAcc.getTransactions().add(t);
-        destinationAcc.getTransactions().add(t);
+        // then hand over to the destination lane, the source lane is already free again
+        boolean credited;
+        try {
+            credited = executionLanes.execute(dto.getToAccount(), () -> credit(dto.getToAccount(), amount, false, day));
+        } catch (RuntimeException e){
+            // destination lane full or the credit failed, the debit must not stand on its own
+            logger.error("Transfer failed: could not credit {}, refunding {}", dto.getToAccount(), dto.getFromAccount(), e);
+            if(!refund(dto.getFromAccount(), amount, day)){
+                throw new TransferAbortedException("Transfer failed after the debit, the amount is being reconciled", false);
+            }
+            throw new TransferAbortedException("Transfer could not be completed, the amount was returned", true);
+        }
+        if(!credited){
+            // give the money back if the destination disappeared in the meantime
+            logger.error("Transfer failed: Destination account not found {}, refunding {}", dto.getToAccount(), dto.getFromAccount());
+            if(!refund(dto.getFromAccount(), amount, day)){
+                throw new TransferAbortedException("Transfer failed after the debit, the amount is being reconciled", false);
+            }
+            throw new AccountNotFoundException("Account not found");
+        }
 
-        // save both
-        accountRepository.save(sourceAcc);
-        accountRepository.save(destinationAcc);
+        saveTransaction(t);
 
         logger.info("Transfer successful from {} to {}: amount {}. TransactionId: {}",
                 dto.getFromAccount(), dto.getToAccount(), dto.getAmount(), t.getTransactionId());
@@ -211,22 +239,27 @@ public class AccountService {
     // retrieve account details
     public AccountResponseDTO getAccountDetails(String accountNumber){
         logger.info("Fetching account details for {}", accountNumber);
-        Account acc = accountRepository.findByAccountNumber(accountNumber)
+        requireKnown("Fetching account details", accountNumber);
+        if(stripedAccounts.isStriped(accountNumber)){
+            return stripedAccounts.details(accountNumber);
+        }
+        // served from the cache when possible, db is only read on a miss
+        return accountCache.get(accountNumber, () -> accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> {
                     logger.error("Account not found {}", accountNumber);
                     return new AccountNotFoundException("Account not found");
-                });
-        return mapToAccountResponse(acc);
+                }));
     }
 
     // get all transactions by account number
     public List<TransactionResponseDTO> getTransactionsByAccount(String accountNumber){
         logger.info("Fetching all transactions for account {}", accountNumber);
-        List<Transactions> transactionsList = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> {
-                    logger.error("Account not found {}", accountNumber);
-                    return new AccountNotFoundException("Account not found");
-                }).getTransactions();
+        if(!accountFilter.mightExist(accountNumber) || !accountRepository.existsByAccountNumber(accountNumber)){
+            logger.error("Account not found {}", accountNumber);
+            throw new AccountNotFoundException("Account not found");
+        }
+        transactionWriter.awaitWritten();
+        List<Transactions> transactionsList = transactionRepository.findAllByAccount(accountNumber);
         List<TransactionResponseDTO> list = new ArrayList<>();
         // convert to TransactionResponse DTO
         for(Transactions t: transactionsList){
@@ -240,24 +273,242 @@ public class AccountService {
 
 
 
+    // balance changes, striped accounts spread theirs over several documents and keep them out of the cache.
+    // a refund takes its debit back out of the daily rollup instead of counting as a credit.
+    // day is the date of the change's transaction, its rollup is kept under that day
+    private boolean credit(String accountNumber, long amount, boolean refund, LocalDate day){
+        // no single document holds the balance of a striped account, its rollups go without one
+        Account updated = null;
+        if(stripedAccounts.isStriped(accountNumber)){
+            if(!stripedAccounts.credit(accountNumber, amount)){
+                return false;
+            }
+        } else {
+            updated = accountRepository.creditBalance(accountNumber, amount).orElse(null);
+            if(updated == null){
+                return false;
+            }
+            accountCache.refresh(updated);
+        }
+        if(refund){
+            dailyRollups.record(day, accountNumber, 0, -amount, -1, updated);
+        } else {
+            dailyRollups.record(day, accountNumber, amount, 0, 1, updated);
+        }
+        return true;
+    }
+
+    // give a transfer's debit back; runs even when the source lane is full, false when it could not be done
+    private boolean refund(String accountNumber, long amount, LocalDate day){
+        try {
+            if(executionLanes.executeAlways(accountNumber, () -> credit(accountNumber, amount, true, day))){
+                return true;
+            }
+            logger.error("Refund of {} to {} failed: account not found, needs reconciliation", Money.fromMinor(amount), accountNumber);
+        } catch (RuntimeException e){
+            logger.error("Refund of {} to {} failed, needs reconciliation", Money.fromMinor(amount), accountNumber, e);
+        }
+        return false;
+    }
+
+    private boolean debit(String accountNumber, long amount, LocalDate day){
+        if(stripedAccounts.isStriped(accountNumber)){
+            if(!stripedAccounts.debit(accountNumber, amount)){
+                return false;
+            }
+            dailyRollups.record(day, accountNumber, 0, amount, 1, null);
+            return true;
+        }
+        Optional<Account> updated = accountRepository.debitBalanceIfSufficient(accountNumber, amount);
+        updated.ifPresent(acc -> {
+            accountCache.refresh(acc);
+            dailyRollups.record(day, accountNumber, 0, amount, 1, acc);
+        });
+        return updated.isPresent();
+    }
+
+    // write-behind when on, the db insert then happens off the request path
+    private void saveTransaction(Transactions txn){
+        if(transactionWriter.isEnabled()){
+            transactionWriter.submit(txn);
+        } else {
+            transactionRepository.insert(txn);
+        }
+    }
+
+    // turn away numbers the account filter knows are not in the db, before any db call
+    private void requireKnown(String operation, String accountNumber){
+        if(!accountFilter.mightExist(accountNumber)){
+            logger.error("{} failed: Account not found {}", operation, accountNumber);
+            throw new AccountNotFoundException("Account not found");
+        }
+    }
+
+    // find out why a conditional debit matched nothing, only runs on the failure path
+    private RuntimeException debitFailure(String operation, String accountNumber, long amount){
+        if(!accountRepository.existsByAccountNumber(accountNumber)){
+            logger.error("{} failed: Account not found {}", operation, accountNumber);
+            return new AccountNotFoundException("Account not found");
+        }
+        logger.warn("{} failed: Insufficient balance for account {}. Requested: {}", operation, accountNumber, Money.fromMinor(amount));
+        return new InsufficientBalanceException("Insufficient balance");
+    }
+
+    // stream the whole history, oldest first, straight from a db cursor.
+    // account is checked here so a 404 can still be sent before the response starts
+    public Stream<TransactionResponseDTO> streamTransactionsByAccount(String accountNumber){
+        logger.info("Streaming all transactions for account {}", accountNumber);
+        if(!accountFilter.mightExist(accountNumber) || !accountRepository.existsByAccountNumber(accountNumber)){
+            logger.error("Account not found {}", accountNumber);
+            throw new AccountNotFoundException("Account not found");
+        }
+        transactionWriter.awaitWritten();
+        return transactionRepository.streamAllByAccount(accountNumber).map(AccountService::mapToTxnResponse);
+    }
+
+    // get one page of transactions, newest first, walking the history index with a cursor
+    public TransactionPageResponseDTO getTransactionsPage(TransactionHistoryRequestDTO request){
+        String accountNumber = request.getAccountNumber();
+        int limit = pageLimit(request);
+        boolean newer = request.getAfter() != null;
+        TransactionCursor cursor = pageCursor(request);
+
+        if(!accountFilter.mightExist(accountNumber) || !accountRepository.existsByAccountNumber(accountNumber)){
+            logger.error("Account not found {}", accountNumber);
+            throw new AccountNotFoundException("Account not found");
+        }
+
+        transactionWriter.awaitWritten();
+        // one extra row tells us whether there is another page in that direction
+        List<Transactions> rows = transactionRepository.findHistoryPage(accountNumber, request.getType(),
+                request.getFrom(), request.getTo(), cursor, newer, limit + 1);
+        TransactionPageResponseDTO page = toPage(rows, cursor, newer, limit);
+        logger.info("Fetched {} transactions for account {}", page.getTransactions().size(), accountNumber);
+        return page;
+    }
+
+    // statement of the days from..to (both included) out of the daily rollups, at most two small queries
+    public StatementResponseDTO getStatement(String accountNumber, LocalDate from, LocalDate to){
+        checkStatementPeriod(from, to);
+        if(!accountFilter.mightExist(accountNumber) || !accountRepository.existsByAccountNumber(accountNumber)){
+            logger.error("Account not found {}", accountNumber);
+            throw new AccountNotFoundException("Account not found");
+        }
+        StatementResponseDTO statement = dailyRollups.statement(accountNumber, from, to);
+        logger.info("Built statement of {} active days for account {}", statement.getDays().size(), accountNumber);
+        return statement;
+    }
+
+    static void checkStatementPeriod(LocalDate from, LocalDate to){
+        if(from == null || to == null){
+            throw new InvalidInputException("from and to are required");
+        }
+        if(to.isBefore(from)){
+            throw new InvalidInputException("from must not be after to");
+        }
+        if(ChronoUnit.DAYS.between(from, to) >= MAX_STATEMENT_DAYS){
+            throw new InvalidInputException("A statement covers at most " + MAX_STATEMENT_DAYS + " days");
+        }
+    }
+
+    // validated page size of a history request
+    static int pageLimit(TransactionHistoryRequestDTO request){
+        int limit = request.getLimit() == null ? DEFAULT_PAGE_SIZE : request.getLimit();
+        if(limit < 1 || limit > MAX_PAGE_SIZE){
+            throw new InvalidInputException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if(request.getBefore() != null && request.getAfter() != null){
+            throw new InvalidInputException("Only one of before and after can be given");
+        }
+        if(request.getFrom() != null && request.getTo() != null && !request.getFrom().isBefore(request.getTo())){
+            throw new InvalidInputException("from must be before to");
+        }
+        return limit;
+    }
+
+    // position the page starts from, null for the newest page
+    static TransactionCursor pageCursor(TransactionHistoryRequestDTO request){
+        return request.getAfter() != null ? TransactionCursor.decode(request.getAfter())
+                : request.getBefore() != null ? TransactionCursor.decode(request.getBefore()) : null;
+    }
+
+    // page of at most limit rows out of limit + 1 fetched ones, newest first, with cursors both ways
+    static TransactionPageResponseDTO toPage(List<Transactions> rows, TransactionCursor cursor, boolean newer, int limit){
+        boolean hasMore = rows.size() > limit;
+        if(hasMore){
+            rows = rows.subList(0, limit);
+        }
+        if(newer){
+            // newer pages come back oldest first
+            rows = new ArrayList<>(rows);
+            Collections.reverse(rows);
+        }
+
+        List<TransactionResponseDTO> list = new ArrayList<>(rows.size());
+        for(Transactions t: rows){
+            list.add(mapToTxnResponse(t));
+        }
+        TransactionPageResponseDTO page = new TransactionPageResponseDTO();
+        page.setTransactions(list);
+        if(!rows.isEmpty()){
+            Transactions newest = rows.get(0);
+            Transactions oldest = rows.get(rows.size() - 1);
+            if(newer ? cursor != null : hasMore) page.setNextCursor(TransactionCursor.encode(oldest));
+            if(newer ? hasMore : cursor != null) page.setPrevCursor(TransactionCursor.encode(newest));
+        }
+        return page;
+    }
+
+    // build a successful transaction, linked to every account it touches
+    static LocalDate dayOf(Transactions txn){
+        return txn.getTimestamp().toLocalDate();
+    }
+
+    static Transactions buildTransaction(TransactionType type, long amount, String source, String destination){
+        Transactions t = new Transactions();
+        t.setTransactionId(TransactionIdGenerator.generateTransactionId());
+        t.setType(type);
+        t.setAmount(amount);
+        t.setTimestamp(LocalDateTime.now());
+        t.setStatus(TransactionStatus.SUCCESS);
+        t.setSourceAccount(source);
+        t.setDestinationAccount(destination);
+        List<String> accountNumbers = new ArrayList<>(2);
+        if(source != null) accountNumbers.add(source);
+        if(destination != null) accountNumbers.add(destination);
+        t.setAccountNumbers(accountNumbers);
+        return t;
+    }
+
+    // new active account with zero balance
+    static Account newAccount(String holderName, String accountNumber){
+        Account acc = new Account();
+        acc.setHolderName(holderName);
+        acc.setAccountNumber(accountNumber);
+        acc.setBalance(0);
+        acc.setStatus(AccountStatus.ACTIVE);
+        acc.setCreatedAt(LocalDateTime.now());
+        return acc;
+    }
+
     // map to Account Response DTO
-    private AccountResponseDTO mapToAccountResponse(Account acc){
+    static AccountResponseDTO mapToAccountResponse(Account acc){
         AccountResponseDTO dto = new AccountResponseDTO();
         dto.setId(acc.getId());
         dto.setAccountNumber(acc.getAccountNumber());
         dto.setHolderName(acc.getHolderName());
-        dto.setBalance(acc.getBalance());
+        dto.setBalance(Money.fromMinor(acc.getBalance()));
         dto.setStatus(acc.getStatus());
         dto.setCreatedAt(acc.getCreatedAt());
         return dto;
     }
 
     // map to Transaction Response
-    private TransactionResponseDTO mapToTxnResponse(Transactions t){
+    static TransactionResponseDTO mapToTxnResponse(Transactions t){
         TransactionResponseDTO dto = new TransactionResponseDTO();
         dto.setTransactionId(t.getTransactionId());
         dto.setType(t.getType());
-        dto.setAmount(t.getAmount());
+        dto.setAmount(Money.fromMinor(t.getAmount()));
         dto.setStatus(t.getStatus());
         dto.setSourceAccount(t.getSourceAccount());
         dto.setDestinationAccount(t.getDestinationAccount());
@@ -0,0 +1,366 @@
+package com.service;
+
+import com.dto.TransferRequestDTO;
+import com.dto.TransferResultDTO;
+import com.enums.TransactionType;
+import com.exceptions.InvalidAmountException;
+import com.exceptions.InvalidInputException;
+import com.model.Account;
+import com.model.DailyRollup;
+import com.model.Transactions;
+import com.model.TransferBatch;
+import com.repository.AccountRepository;
+import com.repository.TransactionRepository;
+import com.repository.TransferBatchRepository;
+import com.utils.Money;
+import com.utils.WorkerThreads;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+Settlement style batch of transfers with a fixed number of db round trips:
+load all involved accounts, net the balance changes per account, apply them in two
+bulk writes of $inc updates (guarded debits, then credits) and insert all transactions in one insertMany.
+If that insert keeps failing the batch is taken back, the transfers are not recorded anywhere otherwise.
+A TransferBatch record with the net changes is written before the balances move and deleted at the end,
+so a batch cut short by a crash is found by the sweep (at start and every sweep-interval-ms): with all of
+its transactions in it is finished, otherwise taken back by its account markers and its transactions
+removed. Without the Mongo collections (inmemory, journal) there is no record and no sweep.
+Transfers out of striped accounts go one by one through AccountService ahead of the batch.
+Items are checked in request order against the loaded balances, an item that would
+overdraw its source fails on its own and the rest of the batch goes through.
+ */
+@Service
+public class BatchTransferService {
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    AccountService accountService;
+
+    @Autowired
+    AccountCache accountCache;
+
+    @Autowired
+    DailyRollups dailyRollups;
+
+    @Autowired
+    StripedAccounts stripedAccounts;
+
+    @Autowired(required = false)
+    TransferBatchRepository batchRepository;
+
+    @Value("${bank.transfer-batch.max-size:50000}")
+    int maxBatchSize = 50000;
+
+    @Value("${bank.transfer-batch.sweep-interval-ms:60000}")
+    long sweepIntervalMs = 60000;
+
+    // far longer than any batch takes, a batch this old is not running anywhere any more
+    @Value("${bank.transfer-batch.stale-after-ms:600000}")
+    long staleAfterMs = 600000;
+
+    private ScheduledExecutorService sweeper;
+
+    Logger logger = LoggerFactory.getLogger(BatchTransferService.class);
+
+    @PostConstruct
+    void start(){
+        if(batchRepository == null){
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(WorkerThreads.factory("transfer-batch-sweeper", false));
+        sweeper.scheduleWithFixedDelay(this::sweep, 0, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop(){
+        if(sweeper != null){
+            sweeper.shutdown();
+        }
+    }
+
+    // finish or take back batches cut short, returns how many were resolved
+    int sweep(){
+        int resolved = 0;
+        try {
+            for(TransferBatch batch : batchRepository.findByCreatedAtBefore(Instant.now().minusMillis(staleAfterMs))){
+                resolve(batch);
+                resolved++;
+            }
+        } catch (RuntimeException e){
+            logger.error("Transfer batch sweep failed, retried in {} ms", sweepIntervalMs, e);
+        }
+        return resolved;
+    }
+
+    // transactions only go in after every balance moved, so all of them in means the batch was applied
+    private void resolve(TransferBatch batch){
+        String batchId = batch.getId();
+        Map<String, Long> changes = batch.getChanges();
+        if(batchRepository.countTransactions(batchId) == batch.getTransactions()){
+            logger.warn("Batch {}: found cut short after it was applied, finishing it", batchId);
+            accountRepository.clearBatchMarker(batchId, changes.keySet());
+        } else {
+            logger.warn("Batch {}: found cut short before its transactions were in, taking it back", batchId);
+            reportKept(batchId, accountRepository.revertNetChanges(batchId, changes), changes);
+            batchRepository.deleteTransactions(batchId);
+        }
+        changes.keySet().forEach(accountCache::invalidate);
+        batchRepository.deleteById(batchId);
+    }
+
+    public List<TransferResultDTO> transferBatch(List<TransferRequestDTO> requests){
+        if(requests == null || requests.isEmpty()){
+            throw new InvalidInputException("At least one transfer is required");
+        }
+        if(requests.size() > maxBatchSize){
+            throw new InvalidInputException("At most " + maxBatchSize + " transfers per batch");
+        }
+        TransferResultDTO[] results = new TransferResultDTO[requests.size()];
+
+        // validate everything up front
+        long[] amounts = new long[requests.size()];
+        Set<String> accountNumbers = new HashSet<>();
+        // the account document holds only part of a striped account's balance, those sources go one by one
+        boolean[] single = new boolean[requests.size()];
+        for(int i = 0; i < requests.size(); i++){
+            TransferRequestDTO dto = requests.get(i);
+            String error = validate(dto);
+            if(error == null){
+                try {
+                    amounts[i] = Money.toMinor(dto.getAmount());
+                } catch (InvalidAmountException e){
+                    error = e.getMessage();
+                }
+            }
+            if(error != null){
+                results[i] = new TransferResultDTO(i, false, error, null);
+            } else if(stripedAccounts.isStriped(dto.getFromAccount())){
+                single[i] = true;
+            } else {
+                accountNumbers.add(dto.getFromAccount());
+                accountNumbers.add(dto.getToAccount());
+            }
+        }
+
+        // ahead of the batch, so its balances are loaded after them
+        for(int i = 0; i < requests.size(); i++){
+            if(single[i]){
+                results[i] = transferOne(i, requests.get(i));
+            }
+        }
+
+        // one query for every account in the batch
+        Map<String, Long> balances = new HashMap<>();
+        for(Account acc : accountRepository.findByAccountNumberIn(accountNumbers)){
+            balances.put(acc.getAccountNumber(), acc.getBalance());
+        }
+
+        // play the transfers in order against the loaded balances and net the changes
+        Map<String, Long> netChanges = new LinkedHashMap<>();
+        List<Integer> accepted = new ArrayList<>();
+        for(int i = 0; i < requests.size(); i++){
+            if(results[i] != null){
+                continue;
+            }
+            TransferRequestDTO dto = requests.get(i);
+            long amount = amounts[i];
+            Long sourceBalance = balances.get(dto.getFromAccount());
+            if(sourceBalance == null || !balances.containsKey(dto.getToAccount())){
+                results[i] = new TransferResultDTO(i, false, "Account not found", null);
+                continue;
+            }
+            if(sourceBalance < amount){
+                results[i] = new TransferResultDTO(i, false, "Insufficient balance", null);
+                continue;
+            }
+            balances.put(dto.getFromAccount(), sourceBalance - amount);
+            balances.merge(dto.getToAccount(), amount, Long::sum);
+            netChanges.merge(dto.getFromAccount(), -amount, Long::sum);
+            netChanges.merge(dto.getToAccount(), amount, Long::sum);
+            accepted.add(i);
+        }
+        netChanges.values().removeIf(delta -> delta == 0);
+
+        String batchId = new ObjectId().toHexString();
+        List<Transactions> txns = new ArrayList<>(accepted.size());
+        // applied together, so they share one timestamp and one rollup day
+        LocalDateTime at = LocalDateTime.now();
+        for(int i : accepted){
+            TransferRequestDTO dto = requests.get(i);
+            Transactions txn = AccountService.buildTransaction(TransactionType.TRANSFER, amounts[i], dto.getFromAccount(), dto.getToAccount());
+            txn.setTimestamp(at);
+            txn.setBatchId(batchId);
+            txns.add(txn);
+        }
+        if(!open(batchId, netChanges, txns.size())){
+            for(int i : accepted){
+                results[i] = new TransferResultDTO(i, false, "Transfer could not be started, try again", null);
+            }
+            return Arrays.asList(results);
+        }
+        long applied = accountRepository.applyNetChanges(batchId, netChanges);
+        if(applied == netChanges.size()){
+            try {
+                TransactionWriter.insertApplied(transactionRepository, txns);
+            } catch (RuntimeException e){
+                // no record of the transfers, so they are taken back by the batch markers
+                logger.error("Batch {}: transactions could not be inserted, reverting the batch", batchId, e);
+                takeBack(batchId, netChanges);
+                for(int i : accepted){
+                    results[i] = new TransferResultDTO(i, false, "Transfer could not be recorded", null);
+                }
+                netChanges.keySet().forEach(accountCache::invalidate);
+                return Arrays.asList(results);
+            }
+            finish(batchId, netChanges);
+            recordRollups(at.toLocalDate(), requests, amounts, accepted);
+            for(int k = 0; k < accepted.size(); k++){
+                int i = accepted.get(k);
+                results[i] = new TransferResultDTO(i, true, "Amount Transferred Successfully", AccountService.mapToTxnResponse(txns.get(k)));
+            }
+        } else {
+            // a balance changed under us so a guard did not match, undo and go one by one
+            logger.warn("Batch {}: only {} of {} accounts updated, reverting and falling back to single transfers",
+                    batchId, applied, netChanges.size());
+            // credits are only applied once every debit is, so here there is no credit to keep
+            if(takeBack(batchId, netChanges)){
+                for(int i : accepted){
+                    results[i] = transferOne(i, requests.get(i));
+                }
+            } else {
+                for(int i : accepted){
+                    results[i] = new TransferResultDTO(i, false, "Transfer could not be completed", null);
+                }
+            }
+        }
+        // bulk writes do not return the documents, let the next read reload them
+        netChanges.keySet().forEach(accountCache::invalidate);
+
+        logger.info("Batch {}: {} of {} transfers succeeded", batchId,
+                Arrays.stream(results).filter(TransferResultDTO::isSuccess).count(), requests.size());
+        return Arrays.asList(results);
+    }
+
+    // commit record first, a batch that moved balances can then always be found again. false when it could not be written
+    private boolean open(String batchId, Map<String, Long> netChanges, int transactions){
+        if(batchRepository == null || netChanges.isEmpty()){
+            return true;
+        }
+        try {
+            batchRepository.insert(new TransferBatch(batchId, netChanges, transactions));
+            return true;
+        } catch (RuntimeException e){
+            logger.error("Batch {}: could not write its record, nothing was moved", batchId, e);
+            return false;
+        }
+    }
+
+    // the batch is applied and recorded; what fails here is left to the sweep, the transfers stand
+    private void finish(String batchId, Map<String, Long> netChanges){
+        try {
+            accountRepository.clearBatchMarker(batchId, netChanges.keySet());
+            close(batchId);
+        } catch (RuntimeException e){
+            logger.error("Batch {}: could not clear its markers, the sweep finishes it", batchId, e);
+        }
+    }
+
+    // undo whatever part of the batch got in; false when that failed too, the sweep takes it back later
+    private boolean takeBack(String batchId, Map<String, Long> netChanges){
+        try {
+            reportKept(batchId, accountRepository.revertNetChanges(batchId, netChanges), netChanges);
+            if(batchRepository != null){
+                // an insertMany can fail halfway
+                batchRepository.deleteTransactions(batchId);
+            }
+            close(batchId);
+            return true;
+        } catch (RuntimeException e){
+            logger.error("Batch {}: could not be taken back now, the sweep does it", batchId, e);
+            return false;
+        }
+    }
+
+    private void close(String batchId){
+        if(batchRepository != null){
+            batchRepository.deleteById(batchId);
+        }
+    }
+
+    // credits that were spent before the revert got to them stay where they are, while their sources got
+    // their money back; too late to fix here, so they are logged for reconciliation
+    private void reportKept(String batchId, Set<String> kept, Map<String, Long> netChanges){
+        for(String accountNumber : kept){
+            logger.error("Batch {}: credit of {} to account {} was spent before it could be reverted, needs reconciliation",
+                    batchId, Money.fromMinor(netChanges.get(accountNumber)), accountNumber);
+        }
+    }
+
+    // daily rollups of every account in the applied batch. bulk writes do not return the documents,
+    // so the accounts are read once more for their balances; a later revision read here is still a real state
+    private void recordRollups(LocalDate day, List<TransferRequestDTO> requests, long[] amounts, List<Integer> accepted){
+        if(!dailyRollups.isEnabled() || accepted.isEmpty()){
+            return;
+        }
+        Map<String, DailyRollup> changes = new LinkedHashMap<>();
+        for(int i : accepted){
+            TransferRequestDTO dto = requests.get(i);
+            DailyRollup source = changes.computeIfAbsent(dto.getFromAccount(), n -> DailyRollups.change(n, 0, 0, 0, null));
+            source.setDebits(source.getDebits() + amounts[i]);
+            source.setTransactions(source.getTransactions() + 1);
+            DailyRollup destination = changes.computeIfAbsent(dto.getToAccount(), n -> DailyRollups.change(n, 0, 0, 0, null));
+            destination.setCredits(destination.getCredits() + amounts[i]);
+            destination.setTransactions(destination.getTransactions() + 1);
+        }
+        for(Account acc : accountRepository.findByAccountNumberIn(changes.keySet())){
+            changes.get(acc.getAccountNumber()).setLast(new DailyRollup.State(acc.getRevision(), acc.getBalance()));
+        }
+        dailyRollups.recordAll(day, new ArrayList<>(changes.values()));
+    }
+
+    private TransferResultDTO transferOne(int index, TransferRequestDTO dto){
+        try {
+            return new TransferResultDTO(index, true, "Amount Transferred Successfully", accountService.transfer(dto));
+        } catch (RuntimeException e){
+            return new TransferResultDTO(index, false, e.getMessage(), null);
+        }
+    }
+
+    private String validate(TransferRequestDTO dto){
+        if(dto == null){
+            return "Transfer is required";
+        }
+        if(dto.getFromAccount() == null || dto.getFromAccount().isBlank()){
+            return "Source account is required";
+        }
+        if(dto.getToAccount() == null || dto.getToAccount().isBlank()){
+            return "Destination account is required";
+        }
+        if(dto.getAmount() == null || dto.getAmount().signum() <= 0){
+            return "Amount must be greater than 0";
+        }
+        if(dto.getFromAccount().equals(dto.getToAccount())){
+            return "Source and destination cannot be same";
+        }
+        return null;
+    }
+}
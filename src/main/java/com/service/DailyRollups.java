@@ -0,0 +1,188 @@
+package com.service;
+
+import com.dto.StatementDayDTO;
+import com.dto.StatementResponseDTO;
+import com.exceptions.FeatureDisabledException;
+import com.model.Account;
+import com.model.DailyRollup;
+import com.repository.DailyRollupRepository;
+import com.utils.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/*
+Per account, per day totals (credits, debits, transactions) and the closing balance, written right after
+each balance change, so a statement is at most 31 small documents instead of a scan of the history.
+Days are the local dates of the transaction timestamps, so a change made just before midnight lands
+on the same day as its transaction even when the write happens after. Only activity from when this was turned on is known:
+a statement of an older period shows no days and no balances.
+
+A rollup write that fails is logged and counted but does not fail the mutation, the money has moved by
+then; the day's totals are off by the missed change. The day is then flagged incomplete (best effort, a
+second write), statements show the flag. When that write fails too, only accounts.rollups.failures tells.
+Needs the Mongo collections, off in the inmemory and journal profiles, and the reactive service does not
+write rollups; statements then answer 501.
+ */
+@Component
+public class DailyRollups {
+    @Value("${bank.daily-rollups.enabled:false}")
+    boolean enabled;
+
+    @Autowired(required = false)
+    DailyRollupRepository rollupRepository;
+
+    @Autowired
+    StripedAccounts stripedAccounts;
+
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
+    private Counter failures;
+
+    Logger logger = LoggerFactory.getLogger(DailyRollups.class);
+
+    @PostConstruct
+    void init(){
+        if(!enabled){
+            return;
+        }
+        if(rollupRepository == null){
+            logger.info("Daily rollups need the Mongo collections, off in this profile");
+            enabled = false;
+            return;
+        }
+        if(meterRegistry != null){
+            failures = Counter.builder("accounts.rollups.failures")
+                    .description("Balance changes missing from the daily rollups")
+                    .register(meterRegistry);
+        }
+        logger.info("Daily rollups on");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // change of one account; state is the account right after it, null when not known
+    public static DailyRollup change(String accountNumber, long credits, long debits, long transactions, Account state){
+        DailyRollup change = new DailyRollup();
+        change.setAccountNumber(accountNumber);
+        change.setCredits(credits);
+        change.setDebits(debits);
+        change.setTransactions(transactions);
+        if(state != null){
+            change.setLast(new DailyRollup.State(state.getRevision(), state.getBalance()));
+        }
+        return change;
+    }
+
+    public void record(LocalDate day, String accountNumber, long credits, long debits, long transactions, Account state){
+        if(enabled){
+            recordAll(day, List.of(change(accountNumber, credits, debits, transactions, state)));
+        }
+    }
+
+    // changes of several accounts, added to the rollups of the given day in one round trip
+    public void recordAll(LocalDate date, List<DailyRollup> changes){
+        if(!enabled || changes.isEmpty()){
+            return;
+        }
+        for(DailyRollup change : changes){
+            // the account document holds only part of a striped account's balance
+            if(stripedAccounts.isStriped(change.getAccountNumber())){
+                change.setLast(null);
+            }
+        }
+        String day = date.toString();
+        try {
+            rollupRepository.record(day, changes);
+        } catch (RuntimeException e){
+            if(failures != null){
+                failures.increment(changes.size());
+            }
+            logger.error("Daily rollups: could not record the changes of {} accounts, {} first", changes.size(),
+                    changes.get(0).getAccountNumber(), e);
+            markIncomplete(day, changes);
+        }
+    }
+
+    // some of the changes may have gone in, flag all of their days
+    private void markIncomplete(String day, List<DailyRollup> changes){
+        try {
+            rollupRepository.markIncomplete(day, changes.stream().map(DailyRollup::getAccountNumber).distinct().toList());
+        } catch (RuntimeException e){
+            logger.error("Daily rollups: could not flag {} of {} accounts as incomplete, their statements do not show it: {}",
+                    day, changes.size(), e.getMessage());
+        }
+    }
+
+    // statement from the rollups of the period; a quiet period takes its balance from the last active day before it
+    public StatementResponseDTO statement(String accountNumber, LocalDate from, LocalDate to){
+        if(!enabled){
+            throw new FeatureDisabledException("Statements are not available, daily rollups are off");
+        }
+        List<DailyRollup> rollups = rollupRepository.findDays(accountNumber, from.toString(), to.toString());
+        Long opening;
+        Long closing;
+        boolean incomplete = false;
+        if(rollups.isEmpty()){
+            Optional<DailyRollup> before = rollupRepository.findFirstByAccountNumberAndDayLessThanOrderByDayDesc(accountNumber, from.toString());
+            opening = before.map(DailyRollup::closingBalance).orElse(null);
+            closing = opening;
+            // its newest change may be the missing one
+            incomplete = before.map(DailyRollup::isIncomplete).orElse(false);
+        } else {
+            opening = rollups.get(0).openingBalance();
+            closing = rollups.get(rollups.size() - 1).closingBalance();
+        }
+
+        long credits = 0;
+        long debits = 0;
+        long transactions = 0;
+        List<StatementDayDTO> days = new ArrayList<>(rollups.size());
+        for(DailyRollup rollup : rollups){
+            credits += rollup.getCredits();
+            debits += rollup.getDebits();
+            transactions += rollup.getTransactions();
+            StatementDayDTO day = new StatementDayDTO();
+            day.setDate(LocalDate.parse(rollup.getDay()));
+            day.setOpeningBalance(fromMinor(rollup.openingBalance()));
+            day.setClosingBalance(fromMinor(rollup.closingBalance()));
+            day.setCredits(Money.fromMinor(rollup.getCredits()));
+            day.setDebits(Money.fromMinor(rollup.getDebits()));
+            day.setTransactionCount(rollup.getTransactions());
+            day.setIncomplete(rollup.isIncomplete());
+            incomplete |= rollup.isIncomplete();
+            days.add(day);
+        }
+
+        StatementResponseDTO statement = new StatementResponseDTO();
+        statement.setAccountNumber(accountNumber);
+        statement.setFrom(from);
+        statement.setTo(to);
+        statement.setOpeningBalance(fromMinor(opening));
+        statement.setClosingBalance(fromMinor(closing));
+        statement.setTotalCredits(Money.fromMinor(credits));
+        statement.setTotalDebits(Money.fromMinor(debits));
+        statement.setTransactionCount(transactions);
+        statement.setDays(days);
+        statement.setIncomplete(incomplete);
+        return statement;
+    }
+
+    private static BigDecimal fromMinor(Long minor){
+        return minor == null ? null : Money.fromMinor(minor);
+    }
+}
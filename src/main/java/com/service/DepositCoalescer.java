@@ -0,0 +1,261 @@
+package com.service;
+
+import com.exceptions.AccountNotFoundException;
+import com.model.Account;
+import com.model.Transactions;
+import com.repository.AccountRepository;
+import com.repository.TransactionRepository;
+import com.utils.WorkerThreads;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+
+/*
+Group commit for deposits. Deposits to the same account that arrive within
+bank.deposit-coalescing.window-ms are applied together: one $inc with the sum
+and one insertMany of their transactions. Every caller still gets its own transaction back.
+Once the sum is credited every caller succeeds: a failed insertMany is retried, then tried one
+transaction at a time, and whatever still does not go in is logged for reconciliation.
+ */
+@Component
+public class DepositCoalescer {
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    AccountExecutionLanes executionLanes;
+
+    @Autowired
+    AccountCache accountCache;
+
+    @Autowired
+    DailyRollups dailyRollups;
+
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
+    @Value("${bank.deposit-coalescing.enabled:false}")
+    boolean enabled;
+
+    @Value("${bank.deposit-coalescing.window-ms:2}")
+    long windowMs = 2;
+
+    @Value("${bank.deposit-coalescing.max-batch:500}")
+    int maxBatch = 500;
+
+    @Value("${bank.deposit-coalescing.flush-threads:4}")
+    int flushThreads = 4;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    boolean virtualThreads;
+
+    private final ConcurrentHashMap<String, Batch> openBatches = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+    private DistributionSummary batchSizes;
+
+    Logger logger = LoggerFactory.getLogger(DepositCoalescer.class);
+
+    @PostConstruct
+    void start(){
+        if(!enabled){
+            return;
+        }
+        flusher = Executors.newScheduledThreadPool(flushThreads, WorkerThreads.factory("deposit-coalescer", virtualThreads));
+        if(meterRegistry != null){
+            batchSizes = DistributionSummary.builder("bank.deposits.coalesced.batch.size")
+                    .description("Deposits applied per group commit")
+                    .register(meterRegistry);
+        }
+        logger.info("Deposit coalescing on, window {} ms, max batch {}", windowMs, maxBatch);
+    }
+
+    @PreDestroy
+    void stop(){
+        if(flusher != null){
+            flusher.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // queue a prepared deposit transaction and wait until its batch is committed
+    public Transactions submit(Transactions txn){
+        String accountNumber = txn.getDestinationAccount();
+        PendingDeposit pending = new PendingDeposit(txn);
+        while (true){
+            Batch batch = openBatches.computeIfAbsent(accountNumber, this::openBatch);
+            int size = batch.add(pending);
+            if(size > 0){
+                if(size >= maxBatch){
+                    flusher.execute(() -> flush(batch));
+                }
+                break;
+            }
+            // batch was closed between lookup and add, the next call opens a new one
+        }
+        // the deposit may already be credited, so an interrupt does not cut the wait short
+        boolean interrupted = false;
+        try {
+            while (true){
+                try {
+                    return pending.result.get();
+                } catch (InterruptedException e){
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e){
+            if(e.getCause() instanceof RuntimeException re){
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if(interrupted){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Batch openBatch(String accountNumber){
+        Batch batch = new Batch(accountNumber);
+        flusher.schedule(() -> flush(batch), windowMs, TimeUnit.MILLISECONDS);
+        return batch;
+    }
+
+    void flush(Batch batch){
+        List<PendingDeposit> deposits = batch.close();
+        if(deposits == null){
+            return; // flushed already
+        }
+        openBatches.remove(batch.accountNumber, batch);
+        try {
+            long total = 0;
+            List<Transactions> txns = new ArrayList<>(deposits.size());
+            for(PendingDeposit d : deposits){
+                total += d.txn.getAmount();
+                txns.add(d.txn);
+            }
+            long sum = total;
+            boolean applied = executionLanes.execute(batch.accountNumber, () -> {
+                Optional<Account> updated = accountRepository.creditBalance(batch.accountNumber, sum);
+                if(updated.isEmpty()){
+                    return false;
+                }
+                accountCache.refresh(updated.get());
+                recordRollups(batch.accountNumber, txns, updated.get());
+                insertCredited(batch.accountNumber, txns);
+                return true;
+            });
+            if(!applied){
+                logger.error("Deposit failed: Account not found {}", batch.accountNumber);
+                for(PendingDeposit d : deposits){
+                    d.result.completeExceptionally(new AccountNotFoundException("Account not found"));
+                }
+                return;
+            }
+            if(batchSizes != null){
+                batchSizes.record(deposits.size());
+            }
+            for(PendingDeposit d : deposits){
+                d.result.complete(d.txn);
+            }
+        } catch (RuntimeException e){
+            logger.error("Group commit of {} deposits for account {} failed", deposits.size(), batch.accountNumber, e);
+            for(PendingDeposit d : deposits){
+                d.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    // one rollup per day the deposits were made on, a window open across midnight spans two.
+    // only the newest day closes with the balance after the credit
+    private void recordRollups(String accountNumber, List<Transactions> txns, Account updated){
+        if(!dailyRollups.isEnabled()){
+            return;
+        }
+        TreeMap<LocalDate, long[]> days = new TreeMap<>();
+        for(Transactions t : txns){
+            long[] day = days.computeIfAbsent(AccountService.dayOf(t), d -> new long[2]);
+            day[0] += t.getAmount();
+            day[1]++;
+        }
+        for(Map.Entry<LocalDate, long[]> day : days.entrySet()){
+            Account state = day.getKey().equals(days.lastKey()) ? updated : null;
+            dailyRollups.record(day.getKey(), accountNumber, day.getValue()[0], 0, day.getValue()[1], state);
+        }
+    }
+
+    // transactions of a credit that is applied already, never throws
+    private void insertCredited(String accountNumber, List<Transactions> txns){
+        try {
+            TransactionWriter.insertApplied(transactionRepository, txns);
+            return;
+        } catch (RuntimeException e){
+            logger.error("Inserting {} coalesced transactions for account {} failed, inserting them one by one: {}",
+                    txns.size(), accountNumber, e.getMessage());
+        }
+        for(Transactions t : txns){
+            try {
+                transactionRepository.insert(t);
+            } catch (DuplicateKeyException already){
+                // went in with an earlier attempt
+            } catch (RuntimeException e){
+                logger.error("Deposit {} of {} to account {} is credited but its transaction could not be written",
+                        t.getTransactionId(), t.getAmount(), accountNumber, e);
+            }
+        }
+    }
+
+    private static final class PendingDeposit {
+        final Transactions txn;
+        final CompletableFuture<Transactions> result = new CompletableFuture<>();
+
+        PendingDeposit(Transactions txn) {
+            this.txn = txn;
+        }
+    }
+
+    static final class Batch {
+        final String accountNumber;
+        private List<PendingDeposit> deposits = new ArrayList<>();
+
+        Batch(String accountNumber) {
+            this.accountNumber = accountNumber;
+        }
+
+        // returns the new batch size, 0 when the batch is already closed
+        synchronized int add(PendingDeposit deposit){
+            if(deposits == null){
+                return 0;
+            }
+            deposits.add(deposit);
+            return deposits.size();
+        }
+
+        // takes all deposits out and closes the batch, null if it was closed before
+        synchronized List<PendingDeposit> close(){
+            List<PendingDeposit> taken = deposits;
+            deposits = null;
+            return taken;
+        }
+    }
+}
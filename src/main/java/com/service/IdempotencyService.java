@@ -0,0 +1,206 @@
+package com.service;
+
+import com.dto.TransactionResponseDTO;
+import com.exceptions.AccountNotFoundException;
+import com.exceptions.InsufficientBalanceException;
+import com.exceptions.InvalidAmountException;
+import com.exceptions.InvalidInputException;
+import com.exceptions.RequestInProgressException;
+import com.exceptions.ServiceBusyException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.model.IdempotencyRecord;
+import com.repository.IdempotencyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/*
+Runs a mutation at most once per Idempotency-Key.
+Completed results are replayed from a bounded in-memory cache, or from the idempotency_keys
+collection when another node (or an evicted entry) did the work. Concurrent duplicates on this
+node wait for the first attempt, a duplicate while another node is still running it gets a 409.
+An attempt turned away before it wrote anything (bad input, unknown account, insufficient balance,
+a full account lane) releases the key, so the client may retry it. Any other failure may come after the balance moved, the key
+is then kept FAILED and retries get a 409 instead of running it again. A claim left IN_PROGRESS by a crashed
+node also answers 409. Both stay until the record expires (24h); the client checks the account history
+and sends a new key.
+ */
+@Service
+public class IdempotencyService {
+    static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    IdempotencyRepository idempotencyRepository;
+
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
+    @Value("${bank.idempotency.cache-size:100000}")
+    long cacheSize = 100000;
+
+    @Value("${bank.idempotency.cache-ttl-minutes:60}")
+    long cacheTtlMinutes = 60;
+
+    private Cache<String, IdempotencyRecord> completed;
+    private final ConcurrentHashMap<String, Attempt> inFlight = new ConcurrentHashMap<>();
+
+    Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    @PostConstruct
+    void init(){
+        completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+                .recordStats()
+                .build();
+        if(meterRegistry != null){
+            CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency");
+        }
+    }
+
+    // runs action once for the key, no key means no deduplication
+    public TransactionResponseDTO execute(String key, String fingerprint, Supplier<TransactionResponseDTO> action){
+        if(key == null){
+            return action.get();
+        }
+        if(key.isBlank() || key.length() > MAX_KEY_LENGTH){
+            throw new InvalidInputException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        IdempotencyRecord done = completed.getIfPresent(key);
+        if(done != null){
+            return replay(done, fingerprint);
+        }
+
+        Attempt mine = new Attempt(fingerprint, new CompletableFuture<>());
+        Attempt running = inFlight.putIfAbsent(key, mine);
+        if(running != null){
+            if(!running.fingerprint.equals(fingerprint)){
+                throw new InvalidInputException("Idempotency-Key was already used for a different request");
+            }
+            // same key already running on this node, share its outcome
+            logger.info("Idempotency key {} is in flight, waiting for the first attempt", key);
+            return await(running.result);
+        }
+        try {
+            TransactionResponseDTO response = runOnce(key, fingerprint, action);
+            mine.result.complete(response);
+            return response;
+        } catch (RuntimeException e){
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private TransactionResponseDTO runOnce(String key, String fingerprint, Supplier<TransactionResponseDTO> action){
+        IdempotencyRecord record = new IdempotencyRecord(key, fingerprint);
+        try {
+            idempotencyRepository.insert(record);
+        } catch (DuplicateKeyException e){
+            // claimed before, by an earlier request or another node
+            IdempotencyRecord existing = idempotencyRepository.findById(key).orElse(null);
+            if(existing == null){
+                throw new RequestInProgressException("Request with this Idempotency-Key is being retried, try again");
+            }
+            if(!IdempotencyRecord.COMPLETED.equals(existing.getStatus())){
+                if(!existing.getFingerprint().equals(fingerprint)){
+                    throw new InvalidInputException("Idempotency-Key was already used for a different request");
+                }
+                if(IdempotencyRecord.FAILED.equals(existing.getStatus())){
+                    throw new RequestInProgressException("Request with this Idempotency-Key failed and may have been applied, "
+                            + "check the account and use a new key");
+                }
+                throw new RequestInProgressException("Request with this Idempotency-Key is still in progress");
+            }
+            completed.put(key, existing);
+            return replay(existing, fingerprint);
+        }
+
+        TransactionResponseDTO response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e){
+            release(record, e);
+            throw e;
+        }
+        record.setStatus(IdempotencyRecord.COMPLETED);
+        record.setResponse(response);
+        completed.put(key, record);
+        try {
+            idempotencyRepository.save(record);
+        } catch (RuntimeException e){
+            // the mutation went through, the claim stays IN_PROGRESS and other nodes answer 409 for it
+            logger.error("Could not mark idempotency key {} completed", key, e);
+        }
+        return response;
+    }
+
+    // free the key only when the attempt was turned away before any write
+    private void release(IdempotencyRecord record, RuntimeException failure){
+        try {
+            if(failure instanceof InvalidInputException || failure instanceof InvalidAmountException
+                    || failure instanceof AccountNotFoundException || failure instanceof InsufficientBalanceException
+                    || failure instanceof ServiceBusyException){
+                idempotencyRepository.deleteById(record.getKey());
+                return;
+            }
+            logger.warn("Idempotency key {} failed after it may have changed a balance, kept as failed", record.getKey());
+            record.setStatus(IdempotencyRecord.FAILED);
+            idempotencyRepository.save(record);
+        } catch (RuntimeException e){
+            // left IN_PROGRESS, which blocks retries just the same
+            logger.error("Could not update idempotency key {}", record.getKey(), e);
+        }
+    }
+
+    private TransactionResponseDTO replay(IdempotencyRecord record, String fingerprint){
+        if(!record.getFingerprint().equals(fingerprint)){
+            throw new InvalidInputException("Idempotency-Key was already used for a different request");
+        }
+        logger.info("Replaying result of idempotency key {}", record.getKey());
+        return record.getResponse();
+    }
+
+    private TransactionResponseDTO await(CompletableFuture<TransactionResponseDTO> running){
+        try {
+            return running.get();
+        } catch (ExecutionException e){
+            if(e.getCause() instanceof RuntimeException re){
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for the first attempt");
+        }
+    }
+
+    private record Attempt(String fingerprint, CompletableFuture<TransactionResponseDTO> result) {
+    }
+
+    // what a key is bound to, amounts are compared by value so 100 and 100.00 match
+    public static String fingerprint(String operation, Object... parts){
+        StringJoiner joiner = new StringJoiner("|", operation + "|", "");
+        for(Object part : parts){
+            joiner.add(part instanceof BigDecimal amount ? amount.stripTrailingZeros().toPlainString() : String.valueOf(part));
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,200 @@
+package com.service;
+
+import com.dto.*;
+import com.enums.TransactionType;
+import com.exceptions.AccountNotFoundException;
+import com.exceptions.InsufficientBalanceException;
+import com.exceptions.InvalidAmountException;
+import com.exceptions.InvalidInputException;
+import com.model.Account;
+import com.model.Transactions;
+import com.repository.ReactiveAccountRepository;
+import com.repository.ReactiveTransactionRepository;
+import com.utils.Money;
+import com.utils.TransactionCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+
+/*
+Non-blocking AccountService for the reactive profile. Same rules, same DTOs and exceptions,
+every db call is a reactive one so a request never holds a thread while it waits.
+Lanes and deposit coalescing are not used here, the guarded $inc updates keep every balance change atomic.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveAccountService {
+    // a number can clash with an old randomly generated account
+    static final int MAX_NUMBER_ATTEMPTS = 5;
+
+    @Autowired
+    ReactiveAccountRepository accountRepository;
+
+    @Autowired
+    ReactiveTransactionRepository transactionRepository;
+
+    @Autowired
+    AccountNumberAllocator accountNumberAllocator;
+
+    @Autowired
+    AccountCache accountCache;
+
+    Logger logger = LoggerFactory.getLogger(ReactiveAccountService.class);
+
+    public Mono<AccountResponseDTO> createAccount(AccountRequestDTO dto){
+        if(dto.getHolderName() == null || dto.getHolderName().trim().isEmpty()){
+            logger.warn("Attempt to create account with empty holder name");
+            return Mono.error(new InvalidInputException(" Account holder name is required"));
+        }
+        // numbers come from memory, only a block lease goes to the db, so that part runs off the event loop
+        return Mono.fromCallable(() -> accountNumberAllocator.next(dto.getHolderName()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(accountNumber -> accountRepository.insert(AccountService.newAccount(dto.getHolderName(), accountNumber)))
+                .retryWhen(Retry.max(MAX_NUMBER_ATTEMPTS).filter(DuplicateKeyException.class::isInstance))
+                .doOnNext(acc -> {
+                    accountCache.refresh(acc);
+                    logger.info("Account created successfully: {}", acc.getAccountNumber());
+                })
+                .map(AccountService::mapToAccountResponse);
+    }
+
+    public Mono<TransactionResponseDTO> deposit(DepositRequestDTO dto){
+        if(dto.getAccountNumber() == null || dto.getAccountNumber().trim().isEmpty()){
+            logger.warn("Deposit attempt with empty account number");
+            return Mono.error(new InvalidInputException("Account number is required"));
+        }
+        return amountOf(dto.getAmount(), "Deposit").flatMap(amount ->
+                accountRepository.creditBalance(dto.getAccountNumber(), amount)
+                        .switchIfEmpty(Mono.error(() -> {
+                            logger.error("Deposit failed: Account not found {}", dto.getAccountNumber());
+                            return new AccountNotFoundException("Account not found");
+                        }))
+                        .doOnNext(accountCache::refresh)
+                        .then(record(TransactionType.DEPOSIT, amount, null, dto.getAccountNumber())))
+                .doOnNext(t -> logger.info("Deposit successful for account {}: amount {}", dto.getAccountNumber(), dto.getAmount()));
+    }
+
+    public Mono<TransactionResponseDTO> withdraw(WithdrawRequestDTO dto){
+        if(dto.getAccountNumber() == null || dto.getAccountNumber().trim().isEmpty()){
+            logger.warn("Withdrawal attempt with empty account number");
+            return Mono.error(new InvalidInputException("Account number is required"));
+        }
+        return amountOf(dto.getAmount(), "Withdrawal").flatMap(amount ->
+                accountRepository.debitBalanceIfSufficient(dto.getAccountNumber(), amount)
+                        .switchIfEmpty(debitFailure("Withdrawal", dto.getAccountNumber(), amount))
+                        .doOnNext(accountCache::refresh)
+                        .then(record(TransactionType.WITHDRAW, amount, dto.getAccountNumber(), null)))
+                .doOnNext(t -> logger.info("Withdrawal successful for account {}: amount {}", dto.getAccountNumber(), dto.getAmount()));
+    }
+
+    public Mono<TransactionResponseDTO> transfer(TransferRequestDTO dto){
+        return amountOf(dto.getAmount(), "Transfer").flatMap(amount -> {
+            if(dto.getFromAccount().equals(dto.getToAccount())){
+                logger.warn("Transfer attempt from and to same account: {}", dto.getFromAccount());
+                return Mono.error(new InvalidInputException("Source and destination cannot be same"));
+            }
+            // validate destination before touching the source balance
+            return accountRepository.existsByAccountNumber(dto.getToAccount())
+                    .flatMap(exists -> exists ? Mono.just(amount) : Mono.error(() -> {
+                        logger.error("Transfer failed: Destination account not found {}", dto.getToAccount());
+                        return new AccountNotFoundException("Account not found");
+                    }))
+                    .flatMap(a -> accountRepository.debitBalanceIfSufficient(dto.getFromAccount(), amount))
+                    .switchIfEmpty(debitFailure("Transfer", dto.getFromAccount(), amount))
+                    .doOnNext(accountCache::refresh)
+                    .flatMap(source -> accountRepository.creditBalance(dto.getToAccount(), amount)
+                            // give the money back if the destination disappeared in the meantime
+                            .switchIfEmpty(Mono.defer(() -> {
+                                logger.error("Transfer failed: Destination account not found {}, refunding {}", dto.getToAccount(), dto.getFromAccount());
+                                return accountRepository.creditBalance(dto.getFromAccount(), amount)
+                                        .doOnNext(accountCache::refresh)
+                                        .then(Mono.error(new AccountNotFoundException("Account not found")));
+                            })))
+                    .doOnNext(accountCache::refresh)
+                    .then(record(TransactionType.TRANSFER, amount, dto.getFromAccount(), dto.getToAccount()))
+                    .doOnNext(t -> logger.info("Transfer successful from {} to {}: amount {}. TransactionId: {}",
+                            dto.getFromAccount(), dto.getToAccount(), dto.getAmount(), t.getTransactionId()));
+        });
+    }
+
+    public Mono<AccountResponseDTO> getAccountDetails(String accountNumber){
+        AccountResponseDTO cached = accountCache.getIfPresent(accountNumber);
+        if(cached != null){
+            return Mono.just(cached);
+        }
+        return accountRepository.findByAccountNumber(accountNumber)
+                .switchIfEmpty(notFound(accountNumber))
+                .doOnNext(accountCache::refresh)
+                .map(AccountService::mapToAccountResponse);
+    }
+
+    public Mono<TransactionPageResponseDTO> getTransactionsPage(TransactionHistoryRequestDTO request){
+        String accountNumber = request.getAccountNumber();
+        int limit;
+        TransactionCursor cursor;
+        try {
+            limit = AccountService.pageLimit(request);
+            cursor = AccountService.pageCursor(request);
+        } catch (InvalidInputException e){
+            return Mono.error(e);
+        }
+        boolean newer = request.getAfter() != null;
+        return accountRepository.existsByAccountNumber(accountNumber)
+                .flatMap(exists -> exists ? Mono.just(true) : notFound(accountNumber))
+                // one extra row tells us whether there is another page in that direction
+                .flatMap(exists -> transactionRepository.findHistoryPage(accountNumber, request.getType(),
+                        request.getFrom(), request.getTo(), cursor, newer, limit + 1).collectList())
+                .map(rows -> AccountService.toPage(rows, cursor, newer, limit));
+    }
+
+    // whole history, oldest first. The outer Mono fails with 404 before anything is streamed,
+    // the inner Flux pulls from the db cursor only as fast as the client reads
+    public Mono<Flux<TransactionResponseDTO>> streamTransactionsByAccount(String accountNumber){
+        return accountRepository.existsByAccountNumber(accountNumber)
+                .flatMap(exists -> exists ? Mono.just(transactionRepository.streamAllByAccount(accountNumber)
+                        .map(AccountService::mapToTxnResponse)) : notFound(accountNumber));
+    }
+
+    private Mono<Long> amountOf(BigDecimal amount, String operation){
+        if(amount == null || amount.signum() <= 0){
+            logger.warn("{} attempt with invalid amount: {}", operation, amount);
+            return Mono.error(new InvalidAmountException("Amount must be greater than 0"));
+        }
+        return Mono.fromCallable(() -> Money.toMinor(amount));
+    }
+
+    private Mono<TransactionResponseDTO> record(TransactionType type, long amount, String source, String destination){
+        return Mono.defer(() -> {
+            Transactions t = AccountService.buildTransaction(type, amount, source, destination);
+            return transactionRepository.insert(t).thenReturn(t);
+        }).map(AccountService::mapToTxnResponse);
+    }
+
+    // find out why a conditional debit matched nothing, only runs on the failure path
+    private Mono<Account> debitFailure(String operation, String accountNumber, long amount){
+        return Mono.defer(() -> accountRepository.existsByAccountNumber(accountNumber)).flatMap(exists -> {
+            if(!exists){
+                logger.error("{} failed: Account not found {}", operation, accountNumber);
+                return Mono.error(new AccountNotFoundException("Account not found"));
+            }
+            logger.warn("{} failed: Insufficient balance for account {}. Requested: {}", operation, accountNumber, Money.fromMinor(amount));
+            return Mono.error(new InsufficientBalanceException("Insufficient balance"));
+        });
+    }
+
+    private <T> Mono<T> notFound(String accountNumber){
+        return Mono.error(() -> {
+            logger.error("Account not found {}", accountNumber);
+            return new AccountNotFoundException("Account not found");
+        });
+    }
+}
@@ -0,0 +1,191 @@
+package com.service;
+
+import com.dto.AccountResponseDTO;
+import com.exceptions.AccountNotFoundException;
+import com.model.Account;
+import com.model.AccountStripe;
+import com.repository.AccountRepository;
+import com.repository.AccountStripeRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+Balances of very hot accounts (collectors taking thousands of deposits a second) split over several
+documents, so deposits don't all queue up on one. The accounts are listed in bank.striped-accounts.numbers.
+The account document is stripe 0, stripes 1..stripes-1 are AccountStripe documents.
+A deposit goes to a random stripe. A withdrawal tries a random stripe; if that one is short, every stripe
+is moved into the account document and the withdrawal is tried there. Details show the sum over all
+stripes, read with the account document in one aggregation and cached for balance-cache-ms, so they can
+lag that long behind the latest deposits. One caller per account loads, outside any lock; callers
+arriving meanwhile wait for its result.
+
+Needs the accounts collection, off in the inmemory and journal profiles (one account there is one table
+slot, not a document). Changing the list or the stripe count takes a restart of every instance; on start,
+money in stripes that no longer count is moved back into the account documents.
+ */
+@Component
+public class StripedAccounts {
+    @Value("${bank.striped-accounts.numbers:}")
+    String numbers = "";
+
+    @Value("${bank.striped-accounts.stripes:8}")
+    int stripes = 8;
+
+    @Value("${bank.striped-accounts.balance-cache-ms:200}")
+    long balanceCacheMs = 200;
+
+    @Autowired(required = false)
+    AccountStripeRepository stripeRepository;
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    private Set<String> striped = Set.of();
+    // accounts seen to exist, stripe documents of other numbers are never created
+    private final Set<String> known = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, CompletableFuture<Details>> details = new ConcurrentHashMap<>();
+
+    Logger logger = LoggerFactory.getLogger(StripedAccounts.class);
+
+    @PostConstruct
+    void init(){
+        List<String> accountNumbers = Arrays.stream(numbers.split(",")).map(String::trim).filter(n -> !n.isEmpty()).toList();
+        if(stripeRepository == null){
+            if(!accountNumbers.isEmpty()){
+                logger.info("Striped accounts need the accounts collection, off in this profile");
+            }
+            return;
+        }
+        try {
+            int completed = stripeRepository.completePendingMoves();
+            // stripes of accounts no longer listed, or past the stripe count, go back to their accounts
+            List<AccountStripe> stray = stripeRepository.findStrayStripes(accountNumbers, stripes);
+            for(AccountStripe stripe : stray){
+                stripeRepository.moveToAccount(stripe.getAccountNumber(), stripe.getStripe(), stripe.getBalance());
+            }
+            for(String accountNumber : accountNumbers){
+                stripeRepository.pruneMoveMarkers(accountNumber);
+            }
+            if(completed > 0 || !stray.isEmpty()){
+                logger.info("Striped accounts: finished {} interrupted moves, folded {} unused stripes back", completed, stray.size());
+            }
+        } catch (RuntimeException e){
+            logger.error("Striped accounts: could not tidy up the stripes, left for the next start", e);
+        }
+        if(stripes > 1){
+            striped = Set.copyOf(accountNumbers);
+        }
+        if(!striped.isEmpty()){
+            logger.info("Striped accounts on for {}, {} stripes each", striped, stripes);
+        }
+    }
+
+    public boolean isStriped(String accountNumber){
+        return striped.contains(accountNumber);
+    }
+
+    // deposit to a random stripe, false when the account does not exist
+    public boolean credit(String accountNumber, long amount){
+        int stripe = ThreadLocalRandom.current().nextInt(stripes);
+        if(stripe == 0){
+            if(accountRepository.creditBalance(accountNumber, amount).isEmpty()){
+                return false;
+            }
+            known.add(accountNumber);
+            return true;
+        }
+        if(!known.contains(accountNumber)){
+            if(!accountRepository.existsByAccountNumber(accountNumber)){
+                return false;
+            }
+            known.add(accountNumber);
+        }
+        stripeRepository.credit(accountNumber, stripe, amount);
+        return true;
+    }
+
+    // withdraw from a random stripe, or from everything gathered in the account document when that stripe
+    // is short. false when the account does not exist or all of it together is not enough
+    public boolean debit(String accountNumber, long amount){
+        int stripe = ThreadLocalRandom.current().nextInt(stripes);
+        if(stripe == 0 ? accountRepository.debitBalanceIfSufficient(accountNumber, amount).isPresent()
+                : stripeRepository.debitIfSufficient(accountNumber, stripe, amount)){
+            return true;
+        }
+        gather(accountNumber);
+        return accountRepository.debitBalanceIfSufficient(accountNumber, amount).isPresent();
+    }
+
+    // account with the balance of all stripes together, at most balance-cache-ms old
+    public AccountResponseDTO details(String accountNumber){
+        long now = System.nanoTime();
+        while (true){
+            CompletableFuture<Details> current = details.get(accountNumber);
+            // a failed load is out of the map already
+            if(current != null && !current.isCompletedExceptionally()){
+                Details cached = current.getNow(null);
+                // still loading, or loaded recently enough
+                if(cached == null || now - cached.loadedAt < balanceCacheMs * 1_000_000){
+                    return await(current).dto;
+                }
+            }
+            CompletableFuture<Details> mine = new CompletableFuture<>();
+            if(current == null || current.isCompletedExceptionally()
+                    ? details.putIfAbsent(accountNumber, mine) != null : !details.replace(accountNumber, current, mine)){
+                continue; // another caller started a load first
+            }
+            try {
+                Account acc = stripeRepository.findWithStripeBalances(accountNumber).orElseThrow(() -> {
+                    logger.error("Account not found {}", accountNumber);
+                    return new AccountNotFoundException("Account not found");
+                });
+                Details loaded = new Details(System.nanoTime(), AccountService.mapToAccountResponse(acc));
+                mine.complete(loaded);
+                return loaded.dto;
+            } catch (RuntimeException e){
+                // not cached, the next caller loads again
+                details.remove(accountNumber, mine);
+                mine.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    private static Details await(CompletableFuture<Details> loading){
+        try {
+            return loading.join();
+        } catch (CompletionException e){
+            if(e.getCause() instanceof RuntimeException re){
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    // move every stripe's balance into the account document
+    private void gather(String accountNumber){
+        stripeRepository.completePendingMoves();
+        for(AccountStripe stripe : stripeRepository.findByAccountNumber(accountNumber)){
+            if(stripe.getStripe() != 0 && stripe.getBalance() > 0){
+                // a withdrawal from the stripe in between makes the guard miss, the money then stays there
+                stripeRepository.moveToAccount(accountNumber, stripe.getStripe(), stripe.getBalance());
+            }
+        }
+        stripeRepository.pruneMoveMarkers(accountNumber);
+    }
+
+    private record Details(long loadedAt, AccountResponseDTO dto) {
+    }
+}
@@ -0,0 +1,317 @@
+package com.service;
+
+import com.exceptions.ServiceBusyException;
+import com.model.Transactions;
+import com.repository.TransactionRepository;
+import com.repository.TransactionSpill;
+import com.utils.WorkerThreads;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+Write-behind for the transaction documents of single mutations. submit() appends the transaction to a
+local spill file, waits for its fsync (shared with concurrent submits) and queues it; one writer thread
+inserts the queue with insertMany, every max-batch transactions or flush-interval-ms after the first one.
+The mutation answers once the spill has it, the db insert is off its path.
+
+A transaction the spill cannot take or sync is inserted directly before submit() returns.
+The queue takes queue-capacity transactions, a full queue makes submit() wait up to offer-timeout-ms and
+then insert directly, so callers slow down to what the db takes. If the db is down the writer keeps
+retrying and mutations fail on their own db calls as before. Transactions left in the spill by a crash
+are inserted on the next start, before new ones; the unique transactionId skips those already in the db.
+History reads call awaitWritten() first, so they see every transaction acknowledged before them.
+ */
+@Component
+public class TransactionWriter {
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
+    @Value("${bank.transaction-write-behind.enabled:false}")
+    boolean enabled;
+
+    @Value("${bank.transaction-write-behind.queue-capacity:10000}")
+    int queueCapacity = 10000;
+
+    @Value("${bank.transaction-write-behind.max-batch:500}")
+    int maxBatch = 500;
+
+    @Value("${bank.transaction-write-behind.flush-interval-ms:5}")
+    long flushIntervalMs = 5;
+
+    @Value("${bank.transaction-write-behind.offer-timeout-ms:1000}")
+    long offerTimeoutMs = 1000;
+
+    @Value("${bank.transaction-write-behind.spill-dir:data/transaction-spill}")
+    String spillDir = "data/transaction-spill";
+
+    @Value("${bank.transaction-write-behind.spill-segment-size-mb:1}")
+    int spillSegmentSizeMb = 1;
+
+    static final long RETRY_MS = 1000;
+    // inserts of transactions whose balance change is applied already, tried this often before giving up
+    static final int INSERT_ATTEMPTS = 3;
+    static final long INSERT_RETRY_MS = 50;
+    static final long AWAIT_TIMEOUT_MS = 30000;
+
+    // transactions, and barriers of readers waiting for everything queued before them
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private Semaphore free;
+    TransactionSpill spill;
+    private Thread writer;
+    private volatile boolean running;
+    private DistributionSummary batchSizes;
+
+    Logger logger = LoggerFactory.getLogger(TransactionWriter.class);
+
+    @PostConstruct
+    void start(){
+        if(!enabled){
+            return;
+        }
+        List<Transactions> recovered = new ArrayList<>();
+        try {
+            spill = TransactionSpill.open(Paths.get(spillDir), (long) spillSegmentSizeMb << 20, recovered);
+        } catch (IOException e){
+            throw new UncheckedIOException("Could not open the transaction spill in " + spillDir, e);
+        }
+        if(!recovered.isEmpty()){
+            // before anything new, so history keeps its order
+            logger.info("Inserting {} transactions left in the spill by the last run", recovered.size());
+            for(int from = 0; from < recovered.size(); from += maxBatch){
+                write(recovered.subList(from, Math.min(recovered.size(), from + maxBatch)));
+            }
+        }
+        spill.written(spill.appended());
+
+        free = new Semaphore(queueCapacity);
+        if(meterRegistry != null){
+            Gauge.builder("bank.transactions.write.behind.pending", this, w -> w.queueCapacity - w.free.availablePermits())
+                    .description("Acknowledged transactions not in the db yet")
+                    .register(meterRegistry);
+            batchSizes = DistributionSummary.builder("bank.transactions.write.behind.batch.size")
+                    .description("Transactions per insertMany")
+                    .register(meterRegistry);
+        }
+        running = true;
+        writer = WorkerThreads.factory("transaction-writer", false).newThread(this::writeLoop);
+        writer.start();
+        logger.info("Transaction write-behind on, queue {}, batches of {} or every {} ms, spill in {}",
+                queueCapacity, maxBatch, flushIntervalMs, spillDir);
+    }
+
+    // write out what is queued, the spill keeps whatever could not be written
+    @PreDestroy
+    void stop(){
+        if(writer == null){
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(AWAIT_TIMEOUT_MS);
+            spill.close();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        } catch (IOException e){
+            logger.warn("Could not close the transaction spill: {}", e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // durable in the spill and queued for the db, or in the db, when this returns.
+    // the balance has moved already, so a full queue is waited out and then written through, never refused
+    public void submit(Transactions txn){
+        boolean queued;
+        try {
+            queued = free.tryAcquire(offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if(!queued){
+            logger.warn("Transaction write-behind queue full, inserting {} directly", txn.getTransactionId());
+            transactionRepository.insert(txn);
+            return;
+        }
+        if(txn.getId() == null){
+            // fixed now, so a repeated insert of the same transaction is the same document
+            txn.setId(new ObjectId().toHexString());
+        }
+        long number;
+        try {
+            // queue order is spill order, the writer can then truncate the spill behind itself
+            synchronized (spill){
+                number = spill.append(txn);
+                queue.offer(new Pending(txn, number, null));
+            }
+        } catch (UncheckedIOException e){
+            free.release();
+            logger.error("Could not spill transaction {}, inserting it directly: {}", txn.getTransactionId(), e.getMessage());
+            transactionRepository.insert(txn);
+            return;
+        }
+        try {
+            spill.sync(number + 1);
+        } catch (UncheckedIOException e){
+            // not durable, so not acknowledged until the db has it; the writer's copy is then a duplicate it skips
+            logger.error("Could not sync the transaction spill for {}, inserting it directly: {}", txn.getTransactionId(), e.getMessage());
+            try {
+                transactionRepository.insert(txn);
+            } catch (DuplicateKeyException written){
+                // the writer got to it first
+            }
+        }
+    }
+
+    // returns once every transaction submitted before the call is in the db
+    public void awaitWritten(){
+        if(!enabled || free.availablePermits() == queueCapacity){
+            return;
+        }
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+        queue.offer(new Pending(null, -1, barrier));
+        LockSupport.unpark(writer);
+        try {
+            barrier.get(AWAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e){
+            throw new ServiceBusyException("Transactions are not written yet, try again later");
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for transactions to be written");
+        }
+    }
+
+    private void writeLoop(){
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        long interval = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long batchStart = 0;
+        while (true){
+            Pending next = queue.poll();
+            if(next != null){
+                if(next.barrier != null){
+                    if(!flush(batch)){
+                        return;
+                    }
+                    next.barrier.complete(null);
+                    continue;
+                }
+                if(batch.isEmpty()){
+                    batchStart = System.nanoTime();
+                }
+                batch.add(next);
+                if(batch.size() >= maxBatch && !flush(batch)){
+                    return;
+                }
+                continue;
+            }
+            long waited = System.nanoTime() - batchStart;
+            if(!batch.isEmpty() && (waited >= interval || !running)){
+                if(!flush(batch)){
+                    return;
+                }
+            } else if(!running && batch.isEmpty()){
+                return;
+            } else {
+                LockSupport.parkNanos(batch.isEmpty() ? interval : interval - waited);
+            }
+        }
+    }
+
+    // insert the batch, retrying until the db takes it; false when shut down before that
+    private boolean flush(List<Pending> batch){
+        if(batch.isEmpty()){
+            return true;
+        }
+        List<Transactions> txns = new ArrayList<>(batch.size());
+        for(Pending p : batch){
+            txns.add(p.txn);
+        }
+        while (true){
+            try {
+                write(txns);
+                break;
+            } catch (RuntimeException e){
+                if(!running){
+                    logger.error("Shutting down with {} transactions not written, they stay in the spill", batch.size());
+                    return false;
+                }
+                logger.error("Writing {} transactions failed, retrying in {} ms: {}", batch.size(), RETRY_MS, e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_MS));
+            }
+        }
+        spill.written(batch.get(batch.size() - 1).number + 1);
+        free.release(batch.size());
+        if(batchSizes != null){
+            batchSizes.record(batch.size());
+        }
+        batch.clear();
+        return true;
+    }
+
+    // one insertMany; transactions already in the db (replay, retry after a lost reply) are skipped one by one
+    private void write(List<Transactions> txns){
+        insertIgnoringDuplicates(transactionRepository, txns);
+    }
+
+    // insert transactions whose balance change is applied already, retried a few times; the unique
+    // transactionId skips the ones an earlier attempt got in. throws the last failure
+    static void insertApplied(TransactionRepository repository, List<Transactions> txns){
+        for(int attempt = 1; ; attempt++){
+            try {
+                insertIgnoringDuplicates(repository, txns);
+                return;
+            } catch (RuntimeException e){
+                if(attempt >= INSERT_ATTEMPTS){
+                    throw e;
+                }
+                try {
+                    Thread.sleep(INSERT_RETRY_MS * attempt);
+                } catch (InterruptedException interrupted){
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static void insertIgnoringDuplicates(TransactionRepository repository, List<Transactions> txns){
+        try {
+            repository.insert(txns);
+        } catch (DuplicateKeyException e){
+            for(Transactions t : txns){
+                try {
+                    repository.insert(t);
+                } catch (DuplicateKeyException already){
+                    // written before
+                }
+            }
+        }
+    }
+
+    private record Pending(Transactions txn, long number, CompletableFuture<Void> barrier) {
+    }
+}
@@ -1,13 +1,78 @@
 package com.utils;
 
-import java.util.Random;
-
 public class AccountNumberGenerator {
-    public static String generateAccountNum(String holderName){
-//        Auto-generated account number (e.g., initials + random 4 digits)
-        String trimmed = holderName.trim().toUpperCase();
-        String initial = trimmed.length()>=4? trimmed.substring(0,4) : trimmed;
-        int rand = new Random().nextInt(9000)+1000;
-        return initial+rand;
+    // first suffix handed out. the old random generator filled 1000-9999, starting past it means
+    // allocated numbers never run into those accounts, however crowded the prefix
+    public static final long FIRST_SUFFIX = 10000;
+
+    // prefix of holders whose name has no letter A-Z
+    static final String NO_LETTERS_PREFIX = "ACCT";
+
+    // name prefix of an account number: the first 4 letters A-Z of the holder name,
+    // other characters (spaces, digits, accents) are skipped so every number packs
+    public static String prefixOf(String holderName){
+        StringBuilder prefix = new StringBuilder(MAX_LETTERS);
+        String upper = holderName.toUpperCase();
+        for(int i = 0; i < upper.length() && prefix.length() < MAX_LETTERS; i++){
+            char c = upper.charAt(i);
+            if(c >= 'A' && c <= 'Z'){
+                prefix.append(c);
+            }
+        }
+        return prefix.length() == 0 ? NO_LETTERS_PREFIX : prefix.toString();
+    }
+
+    // account number for the n-th sequence of a prefix
+    public static String format(String prefix, long sequence){
+        return prefix + (FIRST_SUFFIX + sequence);
+    }
+
+    // 1-4 letters A-Z, 5 bits each (0 = no letter), then the digits as a number below 2^43:
+    // 63 bits, so a packed number is always positive
+    static final int LETTER_BITS = 5;
+    static final int MAX_LETTERS = 4;
+    static final int NUMBER_BITS = 43;
+
+    // the account number as one long, or 0 when it does not have the generated shape
+    // (other characters, more than 4 letters, a leading zero or more digits than fit)
+    public static long pack(String accountNumber){
+        int length = accountNumber.length();
+        int letters = 0;
+        long packed = 0;
+        while (letters < length && letters <= MAX_LETTERS){
+            char c = accountNumber.charAt(letters);
+            if(c < 'A' || c > 'Z'){
+                break;
+            }
+            packed = packed << LETTER_BITS | (c - 'A' + 1);
+            letters++;
+        }
+        if(letters == 0 || letters > MAX_LETTERS || letters == length || accountNumber.charAt(letters) == '0'){
+            return 0;
+        }
+        packed <<= LETTER_BITS * (MAX_LETTERS - letters);
+        long number = 0;
+        for(int i = letters; i < length; i++){
+            char c = accountNumber.charAt(i);
+            if(c < '0' || c > '9'){
+                return 0;
+            }
+            number = number * 10 + (c - '0');
+            if(number >= 1L << NUMBER_BITS){
+                return 0;
+            }
+        }
+        return packed << NUMBER_BITS | number;
+    }
+
+    public static String unpack(long packed){
+        StringBuilder sb = new StringBuilder(12);
+        for(int i = MAX_LETTERS - 1; i >= 0; i--){
+            int letter = (int) (packed >>> (NUMBER_BITS + i * LETTER_BITS)) & ((1 << LETTER_BITS) - 1);
+            if(letter != 0){
+                sb.append((char) ('A' + letter - 1));
+            }
+        }
+        return sb.append(packed & ((1L << NUMBER_BITS) - 1)).toString();
     }
 }
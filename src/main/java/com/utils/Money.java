@@ -0,0 +1,29 @@
+package com.utils;
+
+import com.exceptions.InvalidAmountException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/*
+Amounts are kept as long minor units (cents) in the models and the db, so balances add up exactly.
+The API keeps plain decimal numbers, these helpers convert at the edge.
+ */
+public class Money {
+    // digits after the decimal point
+    public static final int SCALE = 2;
+
+    // minor units of an API amount, a fraction of a cent is rejected instead of rounded away
+    public static long toMinor(BigDecimal amount){
+        try {
+            return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e){
+            throw new InvalidAmountException("Amount can have at most " + SCALE + " decimal places");
+        }
+    }
+
+    // API amount for minor units, 10050 -> 100.50
+    public static BigDecimal fromMinor(long minor){
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+}
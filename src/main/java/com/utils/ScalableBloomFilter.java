@@ -0,0 +1,169 @@
+package com.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+Scalable Bloom filter of strings: a chain of Bloom filters, each GROWTH times the capacity of the one before
+with a TIGHTENING times lower error rate, so the chain as a whole stays below the false positive rate it was
+built for however many values go in. A new stage is started once the last one holds its capacity.
+No false negatives. Adds and lookups are lock free, only starting a stage synchronizes.
+ */
+public class ScalableBloomFilter {
+    static final int GROWTH = 2;
+    static final double TIGHTENING = 0.5;
+
+    private final double falsePositiveRate;
+    private volatile Stage[] stages;
+
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if(initialCapacity < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1){
+            throw new IllegalArgumentException("Capacity must be positive and the false positive rate between 0 and 1");
+        }
+        this.falsePositiveRate = falsePositiveRate;
+        // stage error rates p0, p0 * r, p0 * r^2 ... add up to less than p0 / (1 - r)
+        this.stages = new Stage[]{new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING))};
+    }
+
+    public void add(String value){
+        long hash = hash(value);
+        if(mightContain(hash)){
+            return;
+        }
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if(last.count.get() >= last.capacity){
+            last = grow(last);
+        }
+        last.put(hash);
+    }
+
+    public boolean mightContain(String value){
+        return mightContain(hash(value));
+    }
+
+    // values added, each counted once (as far as the filter can tell)
+    public long size(){
+        long size = 0;
+        for(Stage stage : stages){
+            size += stage.count.get();
+        }
+        return size;
+    }
+
+    public long bitSize(){
+        long bits = 0;
+        for(Stage stage : stages){
+            bits += stage.bits;
+        }
+        return bits;
+    }
+
+    public int stageCount(){
+        return stages.length;
+    }
+
+    // chance that a value never added is reported as present, at the current fill
+    public double expectedFalsePositiveRate(){
+        double none = 1;
+        for(Stage stage : stages){
+            none *= 1 - stage.falsePositiveRate();
+        }
+        return 1 - none;
+    }
+
+    // the rate the filter was built for, expectedFalsePositiveRate stays below it
+    public double targetFalsePositiveRate(){
+        return falsePositiveRate;
+    }
+
+    private boolean mightContain(long hash){
+        for(Stage stage : stages){
+            if(stage.contains(hash)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized Stage grow(Stage full){
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if(last != full){
+            return last;
+        }
+        Stage next = new Stage(full.capacity * GROWTH, full.rate * TIGHTENING);
+        Stage[] grown = new Stage[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = next;
+        stages = grown;
+        return next;
+    }
+
+    // 64 bit FNV-1a of the UTF-8 bytes, then the murmur3 finalizer
+    static long hash(String value){
+        long h = 0xcbf29ce484222325L;
+        for(byte b : value.getBytes(StandardCharsets.UTF_8)){
+            h = (h ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ h >>> 33;
+    }
+
+    private static final class Stage {
+        final long capacity;
+        final double rate;
+        final long bits;
+        final int hashes;
+        final AtomicLongArray words;
+        final AtomicLong count = new AtomicLong();
+
+        Stage(long capacity, double rate) {
+            this.capacity = capacity;
+            this.rate = rate;
+            // optimal size and hash count for capacity values at this rate
+            long bits = (long) Math.ceil(-capacity * Math.log(rate) / (Math.log(2) * Math.log(2)));
+            this.bits = Math.max(64, (bits + 63) / 64 * 64);
+            this.hashes = Math.max(1, (int) Math.round((double) this.bits / capacity * Math.log(2)));
+            if(this.bits / 64 > Integer.MAX_VALUE){
+                throw new IllegalArgumentException("Bloom filter stage too large: " + this.bits + " bits");
+            }
+            this.words = new AtomicLongArray((int) (this.bits / 64));
+        }
+
+        // double hashing, bit i is h1 + i * h2
+        void put(long hash){
+            long h1 = hash;
+            long h2 = Long.rotateLeft(hash, 32) | 1;
+            for(int i = 0; i < hashes; i++){
+                long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+                long mask = 1L << bit;
+                int word = (int) (bit >>> 6);
+                if((words.get(word) & mask) == 0){
+                    words.getAndAccumulate(word, mask, (a, b) -> a | b);
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        boolean contains(long hash){
+            long h1 = hash;
+            long h2 = Long.rotateLeft(hash, 32) | 1;
+            for(int i = 0; i < hashes; i++){
+                long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+                if((words.get((int) (bit >>> 6)) & (1L << bit)) == 0){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double falsePositiveRate(){
+            return Math.pow(1 - Math.exp(-(double) hashes * count.get() / bits), hashes);
+        }
+    }
+}
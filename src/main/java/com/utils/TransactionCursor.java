@@ -0,0 +1,58 @@
+package com.utils;
+
+import com.exceptions.InvalidInputException;
+import com.model.Transactions;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/*
+Opaque keyset cursor for transaction history pages, position = (timestamp, _id)
+ */
+public class TransactionCursor {
+    private final LocalDateTime timestamp;
+    private final String id;
+
+    public TransactionCursor(LocalDateTime timestamp, String id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    public static TransactionCursor of(Transactions t){
+        return new TransactionCursor(t.getTimestamp(), t.getId());
+    }
+
+    public static String encode(Transactions t){
+        String raw = t.getTimestamp() + "|" + t.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String token){
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if(sep < 0){
+                throw new InvalidInputException("Invalid cursor");
+            }
+            String id = raw.substring(sep + 1);
+            // the id goes into the query as an ObjectId, a tampered one must not reach mongo
+            if(!ObjectId.isValid(id)){
+                throw new InvalidInputException("Invalid cursor");
+            }
+            return new TransactionCursor(LocalDateTime.parse(raw.substring(0, sep)), id);
+        } catch (IllegalArgumentException | DateTimeParseException e){
+            throw new InvalidInputException("Invalid cursor");
+        }
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
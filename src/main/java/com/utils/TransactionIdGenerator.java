@@ -1,13 +1,74 @@
 package com.utils;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
+/*
+Snowflake style transaction ids: 41 bits of milliseconds since 2024-01-01,
+10 bits of node id and a 12 bit per-millisecond sequence (4096 ids/ms per node).
+Ids are unique across nodes with different node ids and sort by creation time.
+Generation is lock free, the (millis, sequence) state lives in one AtomicLong.
+ */
 public class TransactionIdGenerator {
+    static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // "TXN-" + zero padded 19 digit id, fixed width keeps string order == numeric order
+    private static final int DIGITS = 19;
+    private static final char[] PREFIX = {'T', 'X', 'N', '-'};
+
+    private static final AtomicLong state = new AtomicLong();
+    private static volatile long nodeId = 0;
+
+    public static void setNodeId(long id){
+        if(id < 0 || id > MAX_NODE_ID){
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        nodeId = id;
+    }
+
     public static String generateTransactionId(){
-        String date = LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE);
-        int rand = new Random().nextInt(999)+1;
-        return "TXN-"+date+"-"+rand;
+        return format(nextId());
+    }
+
+    public static String format(long id){
+        char[] chars = new char[PREFIX.length + DIGITS];
+        System.arraycopy(PREFIX, 0, chars, 0, PREFIX.length);
+        for(int i = chars.length - 1; i >= PREFIX.length; i--){
+            chars[i] = (char) ('0' + id % 10);
+            id /= 10;
+        }
+        return new String(chars);
+    }
+
+    // numeric id back out of a generated transaction id
+    public static long parse(String transactionId){
+        if(transactionId == null || transactionId.length() != PREFIX.length + DIGITS || !transactionId.startsWith("TXN-")){
+            throw new IllegalArgumentException("Not a generated transaction id: " + transactionId);
+        }
+        return Long.parseLong(transactionId, PREFIX.length, transactionId.length(), 10);
+    }
+
+    public static long nextId(){
+        while (true){
+            long now = System.currentTimeMillis() - EPOCH;
+            long prev = state.get();
+            long prevMillis = prev >>> SEQUENCE_BITS;
+            long next;
+            if(now > prevMillis){
+                next = now << SEQUENCE_BITS;
+            } else {
+                // same millisecond, or the clock stepped back: keep counting from the last id.
+                // a full sequence borrows the next millisecond instead of spinning
+                next = prev + 1;
+            }
+            if(state.compareAndSet(prev, next)){
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
     }
 }
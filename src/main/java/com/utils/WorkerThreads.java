@@ -0,0 +1,27 @@
+package com.utils;
+
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WorkerThreads {
+    // virtual threads exist from JDK 21 on
+    public static boolean virtualThreadsAvailable(){
+        return JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE);
+    }
+
+    // threads named prefix-0, prefix-1, ..., virtual when asked for and the JDK has them, daemon platform threads otherwise
+    public static ThreadFactory factory(String prefix, boolean virtual){
+        if(virtual && virtualThreadsAvailable()){
+            return new VirtualThreadTaskExecutor(prefix + "-").getVirtualThreadFactory();
+        }
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + count.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.config;
+
+import com.utils.WorkerThreads;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+public class ExecutionModeConfigTest {
+
+    @Test
+    void testVirtualModeFailsWithoutVirtualThreads() {
+        Assumptions.assumeFalse(WorkerThreads.virtualThreadsAvailable());
+        ExecutionModeConfig config = new ExecutionModeConfig();
+        config.virtualThreads = true;
+
+        // a benchmark of "virtual" mode must not quietly run on platform threads
+        Assertions.assertThrows(IllegalStateException.class, config::init);
+        System.out.println("done with virtual mode check");
+    }
+
+    @Test
+    void testPlatformModeStarts() {
+        ExecutionModeConfig config = new ExecutionModeConfig();
+        config.virtualThreads = false;
+
+        Assertions.assertDoesNotThrow(config::init);
+        System.out.println("done with platform mode");
+    }
+}
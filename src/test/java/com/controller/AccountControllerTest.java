@@ -13,6 +13,7 @@ import org.springframework.web.client.DefaultResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.List;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
@@ -48,7 +49,7 @@ public class AccountControllerTest {
 
         DepositRequestDTO dto = new DepositRequestDTO();
         dto.setAccountNumber("KIRA8018");
-        dto.setAmount(50000.0);
+        dto.setAmount(new BigDecimal("50000"));
 
         // Call API
         ResponseEntity<ApiResponse> response =
@@ -83,7 +84,7 @@ public class AccountControllerTest {
 
         DepositRequestDTO dto = new DepositRequestDTO();
         dto.setAccountNumber("KIRA8018");
-        dto.setAmount(0.0);
+        dto.setAmount(new BigDecimal("0"));
 
         // Call API
         ResponseEntity<ApiResponse> response =
@@ -113,7 +114,7 @@ public class AccountControllerTest {
 
         WithdrawRequestDTO dto = new WithdrawRequestDTO();
         dto.setAccountNumber("KIRA8018");
-        dto.setAmount(500.0);
+        dto.setAmount(new BigDecimal("500"));
 
         // CALL API
         ResponseEntity<ApiResponse> response =
@@ -138,7 +139,7 @@ public class AccountControllerTest {
         TransferRequestDTO dto = new TransferRequestDTO();
         dto.setFromAccount("KIRA8018");
         dto.setToAccount("KIRA8550");
-        dto.setAmount(100.0);
+        dto.setAmount(new BigDecimal("100"));
 
         RestTemplate restTemplate = new RestTemplate();
 
@@ -3,7 +3,8 @@ package com.main;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// index creation talks to mongo while the context starts, keep this test runnable without a db
+@SpringBootTest(properties = "spring.data.mongodb.auto-index-creation=false")
 class BankApplicationTests {
 
 	@Test
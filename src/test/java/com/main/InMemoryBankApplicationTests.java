@@ -0,0 +1,102 @@
+package com.main;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.repository.InMemoryAccountRepository;
+import com.repository.AccountRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// whole REST stack on the map backed repositories, no mongod needed
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("inmemory")
+class InMemoryBankApplicationTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	ApplicationContext context;
+
+	@Test
+	void contextUsesInMemoryRepositories() {
+		Assertions.assertInstanceOf(InMemoryAccountRepository.class, context.getBean(AccountRepository.class));
+		Assertions.assertEquals(0, context.getBeanNamesForType(org.springframework.data.mongodb.core.MongoTemplate.class).length);
+		System.out.println("inmemory main test case");
+	}
+
+	@Test
+	void depositTransferAndHistoryOverRest() throws Exception {
+		String from = createAccount("Kiran");
+		String to = createAccount("Ravi");
+
+		mockMvc.perform(put("/api/accounts/{acc}/deposit", from)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"accountNumber\":\"" + from + "\",\"amount\":100.50}"))
+				.andExpect(status().isOk());
+		mockMvc.perform(post("/api/accounts/transfer")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"fromAccount\":\"" + from + "\",\"toAccount\":\"" + to + "\",\"amount\":40}"))
+				.andExpect(status().isOk());
+		// more than the remaining balance
+		mockMvc.perform(post("/api/accounts/transfer")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"fromAccount\":\"" + from + "\",\"toAccount\":\"" + to + "\",\"amount\":1000}"))
+				.andExpect(status().isBadRequest());
+
+		mockMvc.perform(get("/api/accounts/{acc}", from))
+				.andExpect(jsonPath("$.data.balance").value(60.50));
+		mockMvc.perform(get("/api/accounts/{acc}", to))
+				.andExpect(jsonPath("$.data.balance").value(40.00));
+
+		// newest first, served from the per-account history index
+		mockMvc.perform(get("/api/accounts/{acc}/transactions", from).param("limit", "1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.transactions.length()").value(1))
+				.andExpect(jsonPath("$.data.transactions[0].type").value("TRANSFER"))
+				.andExpect(jsonPath("$.data.nextCursor").exists());
+
+		System.out.println("done with inmemory rest round trip");
+	}
+
+	@Test
+	void batchTransferItemsAreValidated() throws Exception {
+		String from = createAccount("Kiran");
+		String to = createAccount("Ravi");
+
+		mockMvc.perform(post("/api/accounts/transfers/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[{\"fromAccount\":\"" + from + "\",\"toAccount\":\"" + to + "\",\"amount\":10},"
+								+ "{\"fromAccount\":\"\",\"toAccount\":\"" + to + "\",\"amount\":10}]"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.success").value(false))
+				.andExpect(jsonPath("$.message").value("[1] fromAccount: Source account is required; "));
+
+		System.out.println("done with batch validation");
+	}
+
+	private String createAccount(String holderName) throws Exception {
+		String body = mockMvc.perform(post("/api/accounts/create")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"holderName\":\"" + holderName + "\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		JsonNode data = objectMapper.readTree(body).get("data");
+		return data.get("accountNumber").asText();
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.main;
+
+import com.repository.AccountRepository;
+import com.repository.JournalAccountRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// journal in a fresh directory under target for every run
+@SpringBootTest(properties = "bank.journal.dir=target/test-journal/${random.uuid}")
+@AutoConfigureMockMvc
+@ActiveProfiles("journal")
+class JournalBankApplicationTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	ApplicationContext context;
+
+	@Test
+	void createAndDepositOnTheJournal() throws Exception {
+		Assertions.assertInstanceOf(JournalAccountRepository.class, context.getBean(AccountRepository.class));
+
+		mockMvc.perform(post("/api/accounts/create")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"holderName\":\"Kiran\"}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.accountNumber").value("KIRA10000"));
+		mockMvc.perform(put("/api/accounts/{acc}/deposit", "KIRA10000")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"accountNumber\":\"KIRA10000\",\"amount\":25.75}"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/accounts/{acc}", "KIRA10000"))
+				.andExpect(jsonPath("$.data.balance").value(25.75));
+
+		System.out.println("journal main test case");
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.main;
+
+import com.controller.AccountController;
+import com.controller.ReactiveAccountController;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+// index creation talks to mongo while the context starts, keep this test runnable without a db
+@SpringBootTest(properties = "spring.data.mongodb.auto-index-creation=false")
+@ActiveProfiles("reactive")
+class ReactiveBankApplicationTests {
+
+	@Autowired
+	ApplicationContext context;
+
+	@Test
+	void contextLoadsReactiveStack() {
+		Assertions.assertEquals(1, context.getBeanNamesForType(ReactiveAccountController.class).length);
+		Assertions.assertEquals(0, context.getBeanNamesForType(AccountController.class).length);
+		Assertions.assertInstanceOf(ReactiveWebApplicationContext.class, context);
+		System.out.println("reactive main test case");
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.repository;
+
+import com.model.Account;
+import com.model.AccountStripe;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountStripeRepositoryCustomImplTest {
+
+    @Mock
+    MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    AccountStripeRepositoryCustomImpl repository;
+
+    @Test
+    void testTwoCompletersOfTheSameMoveCreditOnce() {
+        // a move cut short two minutes ago, seen by two completers before either of them got to it
+        long twoMinutesAgo = System.currentTimeMillis() - 120_000;
+        String moveId = new ObjectId(new Date(twoMinutesAgo)).toHexString();
+        String staleClaim = new ObjectId(new Date(twoMinutesAgo)).toHexString();
+        Document stripe = new Document("_id", AccountStripe.idOf("MERC1000", 1)).append("accountNumber", "MERC1000")
+                .append("pendingMoves", List.of(new Document("id", moveId).append("amount", 500L).append("claim", staleClaim)));
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("account_stripes"))).thenReturn(List.of(stripe));
+
+        // the claim only matches while it is still the stale one, like the db's conditional update
+        AtomicReference<String> currentClaim = new AtomicReference<>(staleClaim);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(AccountStripe.class))).thenAnswer(i -> {
+            Update update = i.getArgument(1);
+            Document set = (Document) update.getUpdateObject().get("$set");
+            if(set == null){
+                return UpdateResult.acknowledged(1, 1L, null); // pull of the finished move
+            }
+            Query query = i.getArgument(0);
+            Document elemMatch = (Document) ((Document) query.getQueryObject().get("pendingMoves")).get("$elemMatch");
+            String expected = elemMatch.getString("claim");
+            String taken = (String) set.get("pendingMoves.$.claim");
+            return currentClaim.compareAndSet(expected, taken) ? UpdateResult.acknowledged(1, 1L, null)
+                    : UpdateResult.acknowledged(0, 0L, null);
+        });
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Account.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // interleaved: both read the stale move (the find above), then both try to finish it
+        int first = repository.completePendingMoves();
+        int second = repository.completePendingMoves();
+
+        Assertions.assertEquals(1, first + second);
+        ArgumentCaptor<Update> accountUpdates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).updateFirst(any(Query.class), accountUpdates.capture(), eq(Account.class));
+        long credits = accountUpdates.getAllValues().stream().filter(u -> u.getUpdateObject().containsKey("$inc")).count();
+        Assertions.assertEquals(1, credits);
+        System.out.println("done with concurrent move completion");
+    }
+
+    @Test
+    void testAccountAndStripesAreReadInOneAggregation() {
+        // stripe 2 has sent 400 towards the account, which has not been credited yet; stripe 1's earlier move of 100 has
+        String credited = new ObjectId().toHexString();
+        String inFlight = new ObjectId().toHexString();
+        Document account = new Document("_id", new ObjectId()).append("accountNumber", "MERC1000").append("holderName", "Merchant")
+                .append("balance", 1000L).append("revision", 3L)
+                .append(AccountRepositoryCustomImpl.PENDING_BATCHES, List.of(credited))
+                .append("stripes", List.of(
+                        new Document("_id", AccountStripe.idOf("MERC1000", 1)).append("accountNumber", "MERC1000").append("balance", 500L)
+                                .append(AccountStripeRepositoryCustomImpl.PENDING_MOVES, List.of(new Document("id", credited).append("amount", 100L))),
+                        new Document("_id", AccountStripe.idOf("MERC1000", 2)).append("accountNumber", "MERC1000").append("balance", 200L)
+                                .append(AccountStripeRepositoryCustomImpl.PENDING_MOVES, List.of(new Document("id", inFlight).append("amount", 400L)))));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("accounts"), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(account), new Document()));
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        when(mongoTemplate.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+
+        Account acc = repository.findWithStripeBalances("MERC1000").orElseThrow();
+
+        // 1000 + 500 + 200, plus the 400 between stripe 2 and the account
+        Assertions.assertEquals(2100, acc.getBalance());
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(aggregation.capture(), eq("accounts"), eq(Document.class));
+        verifyNoMoreInteractions(mongoTemplate);
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        Assertions.assertEquals(new Document("$match", new Document("accountNumber", "MERC1000")), pipeline.get(0));
+        Assertions.assertEquals("account_stripes", pipeline.get(1).get("$lookup", Document.class).getString("from"));
+        System.out.println("done with striped account read");
+    }
+}
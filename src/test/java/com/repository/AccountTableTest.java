@@ -0,0 +1,137 @@
+package com.repository;
+
+import com.model.Account;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class AccountTableTest {
+
+    AccountTable table = new AccountTable(0);
+
+    private Account details(long key){
+        Account acc = new Account();
+        acc.setAccountNumber("K" + key);
+        return acc;
+    }
+
+    // what the repository does for an insert
+    private boolean insert(long key, long balance){
+        while (true){
+            table.lock(key);
+            try {
+                if(table.find(key) >= 0){
+                    return false;
+                }
+                if(table.hasRoom()){
+                    table.set(table.insert(key, details(key)), balance, 0);
+                    return true;
+                }
+            } finally {
+                table.unlock(key);
+            }
+            table.grow();
+        }
+    }
+
+    private long balance(long key){
+        table.lock(key);
+        try {
+            int slot = table.find(key);
+            return slot < 0 ? -1 : table.balance(slot);
+        } finally {
+            table.unlock(key);
+        }
+    }
+
+    @Test
+    void testGrowsAndKeepsEverySlot() {
+        int capacity = table.capacity();
+        for(long key = 1; key <= 100000; key++){
+            Assertions.assertTrue(insert(key, key * 10));
+        }
+        Assertions.assertFalse(insert(5, 0));
+
+        Assertions.assertTrue(table.capacity() > capacity);
+        Assertions.assertEquals(100000, table.size());
+        for(long key = 1; key <= 100000; key++){
+            Assertions.assertEquals(key * 10, balance(key));
+            Assertions.assertEquals("K" + key, table.details(table.find(key)).getAccountNumber());
+        }
+        Assertions.assertEquals(-1, balance(100001));
+        System.out.println("done with table growth");
+    }
+
+    @Test
+    void testDeletedKeysAreGoneAndTheirSlotsReused() {
+        for(long key = 1; key <= 2000; key++){
+            insert(key, key);
+        }
+        int capacity = table.capacity();
+        // churn through far more keys than the table has slots, tombstones must not make it keep growing
+        for(long key = 1; key <= 20 * capacity; key++){
+            table.lock(key);
+            try {
+                table.delete(table.find(key));
+            } finally {
+                table.unlock(key);
+            }
+            Assertions.assertEquals(-1, balance(key));
+            insert(key + 2000, key + 2000);
+        }
+        Assertions.assertEquals(2000, table.size());
+        Assertions.assertTrue(table.capacity() <= 2 * capacity);
+        Assertions.assertEquals(20L * capacity + 1, balance(20L * capacity + 1));
+        System.out.println("done with table deletes");
+    }
+
+    @Test
+    void testConcurrentInsertsAndChanges() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for(int t = 0; t < 16; t++){
+            long first = t * 20000L + 1;
+            futures.add(pool.submit(() -> {
+                for(long key = first; key < first + 20000; key++){
+                    insert(key, 0);
+                    // every thread also credits keys of the others
+                    long other = (key * 7919) % 320000 + 1;
+                    table.lock(other);
+                    try {
+                        int slot = table.find(other);
+                        if(slot >= 0){
+                            table.set(slot, table.balance(slot) + 1, table.revision(slot) + 1);
+                        }
+                    } finally {
+                        table.unlock(other);
+                    }
+                }
+            }));
+        }
+        for(Future<?> f : futures){
+            f.get();
+        }
+        pool.shutdown();
+
+        Assertions.assertEquals(320000, table.size());
+        long credits = 0;
+        for(long key = 1; key <= 320000; key++){
+            table.lock(key);
+            try {
+                int slot = table.find(key);
+                Assertions.assertTrue(slot >= 0);
+                Assertions.assertEquals(table.balance(slot), table.revision(slot));
+                credits += table.balance(slot);
+            } finally {
+                table.unlock(key);
+            }
+        }
+        Assertions.assertTrue(credits > 0);
+        System.out.println("done with concurrent table access");
+    }
+}
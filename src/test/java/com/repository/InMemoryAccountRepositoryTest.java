@@ -0,0 +1,89 @@
+package com.repository;
+
+import com.enums.AccountStatus;
+import com.model.Account;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class InMemoryAccountRepositoryTest {
+
+    InMemoryAccountRepository repository = new InMemoryAccountRepository();
+
+    private Account account(String accountNumber, long balance){
+        Account acc = new Account();
+        acc.setAccountNumber(accountNumber);
+        acc.setHolderName("Kiran");
+        acc.setBalance(balance);
+        acc.setStatus(AccountStatus.ACTIVE);
+        return acc;
+    }
+
+    @Test
+    void testAccountNumberIsUnique() {
+        repository.insert(account("ACC001", 0));
+        Account again = account("ACC001", 0);
+
+        Assertions.assertThrows(DuplicateKeyException.class, () -> repository.insert(again));
+        Assertions.assertEquals(1, repository.count());
+        Assertions.assertEquals(Set.of(1), repository.insertAllUnordered(List.of(account("ACC002", 0), account("ACC001", 0))));
+        Assertions.assertTrue(repository.existsByAccountNumber("ACC002"));
+
+        System.out.println("done with unique account number");
+    }
+
+    @Test
+    void testDebitOnlyWithSufficientBalance() {
+        repository.insert(account("ACC001", 1000));
+
+        Assertions.assertTrue(repository.debitBalanceIfSufficient("ACC001", 1500).isEmpty());
+        Account updated = repository.debitBalanceIfSufficient("ACC001", 400).orElseThrow();
+        Assertions.assertEquals(600, updated.getBalance());
+        Assertions.assertEquals(1L, updated.getRevision());
+        Assertions.assertEquals(700, repository.creditBalance("ACC001", 100).orElseThrow().getBalance());
+        Assertions.assertTrue(repository.creditBalance("NONE", 100).isEmpty());
+
+        // reads are copies, changing one does not change the stored account
+        repository.findByAccountNumber("ACC001").orElseThrow().setBalance(0);
+        Assertions.assertEquals(700, repository.findByAccountNumber("ACC001").orElseThrow().getBalance());
+
+        System.out.println("done with conditional debit");
+    }
+
+    @Test
+    void testRevertOnlyTouchesAppliedPartOfBatch() {
+        repository.insert(account("A1", 1000));
+        repository.insert(account("A2", 100));
+
+        // A2 can't give 500, so A1 is not credited either
+        long applied = repository.applyNetChanges("B1", Map.of("A1", 500L, "A2", -500L));
+        Assertions.assertEquals(0, applied);
+        Assertions.assertEquals(1000, repository.findByAccountNumber("A1").orElseThrow().getBalance());
+        Assertions.assertTrue(repository.revertNetChanges("B1", Map.of("A1", 500L, "A2", -500L)).isEmpty());
+
+        Assertions.assertEquals(1000, repository.findByAccountNumber("A1").orElseThrow().getBalance());
+        Assertions.assertEquals(100, repository.findByAccountNumber("A2").orElseThrow().getBalance());
+
+        System.out.println("done with batch revert");
+    }
+
+    @Test
+    void testRevertKeepsACreditThatWasSpent() {
+        repository.insert(account("A1", 1000));
+        repository.insert(account("A2", 100));
+        Assertions.assertEquals(2, repository.applyNetChanges("B1", Map.of("A1", -500L, "A2", 500L)));
+        // A2 spends the credit before the batch is reverted
+        repository.debitBalanceIfSufficient("A2", 550);
+
+        Set<String> kept = repository.revertNetChanges("B1", Map.of("A1", -500L, "A2", 500L));
+
+        Assertions.assertEquals(Set.of("A2"), kept);
+        Assertions.assertEquals(50, repository.findByAccountNumber("A2").orElseThrow().getBalance());
+        Assertions.assertEquals(1000, repository.findByAccountNumber("A1").orElseThrow().getBalance());
+        System.out.println("done with guarded batch revert");
+    }
+}
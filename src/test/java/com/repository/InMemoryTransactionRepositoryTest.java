@@ -0,0 +1,76 @@
+package com.repository;
+
+import com.enums.TransactionType;
+import com.model.Transactions;
+import com.utils.TransactionCursor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class InMemoryTransactionRepositoryTest {
+
+    static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    InMemoryTransactionRepository repository = new InMemoryTransactionRepository();
+
+    private Transactions txn(String transactionId, TransactionType type, int minutes, String... accounts){
+        Transactions t = new Transactions();
+        t.setTransactionId(transactionId);
+        t.setType(type);
+        t.setTimestamp(T0.plusMinutes(minutes));
+        t.setAccountNumbers(List.of(accounts));
+        return repository.insert(t);
+    }
+
+    @Test
+    void testHistoryIsPerAccountOldestFirst() {
+        txn("T3", TransactionType.DEPOSIT, 3, "A1");
+        txn("T1", TransactionType.TRANSFER, 1, "A1", "A2");
+        txn("T2", TransactionType.DEPOSIT, 2, "A2");
+
+        List<Transactions> a1 = repository.findAllByAccount("A1");
+        Assertions.assertEquals(List.of("T1", "T3"), a1.stream().map(Transactions::getTransactionId).toList());
+        Assertions.assertEquals(List.of("T1", "T2"), repository.streamAllByAccount("A2").map(Transactions::getTransactionId).toList());
+        Assertions.assertTrue(repository.findAllByAccount("NONE").isEmpty());
+
+        System.out.println("done with history per account");
+    }
+
+    @Test
+    void testHistoryPagesWalkBothWaysWithFilters() {
+        for(int i = 0; i < 10; i++){
+            txn("T" + i, i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAW, i, "A1");
+        }
+
+        // newest first, then older than the last one seen
+        List<Transactions> first = repository.findHistoryPage("A1", null, null, null, null, false, 3);
+        Assertions.assertEquals(List.of("T9", "T8", "T7"), first.stream().map(Transactions::getTransactionId).toList());
+        List<Transactions> older = repository.findHistoryPage("A1", null, null, null, TransactionCursor.of(first.get(2)), false, 3);
+        Assertions.assertEquals(List.of("T6", "T5", "T4"), older.stream().map(Transactions::getTransactionId).toList());
+
+        // newer than a cursor comes back oldest first
+        List<Transactions> newer = repository.findHistoryPage("A1", null, null, null, TransactionCursor.of(older.get(0)), true, 2);
+        Assertions.assertEquals(List.of("T7", "T8"), newer.stream().map(Transactions::getTransactionId).toList());
+
+        // from inclusive, to exclusive, type filter
+        List<Transactions> filtered = repository.findHistoryPage("A1", TransactionType.DEPOSIT,
+                T0.plusMinutes(2), T0.plusMinutes(8), null, false, 10);
+        Assertions.assertEquals(List.of("T6", "T4", "T2"), filtered.stream().map(Transactions::getTransactionId).toList());
+
+        System.out.println("done with history pages");
+    }
+
+    @Test
+    void testDuplicateTransactionIdIsRejected() {
+        txn("T1", TransactionType.DEPOSIT, 1, "A1");
+
+        Assertions.assertThrows(DuplicateKeyException.class, () -> txn("T1", TransactionType.DEPOSIT, 2, "A1"));
+        Assertions.assertEquals(1, repository.count());
+        Assertions.assertEquals(1, repository.findAllByAccount("A1").size());
+
+        System.out.println("done with duplicate transaction id");
+    }
+}
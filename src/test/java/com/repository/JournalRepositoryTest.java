@@ -0,0 +1,201 @@
+package com.repository;
+
+import com.enums.AccountStatus;
+import com.enums.TransactionStatus;
+import com.enums.TransactionType;
+import com.exceptions.InvalidInputException;
+import com.model.Account;
+import com.model.Transactions;
+import com.utils.TransactionIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JournalRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    List<JournalRecovery> started = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() {
+        started.forEach(r -> r.journal.close());
+    }
+
+    // what the journal profile wires up, replayed from whatever is in dir
+    private JournalRecovery start(){
+        return start(0);
+    }
+
+    private JournalRecovery start(int snapshotEverySegments){
+        LedgerJournal journal = new LedgerJournal();
+        journal.dir = dir.toString();
+        journal.segmentRecords = 16;
+        journal.snapshotEverySegments = snapshotEverySegments;
+        journal.archiveDir = dir.resolve("archive").toString();
+        JournalRecovery recovery = new JournalRecovery();
+        recovery.journal = journal;
+        recovery.accountRepository = new JournalAccountRepository();
+        recovery.accountRepository.journal = journal;
+        recovery.transactionRepository = new JournalTransactionRepository();
+        recovery.transactionRepository.journal = journal;
+        recovery.counterRepository = new JournalCounterRepository();
+        recovery.counterRepository.journal = journal;
+        recovery.recover();
+        started.add(recovery);
+        return recovery;
+    }
+
+    private Account account(String accountNumber, String holderName){
+        Account acc = new Account();
+        acc.setAccountNumber(accountNumber);
+        acc.setHolderName(holderName);
+        acc.setStatus(AccountStatus.ACTIVE);
+        acc.setCreatedAt(LocalDateTime.now());
+        return acc;
+    }
+
+    private Transactions txn(TransactionType type, long amount, String source, String destination){
+        Transactions t = new Transactions();
+        t.setTransactionId(TransactionIdGenerator.generateTransactionId());
+        t.setType(type);
+        t.setAmount(amount);
+        t.setStatus(TransactionStatus.SUCCESS);
+        t.setTimestamp(LocalDateTime.now());
+        t.setSourceAccount(source);
+        t.setDestinationAccount(destination);
+        List<String> accountNumbers = new ArrayList<>();
+        if(source != null) accountNumbers.add(source);
+        if(destination != null) accountNumbers.add(destination);
+        t.setAccountNumbers(accountNumbers);
+        return t;
+    }
+
+    @Test
+    void testStateIsRebuiltFromTheJournal() {
+        JournalRecovery first = start();
+        first.accountRepository.insert(account("KIRA1000", "Kiran"));
+        first.accountRepository.insert(account("RAVI1000", "Ravi"));
+        first.counterRepository.reserveBlock("account:KIRA", 100);
+
+        // deposit 100.00 then transfer 40.00, the way AccountService does them
+        first.accountRepository.creditBalance("KIRA1000", 10000);
+        first.transactionRepository.insert(txn(TransactionType.DEPOSIT, 10000, null, "KIRA1000"));
+        first.accountRepository.debitBalanceIfSufficient("KIRA1000", 4000);
+        first.accountRepository.creditBalance("RAVI1000", 4000);
+        Transactions transfer = txn(TransactionType.TRANSFER, 4000, "KIRA1000", "RAVI1000");
+        first.transactionRepository.insert(transfer);
+        first.journal.close();
+
+        JournalRecovery second = start();
+        Account kiran = second.accountRepository.findByAccountNumber("KIRA1000").orElseThrow();
+        Assertions.assertEquals(6000, kiran.getBalance());
+        Assertions.assertEquals("Kiran", kiran.getHolderName());
+        Assertions.assertEquals(2L, kiran.getRevision());
+        Assertions.assertEquals(4000, second.accountRepository.findByAccountNumber("RAVI1000").orElseThrow().getBalance());
+
+        List<Transactions> history = second.transactionRepository.findAllByAccount("KIRA1000");
+        Assertions.assertEquals(2, history.size());
+        Transactions replayed = history.get(1);
+        Assertions.assertEquals(transfer.getId(), replayed.getId());
+        Assertions.assertEquals(transfer.getTransactionId(), replayed.getTransactionId());
+        Assertions.assertEquals(transfer.getTimestamp(), replayed.getTimestamp());
+        Assertions.assertEquals(List.of("KIRA1000", "RAVI1000"), replayed.getAccountNumbers());
+        Assertions.assertEquals(1, second.transactionRepository.findAllByAccount("RAVI1000").size());
+
+        // the counter carries on after the block leased before the restart
+        Assertions.assertEquals(100, second.counterRepository.reserveBlock("account:KIRA", 100));
+        System.out.println("done with journal rebuild");
+    }
+
+    @Test
+    void testRejectedWritesLeaveNoTrace() {
+        JournalRecovery first = start();
+        first.accountRepository.insert(account("KIRA1000", "Kiran"));
+
+        Assertions.assertThrows(InvalidInputException.class,
+                () -> first.accountRepository.insert(account("LONG1000", "x".repeat(200))));
+        Assertions.assertFalse(first.accountRepository.existsByAccountNumber("LONG1000"));
+        Assertions.assertEquals(1, first.accountRepository.count());
+        // failed conditional debit records nothing
+        Assertions.assertTrue(first.accountRepository.debitBalanceIfSufficient("KIRA1000", 1).isEmpty());
+        first.journal.close();
+
+        JournalRecovery second = start();
+        Assertions.assertEquals(1, second.accountRepository.count());
+        Assertions.assertEquals(0, second.accountRepository.findByAccountNumber("KIRA1000").orElseThrow().getBalance());
+        System.out.println("done with rejected writes");
+    }
+
+    private void deposits(JournalRecovery recovery, String accountNumber, int count){
+        for(int i = 0; i < count; i++){
+            recovery.accountRepository.creditBalance(accountNumber, 100);
+            recovery.transactionRepository.insert(txn(TransactionType.DEPOSIT, 100, null, accountNumber));
+        }
+    }
+
+    @Test
+    void testRestartLoadsTheSnapshotAndReplaysOnlyTheTail() throws Exception {
+        JournalRecovery first = start();
+        first.accountRepository.insert(account("KIRA1000", "Kiran"));
+        first.accountRepository.insert(account("RAVI1000", "Ravi"));
+        first.counterRepository.reserveBlock("account:KIRA", 100);
+        deposits(first, "KIRA1000", 30);
+
+        long covered = first.journal.compact();
+        Assertions.assertTrue(covered > 0);
+        Assertions.assertTrue(Files.exists(LedgerSnapshot.path(dir, covered)));
+        // everything before the snapshot is archived, only the current segment is left
+        Assertions.assertEquals(1, LedgerJournal.segmentFiles(dir).size());
+        Assertions.assertEquals(covered, LedgerJournal.firstSequenceOf(LedgerJournal.segmentFiles(dir).get(0)));
+        Assertions.assertFalse(LedgerJournal.segmentFiles(dir.resolve("archive")).isEmpty());
+
+        deposits(first, "RAVI1000", 3);
+        first.journal.close();
+        // a snapshot write cut short by a crash
+        Path partial = dir.resolve(LedgerSnapshot.path(dir, covered + 16).getFileName() + LedgerSnapshot.TEMP_SUFFIX);
+        Files.write(partial, new byte[100]);
+
+        JournalRecovery second = start();
+        Assertions.assertEquals(covered, second.journal.snapshotSequence());
+        Account kiran = second.accountRepository.findByAccountNumber("KIRA1000").orElseThrow();
+        Assertions.assertEquals(3000, kiran.getBalance());
+        Assertions.assertEquals(30L, kiran.getRevision());
+        Assertions.assertEquals(300, second.accountRepository.findByAccountNumber("RAVI1000").orElseThrow().getBalance());
+        Assertions.assertEquals(30, second.transactionRepository.findAllByAccount("KIRA1000").size());
+        Assertions.assertEquals(3, second.transactionRepository.findAllByAccount("RAVI1000").size());
+        Assertions.assertEquals(100, second.counterRepository.reserveBlock("account:KIRA", 100));
+        Assertions.assertFalse(Files.exists(partial));
+        System.out.println("done with snapshot restart");
+    }
+
+    @Test
+    void testSnapshotsAreTakenInTheBackground() throws Exception {
+        JournalRecovery first = start(2);
+        first.accountRepository.insert(account("KIRA1000", "Kiran"));
+        deposits(first, "KIRA1000", 40);
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (first.journal.snapshotSequence() == 0 && System.currentTimeMillis() < deadline){
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(first.journal.snapshotSequence() > 0);
+        deposits(first, "KIRA1000", 10);
+        first.journal.close();
+
+        // a newer snapshot replaces the older ones
+        JournalRecovery second = start();
+        Assertions.assertEquals(1, LedgerSnapshot.olderThan(dir, Long.MAX_VALUE).size());
+        Assertions.assertEquals(5000, second.accountRepository.findByAccountNumber("KIRA1000").orElseThrow().getBalance());
+        Assertions.assertEquals(50, second.transactionRepository.findAllByAccount("KIRA1000").size());
+        System.out.println("done with background snapshots");
+    }
+}
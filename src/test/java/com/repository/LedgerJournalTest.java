@@ -0,0 +1,150 @@
+package com.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LedgerJournalTest {
+
+    @TempDir
+    Path dir;
+
+    List<LedgerJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() {
+        opened.forEach(LedgerJournal::close);
+    }
+
+    private LedgerJournal journal(int segmentRecords){
+        LedgerJournal journal = new LedgerJournal();
+        journal.dir = dir.toString();
+        journal.segmentRecords = segmentRecords;
+        // balance records of an account that was never created can't be folded into a snapshot
+        journal.snapshotEverySegments = 0;
+        opened.add(journal);
+        return journal;
+    }
+
+    private List<JournalRecord> reopen(int segmentRecords){
+        List<JournalRecord> replayed = new ArrayList<>();
+        journal(segmentRecords).recover(replayed::add);
+        return replayed;
+    }
+
+    private LedgerJournal appendBalances(int segmentRecords, int count){
+        LedgerJournal journal = journal(segmentRecords);
+        journal.recover(r -> {});
+        for(int i = 0; i < count; i++){
+            journal.append(JournalRecord.balance("ACC001", 100 + i));
+        }
+        journal.sync();
+        journal.close();
+        return journal;
+    }
+
+    // flip one byte of a record, as a write torn by a crash would leave it
+    private void damage(long firstSequence, int slot) throws Exception {
+        Path file = LedgerJournal.segmentPath(dir, firstSequence);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)){
+            channel.write(ByteBuffer.wrap(new byte[]{0x5A}), (long) slot * JournalRecord.RECORD_SIZE + JournalRecord.AMOUNT);
+        }
+    }
+
+    @Test
+    void testRecordsAreReplayedInOrderAfterRestart() {
+        appendBalances(1000, 5);
+
+        List<JournalRecord> replayed = reopen(1000);
+
+        Assertions.assertEquals(5, replayed.size());
+        for(int i = 0; i < 5; i++){
+            Assertions.assertEquals(i, replayed.get(i).getSequence());
+            Assertions.assertEquals(100 + i, replayed.get(i).getAmount());
+            Assertions.assertEquals("ACC001", replayed.get(i).getAccountNumber());
+        }
+        System.out.println("done with replay after restart");
+    }
+
+    @Test
+    void testTornTailIsDroppedAndNeverReplayedLater() throws Exception {
+        appendBalances(1000, 5);
+        damage(0, 3);
+
+        // record 3 fails its checksum, 3 and 4 are gone
+        LedgerJournal journal = journal(1000);
+        List<JournalRecord> replayed = new ArrayList<>();
+        journal.recover(replayed::add);
+        Assertions.assertEquals(3, replayed.size());
+
+        // the next record takes sequence 3, the old record 4 must not come back behind it
+        Assertions.assertEquals(3, journal.append(JournalRecord.balance("ACC001", 999)));
+        journal.sync();
+        journal.close();
+
+        List<JournalRecord> again = reopen(1000);
+        Assertions.assertEquals(4, again.size());
+        Assertions.assertEquals(999, again.get(3).getAmount());
+        System.out.println("done with torn tail");
+    }
+
+    @Test
+    void testSegmentsRollAndReplayAcrossFiles() throws Exception {
+        appendBalances(4, 10);
+
+        Assertions.assertEquals(3, LedgerJournal.segmentFiles(dir).size());
+        List<JournalRecord> replayed = reopen(4);
+        Assertions.assertEquals(10, replayed.size());
+        Assertions.assertEquals(109, replayed.get(9).getAmount());
+        System.out.println("done with segment roll");
+    }
+
+    @Test
+    void testDamageBeforeTheLastSegmentStopsRecovery() throws Exception {
+        appendBalances(4, 10);
+        damage(0, 1);
+
+        LedgerJournal journal = journal(4);
+        Assertions.assertThrows(IllegalStateException.class, () -> journal.recover(r -> {}));
+        System.out.println("done with damaged segment");
+    }
+
+    @Test
+    void testConcurrentWritersShareFsyncs() throws Exception {
+        LedgerJournal journal = journal(64);
+        journal.recover(r -> {});
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for(int t = 0; t < 8; t++){
+            futures.add(pool.submit(() -> {
+                for(int i = 0; i < 200; i++){
+                    journal.append(JournalRecord.balance("ACC001", 1));
+                    journal.sync();
+                }
+            }));
+        }
+        for(Future<?> f : futures){
+            f.get();
+        }
+        pool.shutdown();
+        journal.close();
+
+        List<JournalRecord> replayed = reopen(64);
+        Assertions.assertEquals(1600, replayed.size());
+        for(int i = 0; i < replayed.size(); i++){
+            Assertions.assertEquals(i, replayed.get(i).getSequence());
+        }
+        System.out.println("done with concurrent writers");
+    }
+}
@@ -0,0 +1,140 @@
+package com.repository;
+
+import com.enums.TransactionStatus;
+import com.enums.TransactionType;
+import com.model.Transactions;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Counts the commands the driver actually sends for a history read, so a read that
+ * goes back to one round trip per transaction fails here.
+ * Needs a MongoDB at -Dbank.test.mongodb-uri (default localhost:27017), skipped without one.
+ */
+public class TransactionHistoryCommandCountTest {
+
+    static final String DATABASE = "bankapplication_command_count";
+
+    final Map<String, AtomicInteger> commands = new ConcurrentHashMap<>();
+
+    MongoClient client;
+    MongoTemplate mongoTemplate;
+    TransactionRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void connect() {
+        CommandListener listener = new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                if(DATABASE.equals(event.getDatabaseName())){
+                    commands.computeIfAbsent(event.getCommandName(), c -> new AtomicInteger()).incrementAndGet();
+                }
+            }
+        };
+        String uri = System.getProperty("bank.test.mongodb-uri", "mongodb://localhost:27017");
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+                .addCommandListener(listener)
+                .build());
+        try {
+            client.getDatabase("admin").runCommand(new Document("ping", 1));
+        } catch (MongoException e) {
+            client.close();
+            client = null;
+            Assumptions.abort("No MongoDB at " + uri);
+        }
+        mongoTemplate = new MongoTemplate(client, DATABASE);
+        repository = new TransactionRepositoryCustomImpl();
+        ReflectionTestUtils.setField(repository, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(repository, "batchSize", 100);
+    }
+
+    @AfterEach
+    void drop() {
+        if(client != null){
+            client.getDatabase(DATABASE).drop();
+            client.close();
+        }
+    }
+
+    @Test
+    void testHistoryPageCommandsDoNotGrowWithHistory() {
+        insertHistory("ACC001", 10);
+        insertHistory("ACC002", 2000);
+
+        for(String account : List.of("ACC001", "ACC002")){
+            commands.clear();
+            List<Transactions> page = repository.findHistoryPage(account, null, null, null, null, false, 51);
+
+            Assertions.assertFalse(page.isEmpty());
+            // one find for the page, nothing per transaction
+            Assertions.assertEquals(Map.of("find", 1), counts(), account);
+        }
+
+        System.out.println("done with history page command count");
+    }
+
+    @Test
+    void testFullHistoryCommandsGrowByBatchNotByTransaction() {
+        insertHistory("ACC001", 1000);
+        commands.clear();
+
+        List<Transactions> history = repository.findAllByAccount("ACC001");
+
+        Assertions.assertEquals(1000, history.size());
+        // 100 per round trip: one find and at most ten getMores, never a findById per transaction
+        Map<String, Integer> counts = counts();
+        Assertions.assertEquals(1, counts.remove("find"));
+        Assertions.assertTrue(counts.getOrDefault("getMore", 0) <= 10, counts.toString());
+        counts.remove("getMore");
+        Assertions.assertTrue(counts.isEmpty(), counts.toString());
+
+        System.out.println("done with full history command count");
+    }
+
+    Map<String, Integer> counts() {
+        Map<String, Integer> counts = new ConcurrentHashMap<>();
+        commands.forEach((name, count) -> counts.put(name, count.get()));
+        return counts;
+    }
+
+    void insertHistory(String accountNumber, int count) {
+        List<Transactions> txns = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        for(int i = 0; i < count; i++){
+            Transactions txn = new Transactions();
+            txn.setTransactionId(UUID.randomUUID().toString());
+            txn.setType(TransactionType.DEPOSIT);
+            txn.setAmount(100);
+            txn.setStatus(TransactionStatus.SUCCESS);
+            txn.setDestinationAccount(accountNumber);
+            txn.setAccountNumbers(List.of(accountNumber));
+            txn.setTimestamp(start.plusSeconds(i));
+            txns.add(txn);
+        }
+        mongoTemplate.insert(txns, Transactions.class);
+    }
+}
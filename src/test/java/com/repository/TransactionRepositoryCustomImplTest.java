@@ -0,0 +1,70 @@
+package com.repository;
+
+import com.model.Transactions;
+import com.utils.TransactionCursor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionRepositoryCustomImplTest {
+
+    @Mock
+    MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    TransactionRepositoryCustomImpl repository;
+
+    @Test
+    void testFindAllByAccountQueriesInCursorBatches() {
+        ReflectionTestUtils.setField(repository, "batchSize", 250);
+        when(mongoTemplate.find(any(Query.class), eq(Transactions.class))).thenReturn(List.of(new Transactions()));
+
+        repository.findAllByAccount("ACC001");
+
+        // one find over the multikey accountNumbers index, oldest first, fetched 250 documents per batch
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Transactions.class));
+        verifyNoMoreInteractions(mongoTemplate);
+
+        Assertions.assertEquals(new Document("accountNumbers", "ACC001"), query.getValue().getQueryObject());
+        Assertions.assertEquals(new Document("timestamp", 1).append("_id", 1), query.getValue().getSortObject());
+        Assertions.assertEquals(250, query.getValue().getMeta().getCursorBatchSize());
+
+        System.out.println("done with history batched query");
+    }
+
+    @Test
+    void testFindHistoryPageQueryShape() {
+        LocalDateTime at = LocalDateTime.of(2026, 10, 18, 9, 30);
+        ObjectId id = new ObjectId();
+        repository.findHistoryPage("ACC001", null, null, null, new TransactionCursor(at, id.toHexString()), false, 51);
+
+        // one limited find, newest first, continuing strictly before the cursor's (timestamp, _id)
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Transactions.class));
+        verifyNoMoreInteractions(mongoTemplate);
+        Assertions.assertEquals(51, query.getValue().getLimit());
+        Assertions.assertEquals(new Document("timestamp", -1).append("_id", -1), query.getValue().getSortObject());
+        Document filter = new Document("$and", List.of(new Document("accountNumbers", "ACC001"),
+                new Document("$or", List.of(new Document("timestamp", new Document("$lt", at)),
+                        new Document("timestamp", at).append("_id", new Document("$lt", id))))));
+        Assertions.assertEquals(filter, query.getValue().getQueryObject());
+
+        System.out.println("done with history page query");
+    }
+}
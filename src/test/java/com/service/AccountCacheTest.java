@@ -0,0 +1,81 @@
+package com.service;
+
+import com.exceptions.AccountNotFoundException;
+import com.model.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AccountCacheTest {
+
+    AccountCache cache;
+    SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new AccountCache();
+        cache.maxSize = 2;
+        cache.meterRegistry = registry;
+        cache.init();
+    }
+
+    private Account account(String number, long balance, long revision) {
+        Account acc = new Account();
+        acc.setAccountNumber(number);
+        acc.setBalance(balance);
+        acc.setRevision(revision);
+        return acc;
+    }
+
+    @Test
+    void testSecondReadIsServedFromCache() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("ACC001", () -> { loads.incrementAndGet(); return account("ACC001", 1000, 1); });
+        cache.get("ACC001", () -> { loads.incrementAndGet(); return account("ACC001", 1000, 1); });
+
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(1.0, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        System.out.println("done with cache hit");
+    }
+
+    @Test
+    void testWriteUpdatesCachedBalance() {
+        cache.get("ACC001", () -> account("ACC001", 1000, 1));
+        cache.refresh(account("ACC001", 6000, 2));
+
+        Assertions.assertEquals(new BigDecimal("60.00"), cache.get("ACC001", () -> account("ACC001", 1000, 1)).getBalance());
+        System.out.println("done with cache refresh");
+    }
+
+    @Test
+    void testOlderRevisionNeverReplacesNewer() {
+        cache.refresh(account("ACC001", 6000, 5));
+        // a slower writer finishing late
+        cache.refresh(account("ACC001", 4000, 4));
+
+        Assertions.assertEquals(new BigDecimal("60.00"), cache.get("ACC001", () -> account("ACC001", 0, 0)).getBalance());
+        System.out.println("done with cache revision check");
+    }
+
+    @Test
+    void testMissingAccountIsNotCached() {
+        Assertions.assertThrows(AccountNotFoundException.class,
+                () -> cache.get("XXX", () -> { throw new AccountNotFoundException("Account not found"); }));
+        Assertions.assertEquals(new BigDecimal("5.00"), cache.get("XXX", () -> account("XXX", 500, 0)).getBalance());
+    }
+
+    @Test
+    void testDisabledCacheAlwaysLoads() {
+        AccountCache off = new AccountCache();
+        off.init();
+        AtomicInteger loads = new AtomicInteger();
+        off.get("ACC001", () -> { loads.incrementAndGet(); return account("ACC001", 100, 0); });
+        off.get("ACC001", () -> { loads.incrementAndGet(); return account("ACC001", 100, 0); });
+        Assertions.assertEquals(2, loads.get());
+    }
+}
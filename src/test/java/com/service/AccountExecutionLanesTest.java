@@ -0,0 +1,151 @@
+package com.service;
+
+import com.exceptions.InsufficientBalanceException;
+import com.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AccountExecutionLanesTest {
+
+    AccountExecutionLanes lanes;
+
+    private AccountExecutionLanes startLanes(int count) {
+        lanes = new AccountExecutionLanes();
+        lanes.laneCount = count;
+        lanes.meterRegistry = new SimpleMeterRegistry();
+        lanes.start();
+        return lanes;
+    }
+
+    @AfterEach
+    void stop() {
+        if (lanes != null) {
+            lanes.stop();
+        }
+    }
+
+    @Test
+    void testSameAccountRunsOneAtATime() throws Exception {
+        startLanes(4);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int n = i;
+            futures.add(callers.submit(() -> lanes.execute("ACC001", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                order.add(n);
+                running.decrementAndGet();
+                return n;
+            })));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        callers.shutdown();
+
+        Assertions.assertEquals(1, maxRunning.get());
+        Assertions.assertEquals(200, order.size());
+        System.out.println("done with single writer lane");
+    }
+
+    @Test
+    void testDifferentLanesRunInParallel() throws Exception {
+        startLanes(2);
+        // find two accounts on different lanes
+        String a = "ACC0";
+        String b = null;
+        for (int i = 1; b == null; i++) {
+            if (lanes.laneOf("ACC" + i) != lanes.laneOf(a)) b = "ACC" + i;
+        }
+        String other = b;
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        Future<Boolean> fa = callers.submit(() -> lanes.execute(a, () -> awaitQuietly(bothStarted)));
+        Future<Boolean> fb = callers.submit(() -> lanes.execute(other, () -> awaitQuietly(bothStarted)));
+
+        Assertions.assertTrue(fa.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(fb.get(5, TimeUnit.SECONDS));
+        callers.shutdown();
+        System.out.println("done with parallel lanes");
+    }
+
+    @Test
+    void testExceptionsReachTheCaller() {
+        startLanes(2);
+        Assertions.assertThrows(InsufficientBalanceException.class, () -> lanes.execute("ACC001", () -> {
+            throw new InsufficientBalanceException("Insufficient balance");
+        }));
+        System.out.println("done with lane exceptions");
+    }
+
+    @Test
+    void testNestedCallOnSameLaneRunsInline() {
+        startLanes(2);
+        int result = lanes.execute("ACC001", () -> lanes.execute("ACC001", () -> 42));
+        Assertions.assertEquals(42, result);
+        Assertions.assertEquals(1, lanes.meterRegistry.get("bank.lanes.wait").timer().count());
+        System.out.println("done with nested lane call");
+    }
+
+    @Test
+    void testExecuteAlwaysRunsWhenTheLaneIsFull() throws Exception {
+        lanes = new AccountExecutionLanes();
+        lanes.laneCount = 1;
+        lanes.queueCapacity = 1;
+        lanes.start();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        callers.submit(() -> lanes.execute("ACC001", () -> {
+            running.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }));
+        Assertions.assertTrue(running.await(5, TimeUnit.SECONDS));
+        Thread[] queued = new Thread[1];
+        callers.submit(() -> {
+            queued[0] = Thread.currentThread();
+            return lanes.execute("ACC001", () -> true);
+        });
+        while (queued[0] == null || queued[0].getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+
+        Assertions.assertThrows(ServiceBusyException.class, () -> lanes.execute("ACC002", () -> true));
+        Thread caller = Thread.currentThread();
+        Assertions.assertSame(caller, lanes.executeAlways("ACC002", Thread::currentThread));
+        release.countDown();
+        callers.shutdown();
+        System.out.println("done with execute always");
+    }
+
+    @Test
+    void testDisabledLanesRunOnCaller() {
+        startLanes(0);
+        Thread caller = Thread.currentThread();
+        Assertions.assertSame(caller, lanes.execute("ACC001", Thread::currentThread));
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.service;
+
+import com.model.Account;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.stream.Stream;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountExistenceFilterTest {
+
+    @Mock
+    MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    AccountExistenceFilter accountFilter;
+
+    @BeforeEach
+    void start() {
+        accountFilter.confirmMisses = true;
+        accountFilter.open(Stream.of("KIRA1000", "KIRA1001"));
+    }
+
+    private static Account created(String accountNumber){
+        Account acc = AccountService.newAccount("Other node", accountNumber);
+        acc.setId(new ObjectId().toHexString());
+        return acc;
+    }
+
+    @Test
+    void testMissConfirmedByCatchUp() {
+        // created on another node since the filter was loaded
+        when(mongoTemplate.stream(any(Query.class), eq(Account.class)))
+                .thenReturn(Stream.of(created("NODE2000")))
+                .thenReturn(Stream.empty());
+
+        Assertions.assertTrue(accountFilter.mightExist("KIRA1000"));
+        Assertions.assertTrue(accountFilter.mightExist("NODE2000"));
+        // found by the first catch-up, no second one
+        Assertions.assertTrue(accountFilter.mightExist("NODE2000"));
+        Assertions.assertFalse(accountFilter.mightExist("NONE9999"));
+
+        verify(mongoTemplate, times(2)).stream(any(Query.class), eq(Account.class));
+        Assertions.assertEquals(1, accountFilter.rejectedCount());
+        System.out.println("done with confirmed filter misses");
+    }
+
+    @Test
+    void testFailedCatchUpLetsTheNumberThrough() {
+        when(mongoTemplate.stream(any(Query.class), eq(Account.class)))
+                .thenThrow(new DataAccessResourceFailureException("db down"));
+
+        // could be an account of another node, the db has to answer it
+        Assertions.assertTrue(accountFilter.mightExist("NODE2000"));
+        Assertions.assertEquals(0, accountFilter.rejectedCount());
+        System.out.println("done with failed filter catch-up");
+    }
+}
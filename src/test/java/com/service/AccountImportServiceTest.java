@@ -0,0 +1,114 @@
+package com.service;
+
+import com.dto.AccountImportEventDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.model.Account;
+import com.repository.AccountRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.*;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountImportServiceTest {
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    AccountNumberAllocator accountNumberAllocator;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    AccountExistenceFilter accountFilter = new AccountExistenceFilter();
+
+    @InjectMocks
+    AccountImportService accountImportService;
+
+    private AccountImportEventDTO run(String upload, AccountImportService.Format format, List<AccountImportEventDTO> events) throws Exception {
+        return accountImportService.importAccounts(new BufferedReader(new StringReader(upload)), format, events::add);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCsvImportInBatches() throws Exception {
+        accountImportService.batchSize = 2;
+        when(accountNumberAllocator.next(anyString(), anyInt())).thenReturn("KIRA1000", "RAVI1000", "SMIT1000");
+        List<List<String>> inserted = new ArrayList<>();
+        when(accountRepository.insertAllUnordered(anyList())).thenAnswer(inv -> {
+            inserted.add(((List<Account>) inv.getArgument(0)).stream().map(Account::getHolderName).toList());
+            return Set.of();
+        });
+
+        List<AccountImportEventDTO> events = new ArrayList<>();
+        AccountImportEventDTO summary = run("holderName,city\nKiran,Pune\n,Delhi\n\"Ravi, Jr\",Goa\n\nSmith\n",
+                AccountImportService.Format.CSV, events);
+
+        // header skipped, two inserts for three good rows
+        Assertions.assertEquals(List.of(List.of("Kiran", "Ravi, Jr"), List.of("Smith")), inserted);
+        Assertions.assertEquals(4, summary.getProcessed());
+        Assertions.assertEquals(3, summary.getImported());
+        Assertions.assertEquals(1, summary.getFailed());
+        Assertions.assertEquals(AccountImportEventDTO.ERROR, events.get(0).getType());
+        Assertions.assertEquals(3, events.get(0).getLine());
+        Assertions.assertEquals(AccountImportEventDTO.PROGRESS, events.get(1).getType());
+        Assertions.assertEquals(AccountImportEventDTO.DONE, events.get(events.size() - 1).getType());
+        System.out.println("done with csv import");
+    }
+
+    @Test
+    void testNdjsonImportRetriesTakenNumbers() throws Exception {
+        when(accountNumberAllocator.next(anyString(), anyInt())).thenReturn("KIRA1000", "RAVI1000", "KIRA1001");
+        // first number of the batch belongs to an old account
+        when(accountRepository.insertAllUnordered(anyList())).thenReturn(Set.of(0)).thenReturn(Set.of());
+
+        List<AccountImportEventDTO> events = new ArrayList<>();
+        AccountImportEventDTO summary = run("{\"holderName\":\"Kiran\"}\n{\"holderName\":\"Ravi\"}\n{oops\n",
+                AccountImportService.Format.NDJSON, events);
+
+        Assertions.assertEquals(3, summary.getProcessed());
+        Assertions.assertEquals(2, summary.getImported());
+        Assertions.assertEquals(1, summary.getFailed());
+        Assertions.assertEquals("Malformed JSON", events.get(0).getMessage());
+        verify(accountRepository, times(2)).insertAllUnordered(anyList());
+        verify(accountNumberAllocator, times(3)).next(anyString(), anyInt());
+        System.out.println("done with ndjson import");
+    }
+
+    @Test
+    void testLeasesFollowTheRowsPerPrefix() throws Exception {
+        accountImportService.numberBlockSize = 2;
+        when(accountNumberAllocator.next(anyString(), anyInt())).thenReturn("KIRA1000", "KIRA1001", "KIRA1002", "RAVI1000");
+        when(accountRepository.insertAllUnordered(anyList())).thenReturn(Set.of());
+
+        run("Kiran\nRavi\nKiran Kumar\nKiran\n", AccountImportService.Format.CSV, new ArrayList<>());
+
+        // three KIRA rows: capped at 2, then the 2 and 1 still to come; one RAVI row leases 1, not a block
+        InOrder leases = inOrder(accountNumberAllocator);
+        leases.verify(accountNumberAllocator).next("Kiran", 2);
+        leases.verify(accountNumberAllocator).next("Ravi", 1);
+        leases.verify(accountNumberAllocator).next("Kiran Kumar", 2);
+        leases.verify(accountNumberAllocator).next("Kiran", 1);
+        System.out.println("done with import lease sizes");
+    }
+
+    @Test
+    void testFirstCsvField() {
+        Assertions.assertEquals("Kiran", AccountImportService.firstCsvField("Kiran,Pune"));
+        Assertions.assertEquals("Kiran", AccountImportService.firstCsvField("Kiran"));
+        Assertions.assertEquals("Say \"hi\", ok", AccountImportService.firstCsvField("\"Say \"\"hi\"\", ok\",x"));
+        System.out.println("done with csv field");
+    }
+}
@@ -0,0 +1,71 @@
+package com.service;
+
+import com.repository.CounterRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountNumberAllocatorTest {
+
+    @Mock
+    CounterRepository counterRepository;
+
+    @InjectMocks
+    AccountNumberAllocator allocator;
+
+    @Test
+    void testNumbersComeFromLeasedBlock() {
+        allocator.blockSize = 3;
+        when(counterRepository.reserveBlock("account:KIRA", 3)).thenReturn(0L, 3L);
+
+        Assertions.assertEquals("KIRA10000", allocator.next("Kiran"));
+        Assertions.assertEquals("KIRA10001", allocator.next("kiran kumar"));
+        Assertions.assertEquals("KIRA10002", allocator.next("Kiran"));
+        Assertions.assertEquals("KIRA10003", allocator.next("Kiran"));
+
+        // one round trip per block, not per account
+        verify(counterRepository, times(2)).reserveBlock("account:KIRA", 3);
+        System.out.println("done with allocator blocks");
+    }
+
+    @Test
+    void testNumbersStartPastTheRandomRange() {
+        when(counterRepository.reserveBlock("account:KUMA", 100)).thenReturn(0L);
+
+        // old random numbers are 1000-9999, the first allocated one is already past them
+        Assertions.assertEquals("KUMA10000", allocator.next("Kumar"));
+        Assertions.assertEquals("KUMA10001", allocator.next("Kumar"));
+        System.out.println("done with allocator start");
+    }
+
+    @Test
+    void testConcurrentAllocationIsUnique() throws Exception {
+        allocator.blockSize = 10;
+        AtomicLong counter = new AtomicLong();
+        when(counterRepository.reserveBlock("account:KIRA", 10)).thenAnswer(i -> counter.getAndAdd(10));
+
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 2000; i++) {
+            pool.submit(() -> numbers.add(allocator.next("Kiran")));
+        }
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(2000, numbers.size());
+        System.out.println("done with concurrent allocation");
+    }
+}
@@ -8,6 +8,7 @@ import com.exceptions.AccountNotFoundException;
 import com.exceptions.InsufficientBalanceException;
 import com.exceptions.InvalidAmountException;
 import com.exceptions.InvalidInputException;
+import com.exceptions.TransferAbortedException;
 import com.model.Account;
 import com.model.Transactions;
 import com.repository.AccountRepository;
@@ -17,10 +18,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.mockito.Mockito.*;
 
@@ -33,6 +43,37 @@ public class AccountServiceTest {
     @Mock
     TransactionRepository transactionRepository;
 
+    @Mock
+    AccountNumberAllocator accountNumberAllocator;
+
+    // lanes switched off, mutations run on the test thread
+    @Spy
+    AccountExecutionLanes executionLanes = new AccountExecutionLanes();
+
+    // coalescing switched off
+    @Spy
+    DepositCoalescer depositCoalescer = new DepositCoalescer();
+
+    // cache switched off, reads go to the repository
+    @Spy
+    AccountCache accountCache = new AccountCache();
+
+    // filter switched off, every account number goes to the repository
+    @Spy
+    AccountExistenceFilter accountFilter = new AccountExistenceFilter();
+
+    // write-behind switched off, transactions are inserted right away
+    @Spy
+    TransactionWriter transactionWriter = new TransactionWriter();
+
+    // no striped accounts
+    @Spy
+    StripedAccounts stripedAccounts = new StripedAccounts();
+
+    // daily rollups switched off
+    @Spy
+    DailyRollups dailyRollups = new DailyRollups();
+
     @InjectMocks
     AccountService accountService;
 
@@ -46,23 +87,40 @@ public class AccountServiceTest {
         acc.setId("1");
         acc.setHolderName("Kiran");
         acc.setAccountNumber("KIRA6771"); // dynamic value, no need to check exact
-        acc.setBalance(0.0);
+        acc.setBalance(0);
         acc.setStatus(AccountStatus.ACTIVE);
         acc.setCreatedAt(LocalDateTime.now());
 
-        when(accountRepository.existsByAccountNumber(anyString())).thenReturn(false);
-        when(accountRepository.save(any(Account.class))).thenReturn(acc);
+        when(accountNumberAllocator.next("Kiran")).thenReturn("KIRA1000");
+        when(accountRepository.insert(any(Account.class))).thenReturn(acc);
 
         AccountResponseDTO response = accountService.createAccount(dto);
 
         Assertions.assertEquals("Kiran", response.getHolderName());
+        Assertions.assertEquals("KIRA1000", response.getAccountNumber());
 
-        // Don't check exact account number — it's random
-        Assertions.assertNotNull(response.getAccountNumber());
-        Assertions.assertFalse(response.getAccountNumber().isEmpty());
+        // no probing for free numbers, just one insert
+        verify(accountRepository, never()).existsByAccountNumber(anyString());
+        verify(accountRepository, times(1)).insert(any(Account.class));
         System.out.println("done with account creation");
     }
 
+    @Test
+    void testCreateAccountSkipsTakenNumber() {
+        AccountRequestDTO dto = new AccountRequestDTO();
+        dto.setHolderName("Kiran");
+
+        when(accountNumberAllocator.next("Kiran")).thenReturn("KIRA1000", "KIRA1001");
+        when(accountRepository.insert(any(Account.class)))
+                .thenThrow(new DuplicateKeyException("taken"))
+                .thenAnswer(i -> i.getArguments()[0]);
+
+        AccountResponseDTO response = accountService.createAccount(dto);
+
+        Assertions.assertEquals("KIRA1001", response.getAccountNumber());
+        System.out.println("done with account creation on taken number");
+    }
+
 
     @Test
     void testCreateAccountMissingName() {
@@ -82,20 +140,18 @@ public class AccountServiceTest {
     void testDepositSuccess() {
         DepositRequestDTO dto = new DepositRequestDTO();
         dto.setAccountNumber("ACC001");
-        dto.setAmount(100.0);
+        dto.setAmount(new BigDecimal("100"));
 
         Account acc = new Account();
         acc.setAccountNumber("ACC001");
-        acc.setBalance(500.0);
-        acc.setTransactions(new ArrayList<>());
+        acc.setBalance(60000);
 
-        when(accountRepository.findByAccountNumber("ACC001")).thenReturn(Optional.of(acc));
-        when(transactionRepository.save(any(Transactions.class))).thenAnswer(i -> i.getArguments()[0]);
-        when(accountRepository.save(any(Account.class))).thenReturn(acc);
+        when(accountRepository.creditBalance(eq("ACC001"), eq(10000L))).thenReturn(Optional.of(acc));
+        when(transactionRepository.insert(any(Transactions.class))).thenAnswer(i -> i.getArguments()[0]);
 
         TransactionResponseDTO response = accountService.deposit(dto);
 
-        Assertions.assertEquals(600.0, acc.getBalance());
+        Assertions.assertEquals("ACC001", response.getDestinationAccount());
         Assertions.assertEquals(TransactionType.DEPOSIT, response.getType());
         Assertions.assertEquals(TransactionStatus.SUCCESS, response.getStatus());
     }
@@ -104,17 +160,18 @@ public class AccountServiceTest {
     void testdepsuccess(){
         DepositRequestDTO dto = new DepositRequestDTO();
         dto.setAccountNumber("ACC001");
-        dto.setAmount(100.0);
+        dto.setAmount(new BigDecimal("100"));
 
         Account acc = new Account();
         acc.setAccountNumber("ACC001");
-        acc.setBalance(500.0);
+        acc.setBalance(60000);
 
-        when(accountRepository.findByAccountNumber("ACC001")).thenReturn(Optional.of(acc));
-        when(accountRepository.save(any(Account.class))).thenReturn(acc);
+        when(accountRepository.creditBalance(eq("ACC001"), eq(10000L))).thenReturn(Optional.of(acc));
 
         TransactionResponseDTO responseDTO = accountService.deposit(dto);
-        Assertions.assertEquals(600.0,acc.getBalance());
+        Assertions.assertEquals(new BigDecimal("100.00"),responseDTO.getAmount());
+        // balance is changed by the db, the service must never write the whole account back
+        verify(accountRepository, never()).save(any(Account.class));
 
         System.out.println("done with deposit success");
     }
@@ -124,7 +181,7 @@ public class AccountServiceTest {
     void testDepositInvalidAmount() {
         DepositRequestDTO dto = new DepositRequestDTO();
         dto.setAccountNumber("ACC001");
-        dto.setAmount(-10.0);
+        dto.setAmount(new BigDecimal("-10"));
 
         Assertions.assertThrows(InvalidAmountException.class, () -> {
             accountService.deposit(dto);
@@ -132,14 +189,27 @@ public class AccountServiceTest {
         System.out.println("done with deposit invalid amount");
     }
 
+    @Test
+    void testDepositFractionOfCent() {
+        DepositRequestDTO dto = new DepositRequestDTO();
+        dto.setAccountNumber("ACC001");
+        dto.setAmount(new BigDecimal("10.005"));
+
+        Assertions.assertThrows(InvalidAmountException.class, () -> {
+            accountService.deposit(dto);
+        });
+        verify(accountRepository, never()).creditBalance(any(), anyLong());
+        System.out.println("done with deposit fraction of cent");
+    }
+
 
     @Test
     void testDepositAccountNotFound() {
         DepositRequestDTO dto = new DepositRequestDTO();
         dto.setAccountNumber("XXX");
-        dto.setAmount(100.0);
+        dto.setAmount(new BigDecimal("100"));
 
-        when(accountRepository.findByAccountNumber("XXX")).thenReturn(Optional.empty());
+        when(accountRepository.creditBalance(eq("XXX"), eq(10000L))).thenReturn(Optional.empty());
 
         Assertions.assertThrows(AccountNotFoundException.class, () -> {
             accountService.deposit(dto);
@@ -147,24 +217,53 @@ public class AccountServiceTest {
         System.out.println("done with deposit account not found");
     }
 
+    @Test
+    void testUnknownAccountRejectedByFilter() {
+        accountFilter.confirmMisses = false;
+        accountFilter.open(Stream.of("ACC001", "ACC002"));
+
+        DepositRequestDTO deposit = new DepositRequestDTO();
+        deposit.setAccountNumber("XXX");
+        deposit.setAmount(new BigDecimal("100"));
+        TransferRequestDTO transfer = new TransferRequestDTO();
+        transfer.setFromAccount("ACC001");
+        transfer.setToAccount("XXX");
+        transfer.setAmount(new BigDecimal("100"));
+
+        Assertions.assertThrows(AccountNotFoundException.class, () -> accountService.deposit(deposit));
+        Assertions.assertThrows(AccountNotFoundException.class, () -> accountService.transfer(transfer));
+        Assertions.assertThrows(AccountNotFoundException.class, () -> accountService.getAccountDetails("XXX"));
+        Assertions.assertThrows(AccountNotFoundException.class, () -> accountService.getTransactionsByAccount("XXX"));
+
+        // turned away without a db call
+        verifyNoInteractions(accountRepository, transactionRepository);
+        Assertions.assertEquals(4, accountFilter.rejectedCount());
+
+        // known numbers still go to the db
+        when(accountRepository.findByAccountNumber("ACC002")).thenReturn(Optional.empty());
+        Assertions.assertThrows(AccountNotFoundException.class, () -> accountService.getAccountDetails("ACC002"));
+        verify(accountRepository).findByAccountNumber("ACC002");
+        System.out.println("done with unknown account rejected by filter");
+    }
+
     // ========== WITHDRAW ==========
     @Test
     void testWithdrawSuccess() {
         WithdrawRequestDTO dto = new WithdrawRequestDTO();
         dto.setAccountNumber("ACC001");
-        dto.setAmount(200.0);
+        dto.setAmount(new BigDecimal("200"));
 
         Account acc = new Account();
         acc.setAccountNumber("ACC001");
-        acc.setBalance(500.0);
+        acc.setBalance(30000);
 //        acc.setTransactions(new ArrayList<>());
 
-        when(accountRepository.findByAccountNumber("ACC001")).thenReturn(Optional.of(acc));
+        when(accountRepository.debitBalanceIfSufficient(eq("ACC001"), eq(20000L))).thenReturn(Optional.of(acc));
 //        when(transactionRepository.save(any(Transactions.class))).thenAnswer(i -> i.getArguments()[0]);
 
         TransactionResponseDTO response = accountService.withdraw(dto);
 
-        Assertions.assertEquals(300.0, acc.getBalance());
+        Assertions.assertEquals("ACC001", response.getSourceAccount());
 //        Assertions.assertEquals(TransactionType.WITHDRAW, response.getType());
         System.out.println("withdraw success test done");
     }
@@ -173,13 +272,10 @@ public class AccountServiceTest {
     void testWithdrawInsufficientBalance() {
         WithdrawRequestDTO dto = new WithdrawRequestDTO();
         dto.setAccountNumber("ACC001");
-        dto.setAmount(600.0);
+        dto.setAmount(new BigDecimal("600"));
 
-        Account acc = new Account();
-        acc.setAccountNumber("ACC001");
-        acc.setBalance(300.0);
-
-        when(accountRepository.findByAccountNumber("ACC001")).thenReturn(Optional.of(acc));
+        when(accountRepository.debitBalanceIfSufficient(eq("ACC001"), eq(60000L))).thenReturn(Optional.empty());
+        when(accountRepository.existsByAccountNumber("ACC001")).thenReturn(true);
 
         Assertions.assertThrows(InsufficientBalanceException.class, () -> {
             accountService.withdraw(dto);
@@ -191,7 +287,7 @@ public class AccountServiceTest {
     void testWithdrawEmptyAccountNumber(){
         WithdrawRequestDTO dto = new WithdrawRequestDTO();
         dto.setAccountNumber("");
-        dto.setAmount(500.0);
+        dto.setAmount(new BigDecimal("500"));
 
         Assertions.assertThrows(InvalidInputException.class,()->{
            accountService.withdraw(dto);
@@ -204,7 +300,7 @@ public class AccountServiceTest {
     void testWithdrawEmptyAmount(){
         WithdrawRequestDTO dto = new WithdrawRequestDTO();
         dto.setAccountNumber("ACC001");
-        dto.setAmount(0.0);
+        dto.setAmount(new BigDecimal("0"));
 
         Assertions.assertThrows(InvalidAmountException.class,()->{
             accountService.withdraw(dto);
@@ -217,10 +313,11 @@ public class AccountServiceTest {
     void testWithdrawAccountNotFound(){
         WithdrawRequestDTO dto = new WithdrawRequestDTO();
         dto.setAccountNumber("ACC001");
-        dto.setAmount(500.0);
+        dto.setAmount(new BigDecimal("500"));
 
-        when(accountRepository.findByAccountNumber(dto.getAccountNumber()))
+        when(accountRepository.debitBalanceIfSufficient(eq(dto.getAccountNumber()), eq(50000L)))
                 .thenReturn(Optional.empty());
+        when(accountRepository.existsByAccountNumber(dto.getAccountNumber())).thenReturn(false);
 
         Assertions.assertThrows(AccountNotFoundException.class,()->{
             accountService.withdraw(dto);
@@ -237,26 +334,28 @@ public class AccountServiceTest {
         TransferRequestDTO dto = new TransferRequestDTO();
         dto.setFromAccount("A1");
         dto.setToAccount("A2");
-        dto.setAmount(100.0);
+        dto.setAmount(new BigDecimal("100"));
 
         Account acc1 = new Account();
         acc1.setAccountNumber("A1");
-        acc1.setBalance(500.0);
+        acc1.setBalance(40000);
 //        acc1.setTransactions(new ArrayList<>());
 
         Account acc2 = new Account();
         acc2.setAccountNumber("A2");
-        acc2.setBalance(200.0);
+        acc2.setBalance(30000);
 //        acc2.setTransactions(new ArrayList<>());
 
-        when(accountRepository.findByAccountNumber("A1")).thenReturn(Optional.of(acc1));
-        when(accountRepository.findByAccountNumber("A2")).thenReturn(Optional.of(acc2));
+        when(accountRepository.existsByAccountNumber("A2")).thenReturn(true);
+        when(accountRepository.debitBalanceIfSufficient(eq("A1"), eq(10000L))).thenReturn(Optional.of(acc1));
+        when(accountRepository.creditBalance(eq("A2"), eq(10000L))).thenReturn(Optional.of(acc2));
 //        when(transactionRepository.save(any(Transactions.class))).thenAnswer(i -> i.getArguments()[0]);
 
         TransactionResponseDTO response = accountService.transfer(dto);
 
-        Assertions.assertEquals(400.0, acc1.getBalance());
-        Assertions.assertEquals(300.0, acc2.getBalance());
+        Assertions.assertEquals("A1", response.getSourceAccount());
+        Assertions.assertEquals("A2", response.getDestinationAccount());
+        verify(transactionRepository).insert(any(Transactions.class));
 //        Assertions.assertEquals(TransactionType.TRANSFER, response.getType());
         System.out.println("done with transfer success");
     }
@@ -266,22 +365,16 @@ public class AccountServiceTest {
         TransferRequestDTO dto = new TransferRequestDTO();
         dto.setFromAccount("A1");
         dto.setToAccount("A2");
-        dto.setAmount(900.0);
+        dto.setAmount(new BigDecimal("900"));
 
-        Account acc1 = new Account();
-        acc1.setAccountNumber("A1");
-        acc1.setBalance(100.0);
-
-        Account acc2 = new Account();
-        acc2.setAccountNumber("A2");
-        acc2.setBalance(100.0);
-
-        when(accountRepository.findByAccountNumber("A1")).thenReturn(Optional.of(acc1));
-        when(accountRepository.findByAccountNumber("A2")).thenReturn(Optional.of(acc2));
+        when(accountRepository.existsByAccountNumber("A2")).thenReturn(true);
+        when(accountRepository.debitBalanceIfSufficient(eq("A1"), eq(90000L))).thenReturn(Optional.empty());
+        when(accountRepository.existsByAccountNumber("A1")).thenReturn(true);
 
         Assertions.assertThrows(InsufficientBalanceException.class, () -> {
             accountService.transfer(dto);
         });
+        verify(accountRepository, never()).creditBalance(any(), anyLong());
 
         System.out.println("done with transfer insufficient balance");
     }
@@ -291,7 +384,7 @@ public class AccountServiceTest {
         TransferRequestDTO dto = new TransferRequestDTO();
         dto.setFromAccount("A1");
         dto.setToAccount("A2");
-        dto.setAmount(0.0);
+        dto.setAmount(new BigDecimal("0"));
 
         Assertions.assertThrows(InvalidAmountException.class,()->{
             accountService.transfer(dto);
@@ -305,7 +398,7 @@ public class AccountServiceTest {
         TransferRequestDTO dto = new TransferRequestDTO();
         dto.setFromAccount("A1");
         dto.setToAccount("A1");
-        dto.setAmount(100.0);
+        dto.setAmount(new BigDecimal("100"));
 
         Assertions.assertThrows(InvalidInputException.class,()->{
             accountService.transfer(dto);
@@ -319,9 +412,11 @@ public class AccountServiceTest {
         TransferRequestDTO dto = new TransferRequestDTO();
         dto.setFromAccount("A1");
         dto.setToAccount("A2");
-        dto.setAmount(100.0);
+        dto.setAmount(new BigDecimal("100"));
 
-        when(accountRepository.findByAccountNumber("A1")).thenReturn(Optional.empty());
+        when(accountRepository.existsByAccountNumber("A2")).thenReturn(true);
+        when(accountRepository.debitBalanceIfSufficient(eq("A1"), eq(10000L))).thenReturn(Optional.empty());
+        when(accountRepository.existsByAccountNumber("A1")).thenReturn(false);
 
         Assertions.assertThrows(AccountNotFoundException.class,()->{
             accountService.transfer(dto);
@@ -335,23 +430,98 @@ public class AccountServiceTest {
         TransferRequestDTO dto = new TransferRequestDTO();
         dto.setFromAccount("A1");
         dto.setToAccount("A2");
-        dto.setAmount(100.0);
-
-        Account acc1 = new Account();
-        acc1.setAccountNumber(dto.getToAccount());
-        acc1.setBalance(100.0);
+        dto.setAmount(new BigDecimal("100"));
 
-        when(accountRepository.findByAccountNumber("A1")).thenReturn(Optional.of(acc1));
-        when(accountRepository.findByAccountNumber("A2")).thenReturn(Optional.empty());
+        when(accountRepository.existsByAccountNumber("A2")).thenReturn(false);
 
         Assertions.assertThrows(AccountNotFoundException.class,()->{
             accountService.transfer(dto);
         });
+        verify(accountRepository, never()).debitBalanceIfSufficient(any(), anyLong());
 
         System.out.println("done with transfer destination acc not found");
     }
 
 
+    @Test
+    void testTransferDestinationRemovedIsRefunded(){
+        TransferRequestDTO dto = new TransferRequestDTO();
+        dto.setFromAccount("A1");
+        dto.setToAccount("A2");
+        dto.setAmount(new BigDecimal("100"));
+
+        when(accountRepository.existsByAccountNumber("A2")).thenReturn(true);
+        when(accountRepository.debitBalanceIfSufficient(eq("A1"), eq(10000L))).thenReturn(Optional.of(new Account()));
+        when(accountRepository.creditBalance(eq("A2"), eq(10000L))).thenReturn(Optional.empty());
+        when(accountRepository.creditBalance(eq("A1"), eq(10000L))).thenReturn(Optional.of(new Account()));
+
+        Assertions.assertThrows(AccountNotFoundException.class,()->{
+            accountService.transfer(dto);
+        });
+        verify(accountRepository).creditBalance("A1", 10000L);
+        verify(transactionRepository, never()).insert(any(Transactions.class));
+
+        System.out.println("done with transfer refund when destination removed");
+    }
+
+
+    @Test
+    void testTransferToSaturatedLaneIsRefunded() throws Exception {
+        executionLanes.laneCount = 2;
+        executionLanes.queueCapacity = 1;
+        executionLanes.start();
+        // source and destination on different lanes
+        String to = "A2";
+        String from = null;
+        for (int i = 1; from == null; i++) {
+            if (executionLanes.laneOf("A" + (100 + i)) != executionLanes.laneOf(to)) from = "A" + (100 + i);
+        }
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService blockers = Executors.newFixedThreadPool(2);
+        try {
+            // one mutation running on the destination lane and one waiting fill it up
+            CountDownLatch running = new CountDownLatch(1);
+            blockers.submit(() -> executionLanes.execute(to, () -> {
+                running.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }));
+            Assertions.assertTrue(running.await(5, TimeUnit.SECONDS));
+            Thread[] queued = new Thread[1];
+            blockers.submit(() -> {
+                queued[0] = Thread.currentThread();
+                return executionLanes.execute(to, () -> true);
+            });
+            while (queued[0] == null || queued[0].getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+
+            TransferRequestDTO dto = new TransferRequestDTO();
+            dto.setFromAccount(from);
+            dto.setToAccount(to);
+            dto.setAmount(new BigDecimal("100"));
+            when(accountRepository.existsByAccountNumber(to)).thenReturn(true);
+            when(accountRepository.debitBalanceIfSufficient(from, 10000L)).thenReturn(Optional.of(new Account()));
+            when(accountRepository.creditBalance(from, 10000L)).thenReturn(Optional.of(new Account()));
+
+            // not a plain 503: the debit happened and was given back
+            TransferAbortedException e = Assertions.assertThrows(TransferAbortedException.class, () -> accountService.transfer(dto));
+            Assertions.assertTrue(e.isRefunded());
+            verify(accountRepository).creditBalance(from, 10000L);
+            verify(accountRepository, never()).creditBalance(eq(to), anyLong());
+            verify(transactionRepository, never()).insert(any(Transactions.class));
+        } finally {
+            release.countDown();
+            blockers.shutdown();
+            executionLanes.stop();
+        }
+        System.out.println("done with transfer to saturated lane");
+    }
+
+
     // ========== GET ACCOUNT DETAILS ==========
     @Test
     void testGetAccountDetailsSuccess() {
@@ -383,19 +553,15 @@ public class AccountServiceTest {
     // ========== GET TRANSACTIONS ==========
     @Test
     void testGetTransactionsByAccount() {
-        Account acc = new Account();
-        acc.setAccountNumber("ACC001");
-
         Transactions t = new Transactions();
         t.setTransactionId("T1");
-        t.setAmount(100.0);
+        t.setAmount(10000);
         t.setStatus(TransactionStatus.SUCCESS);
         t.setType(TransactionType.DEPOSIT);
 
-        acc.setTransactions(Arrays.asList(t));
-
-        when(accountRepository.findByAccountNumber("ACC001"))
-                .thenReturn(Optional.of(acc));
+        when(accountRepository.existsByAccountNumber("ACC001")).thenReturn(true);
+        when(transactionRepository.findAllByAccount("ACC001"))
+                .thenReturn(Arrays.asList(t));
 
         List<TransactionResponseDTO> list =
                 accountService.getTransactionsByAccount("ACC001");
@@ -405,4 +571,146 @@ public class AccountServiceTest {
 
         System.out.println("done with get all transactions");
     }
+
+    @Test
+    void testGetTransactionsByAccountIsOneQuery() {
+        List<Transactions> history = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Transactions t = new Transactions();
+            t.setTransactionId("T" + i);
+            history.add(t);
+        }
+        when(accountRepository.existsByAccountNumber("ACC001")).thenReturn(true);
+        when(transactionRepository.findAllByAccount("ACC001")).thenReturn(history);
+
+        List<TransactionResponseDTO> list = accountService.getTransactionsByAccount("ACC001");
+
+        // one existence check plus one history query, no matter how long the history is
+        Assertions.assertEquals(5000, list.size());
+        verify(accountRepository, times(1)).existsByAccountNumber("ACC001");
+        verify(transactionRepository, times(1)).findAllByAccount("ACC001");
+        verifyNoMoreInteractions(accountRepository, transactionRepository);
+
+        System.out.println("done with history query count");
+    }
+
+    @Test
+    void testStreamTransactionsByAccount() {
+        Transactions t = new Transactions();
+        t.setTransactionId("T1");
+
+        when(accountRepository.existsByAccountNumber("ACC001")).thenReturn(true);
+        when(transactionRepository.streamAllByAccount("ACC001")).thenReturn(Stream.of(t));
+
+        List<TransactionResponseDTO> list = accountService.streamTransactionsByAccount("ACC001").toList();
+
+        Assertions.assertEquals("T1", list.get(0).getTransactionId());
+        System.out.println("done with stream transactions");
+    }
+
+    @Test
+    void testStreamTransactionsAccountNotFound() {
+        when(accountRepository.existsByAccountNumber("XXX")).thenReturn(false);
+
+        Assertions.assertThrows(AccountNotFoundException.class, () -> {
+            accountService.streamTransactionsByAccount("XXX");
+        });
+        // no cursor is opened for unknown accounts
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void testDepositLinksTransactionToAccount() {
+        DepositRequestDTO dto = new DepositRequestDTO();
+        dto.setAccountNumber("ACC001");
+        dto.setAmount(new BigDecimal("100"));
+
+        when(accountRepository.creditBalance("ACC001", 10000L)).thenReturn(Optional.of(new Account()));
+
+        accountService.deposit(dto);
+
+        // history lives only in the transactions collection
+        verify(transactionRepository).insert(argThat((Transactions t) -> t.getAccountNumbers().equals(List.of("ACC001"))));
+        verify(accountRepository, never()).save(any(Account.class));
+
+        System.out.println("done with deposit links transaction");
+    }
+
+    // ========== TRANSACTION PAGES ==========
+    private Transactions txnAt(String id, int minute) {
+        Transactions t = new Transactions();
+        t.setId(id);
+        t.setTransactionId("T" + minute);
+        t.setTimestamp(LocalDateTime.of(2025, 1, 1, 10, minute));
+        return t;
+    }
+
+    @Test
+    void testGetTransactionsPageHasNextCursor() {
+        TransactionHistoryRequestDTO req = new TransactionHistoryRequestDTO();
+        req.setAccountNumber("ACC001");
+        req.setLimit(2);
+
+        when(accountRepository.existsByAccountNumber("ACC001")).thenReturn(true);
+        when(transactionRepository.findHistoryPage("ACC001", null, null, null, null, false, 3))
+                .thenReturn(List.of(txnAt("65a000000000000000000003", 3), txnAt("65a000000000000000000002", 2),
+                        txnAt("65a000000000000000000001", 1)));
+
+        TransactionPageResponseDTO page = accountService.getTransactionsPage(req);
+
+        Assertions.assertEquals(2, page.getTransactions().size());
+        Assertions.assertEquals("T3", page.getTransactions().get(0).getTransactionId());
+        Assertions.assertNull(page.getPrevCursor());
+        Assertions.assertNotNull(page.getNextCursor());
+
+        // the next cursor continues strictly after the last returned row
+        req.setBefore(page.getNextCursor());
+        when(transactionRepository.findHistoryPage(eq("ACC001"), isNull(), isNull(), isNull(),
+                argThat(c -> c.getId().equals("65a000000000000000000002")), eq(false), eq(3)))
+                .thenReturn(List.of(txnAt("65a000000000000000000001", 1)));
+
+        TransactionPageResponseDTO older = accountService.getTransactionsPage(req);
+        Assertions.assertEquals("T1", older.getTransactions().get(0).getTransactionId());
+        Assertions.assertNull(older.getNextCursor());
+        Assertions.assertNotNull(older.getPrevCursor());
+
+        System.out.println("done with transaction pages");
+    }
+
+    @Test
+    void testGetTransactionsPageInvalidLimit() {
+        TransactionHistoryRequestDTO req = new TransactionHistoryRequestDTO();
+        req.setAccountNumber("ACC001");
+        req.setLimit(0);
+
+        Assertions.assertThrows(InvalidInputException.class, () -> {
+            accountService.getTransactionsPage(req);
+        });
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void testGetTransactionsPageInvalidCursor() {
+        TransactionHistoryRequestDTO req = new TransactionHistoryRequestDTO();
+        req.setAccountNumber("ACC001");
+        req.setBefore("not-a-cursor");
+
+        Assertions.assertThrows(InvalidInputException.class, () -> {
+            accountService.getTransactionsPage(req);
+        });
+    }
+
+    @Test
+    void testStatementPeriodTooLong() {
+        Assertions.assertThrows(InvalidInputException.class, () -> {
+            accountService.getStatement("ACC001", LocalDate.of(2026, 1, 1), LocalDate.of(2026, 2, 1));
+        });
+        Assertions.assertThrows(InvalidInputException.class, () -> {
+            accountService.getStatement("ACC001", LocalDate.of(2026, 1, 2), LocalDate.of(2026, 1, 1));
+        });
+        verifyNoInteractions(accountRepository);
+        // 31 days, first and last included
+        AccountService.checkStatementPeriod(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 31));
+        System.out.println("done with statement period checks");
+    }
 }
@@ -0,0 +1,242 @@
+package com.service;
+
+import com.dto.TransactionResponseDTO;
+import com.dto.TransferRequestDTO;
+import com.dto.TransferResultDTO;
+import com.exceptions.InsufficientBalanceException;
+import com.exceptions.InvalidInputException;
+import com.model.Account;
+import com.model.Transactions;
+import com.model.TransferBatch;
+import com.repository.AccountRepository;
+import com.repository.TransactionRepository;
+import com.repository.TransferBatchRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BatchTransferServiceTest {
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    TransactionRepository transactionRepository;
+
+    @Mock
+    AccountService accountService;
+
+    @Mock
+    TransferBatchRepository batchRepository;
+
+    @Spy
+    AccountCache accountCache = new AccountCache();
+
+    // daily rollups switched off
+    @Spy
+    DailyRollups dailyRollups = new DailyRollups();
+
+    // no striped accounts unless a test says so
+    @Spy
+    StripedAccounts stripedAccounts = new StripedAccounts();
+
+    @InjectMocks
+    BatchTransferService batchTransferService;
+
+    private static TransferRequestDTO transfer(String from, String to, String amount){
+        TransferRequestDTO dto = new TransferRequestDTO();
+        dto.setFromAccount(from);
+        dto.setToAccount(to);
+        dto.setAmount(new BigDecimal(amount));
+        return dto;
+    }
+
+    private static Account account(String accountNumber, long balance){
+        Account acc = new Account();
+        acc.setAccountNumber(accountNumber);
+        acc.setBalance(balance);
+        return acc;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchNetsChangesIntoOneBulkWrite() {
+        when(accountRepository.findByAccountNumberIn(anyCollection()))
+                .thenReturn(List.of(account("A1000", 10000), account("B1000", 0), account("C1000", 0)));
+        when(accountRepository.applyNetChanges(anyString(), anyMap())).thenReturn(2L);
+
+        List<TransferResultDTO> results = batchTransferService.transferBatch(List.of(
+                transfer("A1000", "B1000", "60"),
+                transfer("B1000", "C1000", "50"),  // only possible thanks to the first one
+                transfer("B1000", "A1000", "10")));  // B1000 nets out to zero and is not written
+
+        Assertions.assertTrue(results.stream().allMatch(TransferResultDTO::isSuccess));
+
+        ArgumentCaptor<Map<String, Long>> net = ArgumentCaptor.forClass(Map.class);
+        verify(accountRepository, times(1)).findByAccountNumberIn(anyCollection());
+        verify(accountRepository, times(1)).applyNetChanges(anyString(), net.capture());
+        Assertions.assertEquals(Map.of("A1000", -5000L, "C1000", 5000L), net.getValue());
+        verify(transactionRepository, times(1)).insert(anyList());
+        verify(accountRepository, never()).revertNetChanges(anyString(), anyMap());
+        verifyNoInteractions(accountService);
+        System.out.println("done with batch netting");
+    }
+
+    @Test
+    void testBatchReportsBadItemsAndKeepsTheRest() {
+        when(accountRepository.findByAccountNumberIn(anyCollection()))
+                .thenReturn(List.of(account("A1000", 10000), account("B1000", 0)));
+        when(accountRepository.applyNetChanges(anyString(), anyMap())).thenReturn(2L);
+
+        List<TransferResultDTO> results = batchTransferService.transferBatch(List.of(
+                transfer("A1000", "B1000", "-5"),
+                transfer("A1000", "A1000", "5"),
+                transfer("A1000", "Z1000", "5"),
+                transfer("A1000", "B1000", "500"),
+                transfer("A1000", "B1000", "40")));
+
+        Assertions.assertEquals(5, results.size());
+        Assertions.assertEquals("Amount must be greater than 0", results.get(0).getMessage());
+        Assertions.assertEquals("Source and destination cannot be same", results.get(1).getMessage());
+        Assertions.assertEquals("Account not found", results.get(2).getMessage());
+        Assertions.assertEquals("Insufficient balance", results.get(3).getMessage());
+        Assertions.assertTrue(results.get(4).isSuccess());
+        Assertions.assertEquals(4, results.get(4).getIndex());
+        System.out.println("done with batch partial failures");
+    }
+
+    @Test
+    void testBatchFallsBackWhenBalanceChangedConcurrently() {
+        when(accountRepository.findByAccountNumberIn(anyCollection()))
+                .thenReturn(List.of(account("A1000", 10000), account("B1000", 0)));
+        // the guard on A1000 did not match
+        when(accountRepository.applyNetChanges(anyString(), anyMap())).thenReturn(1L);
+        when(accountService.transfer(any(TransferRequestDTO.class)))
+                .thenReturn(new TransactionResponseDTO())
+                .thenThrow(new InsufficientBalanceException("Insufficient balance"));
+
+        List<TransferResultDTO> results = batchTransferService.transferBatch(List.of(
+                transfer("A1000", "B1000", "60"),
+                transfer("A1000", "B1000", "40")));
+
+        verify(accountRepository).revertNetChanges(anyString(), anyMap());
+        verify(transactionRepository, never()).insert(anyList());
+        verify(accountService, times(2)).transfer(any(TransferRequestDTO.class));
+        Assertions.assertTrue(results.get(0).isSuccess());
+        Assertions.assertFalse(results.get(1).isSuccess());
+        System.out.println("done with batch fallback");
+    }
+
+    @Test
+    void testBatchRevertedWhenTransactionsCannotBeInserted() {
+        when(accountRepository.findByAccountNumberIn(anyCollection()))
+                .thenReturn(List.of(account("A1000", 10000), account("B1000", 0)));
+        when(accountRepository.applyNetChanges(anyString(), anyMap())).thenReturn(2L);
+        when(transactionRepository.insert(anyList())).thenThrow(new DataAccessResourceFailureException("db down"));
+
+        List<TransferResultDTO> results = batchTransferService.transferBatch(List.of(transfer("A1000", "B1000", "60")));
+
+        // retried before giving up, then taken back by the markers
+        verify(transactionRepository, times(TransactionWriter.INSERT_ATTEMPTS)).insert(anyList());
+        verify(accountRepository).revertNetChanges(anyString(), anyMap());
+        verify(accountRepository, never()).clearBatchMarker(anyString(), anyCollection());
+        // whatever part of the insertMany got in goes too, and the batch is closed
+        ArgumentCaptor<TransferBatch> opened = ArgumentCaptor.forClass(TransferBatch.class);
+        verify(batchRepository).insert(opened.capture());
+        verify(batchRepository).deleteTransactions(opened.getValue().getId());
+        verify(batchRepository).deleteById(opened.getValue().getId());
+        Assertions.assertFalse(results.get(0).isSuccess());
+        System.out.println("done with batch insert failure");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchRecordIsWrittenBeforeBalancesMove() {
+        when(accountRepository.findByAccountNumberIn(anyCollection()))
+                .thenReturn(List.of(account("A1000", 10000), account("B1000", 0)));
+        when(accountRepository.applyNetChanges(anyString(), anyMap())).thenReturn(2L);
+
+        batchTransferService.transferBatch(List.of(transfer("A1000", "B1000", "60")));
+
+        InOrder order = inOrder(batchRepository, accountRepository, transactionRepository);
+        ArgumentCaptor<TransferBatch> opened = ArgumentCaptor.forClass(TransferBatch.class);
+        order.verify(batchRepository).insert(opened.capture());
+        order.verify(accountRepository).applyNetChanges(eq(opened.getValue().getId()), anyMap());
+        ArgumentCaptor<List<Transactions>> inserted = ArgumentCaptor.forClass(List.class);
+        order.verify(transactionRepository).insert(inserted.capture());
+        order.verify(accountRepository).clearBatchMarker(eq(opened.getValue().getId()), anyCollection());
+        order.verify(batchRepository).deleteById(opened.getValue().getId());
+        Assertions.assertEquals(Map.of("A1000", -6000L, "B1000", 6000L), opened.getValue().getChanges());
+        Assertions.assertEquals(1, opened.getValue().getTransactions());
+        Assertions.assertEquals(opened.getValue().getId(), inserted.getValue().get(0).getBatchId());
+        System.out.println("done with batch record");
+    }
+
+    @Test
+    void testSweepFinishesOrTakesBackStaleBatches() {
+        Map<String, Long> changes = Map.of("A1000", -6000L, "B1000", 6000L);
+        TransferBatch applied = new TransferBatch("b1", changes, 2);
+        TransferBatch cutShort = new TransferBatch("b2", changes, 2);
+        when(batchRepository.findByCreatedAtBefore(any())).thenReturn(List.of(applied, cutShort));
+        when(batchRepository.countTransactions("b1")).thenReturn(2L);
+        // crashed before (or while) its transactions went in
+        when(batchRepository.countTransactions("b2")).thenReturn(1L);
+        when(accountRepository.revertNetChanges("b2", changes)).thenReturn(Set.of());
+
+        Assertions.assertEquals(2, batchTransferService.sweep());
+
+        verify(accountRepository).clearBatchMarker("b1", changes.keySet());
+        verify(accountRepository, never()).revertNetChanges(eq("b1"), anyMap());
+        verify(batchRepository, never()).deleteTransactions("b1");
+        verify(accountRepository).revertNetChanges("b2", changes);
+        verify(batchRepository).deleteTransactions("b2");
+        verify(batchRepository).deleteById("b1");
+        verify(batchRepository).deleteById("b2");
+        System.out.println("done with batch sweep");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStripedSourceGoesAsSingleTransfer() {
+        doReturn(true).when(stripedAccounts).isStriped("MERC1000");
+        when(accountRepository.findByAccountNumberIn(anyCollection()))
+                .thenReturn(List.of(account("A1000", 10000), account("B1000", 0)));
+        when(accountRepository.applyNetChanges(anyString(), anyMap())).thenReturn(2L);
+        when(accountService.transfer(any(TransferRequestDTO.class))).thenReturn(new TransactionResponseDTO());
+
+        // the merchant's account document alone holds nothing, its stripes do
+        List<TransferResultDTO> results = batchTransferService.transferBatch(List.of(
+                transfer("MERC1000", "B1000", "60"),
+                transfer("A1000", "B1000", "40")));
+
+        Assertions.assertTrue(results.stream().allMatch(TransferResultDTO::isSuccess));
+        ArgumentCaptor<TransferRequestDTO> single = ArgumentCaptor.forClass(TransferRequestDTO.class);
+        verify(accountService, times(1)).transfer(single.capture());
+        Assertions.assertEquals("MERC1000", single.getValue().getFromAccount());
+        ArgumentCaptor<Map<String, Long>> net = ArgumentCaptor.forClass(Map.class);
+        verify(accountRepository).applyNetChanges(anyString(), net.capture());
+        Assertions.assertEquals(Map.of("A1000", -4000L, "B1000", 4000L), net.getValue());
+        System.out.println("done with striped source in a batch");
+    }
+
+    @Test
+    void testBatchTooLarge() {
+        batchTransferService.maxBatchSize = 1;
+        Assertions.assertThrows(InvalidInputException.class, () ->
+                batchTransferService.transferBatch(List.of(transfer("A1000", "B1000", "1"), transfer("A1000", "B1000", "1"))));
+        System.out.println("done with batch too large");
+    }
+}
@@ -0,0 +1,143 @@
+package com.service;
+
+import com.dto.StatementResponseDTO;
+import com.exceptions.FeatureDisabledException;
+import com.model.Account;
+import com.model.DailyRollup;
+import com.repository.DailyRollupRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DailyRollupsTest {
+
+    @Mock
+    DailyRollupRepository rollupRepository;
+
+    @Spy
+    StripedAccounts stripedAccounts = new StripedAccounts();
+
+    @InjectMocks
+    DailyRollups dailyRollups;
+
+    @BeforeEach
+    void start() {
+        dailyRollups.enabled = true;
+        dailyRollups.init();
+    }
+
+    private static DailyRollup rollup(String day, long credits, long debits, long transactions, long closing){
+        DailyRollup rollup = DailyRollups.change("ACC001", credits, debits, transactions, null);
+        rollup.setDay(day);
+        rollup.setLast(new DailyRollup.State(7L, closing));
+        return rollup;
+    }
+
+    @Test
+    void testStatementFromRollups() {
+        when(rollupRepository.findDays("ACC001", "2026-10-01", "2026-10-31")).thenReturn(List.of(
+                rollup("2026-10-03", 10000, 2500, 3, 17500),
+                rollup("2026-10-20", 0, 7500, 1, 10000)));
+
+        StatementResponseDTO statement = dailyRollups.statement("ACC001", LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 31));
+
+        // 175.00 - 100.00 + 25.00 before the first active day
+        Assertions.assertEquals(0, statement.getOpeningBalance().compareTo(new BigDecimal("100.00")));
+        Assertions.assertEquals(0, statement.getClosingBalance().compareTo(new BigDecimal("100.00")));
+        Assertions.assertEquals(0, statement.getTotalCredits().compareTo(new BigDecimal("100.00")));
+        Assertions.assertEquals(0, statement.getTotalDebits().compareTo(new BigDecimal("100.00")));
+        Assertions.assertEquals(4, statement.getTransactionCount());
+        Assertions.assertEquals(2, statement.getDays().size());
+        Assertions.assertEquals(0, statement.getDays().get(1).getOpeningBalance().compareTo(new BigDecimal("175.00")));
+        // balances of active days are all there is, no carry-over lookup
+        verify(rollupRepository, never()).findFirstByAccountNumberAndDayLessThanOrderByDayDesc(anyString(), anyString());
+        System.out.println("done with statement from rollups");
+    }
+
+    @Test
+    void testQuietPeriodCarriesTheBalanceOver() {
+        when(rollupRepository.findDays("ACC001", "2026-10-01", "2026-10-07")).thenReturn(List.of());
+        when(rollupRepository.findFirstByAccountNumberAndDayLessThanOrderByDayDesc("ACC001", "2026-10-01"))
+                .thenReturn(Optional.of(rollup("2026-09-12", 5000, 0, 1, 4200)));
+
+        StatementResponseDTO statement = dailyRollups.statement("ACC001", LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 7));
+
+        Assertions.assertEquals(0, statement.getOpeningBalance().compareTo(new BigDecimal("42.00")));
+        Assertions.assertEquals(0, statement.getClosingBalance().compareTo(new BigDecimal("42.00")));
+        Assertions.assertEquals(0, statement.getTransactionCount());
+        Assertions.assertTrue(statement.getDays().isEmpty());
+        System.out.println("done with quiet statement period");
+    }
+
+    @Test
+    void testFailedWriteFlagsTheDay() {
+        doThrow(new DataAccessResourceFailureException("db down")).when(rollupRepository).record(anyString(), anyList());
+
+        dailyRollups.recordAll(LocalDate.of(2026, 10, 3), List.of(DailyRollups.change("ACC001", 500, 0, 1, null),
+                DailyRollups.change("ACC002", 0, 500, 1, null)));
+
+        verify(rollupRepository).markIncomplete("2026-10-03", List.of("ACC001", "ACC002"));
+
+        // and a statement over it says so
+        DailyRollup flagged = rollup("2026-10-03", 10000, 0, 1, 10000);
+        flagged.setIncomplete(true);
+        when(rollupRepository.findDays("ACC001", "2026-10-01", "2026-10-07"))
+                .thenReturn(List.of(flagged, rollup("2026-10-05", 0, 2500, 1, 7500)));
+        StatementResponseDTO statement = dailyRollups.statement("ACC001", LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 7));
+        Assertions.assertTrue(statement.isIncomplete());
+        Assertions.assertTrue(statement.getDays().get(0).isIncomplete());
+        Assertions.assertFalse(statement.getDays().get(1).isIncomplete());
+        System.out.println("done with failed rollup write");
+    }
+
+    @Test
+    void testChangesAreKeptUnderTheGivenDay() {
+        // a transaction stamped before midnight whose rollup is written after it
+        dailyRollups.record(LocalDate.of(2026, 10, 17), "ACC001", 500, 0, 1, null);
+
+        verify(rollupRepository).record(eq("2026-10-17"), anyList());
+        System.out.println("done with rollup day");
+    }
+
+    @Test
+    void testStatementWhenOffIsNotImplemented() {
+        dailyRollups.enabled = false;
+        Assertions.assertThrows(FeatureDisabledException.class,
+                () -> dailyRollups.statement("ACC001", LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 7)));
+        System.out.println("done with statements switched off");
+    }
+
+    @Test
+    void testStripedAccountsRecordNoBalance() {
+        doReturn(true).when(stripedAccounts).isStriped("MERC1000");
+        Account acc = AccountService.newAccount("Merchant", "MERC1000");
+        acc.setBalance(300);
+        acc.setRevision(3L);
+
+        dailyRollups.recordAll(LocalDate.of(2026, 10, 3), List.of(DailyRollups.change("MERC1000", 300, 0, 1, acc),
+                DailyRollups.change("ACC001", 0, 300, 1, acc)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DailyRollup>> changes = ArgumentCaptor.forClass(List.class);
+        verify(rollupRepository).record(eq("2026-10-03"), changes.capture());
+        Assertions.assertNull(changes.getValue().get(0).getLast());
+        Assertions.assertEquals(300, changes.getValue().get(1).getLast().getBalance());
+        System.out.println("done with striped account rollups");
+    }
+}
@@ -0,0 +1,162 @@
+package com.service;
+
+import com.enums.TransactionType;
+import com.exceptions.AccountNotFoundException;
+import com.model.Account;
+import com.model.Transactions;
+import com.repository.AccountRepository;
+import com.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DepositCoalescerTest {
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    TransactionRepository transactionRepository;
+
+    @Spy
+    AccountExecutionLanes executionLanes = new AccountExecutionLanes();
+
+    // cache switched off, reads go to the repository
+    @Spy
+    AccountCache accountCache = new AccountCache();
+
+    // daily rollups switched off
+    @Spy
+    DailyRollups dailyRollups = new DailyRollups();
+
+    @InjectMocks
+    DepositCoalescer coalescer;
+
+    @BeforeEach
+    void start() {
+        coalescer.enabled = true;
+        coalescer.windowMs = 100;
+        coalescer.start();
+    }
+
+    @AfterEach
+    void stop() {
+        coalescer.stop();
+    }
+
+    private Transactions deposit(String id, long amount) {
+        Transactions t = new Transactions();
+        t.setTransactionId(id);
+        t.setType(TransactionType.DEPOSIT);
+        t.setAmount(amount);
+        t.setDestinationAccount("ACC001");
+        return t;
+    }
+
+    @Test
+    void testDepositsInWindowAreOneCommit() throws Exception {
+        when(accountRepository.creditBalance(eq("ACC001"), anyLong())).thenReturn(Optional.of(new Account()));
+
+        ExecutorService callers = Executors.newFixedThreadPool(20);
+        List<Future<Transactions>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Transactions t = deposit("T" + i, 1000);
+            futures.add(callers.submit(() -> coalescer.submit(t)));
+        }
+        Set<String> ids = new HashSet<>();
+        for (Future<Transactions> f : futures) {
+            ids.add(f.get(5, TimeUnit.SECONDS).getTransactionId());
+        }
+        callers.shutdown();
+
+        // every caller got its own transaction back
+        Assertions.assertEquals(20, ids.size());
+        // 20 deposits, a handful of round trips at most (normally one)
+        verify(accountRepository, atMost(3)).creditBalance(eq("ACC001"), anyLong());
+        verify(transactionRepository, atMost(3)).insert(anyList());
+        System.out.println("done with coalesced deposits");
+    }
+
+    @Test
+    void testSumIsAppliedOnce() {
+        when(accountRepository.creditBalance("ACC001", 2500L)).thenReturn(Optional.of(new Account()));
+
+        CompletableFuture<Transactions> a = CompletableFuture.supplyAsync(() -> coalescer.submit(deposit("T1", 1000)));
+        CompletableFuture<Transactions> b = CompletableFuture.supplyAsync(() -> coalescer.submit(deposit("T2", 1500)));
+
+        Assertions.assertEquals("T1", a.join().getTransactionId());
+        Assertions.assertEquals("T2", b.join().getTransactionId());
+        verify(accountRepository).creditBalance("ACC001", 2500L);
+        System.out.println("done with coalesced sum");
+    }
+
+    @Test
+    void testRollupsAreKeptUnderTheDepositDays() {
+        Account credited = new Account();
+        when(accountRepository.creditBalance("ACC001", 2500L)).thenReturn(Optional.of(credited));
+        doReturn(true).when(dailyRollups).isEnabled();
+        doNothing().when(dailyRollups).record(any(), anyString(), anyLong(), anyLong(), anyLong(), any());
+        Transactions beforeMidnight = deposit("T1", 1000);
+        beforeMidnight.setTimestamp(LocalDateTime.of(2026, 10, 17, 23, 59, 59, 950_000_000));
+        Transactions afterMidnight = deposit("T2", 1500);
+        afterMidnight.setTimestamp(LocalDateTime.of(2026, 10, 18, 0, 0, 0, 10_000_000));
+
+        CompletableFuture<Transactions> a = CompletableFuture.supplyAsync(() -> coalescer.submit(beforeMidnight));
+        CompletableFuture<Transactions> b = CompletableFuture.supplyAsync(() -> coalescer.submit(afterMidnight));
+        a.join();
+        b.join();
+
+        // one commit, but each deposit counts on its own day; only the newest day has the closing balance
+        verify(accountRepository).creditBalance("ACC001", 2500L);
+        verify(dailyRollups).record(LocalDate.of(2026, 10, 17), "ACC001", 1000, 0, 1, null);
+        verify(dailyRollups).record(LocalDate.of(2026, 10, 18), "ACC001", 1500, 0, 1, credited);
+        System.out.println("done with coalesced rollup days");
+    }
+
+    @Test
+    void testCreditedDepositsSucceedWhenTheInsertFails() {
+        when(accountRepository.creditBalance("ACC001", 2500L)).thenReturn(Optional.of(new Account()));
+        when(transactionRepository.insert(anyList())).thenThrow(new DataAccessResourceFailureException("db down"));
+        when(transactionRepository.insert(any(Transactions.class)))
+                .thenThrow(new DataAccessResourceFailureException("db down"))
+                .thenAnswer(i -> i.getArgument(0));
+
+        CompletableFuture<Transactions> a = CompletableFuture.supplyAsync(() -> coalescer.submit(deposit("T1", 1000)));
+        CompletableFuture<Transactions> b = CompletableFuture.supplyAsync(() -> coalescer.submit(deposit("T2", 1500)));
+
+        // the money is in the account, neither caller may be told otherwise
+        Assertions.assertEquals("T1", a.join().getTransactionId());
+        Assertions.assertEquals("T2", b.join().getTransactionId());
+        verify(accountRepository).creditBalance("ACC001", 2500L);
+        verify(transactionRepository, times(TransactionWriter.INSERT_ATTEMPTS)).insert(anyList());
+        System.out.println("done with coalesced insert failure");
+    }
+
+    @Test
+    void testMissingAccountFailsEveryCaller() {
+        when(accountRepository.creditBalance(eq("ACC001"), anyLong())).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(AccountNotFoundException.class, () -> coalescer.submit(deposit("T1", 1000)));
+        verify(transactionRepository, never()).insert(anyList());
+        System.out.println("done with coalesced missing account");
+    }
+}
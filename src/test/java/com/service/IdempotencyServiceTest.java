@@ -0,0 +1,196 @@
+package com.service;
+
+import com.dto.TransactionResponseDTO;
+import com.exceptions.InsufficientBalanceException;
+import com.exceptions.InvalidInputException;
+import com.exceptions.RequestInProgressException;
+import com.exceptions.ServiceBusyException;
+import com.model.IdempotencyRecord;
+import com.repository.IdempotencyRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+
+    @Mock
+    IdempotencyRepository idempotencyRepository;
+
+    @InjectMocks
+    IdempotencyService idempotencyService;
+
+    static final String DEPOSIT = IdempotencyService.fingerprint("DEPOSIT", "ACC001", new BigDecimal("100"));
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService.init();
+    }
+
+    private static TransactionResponseDTO response(String transactionId){
+        TransactionResponseDTO dto = new TransactionResponseDTO();
+        dto.setTransactionId(transactionId);
+        return dto;
+    }
+
+    @Test
+    void testRetryIsReplayedFromMemory() {
+        AtomicInteger runs = new AtomicInteger();
+
+        TransactionResponseDTO first = idempotencyService.execute("k1", DEPOSIT, () -> response("TXN-" + runs.incrementAndGet()));
+        TransactionResponseDTO retry = idempotencyService.execute("k1", DEPOSIT, () -> response("TXN-" + runs.incrementAndGet()));
+
+        Assertions.assertEquals(1, runs.get());
+        Assertions.assertSame(first, retry);
+        // claimed and completed once, the retry never reaches the db
+        verify(idempotencyRepository, times(1)).insert(any(IdempotencyRecord.class));
+        verify(idempotencyRepository, times(1)).save(any(IdempotencyRecord.class));
+        verify(idempotencyRepository, never()).findById(any());
+        System.out.println("done with idempotent replay");
+    }
+
+    @Test
+    void testConcurrentDuplicatesWaitForFirstAttempt() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        CompletableFuture<TransactionResponseDTO> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("k1", DEPOSIT, () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return response("TXN-1");
+                }));
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<TransactionResponseDTO> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("k1", DEPOSIT, () -> response("TXN-" + (1 + runs.incrementAndGet()))));
+        release.countDown();
+
+        Assertions.assertEquals("TXN-1", first.get(5, TimeUnit.SECONDS).getTransactionId());
+        Assertions.assertEquals("TXN-1", duplicate.get(5, TimeUnit.SECONDS).getTransactionId());
+        Assertions.assertEquals(1, runs.get());
+        System.out.println("done with concurrent duplicates");
+    }
+
+    @Test
+    void testCompletedOnAnotherNodeIsReplayedFromDb() {
+        IdempotencyRecord stored = new IdempotencyRecord("k1", DEPOSIT);
+        stored.setStatus(IdempotencyRecord.COMPLETED);
+        stored.setResponse(response("TXN-9"));
+        when(idempotencyRepository.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(idempotencyRepository.findById("k1")).thenReturn(Optional.of(stored));
+
+        TransactionResponseDTO replayed = idempotencyService.execute("k1", DEPOSIT, () -> Assertions.fail("must not run"));
+
+        Assertions.assertEquals("TXN-9", replayed.getTransactionId());
+        System.out.println("done with replay from db");
+    }
+
+    @Test
+    void testInProgressOnAnotherNodeIsConflict() {
+        when(idempotencyRepository.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(idempotencyRepository.findById("k1")).thenReturn(Optional.of(new IdempotencyRecord("k1", DEPOSIT)));
+
+        Assertions.assertThrows(RequestInProgressException.class, () ->
+                idempotencyService.execute("k1", DEPOSIT, () -> Assertions.fail("must not run")));
+        System.out.println("done with in progress conflict");
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequest() {
+        idempotencyService.execute("k1", DEPOSIT, () -> response("TXN-1"));
+        String other = IdempotencyService.fingerprint("DEPOSIT", "ACC001", new BigDecimal("200"));
+
+        Assertions.assertThrows(InvalidInputException.class, () -> idempotencyService.execute("k1", other, () -> response("TXN-2")));
+        // same amount written differently is the same request
+        Assertions.assertEquals(DEPOSIT, IdempotencyService.fingerprint("DEPOSIT", "ACC001", new BigDecimal("100.00")));
+        System.out.println("done with key reuse");
+    }
+
+    @Test
+    void testFailedAttemptReleasesKey() {
+        Assertions.assertThrows(InsufficientBalanceException.class, () -> idempotencyService.execute("k1", DEPOSIT, () -> {
+            throw new InsufficientBalanceException("Insufficient balance");
+        }));
+        verify(idempotencyRepository).deleteById("k1");
+
+        Assertions.assertEquals("TXN-2", idempotencyService.execute("k1", DEPOSIT, () -> response("TXN-2")).getTransactionId());
+        System.out.println("done with failed attempt");
+    }
+
+    @Test
+    void testBusyLaneReleasesKey() {
+        // the lane turned the work away before it ran
+        Assertions.assertThrows(ServiceBusyException.class, () -> idempotencyService.execute("k1", DEPOSIT, () -> {
+            throw new ServiceBusyException("Too many pending operations, try again later");
+        }));
+        verify(idempotencyRepository).deleteById("k1");
+        verify(idempotencyRepository, never()).save(any(IdempotencyRecord.class));
+        System.out.println("done with busy lane");
+    }
+
+    @Test
+    void testResponseIsReturnedWhenCompletionCannotBeSaved() {
+        when(idempotencyRepository.save(any(IdempotencyRecord.class))).thenThrow(new DataAccessResourceFailureException("db down"));
+        AtomicInteger runs = new AtomicInteger();
+
+        TransactionResponseDTO first = idempotencyService.execute("k1", DEPOSIT, () -> response("TXN-" + runs.incrementAndGet()));
+
+        // the deposit went through, so the caller gets its response and a retry here is still replayed
+        Assertions.assertEquals("TXN-1", first.getTransactionId());
+        Assertions.assertSame(first, idempotencyService.execute("k1", DEPOSIT, () -> response("TXN-" + runs.incrementAndGet())));
+        Assertions.assertEquals(1, runs.get());
+        System.out.println("done with completion not saved");
+    }
+
+    @Test
+    void testFailureAfterWritesKeepsKey() {
+        // e.g. the transaction insert failing after the balance went up
+        Assertions.assertThrows(DataAccessResourceFailureException.class, () -> idempotencyService.execute("k1", DEPOSIT, () -> {
+            throw new DataAccessResourceFailureException("db down");
+        }));
+        verify(idempotencyRepository, never()).deleteById("k1");
+        ArgumentCaptor<IdempotencyRecord> saved = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRepository).save(saved.capture());
+        Assertions.assertEquals(IdempotencyRecord.FAILED, saved.getValue().getStatus());
+
+        // the retry is not run again
+        when(idempotencyRepository.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(idempotencyRepository.findById("k1")).thenReturn(Optional.of(saved.getValue()));
+        Assertions.assertThrows(RequestInProgressException.class, () ->
+                idempotencyService.execute("k1", DEPOSIT, () -> Assertions.fail("must not run")));
+        System.out.println("done with failure after writes");
+    }
+
+    @Test
+    void testNoKeyRunsEveryTime() {
+        AtomicInteger runs = new AtomicInteger();
+        idempotencyService.execute(null, DEPOSIT, () -> response("TXN-" + runs.incrementAndGet()));
+        idempotencyService.execute(null, DEPOSIT, () -> response("TXN-" + runs.incrementAndGet()));
+
+        Assertions.assertEquals(2, runs.get());
+        verifyNoInteractions(idempotencyRepository);
+        System.out.println("done with no key");
+    }
+}
@@ -0,0 +1,147 @@
+package com.service;
+
+import com.dto.*;
+import com.exceptions.AccountNotFoundException;
+import com.exceptions.InsufficientBalanceException;
+import com.exceptions.InvalidAmountException;
+import com.model.Account;
+import com.model.Transactions;
+import com.repository.ReactiveAccountRepository;
+import com.repository.ReactiveTransactionRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveAccountServiceTest {
+
+    @Mock
+    ReactiveAccountRepository accountRepository;
+
+    @Mock
+    ReactiveTransactionRepository transactionRepository;
+
+    @Mock
+    AccountNumberAllocator accountNumberAllocator;
+
+    // cache switched off, reads go to the repository
+    @Spy
+    AccountCache accountCache = new AccountCache();
+
+    @InjectMocks
+    ReactiveAccountService accountService;
+
+    private static Account account(String accountNumber, long balance){
+        Account acc = new Account();
+        acc.setAccountNumber(accountNumber);
+        acc.setBalance(balance);
+        return acc;
+    }
+
+    @Test
+    void testCreateAccountRetriesTakenNumber() {
+        AccountRequestDTO dto = new AccountRequestDTO();
+        dto.setHolderName("Kiran");
+        when(accountNumberAllocator.next("Kiran")).thenReturn("KIRA1000", "KIRA1001");
+        when(accountRepository.insert(any(Account.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("dup")))
+                .thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        AccountResponseDTO response = accountService.createAccount(dto).block();
+
+        Assertions.assertEquals("KIRA1001", response.getAccountNumber());
+        Assertions.assertEquals(new BigDecimal("0.00"), response.getBalance());
+        System.out.println("done with reactive create account");
+    }
+
+    @Test
+    void testDepositSuccess() {
+        DepositRequestDTO dto = new DepositRequestDTO();
+        dto.setAccountNumber("ACC001");
+        dto.setAmount(new BigDecimal("100"));
+        when(accountRepository.creditBalance("ACC001", 10000L)).thenReturn(Mono.just(account("ACC001", 60000)));
+        when(transactionRepository.insert(any(Transactions.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        TransactionResponseDTO response = accountService.deposit(dto).block();
+
+        Assertions.assertEquals(new BigDecimal("100.00"), response.getAmount());
+        Assertions.assertEquals("ACC001", response.getDestinationAccount());
+        verify(transactionRepository, times(1)).insert(any(Transactions.class));
+        System.out.println("done with reactive deposit");
+    }
+
+    @Test
+    void testDepositInvalidAmountTouchesNothing() {
+        DepositRequestDTO dto = new DepositRequestDTO();
+        dto.setAccountNumber("ACC001");
+        dto.setAmount(new BigDecimal("-1"));
+
+        Assertions.assertThrows(InvalidAmountException.class, () -> accountService.deposit(dto).block());
+        verifyNoInteractions(accountRepository, transactionRepository);
+        System.out.println("done with reactive deposit invalid amount");
+    }
+
+    @Test
+    void testWithdrawInsufficientBalance() {
+        WithdrawRequestDTO dto = new WithdrawRequestDTO();
+        dto.setAccountNumber("ACC001");
+        dto.setAmount(new BigDecimal("600"));
+        when(accountRepository.debitBalanceIfSufficient("ACC001", 60000L)).thenReturn(Mono.empty());
+        when(accountRepository.existsByAccountNumber("ACC001")).thenReturn(Mono.just(true));
+
+        Assertions.assertThrows(InsufficientBalanceException.class, () -> accountService.withdraw(dto).block());
+        verify(transactionRepository, never()).insert(any(Transactions.class));
+        System.out.println("done with reactive withdraw insufficient balance");
+    }
+
+    @Test
+    void testTransferRefundsWhenDestinationDisappears() {
+        TransferRequestDTO dto = new TransferRequestDTO();
+        dto.setFromAccount("A1");
+        dto.setToAccount("A2");
+        dto.setAmount(new BigDecimal("100"));
+        when(accountRepository.existsByAccountNumber("A2")).thenReturn(Mono.just(true));
+        when(accountRepository.debitBalanceIfSufficient("A1", 10000L)).thenReturn(Mono.just(account("A1", 30000)));
+        when(accountRepository.creditBalance("A2", 10000L)).thenReturn(Mono.empty());
+        when(accountRepository.creditBalance("A1", 10000L)).thenReturn(Mono.just(account("A1", 40000)));
+
+        Assertions.assertThrows(AccountNotFoundException.class, () -> accountService.transfer(dto).block());
+        verify(accountRepository).creditBalance("A1", 10000L);
+        verify(transactionRepository, never()).insert(any(Transactions.class));
+        System.out.println("done with reactive transfer refund");
+    }
+
+    @Test
+    void testStreamFailsBeforeStreamingForUnknownAccount() {
+        when(accountRepository.existsByAccountNumber("XXX")).thenReturn(Mono.just(false));
+
+        Assertions.assertThrows(AccountNotFoundException.class, () -> accountService.streamTransactionsByAccount("XXX").block());
+        verifyNoInteractions(transactionRepository);
+        System.out.println("done with reactive stream not found");
+    }
+
+    @Test
+    void testStreamMapsHistory() {
+        Transactions t = AccountService.buildTransaction(com.enums.TransactionType.DEPOSIT, 500, null, "ACC001");
+        when(accountRepository.existsByAccountNumber("ACC001")).thenReturn(Mono.just(true));
+        when(transactionRepository.streamAllByAccount("ACC001")).thenReturn(Flux.just(t, t));
+
+        List<TransactionResponseDTO> list = accountService.streamTransactionsByAccount("ACC001").block().collectList().block();
+
+        Assertions.assertEquals(2, list.size());
+        Assertions.assertEquals(new BigDecimal("5.00"), list.get(0).getAmount());
+        System.out.println("done with reactive stream");
+    }
+}
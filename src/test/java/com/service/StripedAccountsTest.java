@@ -0,0 +1,148 @@
+package com.service;
+
+import com.dto.AccountResponseDTO;
+import com.exceptions.AccountNotFoundException;
+import com.model.Account;
+import com.model.AccountStripe;
+import com.repository.AccountRepository;
+import com.repository.AccountStripeRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StripedAccountsTest {
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    AccountStripeRepository stripeRepository;
+
+    @InjectMocks
+    StripedAccounts stripedAccounts;
+
+    @BeforeEach
+    void start() {
+        stripedAccounts.numbers = "MERC1000, MERC2000";
+        stripedAccounts.stripes = 4;
+        stripedAccounts.init();
+    }
+
+    private static AccountStripe stripe(int stripe, long balance) {
+        AccountStripe s = new AccountStripe();
+        s.setId(AccountStripe.idOf("MERC1000", stripe));
+        s.setAccountNumber("MERC1000");
+        s.setStripe(stripe);
+        s.setBalance(balance);
+        return s;
+    }
+
+    @Test
+    void testDepositsAreSpreadOverTheStripes() {
+        lenient().when(accountRepository.existsByAccountNumber("MERC1000")).thenReturn(true);
+        lenient().when(accountRepository.creditBalance("MERC1000", 100)).thenReturn(Optional.of(new Account()));
+
+        for(int i = 0; i < 200; i++){
+            Assertions.assertTrue(stripedAccounts.credit("MERC1000", 100));
+        }
+
+        // every stripe got some, the account document (stripe 0) included
+        verify(accountRepository, atLeastOnce()).creditBalance("MERC1000", 100);
+        for(int stripe = 1; stripe < 4; stripe++){
+            verify(stripeRepository, atLeastOnce()).credit("MERC1000", stripe, 100);
+        }
+        // the account is looked up once at most (not at all when stripe 0 came first), not per deposit
+        verify(accountRepository, atMost(1)).existsByAccountNumber("MERC1000");
+        Assertions.assertTrue(stripedAccounts.isStriped("MERC2000"));
+        Assertions.assertFalse(stripedAccounts.isStriped("KIRA1000"));
+        System.out.println("done with striped deposits");
+    }
+
+    @Test
+    void testWithdrawalGathersTheStripesWhenOneIsShort() {
+        lenient().when(stripeRepository.debitIfSufficient(eq("MERC1000"), anyInt(), eq(900L))).thenReturn(false);
+        when(stripeRepository.findByAccountNumber("MERC1000")).thenReturn(List.of(stripe(1, 500), stripe(2, 0), stripe(3, 300)));
+        // the account document is short until the stripes are moved in
+        AtomicBoolean gathered = new AtomicBoolean();
+        when(stripeRepository.moveToAccount(eq("MERC1000"), anyInt(), anyLong())).thenAnswer(i -> {
+            gathered.set(true);
+            return true;
+        });
+        when(accountRepository.debitBalanceIfSufficient("MERC1000", 900L))
+                .thenAnswer(i -> gathered.get() ? Optional.of(new Account()) : Optional.empty());
+
+        Assertions.assertTrue(stripedAccounts.debit("MERC1000", 900));
+
+        verify(stripeRepository).moveToAccount("MERC1000", 1, 500);
+        verify(stripeRepository).moveToAccount("MERC1000", 3, 300);
+        verify(stripeRepository, never()).moveToAccount("MERC1000", 2, 0);
+        System.out.println("done with striped withdrawal fallback");
+    }
+
+    @Test
+    void testDetailsSumTheStripesAndAreCached() {
+        Account acc = AccountService.newAccount("Merchant", "MERC1000");
+        acc.setBalance(3500);
+        when(stripeRepository.findWithStripeBalances("MERC1000")).thenReturn(Optional.of(acc));
+
+        AccountResponseDTO details = stripedAccounts.details("MERC1000");
+        stripedAccounts.details("MERC1000");
+
+        Assertions.assertEquals(0, details.getBalance().compareTo(new BigDecimal("35.00")));
+        verify(stripeRepository, times(1)).findWithStripeBalances("MERC1000");
+        verifyNoInteractions(accountRepository);
+        System.out.println("done with striped account details");
+    }
+
+    @Test
+    void testDetailsLoadDoesNotHoldUpOtherAccounts() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(stripeRepository.findWithStripeBalances("MERC1000")).thenAnswer(i -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(AccountService.newAccount("Merchant", "MERC1000"));
+        });
+        when(stripeRepository.findWithStripeBalances("MERC2000"))
+                .thenReturn(Optional.of(AccountService.newAccount("Shop", "MERC2000")));
+
+        CompletableFuture<AccountResponseDTO> first = CompletableFuture.supplyAsync(() -> stripedAccounts.details("MERC1000"));
+        Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<AccountResponseDTO> second = CompletableFuture.supplyAsync(() -> stripedAccounts.details("MERC1000"));
+
+        // another account is served while the first one is still loading
+        Assertions.assertEquals("MERC2000", stripedAccounts.details("MERC2000").getAccountNumber());
+        Assertions.assertFalse(first.isDone());
+        release.countDown();
+
+        // the second caller took the first one's result instead of loading again
+        Assertions.assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        verify(stripeRepository, times(1)).findWithStripeBalances("MERC1000");
+        System.out.println("done with striped details loading");
+    }
+
+    @Test
+    void testMissingAccountIsNotCached() {
+        when(stripeRepository.findWithStripeBalances("MERC1000")).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(AccountNotFoundException.class, () -> stripedAccounts.details("MERC1000"));
+        Assertions.assertThrows(AccountNotFoundException.class, () -> stripedAccounts.details("MERC1000"));
+        verify(stripeRepository, times(2)).findWithStripeBalances("MERC1000");
+        System.out.println("done with striped details of a missing account");
+    }
+}
@@ -0,0 +1,113 @@
+package com.service;
+
+import com.enums.TransactionType;
+import com.model.Transactions;
+import com.repository.TransactionRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.mockito.Mockito.*;
+
+public class TransactionWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private TransactionWriter writer(TransactionRepository repository){
+        TransactionWriter writer = new TransactionWriter();
+        writer.transactionRepository = repository;
+        writer.enabled = true;
+        writer.maxBatch = 10;
+        writer.flushIntervalMs = 50;
+        writer.spillDir = dir.toString();
+        writer.start();
+        return writer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> insertedIds(TransactionRepository repository){
+        List<String> ids = new ArrayList<>();
+        mockingDetails(repository).getInvocations().stream()
+                .filter(i -> i.getMethod().getName().equals("insert") && i.getArgument(0) instanceof List)
+                .forEach(i -> ((List<Transactions>) i.getArgument(0)).forEach(t -> ids.add(t.getTransactionId())));
+        return ids;
+    }
+
+    private long spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)){
+            return files.count();
+        }
+    }
+
+    @Test
+    void testSubmittedTransactionsAreInsertedInBatches() throws IOException {
+        TransactionRepository repository = mock(TransactionRepository.class);
+        TransactionWriter writer = writer(repository);
+        List<String> submitted = new ArrayList<>();
+        for(int i = 0; i < 25; i++){
+            Transactions t = AccountService.buildTransaction(TransactionType.DEPOSIT, 100 + i, null, "KIRA1000");
+            writer.submit(t);
+            submitted.add(t.getTransactionId());
+        }
+
+        // a history read sees all of them
+        writer.awaitWritten();
+        Assertions.assertEquals(submitted, insertedIds(repository));
+        verify(repository, never()).insert(any(Transactions.class));
+        verify(repository, atMost(3)).insert(anyList());
+
+        // everything written, nothing left to replay
+        writer.stop();
+        Assertions.assertEquals(0, spillFiles());
+        System.out.println("done with write-behind batches");
+    }
+
+    @Test
+    void testFailedSyncInsertsDirectly() throws IOException {
+        TransactionRepository repository = mock(TransactionRepository.class);
+        TransactionWriter writer = writer(repository);
+        writer.spill = spy(writer.spill);
+        doThrow(new UncheckedIOException(new IOException("disk gone"))).when(writer.spill).sync(anyLong());
+
+        Transactions t = AccountService.buildTransaction(TransactionType.DEPOSIT, 100, null, "KIRA1000");
+        writer.submit(t);
+
+        // in the db before the mutation answers, not only in memory
+        verify(repository).insert(t);
+        writer.stop();
+        System.out.println("done with failed spill sync");
+    }
+
+    @Test
+    void testSpilledTransactionsAreInsertedOnRestart() throws IOException {
+        TransactionRepository down = mock(TransactionRepository.class);
+        when(down.insert(anyList())).thenThrow(new DataAccessResourceFailureException("db down"));
+        TransactionWriter writer = writer(down);
+        List<String> submitted = new ArrayList<>();
+        for(int i = 0; i < 3; i++){
+            Transactions t = AccountService.buildTransaction(TransactionType.TRANSFER, 500, "KIRA1000", "RAVI1000");
+            writer.submit(t);
+            submitted.add(t.getTransactionId());
+        }
+        writer.stop();
+        Assertions.assertEquals(1, spillFiles());
+
+        // next start writes them before taking anything new
+        TransactionRepository up = mock(TransactionRepository.class);
+        TransactionWriter restarted = writer(up);
+        Assertions.assertEquals(submitted, insertedIds(up));
+        restarted.stop();
+        Assertions.assertEquals(0, spillFiles());
+        System.out.println("done with write-behind spill replay");
+    }
+}
@@ -0,0 +1,45 @@
+package com.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class AccountNumberGeneratorTest {
+
+    @Test
+    void testGeneratedNumbersPackLosslessly() {
+        Set<Long> keys = new HashSet<>();
+        for(String accountNumber : List.of("KIRA1000", "KIR1000", "JO1000", "A1", "ZZZZ9999", "KIRA10000", "KIRA8796093022207")){
+            long packed = AccountNumberGenerator.pack(accountNumber);
+            Assertions.assertTrue(packed > 0, accountNumber);
+            Assertions.assertEquals(accountNumber, AccountNumberGenerator.unpack(packed));
+            Assertions.assertTrue(keys.add(packed));
+        }
+        System.out.println("done with account number packing");
+    }
+
+    @Test
+    void testPrefixIsLettersOnly() {
+        Assertions.assertEquals("KIRA", AccountNumberGenerator.prefixOf("  kiran kumar"));
+        Assertions.assertEquals("JOSM", AccountNumberGenerator.prefixOf("Jo Smith"));
+        Assertions.assertEquals("RD", AccountNumberGenerator.prefixOf("R2-D2"));
+        Assertions.assertEquals("ACCT", AccountNumberGenerator.prefixOf("1234"));
+        for(String holderName : List.of("Jo Smith", "R2-D2", "O'Neil", "1234", "Zoë")){
+            String accountNumber = AccountNumberGenerator.format(AccountNumberGenerator.prefixOf(holderName), 0);
+            Assertions.assertTrue(AccountNumberGenerator.pack(accountNumber) > 0, accountNumber);
+        }
+        System.out.println("done with letter prefixes");
+    }
+
+    @Test
+    void testOtherShapesDoNotPack() {
+        // lower case, five letters, no letters, no digits, leading zero, a space, too many digits
+        for(String accountNumber : List.of("kira1000", "KIRAN1000", "1000", "NONE", "ACC001", "JO S1000", "KIRA8796093022208", "")){
+            Assertions.assertEquals(0, AccountNumberGenerator.pack(accountNumber), accountNumber);
+        }
+        System.out.println("done with unpackable account numbers");
+    }
+}
@@ -0,0 +1,35 @@
+package com.utils;
+
+import com.exceptions.InvalidAmountException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+public class MoneyTest {
+
+    @Test
+    void testToMinor() {
+        Assertions.assertEquals(10050, Money.toMinor(new BigDecimal("100.5")));
+        Assertions.assertEquals(30, Money.toMinor(new BigDecimal("0.30")));
+        Assertions.assertEquals(500, Money.toMinor(new BigDecimal("5")));
+        Assertions.assertEquals(100, Money.toMinor(new BigDecimal("1.000")));
+        System.out.println("done with money to minor");
+    }
+
+    @Test
+    void testToMinorRejectsFractionOfCent() {
+        Assertions.assertThrows(InvalidAmountException.class, () -> Money.toMinor(new BigDecimal("0.001")));
+        Assertions.assertThrows(InvalidAmountException.class, () -> Money.toMinor(new BigDecimal("1e30")));
+        System.out.println("done with money fraction of cent");
+    }
+
+    @Test
+    void testSumsStayExact() {
+        // 0.1 + 0.2 in doubles is 0.30000000000000004
+        long total = Money.toMinor(new BigDecimal("0.1")) + Money.toMinor(new BigDecimal("0.2"));
+        Assertions.assertEquals(new BigDecimal("0.30"), Money.fromMinor(total));
+        Assertions.assertEquals("100.50", Money.fromMinor(10050).toPlainString());
+        System.out.println("done with money sums");
+    }
+}
@@ -0,0 +1,42 @@
+package com.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ScalableBloomFilterTest {
+
+    @Test
+    void testNoFalseNegativesWhileGrowing() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        for(int i = 0; i < 20000; i++){
+            filter.add("KIRA" + (1000 + i));
+        }
+        for(int i = 0; i < 20000; i++){
+            Assertions.assertTrue(filter.mightContain("KIRA" + (1000 + i)));
+        }
+        // 1000 + 2000 + 4000 + 8000 + 16000 holds them
+        Assertions.assertEquals(5, filter.stageCount());
+        // a false positive on add looks like a duplicate and is not counted
+        Assertions.assertTrue(filter.size() > 19800 && filter.size() <= 20000, "size " + filter.size());
+        System.out.println("done with bloom filter growth");
+    }
+
+    @Test
+    void testFalsePositiveRateStaysBelowTarget() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        for(int i = 0; i < 50000; i++){
+            filter.add("KIRA" + (1000 + i));
+        }
+        Assertions.assertTrue(filter.expectedFalsePositiveRate() < 0.01, "expected " + filter.expectedFalsePositiveRate());
+
+        int falsePositives = 0;
+        int probes = 100000;
+        for(int i = 0; i < probes; i++){
+            if(filter.mightContain("RAVI" + (1000 + i))){
+                falsePositives++;
+            }
+        }
+        Assertions.assertTrue(falsePositives < probes * 0.01, falsePositives + " false positives");
+        System.out.println("done with bloom filter false positive rate");
+    }
+}
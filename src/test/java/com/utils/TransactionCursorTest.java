@@ -0,0 +1,42 @@
+package com.utils;
+
+import com.exceptions.InvalidInputException;
+import com.model.Transactions;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+public class TransactionCursorTest {
+
+    private static String token(String raw){
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testCursorRoundTrip() {
+        Transactions t = new Transactions();
+        t.setId(new ObjectId().toHexString());
+        t.setTimestamp(LocalDateTime.of(2026, 10, 18, 9, 30, 15));
+
+        TransactionCursor cursor = TransactionCursor.decode(TransactionCursor.encode(t));
+
+        Assertions.assertEquals(t.getTimestamp(), cursor.getTimestamp());
+        Assertions.assertEquals(t.getId(), cursor.getId());
+        System.out.println("done with cursor round trip");
+    }
+
+    @Test
+    void testTamperedCursorIsInvalidInput() {
+        // a valid timestamp with an id that is not an ObjectId, a bad timestamp, no separator, not base64
+        for(String token : new String[]{token("2026-10-18T09:30:15|{\"$gt\":\"\"}"), token("2026-10-18T09:30:15|abc"),
+                token("yesterday|" + new ObjectId().toHexString()), token("2026-10-18T09:30:15"), "%%%"}){
+            InvalidInputException e = Assertions.assertThrows(InvalidInputException.class, () -> TransactionCursor.decode(token), token);
+            Assertions.assertEquals("Invalid cursor", e.getMessage());
+        }
+        System.out.println("done with tampered cursors");
+    }
+}
@@ -0,0 +1,71 @@
+package com.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TransactionIdGeneratorTest {
+
+    @AfterEach
+    void resetNode() {
+        TransactionIdGenerator.setNodeId(0);
+    }
+
+    @Test
+    void testIdFormat() {
+        String id = TransactionIdGenerator.generateTransactionId();
+        Assertions.assertTrue(id.matches("TXN-\\d{19}"), id);
+        System.out.println("done with transaction id format");
+    }
+
+    @Test
+    void testIdsAreSortedAndUnique() {
+        String prev = TransactionIdGenerator.generateTransactionId();
+        // more than one millisecond worth of sequence numbers
+        for (int i = 0; i < 100_000; i++) {
+            String next = TransactionIdGenerator.generateTransactionId();
+            Assertions.assertTrue(next.compareTo(prev) > 0, prev + " >= " + next);
+            prev = next;
+        }
+        System.out.println("done with sorted transaction ids");
+    }
+
+    @Test
+    void testNodeIdIsPartOfId() {
+        TransactionIdGenerator.setNodeId(5);
+        long id = TransactionIdGenerator.nextId();
+        Assertions.assertEquals(5, (id >>> TransactionIdGenerator.SEQUENCE_BITS) & TransactionIdGenerator.MAX_NODE_ID);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TransactionIdGenerator.setNodeId(1024));
+        System.out.println("done with node id");
+    }
+
+    @Test
+    void testConcurrentIdsAreUnique() throws Exception {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    ids.add(TransactionIdGenerator.nextId());
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        pool.shutdown();
+
+        Assertions.assertEquals(400_000, ids.size());
+        System.out.println("done with concurrent transaction ids");
+    }
+}
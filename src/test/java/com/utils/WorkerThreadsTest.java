@@ -0,0 +1,34 @@
+package com.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadFactory;
+
+public class WorkerThreadsTest {
+
+    @Test
+    void testPlatformThreads() {
+        ThreadFactory factory = WorkerThreads.factory("worker", false);
+        Thread first = factory.newThread(() -> {});
+        Thread second = factory.newThread(() -> {});
+
+        Assertions.assertEquals("worker-0", first.getName());
+        Assertions.assertEquals("worker-1", second.getName());
+        Assertions.assertTrue(first.isDaemon());
+        System.out.println("done with platform threads");
+    }
+
+    @Test
+    void testVirtualThreadsFallBackWithoutJdkSupport() throws Exception {
+        ThreadFactory factory = WorkerThreads.factory("worker", true);
+        Thread thread = factory.newThread(() -> {});
+        thread.start();
+        thread.join();
+
+        // on JDK 21+ it is a virtual thread, which is always a daemon, older JDKs get a daemon platform thread
+        Assertions.assertTrue(thread.isDaemon());
+        Assertions.assertEquals("worker-0", thread.getName());
+        System.out.println("done with virtual thread fallback");
+    }
+}